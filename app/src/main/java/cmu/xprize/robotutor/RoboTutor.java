@@ -35,7 +35,6 @@ import android.view.WindowManager;
 import android.widget.TextView;
 
 import java.io.File;
-import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
@@ -47,10 +46,12 @@ import cmu.xprize.comp_logging.CPerfLogManager;
 import cmu.xprize.comp_logging.CPreferenceCache;
 import cmu.xprize.comp_logging.ILogManager;
 import cmu.xprize.comp_logging.IPerfLogManager;
+import cmu.xprize.comp_logging.TLOG_CONST;
 import cmu.xprize.ltkplus.CRecognizerPlus;
 import cmu.xprize.ltkplus.GCONST;
 import cmu.xprize.ltkplus.IGlyphSink;
 import cmu.xprize.robotutor.startup.CStartView;
+import cmu.xprize.robotutor.startup.CStartupGraph;
 import cmu.xprize.robotutor.startup.configuration.Configuration;
 import cmu.xprize.robotutor.startup.configuration.ConfigurationItems;
 import cmu.xprize.robotutor.startup.configuration.ConfigurationQuickOptions;
@@ -117,6 +118,8 @@ public class RoboTutor extends Activity implements IReadyListener, IRoboTutor {
 
     private static final String LOG_SEQUENCE_ID = "LOG_SEQUENCE_ID";
 
+    private static final int    STARTUP_THREADS = 3;        // install steps run at once - they are mostly I/O bound
+
     // deprecated variable , see issue #427
     public static final boolean OLD_MENU = true;
 
@@ -238,10 +241,22 @@ public class RoboTutor extends Activity implements IReadyListener, IRoboTutor {
         logManager.transferHotLogs(hotLogPath, readyLogPath);
         logManager.transferHotLogs(hotLogPathPerf, readyLogPathPerf);
 
+        // Use the group-commit writer - avoids two synchronous writes per packet
+        //
+        logManager.setBatchMode(true, TLOG_CONST.BATCH_MAX_BYTES, TLOG_CONST.BATCH_MAX_DELAY);
+        logManager.setSegmentPolicy(TLOG_CONST.SEGMENT_MAX_BYTES, TLOG_CONST.SEGMENT_MAX_DURATION, true);
+
+        // VERBOSE and DEBUG events only go to logcat - release builds don't build or emit them
+        // unless the engine descriptor "logLevel" overrides this default
+        //
+        logManager.setLogLevel(null, BuildConfig.DEBUG ? Log.VERBOSE : Log.INFO);
         logManager.startLogging(hotLogPath, logFilename);
         CErrorManager.setLogManager(logManager);
 
         perfLogManager = CPerfLogManager.getInstance();
+        perfLogManager.setBatchMode(true, TLOG_CONST.BATCH_MAX_BYTES, TLOG_CONST.BATCH_MAX_DELAY);
+        perfLogManager.setSegmentPolicy(TLOG_CONST.SEGMENT_MAX_BYTES, TLOG_CONST.SEGMENT_MAX_DURATION, true);
+        perfLogManager.setBinaryMode(true);
         perfLogManager.startLogging(hotLogPathPerf, "PERF_" + logFilename);
 
         // TODO : implement time stamps
@@ -387,18 +402,25 @@ public class RoboTutor extends Activity implements IReadyListener, IRoboTutor {
 
         boolean result = super.dispatchTouchEvent(event);
 
+        // The coordinates are only boxed when VERBOSE is enabled
+        //
         switch (event.getAction()) {
 
             case MotionEvent.ACTION_UP:
-                logManager.postEvent_V(TAG, "RT_SCREEN_RELEASE: X:" + event.getX() + "  Y:" + event.getY());
+                if(logManager.isEnabled(TAG, Log.VERBOSE))
+                    logManager.postEvent_V(TAG, "RT_SCREEN_RELEASE: X:%s  Y:%s", event.getX(), event.getY());
                 break;
 
+            // the RT_SCREEN_MOVE sampler in the engine descriptor limits their rate
+            //
             case MotionEvent.ACTION_MOVE:
-                logManager.postEvent_V(TAG, "RT_SCREEN_MOVE X:" + event.getX() + "  Y:" + event.getY());
+                if(logManager.isEnabled(TLOG_CONST.SCREEN_MOVE_TAG, Log.VERBOSE))
+                    logManager.postEvent_V(TLOG_CONST.SCREEN_MOVE_TAG, "RT_SCREEN_MOVE X:%s  Y:%s", event.getX(), event.getY());
                 break;
 
             case MotionEvent.ACTION_DOWN:
-                logManager.postEvent_V(TAG, "RT_SCREEN_TOUCH X:" + event.getX() + "  Y:" + event.getY());
+                if(logManager.isEnabled(TAG, Log.VERBOSE))
+                    logManager.postEvent_V(TAG, "RT_SCREEN_TOUCH X:%s  Y:%s", event.getX(), event.getY());
                 break;
         }
 
@@ -424,55 +446,98 @@ public class RoboTutor extends Activity implements IReadyListener, IRoboTutor {
             Log.d(TCONST.DEBUG_GRAY_SCREEN_TAG, "rt: tutorConfigTask.doInBackground");
             boolean result = false;
 
-            try {
-                // TODO: Don't do this in production
-                // At the moment we always reinstall the tutor spec data - for 
-              
-              
-                if(CacheSource.equals(TCONST.EXTERN)) {
-                    tutorAssetManager.installAssets(TCONST.TUTORROOT);
-                    logManager.postEvent_V(TAG, "INFO:Tutor Assets installed");
+            // The install steps are independent apart from the recognizer, which needs the LTK
+            // data in place - the asset packages share the asset manager's match state so they
+            // run in sequence.  The LTK projects and glyphs both unpack into the LTK data folder
+            // so they run in sequence too.
+            //
+            CStartupGraph startup = new CStartupGraph(STARTUP_THREADS);
+
+            startup.addStep("tutor_root", new CStartupGraph.IStartupStep() {
+                @Override
+                public void run() throws Exception {
+
+                    // TODO: Don't do this in production
+                    // At the moment we always reinstall the tutor spec data - for
+                    if(CacheSource.equals(TCONST.EXTERN)) {
+                        tutorAssetManager.installAssets(TCONST.TUTORROOT);
+                        logManager.postEvent_V(TAG, "INFO:Tutor Assets installed");
+                    }
                 }
+            });
 
-                if(!tutorAssetManager.fileCheck(TCONST.LTK_PROJECT_ASSETS)) {
-                    tutorAssetManager.installAssets(TCONST.LTK_PROJEXCTS);
-                    logManager.postEvent_V(TAG, "INFO:LTK Projects installed");
+            startup.addStep("ltk_projects", new CStartupGraph.IStartupStep() {
+                @Override
+                public void run() throws Exception {
+
+                    if(!tutorAssetManager.fileCheck(TCONST.LTK_PROJECT_ASSETS)) {
+                        tutorAssetManager.installAssets(TCONST.LTK_PROJEXCTS);
+                        logManager.postEvent_V(TAG, "INFO:LTK Projects installed");
+
+                        // Note the Projects Zip file is anticipated to contain a storyFolder called "projects"
+                        // containing the ltk data - this is unpacked to RoboTutor.APP_PRIVATE_FILES + TCONST.LTK_DATA_FOLDER
+                        //
+                        tutorAssetManager.extractAsset(TCONST.LTK_PROJEXCTS, TCONST.LTK_DATA_FOLDER);
+                        logManager.postEvent_V(TAG, "INFO:LTK Projects extracted");
+                    }
+                }
+            });
 
-                    // Note the Projects Zip file is anticipated to contain a storyFolder called "projects"
-                    // containing the ltk data - this is unpacked to RoboTutor.APP_PRIVATE_FILES + TCONST.LTK_DATA_FOLDER
-                    //
-                    tutorAssetManager.extractAsset(TCONST.LTK_PROJEXCTS, TCONST.LTK_DATA_FOLDER);
-                    logManager.postEvent_V(TAG, "INFO:LTK Projects extracted");
+            startup.addStep("ltk_glyphs", new CStartupGraph.IStartupStep() {
+                @Override
+                public void run() throws Exception {
+
+                    if(!tutorAssetManager.fileCheck(TCONST.LTK_GLYPH_ASSETS)) {
+                        tutorAssetManager.installAssets(TCONST.LTK_GLYPHS);
+                        logManager.postEvent_V(TAG, "INFO:LTK Glyphs installed");
+
+                        // Note the Glyphs Zip file is anticipated to contain a storyFolder called "glyphs"
+                        // containing the ltk glyph data - this is unpacked to RoboTutor.APP_PRIVATE_FILES + TCONST.LTK_DATA_FOLDER
+                        //
+                        tutorAssetManager.extractAsset(TCONST.LTK_GLYPHS, TCONST.LTK_DATA_FOLDER);
+                        logManager.postEvent_V(TAG, "INFO:LTK Glyphs extracted");
+                    }
                 }
+            }, "ltk_projects");
 
-                if(!tutorAssetManager.fileCheck(TCONST.LTK_GLYPH_ASSETS)) {
-                    tutorAssetManager.installAssets(TCONST.LTK_GLYPHS);
-                    logManager.postEvent_V(TAG, "INFO:LTK Glyphs installed");
+            // Find and install (move to ext_asset_path) any new or updated audio/story assets
+            //
+            startup.addStep("assets_en", new CStartupGraph.IStartupStep() {
+                @Override
+                public void run() throws Exception {
+                    tutorAssetManager.updateAssetPackages(ENGLISH_ASSET_PATTERN, RoboTutor.EXT_ASSET_PATH);
+                }
+            });
 
-                    // Note the Glyphs Zip file is anticipated to contain a storyFolder called "glyphs"
-                    // containing the ltk glyph data - this is unpacked to RoboTutor.APP_PRIVATE_FILES + TCONST.LTK_DATA_FOLDER
-                    //
-                    tutorAssetManager.extractAsset(TCONST.LTK_GLYPHS, TCONST.LTK_DATA_FOLDER);
-                    logManager.postEvent_V(TAG, "INFO:LTK Glyphs extracted");
+            startup.addStep("assets_sw", new CStartupGraph.IStartupStep() {
+                @Override
+                public void run() throws Exception {
+                    tutorAssetManager.updateAssetPackages(SWAHILI_ASSET_PATTERN, RoboTutor.EXT_ASSET_PATH);
                 }
+            }, "assets_en");
 
-                // Find and install (move to ext_asset_path) any new or updated audio/story assets
-                //
-                tutorAssetManager.updateAssetPackages(ENGLISH_ASSET_PATTERN, RoboTutor.EXT_ASSET_PATH);
-                tutorAssetManager.updateAssetPackages(SWAHILI_ASSET_PATTERN, RoboTutor.EXT_ASSET_PATH);
+            // Create the one system levelFolder LTKPLUS recognizer
+            //
+            startup.addStep("ltk_recognizer", new CStartupGraph.IStartupStep() {
+                @Override
+                public void run() throws Exception {
 
-                // Create the one system levelFolder LTKPLUS recognizer
-                //
-                LTKPlus = CRecognizerPlus.getInstance();
-                LTKPlus.initialize(getApplicationContext(), GCONST.ALPHABET);
+                    LTKPlus = CRecognizerPlus.getInstance();
+                    LTKPlus.initialize(getApplicationContext(), GCONST.ALPHABET);
+                }
+            }, "ltk_projects", "ltk_glyphs");
 
-                result = true;
+            try {
+                result = startup.run();
 
-            } catch (IOException e) {
+            } catch (InterruptedException e) {
                 // TODO: Manage exceptions
                 e.printStackTrace();
                 result = false;
             }
+
+            logManager.postEvent_I(TAG, "startup:" + startup.summary());
+
             return result;
         }
 
@@ -783,6 +848,28 @@ public class RoboTutor extends Activity implements IReadyListener, IRoboTutor {
     }
 
 
+    /**
+     * The parsed spec cache only saves parse time at tutor launch - give it up first.  Under
+     * moderate pressure it is halved, beyond that it is emptied.
+     *
+     * @param level
+     */
+    @Override
+    public void onTrimMemory(int level) {
+
+        super.onTrimMemory(level);
+
+        if(level >= TRIM_MEMORY_RUNNING_LOW) {
+            JSON_Helper.specCache().clear();
+        }
+        else if(level >= TRIM_MEMORY_RUNNING_MODERATE) {
+            JSON_Helper.specCache().trimTo(JSON_Helper.specCache().size() / 2);
+        }
+
+        Log.d(TAG, "onTrimMemory:" + level + " specCache:" + JSON_Helper.specCache());
+    }
+
+
     /**
      * In general onSaveInstanceState(Bundle) is used to save per-instance state in the activity
      *
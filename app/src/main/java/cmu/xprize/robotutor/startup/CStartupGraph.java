@@ -0,0 +1,263 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.robotutor.startup;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Startup steps with declared dependencies - run on a bounded pool as soon as the steps they
+ * depend on are complete.
+ *
+ * A step is skipped if any step it depends on fails.  run blocks until every step has completed
+ * or been skipped, so it must not be called on the UI thread.
+ */
+public class CStartupGraph {
+
+    private static final String TAG = "CStartupGraph";
+
+    private final LinkedHashMap<String, Task> tasks = new LinkedHashMap<>();
+    private final int                         threads;
+
+    private CountDownLatch  remaining;
+    private ExecutorService executor;
+    private long            startTime;
+    private long            wallTime;
+
+
+    public interface IStartupStep {
+        void run() throws Exception;
+    }
+
+
+    private static final class Task {
+
+        final String            name;
+        final IStartupStep      step;
+        final String[]          dependsOn;
+        final ArrayList<Task>   dependents = new ArrayList<>();
+        final AtomicInteger     pending    = new AtomicInteger();
+
+        volatile boolean        failed;
+        volatile long           started;                // ms from the start of the run
+        volatile long           duration;
+
+        Task(String name, IStartupStep step, String[] dependsOn) {
+            this.name      = name;
+            this.step      = step;
+            this.dependsOn = dependsOn;
+        }
+    }
+
+
+    /**
+     * @param threads the most steps run at once
+     */
+    public CStartupGraph(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+
+    /**
+     * @param name
+     * @param step
+     * @param dependsOn names of steps that must complete first - they must be added before this one
+     */
+    public void addStep(String name, IStartupStep step, String... dependsOn) {
+
+        if(tasks.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate startup step: " + name);
+        }
+
+        Task task = new Task(name, step, dependsOn);
+
+        // Requiring dependencies to exist when a step is added also rules out cycles
+        //
+        for(String dependency : dependsOn) {
+
+            Task prior = tasks.get(dependency);
+
+            if(prior == null) {
+                throw new IllegalArgumentException("Startup step " + name + " depends on unknown step: " + dependency);
+            }
+            prior.dependents.add(task);
+        }
+        task.pending.set(dependsOn.length);
+
+        tasks.put(name, task);
+    }
+
+
+    /**
+     * Run every step and wait for them to complete
+     *
+     * @return true if all the steps succeeded
+     */
+    public boolean run() throws InterruptedException {
+
+        remaining = new CountDownLatch(tasks.size());
+        executor  = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+
+            private int count = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "startup-" + count++);
+            }
+        });
+
+        startTime = System.currentTimeMillis();
+
+        try {
+            for(Task task : tasks.values()) {
+                if(task.dependsOn.length == 0) {
+                    submit(task);
+                }
+            }
+            remaining.await();
+
+        } finally {
+            executor.shutdown();
+        }
+
+        wallTime = System.currentTimeMillis() - startTime;
+
+        boolean result = true;
+
+        for(Task task : tasks.values()) {
+            result &= !task.failed;
+        }
+        return result;
+    }
+
+
+    private void submit(final Task task) {
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+
+                long start = System.currentTimeMillis();
+
+                task.started = start - startTime;
+
+                try {
+                    task.step.run();
+
+                } catch (Exception e) {
+
+                    Log.e(TAG, "Startup step failed: " + task.name, e);
+                    task.failed = true;
+
+                } catch (Error e) {
+
+                    // Left to the crash handler - but don't leave run waiting on this step
+                    task.failed = true;
+                    throw e;
+
+                } finally {
+
+                    task.duration = System.currentTimeMillis() - start;
+
+                    complete(task);
+                }
+            }
+        });
+    }
+
+
+    private void complete(Task task) {
+
+        for(Task dependent : task.dependents) {
+
+            if(task.failed) {
+                dependent.failed = true;
+            }
+
+            if(dependent.pending.decrementAndGet() == 0) {
+
+                if(dependent.failed) {
+
+                    Log.w(TAG, "Startup step skipped: " + dependent.name);
+                    complete(dependent);
+                }
+                else {
+                    submit(dependent);
+                }
+            }
+        }
+        remaining.countDown();
+    }
+
+
+    /**
+     * @return the longest chain of step durations through the dependencies - in ms
+     */
+    public long criticalPath() {
+
+        LinkedHashMap<String, Long> finish = new LinkedHashMap<>();
+        long                        result = 0;
+
+        // steps are added after their dependencies so one pass in order is enough
+        //
+        for(Task task : tasks.values()) {
+
+            long start = 0;
+
+            for(String dependency : task.dependsOn) {
+                start = Math.max(start, finish.get(dependency));
+            }
+            finish.put(task.name, start + task.duration);
+
+            result = Math.max(result, start + task.duration);
+        }
+        return result;
+    }
+
+
+    /**
+     * @return per step timings and the run totals as an object:value list
+     */
+    public String summary() {
+
+        StringBuilder summary = new StringBuilder();
+        long          total   = 0;
+
+        for(Task task : tasks.values()) {
+
+            summary.append(String.format(Locale.US, "%s:%s@%d+%dms,", task.name, task.failed? "failed" : "ok", task.started, task.duration));
+            total += task.duration;
+        }
+
+        summary.append(String.format(Locale.US, "wall_ms:%d,critical_path_ms:%d,sum_ms:%d,threads:%d", wallTime, criticalPath(), total, threads));
+
+        return summary.toString();
+    }
+}
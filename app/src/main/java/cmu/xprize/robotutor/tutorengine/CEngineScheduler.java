@@ -0,0 +1,349 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.robotutor.tutorengine;
+
+import android.util.Log;
+
+import java.util.PriorityQueue;
+
+
+/**
+ * The one scheduler thread shared by the engine timers and timelines - type_timer and
+ * type_timelineFL.
+ *
+ * Tasks are held in a priority queue ordered by their next run time.  Periodic tasks run at a
+ * fixed rate - each run is scheduled from the previous scheduled time, not the time it actually
+ * ran, so they don't drift.  Tasks may be cancelled, or paused and resumed with the time left to
+ * their next run preserved.  A one shot task is done once it has run - pausing or resuming it
+ * after that has no effect.
+ *
+ * Tasks run on the scheduler thread one at a time, so they should hand long running work off
+ * e.g. to the UI thread as the timelines do.
+ */
+public class CEngineScheduler {
+
+    private static final String TAG = "CEngineScheduler";
+
+    private static CEngineScheduler instance;
+
+    private final PriorityQueue<Task> queue = new PriorityQueue<>();
+    private final Clock               clock;
+    private final Thread              thread;
+    private long                      sequence;
+
+
+    /**
+     * The scheduler time source in ms - replaceable so tests can drive the scheduler directly
+     */
+    interface Clock {
+        long now();
+    }
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long now() {
+            return System.nanoTime() / 1000000;
+        }
+    };
+
+
+    /**
+     * A scheduled runnable - returned by schedule and scheduleAtFixedRate
+     */
+    public static final class Task implements Comparable<Task> {
+
+        private final CEngineScheduler scheduler;
+        private final Runnable         runnable;
+        private final long             period;          // ms - 0 for one shot tasks
+
+        private long                   next;            // ms - scheduler clock
+        private long                   remaining;       // ms to the next run while paused
+        private long                   order;           // FIFO for tasks due at the same time
+        private boolean                paused;
+        private boolean                cancelled;
+        private boolean                done;            // one shot task has run
+
+        private Task(CEngineScheduler scheduler, Runnable runnable, long period) {
+
+            this.scheduler = scheduler;
+            this.runnable  = runnable;
+            this.period    = period;
+        }
+
+        /**
+         * Stop the task - it may be cancelled from within its own run
+         */
+        public void cancel() {
+
+            synchronized(scheduler.queue) {
+                cancelled = true;
+                scheduler.queue.remove(this);
+            }
+        }
+
+        /**
+         * Hold the task - the time left to its next run is kept for resume
+         */
+        public void pause() {
+
+            synchronized(scheduler.queue) {
+
+                if(!cancelled && !done && !paused) {
+
+                    paused    = true;
+                    remaining = Math.max(0, next - scheduler.now());
+
+                    scheduler.queue.remove(this);
+                }
+            }
+        }
+
+        public void resume() {
+
+            synchronized(scheduler.queue) {
+
+                if(!cancelled && !done && paused) {
+
+                    paused = false;
+                    scheduler.enqueue(this, scheduler.now() + remaining);
+                }
+            }
+        }
+
+        public boolean isCancelled() {
+
+            synchronized(scheduler.queue) {
+                return cancelled;
+            }
+        }
+
+        /**
+         * @return true if the task will not run again - cancelled, or a one shot task that has run
+         */
+        public boolean isDone() {
+
+            synchronized(scheduler.queue) {
+                return cancelled || done;
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+
+            if(next != other.next)
+                return (next < other.next)? -1 : 1;
+
+            return (order < other.order)? -1 : (order == other.order)? 0 : 1;
+        }
+    }
+
+
+    private CEngineScheduler() {
+
+        clock  = SYSTEM_CLOCK;
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runLoop();
+            }
+        }, "engine-scheduler");
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+
+    /**
+     * A scheduler without a thread - its due tasks are run by calling runDue
+     */
+    CEngineScheduler(Clock clock) {
+
+        this.clock  = clock;
+        this.thread = null;
+    }
+
+
+    public static synchronized CEngineScheduler getInstance() {
+
+        if(instance == null) {
+            instance = new CEngineScheduler();
+        }
+        return instance;
+    }
+
+
+    /**
+     * @param runnable
+     * @param delay    ms before the task runs
+     * @return the task
+     */
+    public Task schedule(Runnable runnable, long delay) {
+
+        Task task = new Task(this, runnable, 0);
+
+        synchronized(queue) {
+            enqueue(task, now() + Math.max(0, delay));
+        }
+        return task;
+    }
+
+
+    /**
+     * @param runnable
+     * @param delay    ms before the first run
+     * @param period   ms between the scheduled start of each run
+     * @return the task
+     */
+    public Task scheduleAtFixedRate(Runnable runnable, long delay, long period) {
+
+        if(period <= 0) {
+            throw new IllegalArgumentException("Non-positive period: " + period);
+        }
+
+        Task task = new Task(this, runnable, period);
+
+        synchronized(queue) {
+            enqueue(task, now() + Math.max(0, delay));
+        }
+        return task;
+    }
+
+
+    /**
+     * @return the number of tasks waiting to run - not counting paused tasks
+     */
+    public int pending() {
+
+        synchronized(queue) {
+            return queue.size();
+        }
+    }
+
+
+    private void enqueue(Task task, long next) {
+
+        task.next  = next;
+        task.order = sequence++;
+
+        queue.add(task);
+
+        // Wake the scheduler if this is now the first task due
+        //
+        if(queue.peek() == task) {
+            queue.notify();
+        }
+    }
+
+
+    private long now() {
+        return clock.now();
+    }
+
+
+    /**
+     * Run the tasks that are due on the calling thread
+     */
+    void runDue() {
+
+        while(true) {
+
+            Task task;
+
+            synchronized(queue) {
+
+                task = queue.peek();
+
+                if(task == null || task.next > now()) {
+                    return;
+                }
+                take(task);
+            }
+            run(task);
+        }
+    }
+
+
+    /**
+     * Remove the task that is about to run from the queue
+     */
+    private void take(Task task) {
+
+        queue.poll();
+
+        // Reschedule periodic tasks before they run so the task may cancel itself
+        //
+        if(task.period > 0) {
+            enqueue(task, task.next + task.period);
+        } else {
+            task.done = true;
+        }
+    }
+
+
+    private void run(Task task) {
+
+        try {
+            task.runnable.run();
+
+        } catch (Exception e) {
+
+            // One failing task must not stop the others
+            //
+            Log.e(TAG, "Scheduled task failed: " + e);
+        }
+    }
+
+
+    private void runLoop() {
+
+        while(true) {
+
+            Task task;
+
+            synchronized(queue) {
+
+                try {
+                    while(true) {
+
+                        task = queue.peek();
+
+                        if(task == null) {
+                            queue.wait();
+                            continue;
+                        }
+
+                        long delay = task.next - now();
+
+                        if(delay > 0) {
+                            queue.wait(delay);
+                            continue;
+                        }
+                        break;
+                    }
+
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                take(task);
+            }
+            run(task);
+        }
+    }
+}
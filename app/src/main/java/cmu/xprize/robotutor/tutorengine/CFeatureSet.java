@@ -0,0 +1,322 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.robotutor.tutorengine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+
+
+/**
+ * Feature names interned to bit indices and feature expressions compiled to predicates over a
+ * BitSet of the active features.
+ *
+ * Feature expressions are names combined with '&' and '|' - '&' binds tighter - grouped with
+ * parentheses and negated with a leading '!'.  "true" and "false" are constants and an empty
+ * expression is true, i.e. the object is not feature constrained.
+ *
+ * Trailing operators are ignored - "a&" is a and "a&|b" is a|b - other empty terms are false.
+ *
+ * The intern table and the compiled expressions are shared by every tutor.
+ */
+public class CFeatureSet {
+
+    private static final HashMap<String, Integer>   ids        = new HashMap<>();
+    private static final HashMap<String, Predicate> predicates = new HashMap<>();
+
+
+    public static abstract class Predicate {
+
+        public abstract boolean test(BitSet active);
+    }
+
+
+    /**
+     * @param feature
+     * @return the bit index of the feature - assigned on first use
+     */
+    public static synchronized int intern(String feature) {
+
+        Integer id = ids.get(feature);
+
+        if(id == null) {
+            id = ids.size();
+            ids.put(feature, id);
+        }
+        return id;
+    }
+
+
+    /**
+     * @param active
+     * @param feature
+     * @return true if the feature is set - without interning features that are only ever tested
+     */
+    public static boolean isSet(BitSet active, String feature) {
+
+        Integer id;
+
+        synchronized(CFeatureSet.class) {
+            id = ids.get(feature);
+        }
+        return id != null && active.get(id);
+    }
+
+
+    /**
+     * @param featSet feature expression
+     * @return the compiled expression - compiled on first use
+     */
+    public static synchronized Predicate compile(String featSet) {
+
+        Predicate predicate = predicates.get(featSet);
+
+        if(predicate == null) {
+            predicate = new Parser(featSet).parse();
+            predicates.put(featSet, predicate);
+        }
+        return predicate;
+    }
+
+
+    //************ Predicates
+
+
+    private static final Predicate TRUE = new Predicate() {
+        @Override
+        public boolean test(BitSet active) {
+            return true;
+        }
+    };
+
+    private static final Predicate FALSE = new Predicate() {
+        @Override
+        public boolean test(BitSet active) {
+            return false;
+        }
+    };
+
+
+    private static final class Feature extends Predicate {
+
+        private final int id;
+
+        Feature(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean test(BitSet active) {
+            return active.get(id);
+        }
+    }
+
+
+    private static final class Not extends Predicate {
+
+        private final Predicate inner;
+
+        Not(Predicate inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        public boolean test(BitSet active) {
+            return !inner.test(active);
+        }
+    }
+
+
+    private static final class All extends Predicate {
+
+        private final Predicate[] terms;
+
+        All(Predicate[] terms) {
+            this.terms = terms;
+        }
+
+        @Override
+        public boolean test(BitSet active) {
+
+            for(Predicate term : terms) {
+                if(!term.test(active))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+
+    private static final class Any extends Predicate {
+
+        private final Predicate[] terms;
+
+        Any(Predicate[] terms) {
+            this.terms = terms;
+        }
+
+        @Override
+        public boolean test(BitSet active) {
+
+            for(Predicate term : terms) {
+                if(term.test(active))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+
+    //************ Parser
+
+
+    private static final class Parser {
+
+        private final String featSet;
+        private int          pos;
+
+        Parser(String featSet) {
+            this.featSet = featSet;
+        }
+
+        Predicate parse() {
+
+            Predicate result = disjunction();
+
+            // Unmatched ')' are ignored
+            //
+            while(pos < featSet.length()) {
+                pos++;
+                result = new All(new Predicate[] {result, disjunction()});
+            }
+            return result;
+        }
+
+
+        private Predicate disjunction() {
+
+            // match a null set - i.e. empty string means the object is not feature constrained
+            //
+            if(pos >= featSet.length() || featSet.charAt(pos) == ')') {
+                return TRUE;
+            }
+
+            ArrayList<Predicate> terms = new ArrayList<>();
+
+            terms.add(conjunction());
+
+            while(pos < featSet.length() && featSet.charAt(pos) == '|') {
+                pos++;
+
+                if(trailing('|', ")"))
+                    break;
+
+                terms.add(conjunction());
+            }
+            return (terms.size() == 1)? terms.get(0) : new Any(terms.toArray(new Predicate[terms.size()]));
+        }
+
+
+        private Predicate conjunction() {
+
+            ArrayList<Predicate> terms = new ArrayList<>();
+
+            terms.add(factor());
+
+            while(pos < featSet.length() && featSet.charAt(pos) == '&') {
+                pos++;
+
+                if(trailing('&', "|)"))
+                    break;
+
+                terms.add(factor());
+            }
+            return (terms.size() == 1)? terms.get(0) : new All(terms.toArray(new Predicate[terms.size()]));
+        }
+
+
+        /**
+         * Skips a run of trailing operators - i.e. operators followed by nothing but the end of
+         * the expression or one of the closing characters.
+         *
+         * @return true if the operators were skipped
+         */
+        private boolean trailing(char operator, String closing) {
+
+            int end = pos;
+
+            while(end < featSet.length() && featSet.charAt(end) == operator) {
+                end++;
+            }
+
+            if(end < featSet.length() && closing.indexOf(featSet.charAt(end)) == -1) {
+                return false;
+            }
+            pos = end;
+            return true;
+        }
+
+
+        private Predicate factor() {
+
+            if(pos < featSet.length() && featSet.charAt(pos) == '!') {
+                pos++;
+                return new Not(primary());
+            }
+            return primary();
+        }
+
+
+        private Predicate primary() {
+
+            if(pos < featSet.length() && featSet.charAt(pos) == '(') {
+                pos++;
+
+                Predicate inner = disjunction();
+
+                // A missing ')' closes at the end of the expression
+                //
+                if(pos < featSet.length()) {
+                    pos++;
+                }
+                return inner;
+            }
+
+            int start = pos;
+
+            while(pos < featSet.length() && "&|()".indexOf(featSet.charAt(pos)) == -1) {
+                pos++;
+            }
+
+            String feature = featSet.substring(start, pos);
+
+            switch(feature) {
+                case "true":
+                    return TRUE;
+
+                case "false":
+                case "":
+                    return FALSE;
+
+                default:
+                    return new Feature(intern(feature));
+            }
+        }
+    }
+}
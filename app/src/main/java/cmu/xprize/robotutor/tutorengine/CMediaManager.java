@@ -31,6 +31,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import cmu.xprize.robotutor.RoboTutor;
 import cmu.xprize.robotutor.tutorengine.graph.type_handler;
 import cmu.xprize.robotutor.tutorengine.graph.type_timelineFL;
 import cmu.xprize.robotutor.tutorengine.graph.type_timer;
@@ -440,7 +441,7 @@ public class CMediaManager {
         for(PlayerManager playerInstance : mPlayerCache) {
 
             if(playerInstance.isPlaying()) {
-                Log.v(GRAPH_MSG, "CMediaManager.playermanager.attachexisting: manager = "+playerInstance.mDataSource);
+                RoboTutor.logManager.postEvent_V(GRAPH_MSG, "CMediaManager.playermanager.attachexisting: manager = %s", playerInstance.mDataSource);
                 return playerInstance;
             }
         }
@@ -464,7 +465,7 @@ public class CMediaManager {
         for(PlayerManager playerInstance : mPlayerCache) {
 
             if(!playerInstance.isAttached() && playerInstance.compareSource(dataSource)) {
-                Log.v(GRAPH_MSG, "CMediaManager.playermanager.attachexisting: manager = "+playerInstance.mDataSource);
+                RoboTutor.logManager.postEvent_V(GRAPH_MSG, "CMediaManager.playermanager.attachexisting: manager = %s", playerInstance.mDataSource);
 
                 manager = playerInstance;
                 manager.attach(owner);
@@ -497,7 +498,7 @@ public class CMediaManager {
             //
             if(manager != null) {
 
-                Log.v(GRAPH_MSG, "CMediaManager.playermanager.repurpose:");
+                RoboTutor.logManager.postEvent_V(GRAPH_MSG, "CMediaManager.playermanager.repurpose:");
 
                 manager.releasePlayer();
 
@@ -510,7 +511,7 @@ public class CMediaManager {
         //
         if(manager == null) {
 
-            Log.v(GRAPH_MSG, "CMediaManager.playermanager.create:"  + mPlayerCache.size());
+            RoboTutor.logManager.postEvent_V(GRAPH_MSG, "CMediaManager.playermanager.create:%s", mPlayerCache.size());
 
             manager = new PlayerManager(owner, dataSource, location);
 
@@ -592,7 +593,7 @@ public class CMediaManager {
                 }
 
                 playerCount++;
-                Log.v(GRAPH_MSG, "CMediaManager.mediaplayer.create:" + playerCount);
+                RoboTutor.logManager.postEvent_V(GRAPH_MSG, "CMediaManager.mediaplayer.create:%s", playerCount);
                 mPlayer  = new MediaPlayer();
 
                 switch(location) {
@@ -622,7 +623,7 @@ public class CMediaManager {
 
                 mPlayer.prepareAsync();
 
-                Log.v(GRAPH_MSG, "CMediaManager.mediaplayer.loading:" + mOwner.sourceName() + " => " + mOwner.resolvedName() );
+                RoboTutor.logManager.postEvent_V(GRAPH_MSG, "CMediaManager.mediaplayer.loading:%s => %s", mOwner.sourceName(), mOwner.resolvedName());
 
             } catch (Exception e) {
                 Log.e(GRAPH_MSG, "CMediaManager.mediaplayer.ERROR: " + mOwner.sourceName() + " => " + mOwner.resolvedName() + " => " + e);
@@ -649,7 +650,7 @@ public class CMediaManager {
                 mPlayer = null;
 
                 playerCount--;
-                Log.v(GRAPH_MSG, "CMediaManager.playermanager.destroy:"  + playerCount);
+                RoboTutor.logManager.postEvent_V(GRAPH_MSG, "CMediaManager.playermanager.destroy:%s", playerCount);
 
                 mDataSource = "";
             }
@@ -666,7 +667,7 @@ public class CMediaManager {
          */
         public void detach() {
 
-            Log.v(GRAPH_MSG, "CMediaManager.playermanager.detach");
+            RoboTutor.logManager.postEvent_V(GRAPH_MSG, "CMediaManager.playermanager.detach");
 
             stop();
             mOwner = null;
@@ -712,7 +713,7 @@ public class CMediaManager {
                     // TODO: this will need a tweak for background music etc.
                     mMediaController.startSpeaking();
 
-                    Log.v(GRAPH_MSG, "CMediaManager.playermanager.play: " + mDataSource);
+                    RoboTutor.logManager.postEvent_V(GRAPH_MSG, "CMediaManager.playermanager.play: %s", mDataSource);
                     mPlayer.start();
 
                     mPlaying       = true;
@@ -739,7 +740,7 @@ public class CMediaManager {
                     // TODO: this will need a tweak for background music etc.
                     mMediaController.startSpeaking();
 
-                    Log.v(GRAPH_MSG, "CMediaManager.playermanager.play: " + mDataSource);
+                    RoboTutor.logManager.postEvent_V(GRAPH_MSG, "CMediaManager.playermanager.play: %s", mDataSource);
                     mPlayer.start();
 //                    Handler handler = new Handler();
 //                    handler.postDelayed(stopPlayerTask, duration);
@@ -755,7 +756,7 @@ public class CMediaManager {
         // UHQ : STOP THE TRACK WITH THIS
         public void stop() {
             Log.d("ULANISTOPAUDIO", "stop: ");
-            Log.v(GRAPH_MSG, "CMediaManager.playermanager.stop: " + mDataSource);
+            RoboTutor.logManager.postEvent_V(GRAPH_MSG, "CMediaManager.playermanager.stop: %s", mDataSource);
 
             pause();
             seek(0L);
@@ -778,7 +779,7 @@ public class CMediaManager {
          */
         public void kill() {
 
-            Log.v(GRAPH_MSG, "CMediaManager.playermanager.kill: " + mDataSource);
+            RoboTutor.logManager.postEvent_V(GRAPH_MSG, "CMediaManager.playermanager.kill: %s", mDataSource);
 
             mIsAlive = false;
 
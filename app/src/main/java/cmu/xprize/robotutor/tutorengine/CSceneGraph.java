@@ -26,12 +26,14 @@ import android.util.Log;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
 import cmu.xprize.robotutor.RoboTutor;
+import cmu.xprize.robotutor.tutorengine.graph.graph_linker;
 import cmu.xprize.robotutor.tutorengine.graph.scene_graph;
 import cmu.xprize.robotutor.tutorengine.graph.vars.IScope2;
 import cmu.xprize.robotutor.tutorengine.util.CClassMap2;
@@ -85,6 +87,10 @@ public class CSceneGraph  {
         _pFeatures = new HashMap<String, Integer>();
 
         loadSceneGraphFactory((IScope2)mScope);
+
+        // Replace the name references in the graphs with the objects they name
+        //
+        graph_linker.link(mTutor.mTutorName, animatorMap, (IScope2)mScope);
     }
 
     /**
@@ -436,10 +442,12 @@ public class CSceneGraph  {
      */
     private void loadSceneGraphFactory(IScope2 scope) {
 
+        // The parsed graph is kept between launches of the tutor - a relaunch only binds it
+        //
         try {
-            loadJSON(new JSONObject(JSON_Helper.cacheData(TCONST.TUTORROOT + "/" + mTutor.mTutorName + "/" + TCONST.AGDESC)), scope);
+            loadJSON(JSON_Helper.cacheJSON(TCONST.TUTORROOT + "/" + mTutor.mTutorName + "/" + TCONST.AGDESC), scope);
 
-        } catch (JSONException e) {
+        } catch (IOException | JSONException e) {
 
             CErrorManager.logEvent(_logType, "target:node.scenegraph,action:loadjsongraphfactory,error:JSON FORMAT ERROR,filename:" + TCONST.AGDESC + ",exception:", e, false);
         }
@@ -37,6 +37,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -81,6 +82,7 @@ public class CTutor implements ILoadableObject2, IEventSource {
     private HashMap<String, ITutorObject> mObjects = new HashMap<String, ITutorObject>();
 
     private ArrayList<String>            fFeatures = new ArrayList<String>();
+    private BitSet                       fActive   = new BitSet();         // interned fFeatures - see CFeatureSet
     private ArrayList<String>            fDefaults = new ArrayList<String>();
 
     public Context                       mContext;
@@ -297,6 +299,8 @@ public class CTutor implements ILoadableObject2, IEventSource {
         mSceneGraph.onDestroy();
 
         mTutorGraph.onDestroy();
+
+        Log.i(TAG, "Symbol cache: " + mTutorScope.cacheStats());
     }
 
     /**
@@ -766,17 +770,20 @@ public class CTutor implements ILoadableObject2, IEventSource {
                 featArray = Arrays.asList(featSet.split(":"));
 
             fFeatures = new ArrayList<String>();
+            fActive   = new BitSet();
 
             // Add default features
 
             for (String feature : fDefaults) {
                 fFeatures.add(feature);
+                fActive.set(CFeatureSet.intern(feature));
             }
 
             // Add instance feature
 
             for (String feature : featArray) {
                 fFeatures.add(feature);
+                fActive.set(CFeatureSet.intern(feature));
             }
         }
     }
@@ -810,9 +817,11 @@ public class CTutor implements ILoadableObject2, IEventSource {
         List<String> featArray = Arrays.asList(ftrSet.split(","));
 
         fFeatures.clear();
+        fActive.clear();
         
         for (String feature : featArray) {
             fFeatures.add(feature);
+            fActive.set(CFeatureSet.intern(feature));
         }
     }
 
@@ -826,6 +835,7 @@ public class CTutor implements ILoadableObject2, IEventSource {
         if(fFeatures.indexOf(feature) == -1)
         {
             fFeatures.add(feature);
+            fActive.set(CFeatureSet.intern(feature));
         }
     }
 
@@ -840,6 +850,11 @@ public class CTutor implements ILoadableObject2, IEventSource {
         if((fIndex = fFeatures.indexOf(feature)) != -1)
         {
             fFeatures.remove(fIndex);
+
+            // the feature list may hold duplicates from the tutor defaults
+            //
+            if(fFeatures.indexOf(feature) == -1)
+                fActive.clear(CFeatureSet.intern(feature));
         }
     }
 
@@ -850,96 +865,18 @@ public class CTutor implements ILoadableObject2, IEventSource {
     public boolean testFeature(String element) {
         if(element.charAt(0) == '!')
         {
-            return (fFeatures.indexOf(element.substring(1)) != -1)? false : true;
+            return !CFeatureSet.isSet(fActive, element.substring(1));
         }
         else {
-            return (fFeatures.indexOf(element) != -1) ? true : false;
-        }
-    }
-
-    public String testFeatureHelper(String element) {
-        if(element.charAt(0) == '!') {
-            if(element.substring(1).equals("true")) return "false";
-            if(element.substring(1).equals("false")) return "true";
-            return (fFeatures.indexOf(element.substring(1)) != -1)? "false" : "true";
-        }
-        else {
-            if(element.equals("true")) return "true";
-            if(element.equals("false")) return "false";
-            return (fFeatures.indexOf(element) != -1) ? "true" : "false";
+            return CFeatureSet.isSet(fActive, element);
         }
     }
 
     // test possibly compound features
-    // TODO: Enhance with fsm
-    // Doesn't allow inner paren matching
+    // Feature expressions are compiled once - see CFeatureSet
+    //
     public boolean testFeatureSet(String featSet) {
-        String result = testFeatureSetHelper(featSet);
-        return result.equals("true") ? true : false;
-    }
-
-    public String testFeatureSetHelper(String featSet) {
-        int curParenCount = 0;
-        int leftMostOpenParen = -1;
-
-        StringBuffer featSetBuffer = new StringBuffer(featSet);
-
-        while(featSetBuffer.indexOf("(") != -1) {
-            for(int i = 0; i < featSetBuffer.length(); i++) {
-                String curString = featSetBuffer.substring(i, i+1);
-
-                if(curString.equals("(")) {
-                    curParenCount += 1;
-                    if(leftMostOpenParen == -1) {
-                        leftMostOpenParen = i;
-                    }
-                }
-                if(curString.equals(")")) {
-                    curParenCount -= 1;
-                    if(curParenCount == 0) {
-                        String withParen = featSetBuffer.substring(leftMostOpenParen + 1, i);
-                        featSetBuffer.replace(leftMostOpenParen, i+1, testFeatureSetHelper(withParen));
-                        leftMostOpenParen = -1;
-                        break;
-                    }
-                }
-            }
-        }
-        return testNonParenFeatureSet(featSetBuffer.toString());
-    }
-
-    private String testNonParenFeatureSet(String featSet) {
-
-        String      result = "false";
-
-        List<String> disjFeat = Arrays.asList(featSet.split("\\|"));   // | Disjunctive features
-        List<String> conjFeat;                                          // & Conjunctive features
-
-        // match a null set - i.e. empty string means the object is not feature constrained
-
-        if(featSet.equals(""))
-            return "true";
-
-        // Check all disjunctive featuresets - one in each element of disjFeat
-        // As long as one is true we pass
-
-        for (String dfeature : disjFeat)
-        {
-            conjFeat   = Arrays.asList(dfeature.split("\\&"));
-            result = "true";
-
-            // Check that all conjunctive features are set in fFeatures
-
-            for (String cfeature : conjFeat) {
-                if(!(testFeatureHelper(cfeature) == "true"))
-                    result = "false";
-            }
-
-            if(result == "true")
-                break;
-        }
-
-        return result;
+        return CFeatureSet.compile(featSet).test(fActive);
     }
 
 
@@ -981,10 +918,10 @@ public class CTutor implements ILoadableObject2, IEventSource {
     private void loadTutorFactory() {
 
         try {
-            loadJSON(new JSONObject(JSON_Helper.cacheData(TCONST.TUTORROOT + "/" + mTutorName + "/" + TCONST.TDESC)), (IScope2)mTutorScope);
+            loadJSON(JSON_Helper.cacheJSON(TCONST.TUTORROOT + "/" + mTutorName + "/" + TCONST.TDESC), (IScope2)mTutorScope);
 
-        } catch (JSONException e) {
-            Log.d(TAG, "error");
+        } catch (IOException | JSONException e) {
+            Log.d(TAG, "error: " + e);
         }
     }
 
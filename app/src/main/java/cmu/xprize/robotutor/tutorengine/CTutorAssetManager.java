@@ -592,18 +592,21 @@ public class CTutorAssetManager {
 
         File file       = new File(zipPath);
         ZipFile zipFile = new ZipFile(file);
+        Zip     _zip    = new Zip(zipFile, mContext);
 
+        // Failures are passed on so the startup step that depends on the data fails with it
+        //
         try {
-
-            Zip _zip = new Zip(zipFile, mContext);
-
             _zip.extractAll(zipName, extractPath);
-            _zip.close();
-            file.delete();
 
         } catch (IOException ie) {
             Log.e(TAG, "ERROR: failed extraction" + zipName + " - reason: " + ie);
+            throw ie;
+
+        } finally {
+            _zip.close();
         }
+        file.delete();
     }
 
 }
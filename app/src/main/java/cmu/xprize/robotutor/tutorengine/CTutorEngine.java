@@ -30,6 +30,7 @@ import android.view.ViewGroup;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -44,6 +45,7 @@ import cmu.xprize.robotutor.startup.configuration.Configuration;
 import cmu.xprize.robotutor.tutorengine.graph.databinding;
 import cmu.xprize.robotutor.tutorengine.graph.defdata_scenes;
 import cmu.xprize.robotutor.tutorengine.graph.defdata_tutor;
+import cmu.xprize.robotutor.tutorengine.graph.deflog_sampler;
 import cmu.xprize.robotutor.tutorengine.graph.defvar_tutor;
 import cmu.xprize.robotutor.tutorengine.graph.vars.IScope2;
 import cmu.xprize.robotutor.tutorengine.graph.vars.TScope;
@@ -100,6 +102,8 @@ public class CTutorEngine implements ILoadableObject2 {
     static public String                         defTutor; // defined in engine_descriptor.json
     static public HashMap<String, defvar_tutor>  tutorVariants;
     static public HashMap<String, defdata_tutor> bindingPatterns;
+    static public HashMap<String, deflog_sampler> logSampling;                  // per tag log rate limits
+    static public String                         logLevel;                       // default log level - overrides the build default
     static public String                         language;                       // Accessed from a static context
 
 
@@ -599,6 +603,29 @@ public class CTutorEngine implements ILoadableObject2 {
     //************ Serialization
 
 
+    /**
+     * @param level VERBOSE / DEBUG / INFO / WARN / ERROR / ASSERT
+     * @return the android.util.Log priority - INFO if the name is not recognized
+     */
+    private static int logPriority(String level) {
+
+        switch(level) {
+            case "VERBOSE": return Log.VERBOSE;
+            case "DEBUG":   return Log.DEBUG;
+            case "WARN":    return Log.WARN;
+            case "ERROR":   return Log.ERROR;
+            case "ASSERT":  return Log.ASSERT;
+
+            case "INFO":
+                return Log.INFO;
+
+            default:
+                Log.w(TAG, "Unknown logLevel: " + level);
+                return Log.INFO;
+        }
+    }
+
+
     /**
      * Load the Tutor engine specification from JSON file data
      * from assets/tutors/engine_descriptor.json
@@ -609,6 +636,18 @@ public class CTutorEngine implements ILoadableObject2 {
         try {
             loadJSON(new JSONObject(JSON_Helper.cacheData(TCONST.TUTORROOT + "/" + TCONST.EDESC)), (IScope2)mRootScope);
 
+            if(logSampling != null) {
+                for(Map.Entry<String, deflog_sampler> sampling : logSampling.entrySet()) {
+
+                    deflog_sampler policy = sampling.getValue();
+                    TutorLogManager.setSampling(sampling.getKey(), policy.rate, policy.burst, policy.coalesce);
+                }
+            }
+
+            if(logLevel != null) {
+                TutorLogManager.setLogLevel(null, logPriority(logLevel));
+            }
+
             // TODO : Use build Variant to ensure release configurations
             //
             if(Configuration.languageOverride(getActivity())) {
@@ -685,13 +724,13 @@ public class CTutorEngine implements ILoadableObject2 {
         String dataPath = TCONST.TUTORROOT + "/" + tutorName + "/" + TCONST.TASSETS;
         dataPath += "/" +  TCONST.DATA_PATH + "/" + lang + "/";
 
-        String jsonData = JSON_Helper.cacheData(dataPath + dataFile);
-
         //
-        // Load the datasource into a separate class...
-        TransitionMatrixModel matrix = new TransitionMatrixModel(dataPath + dataFile, mRootScope);
-        matrix.validateAll();
-        return matrix;
+        // Load the datasource into a separate class - through its compiled snapshot if the
+        // spec has not changed since the last start
+        //
+        File snapshot = new File(RoboTutor.APP_PRIVATE_FILES + TCONST.SNAPSHOT_FOLDER + lang + "_" + dataFile + TCONST.MATRIX_SNAPSHOT);
+
+        return TransitionMatrixModel.load(dataPath + dataFile, snapshot, mRootScope);
     }
 
 
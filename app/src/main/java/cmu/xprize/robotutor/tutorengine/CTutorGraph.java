@@ -29,6 +29,7 @@ import android.view.animation.Animation;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -575,10 +576,10 @@ public class CTutorGraph implements ITutorGraph, ILoadableObject2, Animation.Ani
     private void loadTutorGraphFactory() {
 
         try {
-            loadJSON(new JSONObject(JSON_Helper.cacheData(TCONST.TUTORROOT + "/" + mTutorName + "/" + TCONST.SNDESC)), (IScope2)mRootScope);
+            loadJSON(JSON_Helper.cacheJSON(TCONST.TUTORROOT + "/" + mTutorName + "/" + TCONST.SNDESC), (IScope2)mRootScope);
 
-        } catch (JSONException e) {
-            Log.d(TAG, "Error" );
+        } catch (IOException | JSONException e) {
+            Log.d(TAG, "Error: " + e);
         }
     }
 
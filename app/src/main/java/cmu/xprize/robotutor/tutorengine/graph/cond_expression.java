@@ -0,0 +1,463 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.robotutor.tutorengine.graph;
+
+import cmu.xprize.robotutor.tutorengine.graph.vars.IScope2;
+import cmu.xprize.robotutor.tutorengine.graph.vars.IScriptable2;
+import cmu.xprize.robotutor.tutorengine.graph.vars.TBoolean;
+import cmu.xprize.robotutor.tutorengine.graph.vars.TFloat;
+import cmu.xprize.robotutor.tutorengine.graph.vars.TInteger;
+import cmu.xprize.robotutor.tutorengine.graph.vars.TString;
+import cmu.xprize.util.TCONST;
+
+
+/**
+ * Compiled form of a type_cond "If" expression.
+ *
+ * The grammar is the one the original condition parser accepted - operands are combined left
+ * to right with no operator precedence, i.e. A && B || C is (A && B) || C.  Parentheses group
+ * subexpressions and '!' negates the boolean operand it precedes.
+ *
+ *   operand  :  ['!'] ( '(' expression ')' | '{{' symbol '}}' | symbol | number | 'string' )
+ *   operator :  &&  ||  ==  !=  <  <=  >  >=
+ *
+ * Literals are built once when the expression is compiled.  Symbols are looked up in the scope
+ * each time they are evaluated as tutor variables are replaced when they are updated.
+ * Comparisons are applied by the operand types themselves - see IScriptable2.
+ */
+abstract class cond_expression {
+
+
+    /**
+     * @return the value of the expression
+     */
+    abstract IScriptable2 value(IScope2 scope) throws Exception;
+
+
+    /**
+     * @return the value of the expression as a boolean
+     */
+    boolean test(IScope2 scope) throws Exception {
+        return (Boolean) value(scope).evaluate(false);
+    }
+
+
+    /**
+     * @param code
+     * @return the compiled expression
+     * @throws Exception describing the syntax error
+     */
+    static cond_expression compile(String code) throws Exception {
+        return new Parser(code).parse();
+    }
+
+
+    //************ Expression tree
+
+
+    private static final class Literal extends cond_expression {
+
+        private final IScriptable2 literal;
+
+        Literal(IScriptable2 literal) {
+            this.literal = literal;
+        }
+
+        @Override
+        IScriptable2 value(IScope2 scope) {
+            return literal;
+        }
+    }
+
+
+    private static final class Symbol extends cond_expression {
+
+        private final String name;
+
+        Symbol(String name) {
+            this.name = name;
+        }
+
+        @Override
+        IScriptable2 value(IScope2 scope) throws Exception {
+
+            IScriptable2 result = scope.mapSymbol(name);
+
+            if(result == null) {
+                throw new Exception("Symbol not found: " + name);
+            }
+            return result;
+        }
+    }
+
+
+    private static final class Group extends cond_expression {
+
+        private final cond_expression inner;
+
+        Group(cond_expression inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        IScriptable2 value(IScope2 scope) throws Exception {
+            return new TBoolean(inner.test(scope));
+        }
+
+        @Override
+        boolean test(IScope2 scope) throws Exception {
+            return inner.test(scope);
+        }
+    }
+
+
+    private static final class Negate extends cond_expression {
+
+        private final cond_expression inner;
+
+        Negate(cond_expression inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        IScriptable2 value(IScope2 scope) throws Exception {
+            return new TBoolean(test(scope));
+        }
+
+        @Override
+        boolean test(IScope2 scope) throws Exception {
+            return (Boolean) inner.value(scope).evaluate(true);
+        }
+    }
+
+
+    /**
+     * && and || - the right hand side is only evaluated when it decides the result
+     */
+    private static final class Logical extends cond_expression {
+
+        private final boolean         and;
+        private final cond_expression left;
+        private final cond_expression right;
+
+        Logical(boolean and, cond_expression left, cond_expression right) {
+            this.and   = and;
+            this.left  = left;
+            this.right = right;
+        }
+
+        @Override
+        IScriptable2 value(IScope2 scope) throws Exception {
+            return new TBoolean(test(scope));
+        }
+
+        @Override
+        boolean test(IScope2 scope) throws Exception {
+            return and? left.test(scope) && right.test(scope) : left.test(scope) || right.test(scope);
+        }
+    }
+
+
+    private static final class Compare extends cond_expression {
+
+        private final int             op;
+        private final cond_expression left;
+        private final cond_expression right;
+
+        Compare(int op, cond_expression left, cond_expression right) {
+            this.op    = op;
+            this.left  = left;
+            this.right = right;
+        }
+
+        @Override
+        IScriptable2 value(IScope2 scope) throws Exception {
+
+            IScriptable2 lhs = left.value(scope);
+            IScriptable2 rhs = right.value(scope);
+            TBoolean     result;
+
+            switch(op) {
+                case TCONST.LESSTHAN:       result = lhs.LT(rhs);   break;
+                case TCONST.LESSOREQUAL:    result = lhs.LTEQ(rhs); break;
+                case TCONST.GREATERTHAN:    result = lhs.GT(rhs);   break;
+                case TCONST.GREATEROREQUAL: result = lhs.GTEQ(rhs); break;
+                case TCONST.EQUALTO:        result = lhs.EQ(rhs);   break;
+                default:                    result = lhs.NEQ(rhs);  break;
+            }
+
+            if(result == null) {
+                throw new Exception("Comparison not supported for type: " + lhs.getType());
+            }
+            return result;
+        }
+    }
+
+
+    //************ Parser
+
+
+    private static final class Parser {
+
+        private final String code;
+        private int          pos;
+
+        Parser(String code) {
+            this.code = code;
+        }
+
+        cond_expression parse() throws Exception {
+
+            cond_expression result = expression();
+
+            if(pos < code.length()) {
+                throw error("Unexpected '" + code.charAt(pos) + "'");
+            }
+            return result;
+        }
+
+
+        private cond_expression expression() throws Exception {
+
+            cond_expression left = operand();
+
+            while(true) {
+
+                int op = operator();
+
+                if(op == TCONST.NOOP) {
+                    return left;
+                }
+
+                cond_expression right = operand();
+
+                if(op == TCONST.BOOLAND || op == TCONST.BOOLOR) {
+                    left = new Logical(op == TCONST.BOOLAND, left, right);
+                }
+                else {
+                    if(left instanceof Negate || right instanceof Negate) {
+                        throw error("'!' cannot be applied to a comparison operand");
+                    }
+                    left = new Compare(op, left, right);
+                }
+            }
+        }
+
+
+        private cond_expression operand() throws Exception {
+
+            skipSpace();
+
+            if(peek() == '!') {
+                pos++;
+                return new Negate(primary());
+            }
+            return primary();
+        }
+
+
+        private cond_expression primary() throws Exception {
+
+            skipSpace();
+
+            char c = peek();
+
+            if(c == '(') {
+                pos++;
+
+                cond_expression inner = expression();
+
+                if(peek() != ')') {
+                    throw error("Missing ')'");
+                }
+                pos++;
+                return new Group(inner);
+            }
+
+            if(c == '\'') {
+
+                int end = code.indexOf('\'', ++pos);
+
+                if(end < 0) {
+                    throw error("Unterminated string");
+                }
+
+                String value = code.substring(pos, end);
+
+                pos = end + 1;
+                return new Literal(new TString(value));
+            }
+
+            if(c == '{') {
+
+                if(!code.startsWith("{{", pos)) {
+                    throw error("Unexpected '{'");
+                }
+                pos += 2;
+                skipSpace();
+
+                String name = identifier();
+
+                skipSpace();
+
+                if(!code.startsWith("}}", pos)) {
+                    throw error("Missing '}}'");
+                }
+                pos += 2;
+                return new Symbol(name);
+            }
+
+            if((c >= '0' && c <= '9') || c == '-') {
+
+                int     start   = pos++;
+                boolean decimal = false;
+
+                for( ; pos < code.length() ; pos++) {
+
+                    c = code.charAt(pos);
+
+                    if(c == '.') {
+                        if(decimal) {
+                            throw error("Unexpected '.'");
+                        }
+                        decimal = true;
+                    }
+                    else if(c < '0' || c > '9') {
+                        break;
+                    }
+                }
+
+                String number = code.substring(start, pos);
+
+                try {
+                    return new Literal(decimal? new TFloat(number) : new TInteger(number));
+
+                } catch (NumberFormatException e) {
+                    throw error("Invalid number '" + number + "'");
+                }
+            }
+
+            if(isIdentifierStart(c)) {
+                return new Symbol(identifier());
+            }
+
+            throw error((c == TCONST.EOT)? "Expected an operand" : "Unexpected '" + c + "'");
+        }
+
+
+        /**
+         * @return the operator at the parse point - NOOP at the end of the (sub)expression
+         */
+        private int operator() throws Exception {
+
+            skipSpace();
+
+            char c = peek();
+            char n = (pos + 1 < code.length())? code.charAt(pos + 1) : TCONST.EOT;
+
+            switch(c) {
+                case TCONST.EOT:
+                case ')':
+                    return TCONST.NOOP;
+
+                case '&':
+                    if(n == '&') {
+                        pos += 2;
+                        return TCONST.BOOLAND;
+                    }
+                    break;
+
+                case '|':
+                    if(n == '|') {
+                        pos += 2;
+                        return TCONST.BOOLOR;
+                    }
+                    break;
+
+                case '=':
+                    if(n == '=') {
+                        pos += 2;
+                        return TCONST.EQUALTO;
+                    }
+                    break;
+
+                case '!':
+                    if(n == '=') {
+                        pos += 2;
+                        return TCONST.NEQUALTO;
+                    }
+                    break;
+
+                case '<':
+                    pos += (n == '=')? 2 : 1;
+                    return (n == '=')? TCONST.LESSOREQUAL : TCONST.LESSTHAN;
+
+                case '>':
+                    pos += (n == '=')? 2 : 1;
+                    return (n == '=')? TCONST.GREATEROREQUAL : TCONST.GREATERTHAN;
+            }
+
+            throw error("Missing operator");
+        }
+
+
+        private String identifier() throws Exception {
+
+            int start = pos;
+
+            if(!isIdentifierStart(peek())) {
+                throw error("Expected a symbol name");
+            }
+
+            while(pos < code.length()) {
+
+                char c = code.charAt(pos);
+
+                if(!isIdentifierStart(c) && !(c >= '0' && c <= '9') && c != '.') {
+                    break;
+                }
+                pos++;
+            }
+            return code.substring(start, pos);
+        }
+
+
+        private boolean isIdentifierStart(char c) {
+            return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '_';
+        }
+
+
+        private char peek() {
+            return (pos < code.length())? code.charAt(pos) : TCONST.EOT;
+        }
+
+
+        private void skipSpace() {
+
+            while(pos < code.length() && Character.isWhitespace(code.charAt(pos))) {
+                pos++;
+            }
+        }
+
+
+        private Exception error(String message) {
+            return new Exception(message + " at: " + pos + " in " + code);
+        }
+    }
+}
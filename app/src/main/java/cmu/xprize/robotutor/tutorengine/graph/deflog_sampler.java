@@ -0,0 +1,69 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.robotutor.tutorengine.graph;
+
+import android.util.Log;
+
+import org.json.JSONObject;
+
+import cmu.xprize.robotutor.tutorengine.ILoadableObject2;
+import cmu.xprize.robotutor.tutorengine.graph.vars.IScope2;
+import cmu.xprize.robotutor.tutorengine.util.CClassMap2;
+import cmu.xprize.util.IScope;
+import cmu.xprize.util.JSON_Helper;
+
+/**
+ * Log sampling policy for a tag - defined in the engine descriptor "logSampling" map.
+ * See CLogSampler for the semantics.
+ */
+public class deflog_sampler implements ILoadableObject2 {
+
+    private final String TAG = "deflog_sampler";
+
+    // json loadable fields
+
+    public float    rate;           // events per second - 0 for no limit
+    public int      burst = 1;
+    public long     coalesce;       // last value wins within coalesce ms - 0 for none
+
+    public deflog_sampler() {
+    }
+
+
+
+    // *** Serialization
+
+
+
+    @Override
+    public void loadJSON(JSONObject jsonObj, IScope2 scope) {
+
+        try {
+            JSON_Helper.parseSelf(jsonObj, this, CClassMap2.classMap, scope);
+        }
+        catch(Exception e) {
+            Log.i(TAG, "Log Sampler Failed: " + e);
+        }
+    }
+
+    @Override
+    public void loadJSON(JSONObject jsonObj, IScope scope) {
+        loadJSON(jsonObj, (IScope2) scope);
+    }
+}
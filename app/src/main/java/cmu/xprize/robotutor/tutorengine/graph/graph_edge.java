@@ -39,6 +39,12 @@ public class graph_edge implements ILoadableObject2 {
     public String       constraint;
     public String       edge;
 
+    // Resolved by the graph linker - see graph_linker
+    //
+    private boolean     _linked;
+    private type_cond   _constraint;
+    private scene_node  _target;
+
 
     static private final String TAG = "graph_edge";
 
@@ -49,13 +55,23 @@ public class graph_edge implements ILoadableObject2 {
     public graph_edge() { }
 
 
+    void link(type_cond constraint, scene_node target) {
+
+        _constraint = constraint;
+        _target     = target;
+        _linked     = true;
+    }
+
+
     public boolean testConstraint() {
 
         boolean result = true;
 
-        type_cond constr = null;
+        type_cond constr = _constraint;
 
-        try {
+        // Edges outside linked graphs are resolved by name
+        //
+        if(!_linked) try {
             constr = (type_cond)mScope.mapSymbol(constraint);
 
         } catch (Exception e) {
@@ -71,6 +87,10 @@ public class graph_edge implements ILoadableObject2 {
 
 
     public scene_node followEdge() {
+
+        if(_linked)
+            return _target;
+
         scene_node nextNode = null;
 
         try {
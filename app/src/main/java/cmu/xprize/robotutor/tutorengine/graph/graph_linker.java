@@ -0,0 +1,294 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.robotutor.tutorengine.graph;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import cmu.xprize.comp_logging.CErrorManager;
+import cmu.xprize.robotutor.RoboTutor;
+import cmu.xprize.robotutor.tutorengine.graph.vars.IScope2;
+import cmu.xprize.robotutor.tutorengine.graph.vars.IScriptable2;
+
+
+/**
+ * Link phase for the animator graphs - run once the graphs are loaded.
+ *
+ * The root node, edge constraints, edge targets and node preenter/preexit commands are
+ * resolved to the objects they name so traversal no longer looks them up in the scope.  While
+ * linking the graphs are checked and the problems reported against the graph they occur in:
+ *
+ *   dangling  - a name that does not resolve to an object of the expected type (error)
+ *   unreachable - a node in the nodeMap that can't be reached from the rootnode
+ *   trapped - a cycle of nodes with no edge that leaves it
+ *
+ * Dangling references are linked as missing - with the same outcome traversal by name had,
+ * i.e. a missing constraint passes and a missing target ends the graph.
+ */
+public class graph_linker {
+
+    private final String  tutor;
+    private final String  graph;
+    private final IScope2 scope;
+
+    private int           errors;
+    private int           warnings;
+
+    // Tarjan state for the cycle check
+    //
+    private final IdentityHashMap<scene_node, Integer> index   = new IdentityHashMap<>();
+    private final IdentityHashMap<scene_node, Integer> lowlink = new IdentityHashMap<>();
+    private final IdentityHashMap<scene_node, Boolean> onStack = new IdentityHashMap<>();
+    private final ArrayList<scene_node>                stack   = new ArrayList<>();
+
+    static private final String TAG = "graph_linker";
+
+
+    private graph_linker(String tutor, String graph, IScope2 scope) {
+
+        this.tutor = tutor;
+        this.graph = graph;
+        this.scope = scope;
+    }
+
+
+    /**
+     * Link each of the graphs
+     *
+     * @param tutor  name of the tutor - for reporting
+     * @param graphs
+     * @param scope  the scope the graph nodes are defined in
+     * @return the number of errors - dangling references
+     */
+    public static int link(String tutor, Map<String, scene_graph> graphs, IScope2 scope) {
+
+        int errors   = 0;
+        int warnings = 0;
+
+        if(graphs != null) {
+
+            for(Map.Entry<String, scene_graph> entry : graphs.entrySet()) {
+
+                graph_linker linker = new graph_linker(tutor, entry.getKey(), scope);
+
+                linker.link(entry.getValue());
+
+                errors   += linker.errors;
+                warnings += linker.warnings;
+            }
+        }
+
+        RoboTutor.logManager.postEvent_I(TAG, "target:node.linker,tutor:" + tutor + ",graphs:" + ((graphs != null)? graphs.size() : 0) + ",errors:" + errors + ",warnings:" + warnings);
+
+        return errors;
+    }
+
+
+    private void link(scene_graph sceneGraph) {
+
+        scene_node root = resolve(sceneGraph.rootnode, scene_node.class, graph, "rootnode");
+
+        sceneGraph.link(root);
+
+        // Link every node reachable from the root - edge targets may be nodes of other graphs
+        //
+        IdentityHashMap<scene_node, Boolean> reached = new IdentityHashMap<>();
+        ArrayList<scene_node>                pending = new ArrayList<>();
+
+        if(root != null) {
+            reached.put(root, true);
+            pending.add(root);
+        }
+
+        while(!pending.isEmpty()) {
+
+            scene_node node = pending.remove(pending.size() - 1);
+
+            node.link(resolveAll(node.preenter, node.name, "preenter"), resolveAll(node.preexit, node.name, "preexit"));
+
+            if(node.edges == null)
+                continue;
+
+            for(graph_edge edge : node.edges) {
+
+                type_cond  constraint = resolve(edge.constraint, type_cond.class, node.name, "constraint");
+                scene_node target     = resolve(edge.edge, scene_node.class, node.name, "edge");
+
+                edge.link(constraint, target);
+
+                if(target != null && !reached.containsKey(target)) {
+                    reached.put(target, true);
+                    pending.add(target);
+                }
+            }
+        }
+
+        // Nodes that traversal can never enter
+        //
+        if(sceneGraph.nodeMap != null) {
+
+            for(Object node : sceneGraph.nodeMap.values()) {
+
+                if(node instanceof scene_node && !reached.containsKey(node)) {
+                    warn("unreachable", ((scene_node) node).name, null);
+                }
+            }
+        }
+
+        for(scene_node node : reached.keySet()) {
+            if(!index.containsKey(node))
+                strongConnect(node);
+        }
+    }
+
+
+    /**
+     * @return the named object - null and reported if it doesn't exist or is of the wrong type
+     */
+    private <T> T resolve(String name, Class<T> type, String node, String field) {
+
+        if(name == null)
+            return null;
+
+        IScriptable2 result = null;
+
+        try {
+            result = scope.mapSymbol(name);
+
+        } catch (Exception e) {
+            result = null;
+        }
+
+        if(!type.isInstance(result)) {
+
+            errors++;
+            CErrorManager.logEvent(TAG, "target:node.linker,error:dangling " + field + ",tutor:" + tutor + ",graph:" + graph + ",node:" + node + ",name:" + name + ((result != null)? ",type:" + result.getType() : ""), null, false);
+            return null;
+        }
+
+        return type.cast(result);
+    }
+
+
+    private IScriptable2[] resolveAll(String[] names, String node, String field) {
+
+        if(names == null)
+            return null;
+
+        IScriptable2[] result = new IScriptable2[names.length];
+
+        for(int i1 = 0 ; i1 < names.length ; i1++) {
+            result[i1] = resolve(names[i1], IScriptable2.class, node, field);
+        }
+        return result;
+    }
+
+
+    private void warn(String problem, String node, String detail) {
+
+        warnings++;
+        RoboTutor.logManager.postEvent_W(TAG, "target:node.linker,warning:" + problem + ",tutor:" + tutor + ",graph:" + graph + ",node:" + node + ((detail != null)? "," + detail : ""));
+    }
+
+
+    /**
+     * Tarjan's strongly connected components over the linked edges - a component with a cycle
+     * that has no edge leaving it (and no edge that ends the graph) can never be exited.
+     */
+    private void strongConnect(scene_node node) {
+
+        int ndx = index.size();
+
+        index.put(node, ndx);
+        lowlink.put(node, ndx);
+        stack.add(node);
+        onStack.put(node, true);
+
+        for(scene_node next : successors(node)) {
+
+            if(next == null)
+                continue;
+
+            if(!index.containsKey(next)) {
+                strongConnect(next);
+                lowlink.put(node, Math.min(lowlink.get(node), lowlink.get(next)));
+            }
+            else if(onStack.containsKey(next)) {
+                lowlink.put(node, Math.min(lowlink.get(node), index.get(next)));
+            }
+        }
+
+        if(lowlink.get(node) == ndx) {
+
+            IdentityHashMap<scene_node, Boolean> component = new IdentityHashMap<>();
+            scene_node                           member;
+
+            do {
+                member = stack.remove(stack.size() - 1);
+                onStack.remove(member);
+                component.put(member, true);
+
+            } while(member != node);
+
+            if(isTrap(component)) {
+
+                StringBuilder names = new StringBuilder();
+
+                for(scene_node trapped : component.keySet()) {
+                    names.append((names.length() > 0)? "|" : "").append(trapped.name);
+                }
+                warn("cycle with no exit", node.name, "cycle:" + names);
+            }
+        }
+    }
+
+
+    private boolean isTrap(IdentityHashMap<scene_node, Boolean> component) {
+
+        boolean cycle = component.size() > 1;
+
+        for(scene_node member : component.keySet()) {
+
+            for(scene_node next : successors(member)) {
+
+                // an edge out of the component or one that ends the graph is an exit
+                //
+                if(next == null || !component.containsKey(next))
+                    return false;
+
+                cycle |= (next == member);
+            }
+        }
+        return cycle;
+    }
+
+
+    private ArrayList<scene_node> successors(scene_node node) {
+
+        ArrayList<scene_node> result = new ArrayList<>();
+
+        if(node.edges != null) {
+            for(graph_edge edge : node.edges) {
+                result.add(edge.followEdge());
+            }
+        }
+        return result;
+    }
+}
@@ -21,6 +21,9 @@ package cmu.xprize.robotutor.tutorengine.graph;
 
 import android.util.Log;
 
+import org.json.JSONObject;
+
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -29,6 +32,7 @@ import cmu.xprize.comp_logging.CLogManager;
 import cmu.xprize.comp_logging.ILogManager;
 import cmu.xprize.robotutor.RoboTutor;
 import cmu.xprize.robotutor.tutorengine.ILoadableObject2;
+import cmu.xprize.robotutor.tutorengine.graph.vars.IScope2;
 import cmu.xprize.comp_logging.CErrorManager;
 import cmu.xprize.util.TCONST;
 
@@ -43,6 +47,12 @@ public class scene_graph extends scene_node implements ILoadableObject2 {
     // State fields
     private scene_node        _currNode;
     private String            _nodeState;
+    private boolean           _linked;
+    private scene_node        _rootNode;            // resolved by the graph linker
+
+    private ArrayList<type_cond> _badConditions = new ArrayList<>();    // reported once named
+
+    static private scene_graph   _loading;          // the graph whose spec is being loaded
 
     // json loadable fields
     public String  version;
@@ -148,7 +158,7 @@ public class scene_graph extends scene_node implements ILoadableObject2 {
                     // A result of TCONST.NONE indicated the complex source node is exhausted.
                     // which will drive a search for the next node
                     //
-                    RoboTutor.logManager.postEvent_I(_logType, "target:node.scenegraph.applyNode,name:" + _currNode.name + ",start State:" + _nodeState + ",mapType:" + _currNode.maptype + ",mapName:" + _currNode.mapname);
+                    RoboTutor.logManager.postEvent_I(_logType, "target:node.scenegraph.applyNode,name:%s,start State:%s,mapType:%s,mapName:%s", _currNode.name, _nodeState, _currNode.maptype, _currNode.mapname);
 
                     if(_currNode.testFeatures()) {
                         _nodeState = _currNode.applyNode();
@@ -157,7 +167,7 @@ public class scene_graph extends scene_node implements ILoadableObject2 {
                         _nodeState = TCONST.DONE;
                     }
 
-                    RoboTutor.logManager.postEvent_I(_logType, "target:node.scenegraph.applyNode,name:" + _currNode.name + ",end State:" + _nodeState);
+                    RoboTutor.logManager.postEvent_I(_logType, "target:node.scenegraph.applyNode,name:%s,end State:%s", _currNode.name, _nodeState);
 
                     break;
             }
@@ -197,7 +207,7 @@ public class scene_graph extends scene_node implements ILoadableObject2 {
             // which will drive a search for the next node
             //
             else {
-                RoboTutor.logManager.postEvent_I(_logType, "target:node.scenegraph,name:" + _currNode.name + ",start State:" + _nodeState + ",mapType:" + _currNode.maptype + ",mapName:" + _currNode.mapname);
+                RoboTutor.logManager.postEvent_I(_logType, "target:node.scenegraph,name:%s,start State:%s,mapType:%s,mapName:%s", _currNode.name, _nodeState, _currNode.maptype, _currNode.mapname);
 
                 if(_currNode.testFeatures()) {
                     _nodeState = _currNode.applyNode();
@@ -205,7 +215,7 @@ public class scene_graph extends scene_node implements ILoadableObject2 {
                 else {
                     _nodeState = TCONST.DONE;
                 }
-                RoboTutor.logManager.postEvent_I(_logType, "target:node.scenegraph,name:" + _currNode.name + ",end State:" + _nodeState);
+                RoboTutor.logManager.postEvent_I(_logType, "target:node.scenegraph,name:%s,end State:%s", _currNode.name, _nodeState);
             }
         }
 
@@ -213,12 +223,19 @@ public class scene_graph extends scene_node implements ILoadableObject2 {
     }
 
 
+    void link(scene_node root) {
+
+        _rootNode = root;
+        _linked   = true;
+    }
+
+
     @Override
     public String next() {
         String result = TCONST.READY;
 
         try {
-            _currNode = (scene_node) getScope().mapSymbol(rootnode);
+            _currNode = _linked? _rootNode : (scene_node) getScope().mapSymbol(rootnode);
         }
         catch(Exception e) {
             CErrorManager.logEvent(_logType,"target:node.scenegraph,event:Root Node not found", e, false);
@@ -226,7 +243,7 @@ public class scene_graph extends scene_node implements ILoadableObject2 {
 
         if(_currNode != null) {
 
-            RoboTutor.logManager.postEvent_I(_logType, "target:node.root,name:" + _currNode.name + ",start State:" + _nodeState + ",mapType:" + _currNode.maptype + ",mapName:" + _currNode.mapname);
+            RoboTutor.logManager.postEvent_I(_logType, "target:node.root,name:%s,start State:%s,mapType:%s,mapName:%s", _currNode.name, _nodeState, _currNode.maptype, _currNode.mapname);
 
             // TODO: Check if preenter is used - I think we only want this for scene preenter/exit
             _currNode.preEnter();
@@ -292,4 +309,56 @@ public class scene_graph extends scene_node implements ILoadableObject2 {
         return _nodeState;
     }
 
+
+    // *** Serialization
+
+
+    /**
+     * @return the graph whose spec is being loaded - null outside of a graph load
+     */
+    static scene_graph loading() {
+        return _loading;
+    }
+
+
+    /**
+     * A condition in this graph failed to compile - neither the graph nor the condition have
+     * their names until they are added to their maps, so the error is reported once the graph
+     * is named.
+     *
+     * @param condition
+     */
+    void addBadCondition(type_cond condition) {
+        _badConditions.add(condition);
+    }
+
+
+    /**
+     * The graph is named after its spec is loaded - see JSON_Helper.addMapEntry
+     */
+    @Override
+    public void setName(String newName) {
+
+        super.setName(newName);
+
+        for(type_cond condition : _badConditions) {
+            condition.reportError();
+        }
+        _badConditions.clear();
+    }
+
+
+    @Override
+    public void loadJSON(JSONObject jsonObj, IScope2 scope) {
+
+        scene_graph outer = _loading;
+        _loading = this;
+
+        try {
+            super.loadJSON(jsonObj, scope);
+        }
+        finally {
+            _loading = outer;
+        }
+    }
 }
@@ -111,7 +111,7 @@ public class scene_module extends scene_node implements ILoadableObject2 {
         //
         resetNode();
 
-        RoboTutor.logManager.postEvent_I(_logType, "target:node.module,name:" + name + ",event:start,modulestate:" + _moduleState);
+        RoboTutor.logManager.postEvent_I(_logType, "target:node.module,name:%s,event:start,modulestate:%s", name, _moduleState);
 
         // TODO: At the moment this loop is used to allow Module callouts from timer events
         // TODO: Make it so that timer events run in their own graph so this is not needed.
@@ -149,7 +149,7 @@ public class scene_module extends scene_node implements ILoadableObject2 {
 
         }while(_moduleState.equals(TCONST.DONE));
 
-        RoboTutor.logManager.postEvent_I(_logType, "target:node.module,name:" + name + ",event:end,modulestate:" + _moduleState);
+        RoboTutor.logManager.postEvent_I(_logType, "target:node.module,name:%s,event:end,modulestate:%s", name, _moduleState);
 
         return _moduleState;
     }
@@ -66,6 +66,11 @@ public class scene_node implements ILoadableObject2, IScriptable2, IEventSource,
 
     public graph_edge[]     edges;
 
+    // preenter / preexit resolved by the graph linker - see graph_linker
+    //
+    private IScriptable2[]  _preenter;
+    private IScriptable2[]  _preexit;
+
 
     static private final String TAG = "scene_node";
 
@@ -217,6 +222,13 @@ public class scene_node implements ILoadableObject2, IScriptable2, IEventSource,
     }
 
 
+    void link(IScriptable2[] preenterSet, IScriptable2[] preexitSet) {
+
+        _preenter = preenterSet;
+        _preexit  = preexitSet;
+    }
+
+
     public scene_node nextNode() {
 
 
@@ -226,11 +238,11 @@ public class scene_node implements ILoadableObject2, IScriptable2, IEventSource,
 
         for(graph_edge edge : edges) {
 
-            RoboTutor.logManager.postEvent_V(TAG, "target:node.edge,action:test,name:" + edge.constraint );
+            RoboTutor.logManager.postEvent_V(TAG, "target:node.edge,action:test,name:%s", edge.constraint);
 
             if(edge.testConstraint())
             {
-                RoboTutor.logManager.postEvent_V(TAG, "target:node.edge,action:taken,name:" + edge.edge );
+                RoboTutor.logManager.postEvent_V(TAG, "target:node.edge,action:taken,name:%s", edge.edge);
 
                 node = edge.followEdge();
 
@@ -261,7 +273,7 @@ public class scene_node implements ILoadableObject2, IScriptable2, IEventSource,
     {
         if(preenter != null)
         {
-            applyCommandSet("target:node.preenter: ", preenter);
+            applyCommandSet("target:node.preenter: ", preenter, _preenter);
         }
     }
 
@@ -273,23 +285,25 @@ public class scene_node implements ILoadableObject2, IScriptable2, IEventSource,
     {
         if(preexit != null)
         {
-            applyCommandSet("target:node,action:preexit", preexit);
+            applyCommandSet("target:node,action:preexit", preexit, _preexit);
         }
     }
 
 
     // preenter / preexit action resolution.
     //
-    private void applyCommandSet(String tag, String[] commandSet) {
+    private void applyCommandSet(String tag, String[] commandSet, IScriptable2[] linkedSet) {
 
         if(commandSet.length > 0) {
 
-            RoboTutor.logManager.postEvent_D(_logType, tag + ",event:start,name:" + name);
+            RoboTutor.logManager.postEvent_D(_logType, "%s,event:start,name:%s", tag, name);
+
+            for (int i1 = 0 ; i1 < commandSet.length ; i1++) {
 
-            for (String nodeName : commandSet) {
+                String nodeName = commandSet[i1];
 
                 try {
-                    IScriptable2 node = (IScriptable2) getScope().mapSymbol(nodeName);
+                    IScriptable2 node = (linkedSet != null)? linkedSet[i1] : (IScriptable2) getScope().mapSymbol(nodeName);
 
                     if(node.testFeatures()) {
                         node.applyNode();
@@ -299,7 +313,7 @@ public class scene_node implements ILoadableObject2, IScriptable2, IEventSource,
                 }
             }
 
-            RoboTutor.logManager.postEvent_D(_logType, tag + ",event:end,name:" + name);
+            RoboTutor.logManager.postEvent_D(_logType, "%s,event:end,name:%s", tag, name);
         }
     }
 
@@ -58,7 +58,7 @@ public class scene_queuedgraph extends scene_module {
         Log.d(DEBUG_HESITATE, "scene_queuedgraph.cancelNode" + name);
         // If queue is in progress cancel operations.
         //
-        RoboTutor.logManager.postEvent_V(_logType, "target:node.queuedgraph,action:cancelnode,name:" + name );
+        RoboTutor.logManager.postEvent_V(_logType, "target:node.queuedgraph,action:cancelnode,name:%s", name);
         terminateQueue();
 
         // If there is an active node e.g. audioqueue - kill it off
@@ -101,7 +101,7 @@ public class scene_queuedgraph extends scene_module {
                     switch ((String) eventObject.getString(AUDIO_EVENT)) {
 
                         case TCONST.TRACK_COMPLETE:
-                            RoboTutor.logManager.postEvent_V(_logType, "target:node.queuedgraph,action:post-next_node,event:trackcomplete,name:" + name);
+                            RoboTutor.logManager.postEvent_V(_logType, "target:node.queuedgraph,action:post-next_node,event:trackcomplete,name:%s", name);
                             post(TCONST.NEXT_NODE);
                             break;
 
@@ -205,7 +205,7 @@ public class scene_queuedgraph extends scene_module {
 
                             if(validAction) {
 
-                                RoboTutor.logManager.postEvent_I(_logType, "target:node.queuedgraph,name:" + _nextAction.name + ",startstate:" + _moduleState + ",maptype:" + _nextAction.maptype + ",mapname:" + _nextAction.mapname);
+                                RoboTutor.logManager.postEvent_I(_logType, "target:node.queuedgraph,name:%s,startstate:%s,maptype:%s,mapname:%s", _nextAction.name, _moduleState, _nextAction.maptype, _nextAction.mapname);
 
                                 if(_nextAction.testFeatures()) {
                                     _nextAction.preEnter();
@@ -214,7 +214,7 @@ public class scene_queuedgraph extends scene_module {
                                 else {
                                     _moduleState = TCONST.DONE;
                                 }
-                                RoboTutor.logManager.postEvent_V(_logType, "target:node.queuedgraph,name:" + _nextAction.name + ",endstate:" + _moduleState);
+                                RoboTutor.logManager.postEvent_V(_logType, "target:node.queuedgraph,name:%s,endstate:%s", _nextAction.name, _moduleState);
 
                                 switch (_moduleState) {
 
@@ -269,7 +269,7 @@ public class scene_queuedgraph extends scene_module {
         //
         _qDisabled = true;
 
-        RoboTutor.logManager.postEvent_V(_logType, "target:node.queuedgraph,action:terminatequeue,name:" + name);
+        RoboTutor.logManager.postEvent_V(_logType, "target:node.queuedgraph,action:terminatequeue,name:%s", name);
         flushQueue();
     }
 
@@ -286,7 +286,7 @@ public class scene_queuedgraph extends scene_module {
 
             Map.Entry entry = (Map.Entry) tObjects.next();
 
-            RoboTutor.logManager.postEvent_V(_logType, "target:node.queuedgraph,action:removepost,name:" + entry.getKey());
+            RoboTutor.logManager.postEvent_V(_logType, "target:node.queuedgraph,action:removepost,name:%s", entry.getKey());
 
             mainHandler.removeCallbacks((scene_queuedgraph.Queue)(entry.getValue()));
         }
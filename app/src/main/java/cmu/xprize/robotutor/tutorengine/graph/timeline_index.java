@@ -0,0 +1,181 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.robotutor.tutorengine.graph;
+
+import java.util.Arrays;
+
+import cmu.xprize.util.TCONST;
+
+
+/**
+ * Keyframe index for an absolute timeline - see type_timelineFL.
+ *
+ * The script and audio layer keyframes are reduced to sorted arrays of frame numbers when the
+ * track is loaded so a seek is a binary search rather than a scan of the layers.  Keyframes are
+ * in frame order within a layer - as Flash writes them.
+ *
+ * scan gives the same result the layer scan it replaces did - including the last frame, which
+ * only grows as far as the audio clips the scan would have reached.
+ */
+final class timeline_index {
+
+    static final int NONE = -1;
+
+    private final int[] scriptFrames;         // index of each script keyframe
+    private final int[] audioFrames;          // index of each audio clip
+    private final int[] audioLast;            // mLast of each audio clip
+    private final int[] lastFrame;            // greatest mLast of clips 0..n
+    private final int[] lastEnd;              // greatest mLast of clips 0..n-1 - for the overlap search
+
+
+    // Results of the last scan
+    //
+    int script;                 // script keyframe at or after the seek point - NONE if none
+    int audio;                  // audio clip overlapping the seek point - NONE if none
+    int last;                   // last frame of the audio clips reached by the scan
+
+
+    /**
+     * @param scriptFrames keyframe indices of the script layer
+     * @param audioFrames  start frame of each audio clip
+     * @param audioLast    last frame of each audio clip
+     */
+    timeline_index(int[] scriptFrames, int[] audioFrames, int[] audioLast) {
+
+        this.scriptFrames = scriptFrames;
+        this.audioFrames  = audioFrames;
+        this.audioLast    = audioLast;
+
+        lastFrame = new int[audioLast.length];
+        lastEnd   = new int[audioLast.length + 1];
+
+        int max = 0;
+
+        for(int i1 = 0 ; i1 < audioLast.length ; i1++) {
+
+            lastEnd[i1]   = max;
+            max           = Math.max(max, audioLast[i1]);
+            lastFrame[i1] = max;
+        }
+        lastEnd[audioLast.length] = max;
+    }
+
+
+    /**
+     * Find the closest event frame greater than or equal to the seek point.  The script
+     * keyframe and audio clip at the seek point are recorded in script and audio.
+     *
+     * @param seekPnt
+     * @return the event frame - TCONST.MAXTRACKLENGTH if there are no more events
+     */
+    int scan(long seekPnt) {
+
+        int nextEvent = TCONST.MAXTRACKLENGTH;
+
+        // The first script keyframe at or past the seek point
+        //
+        script = lowerBound(scriptFrames, seekPnt);
+
+        if(script < scriptFrames.length) {
+            nextEvent = scriptFrames[script];
+        }
+        else {
+            script = NONE;
+        }
+
+        // The audio scan stops at the first clip that starts past the seek point - or that starts
+        // on the seek point unless a script already sits there.
+        //
+        int stop = (nextEvent > seekPnt)? lowerBound(audioFrames, seekPnt) : lowerBound(audioFrames, seekPnt + 1);
+
+        if(stop < audioFrames.length) {
+
+            last  = lastFrame[stop];
+            audio = (audioFrames[stop] == seekPnt)? stop : overlapping(stop, seekPnt);
+
+            nextEvent = Math.min(nextEvent, audioFrames[stop]);
+        }
+        else {
+            last  = lastEnd[audioFrames.length];
+            audio = overlapping(audioFrames.length, seekPnt);
+        }
+
+        return nextEvent;
+    }
+
+
+    /**
+     * @return the last clip before stop that overlaps the seek point - clips don't overlap one
+     *         another so this is normally the clip just before stop
+     */
+    private int overlapping(int stop, long seekPnt) {
+
+        if(lastEnd[stop] < seekPnt)
+            return NONE;
+
+        for(int i1 = stop - 1 ; i1 >= 0 ; i1--) {
+
+            if(audioLast[i1] >= seekPnt)
+                return i1;
+        }
+        return NONE;
+    }
+
+
+    /**
+     * @return the next frame that playback needs to wake for - either the next event or the
+     *         last frame, where the timeline ends.  Frames in between only advance the frame count.
+     */
+    static long wakeFrame(long currFrame, long nextFrame, long lastFrame) {
+
+        long wake = lastFrame;
+
+        if(nextFrame >= currFrame && nextFrame < wake) {
+            wake = nextFrame;
+        }
+        return Math.max(currFrame, wake);
+    }
+
+
+    /**
+     * @return the first position whose frame is >= frame
+     */
+    private static int lowerBound(int[] frames, long frame) {
+
+        int low  = 0;
+        int high = frames.length;
+
+        while(low < high) {
+
+            int mid = (low + high) >>> 1;
+
+            if(frames[mid] < frame)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+
+    @Override
+    public String toString() {
+        return "scripts:" + Arrays.toString(scriptFrames) + ",audio:" + Arrays.toString(audioFrames);
+    }
+}
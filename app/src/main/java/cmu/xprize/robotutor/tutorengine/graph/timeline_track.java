@@ -0,0 +1,588 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.robotutor.tutorengine.graph;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+import org.xmlpull.v1.XmlPullParserFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+import cmu.xprize.robotutor.tutorengine.util.SnapshotFile;
+import cmu.xprize.util.TCONST;
+
+
+/**
+ * Compiled form of a Flash XFL timeline track - see type_timelineFL.
+ *
+ * The track is compiled from the XFL xml the first time it is used - its layers and keyframes
+ * with the frame scripts and the audio clip commands already parsed to JSON - and written to a
+ * binary snapshot.  Later loads read the snapshot in one read and skip the xml and JSON text
+ * parsing entirely.
+ *
+ * The snapshot is keyed by a stamp of the source - see type_timelineFL.sourceStamp - so a changed
+ * track simply misses and is compiled again.  The file framing and payload checksum are shared
+ * with the matrix snapshot - see SnapshotFile.
+ */
+final class timeline_track {
+
+    private static final String TAG = "timeline_track";
+
+    private static final int MAGIC   = 0x5254524b;          // "RTRK"
+    private static final int VERSION = 2;
+
+    // JSON value tags
+    //
+    private static final int ABSENT = 0;
+    private static final int NULL   = 1;
+    private static final int FALSE  = 2;
+    private static final int TRUE   = 3;
+    private static final int INT    = 4;
+    private static final int LONG   = 5;
+    private static final int DOUBLE = 6;
+    private static final int STRING = 7;
+    private static final int ARRAY  = 8;
+    private static final int OBJECT = 9;
+
+    final ArrayList<Layer> layers = new ArrayList<>();
+
+
+    static final class Layer {
+
+        final String           name;
+        final ArrayList<Frame> frames = new ArrayList<>();
+
+        Layer(String name) {
+            this.name = name;
+        }
+    }
+
+
+    static final class Frame {
+
+        final boolean    audio;         // audio clip - otherwise a script frame
+        final String     name;
+        final int        index;
+        final int        duration;
+        final JSONObject command;       // the frame script or the audio command - null if none
+
+        Frame(boolean audio, String name, int index, int duration, JSONObject command) {
+
+            this.audio    = audio;
+            this.name     = name;
+            this.index    = index;
+            this.duration = duration;
+            this.command  = command;
+        }
+    }
+
+
+    //************ Snapshot
+
+
+    /**
+     * @param snapshot
+     * @param stamp    stamp of the source track
+     * @return the track - null if there is no usable snapshot for the given stamp
+     */
+    static timeline_track read(File snapshot, String stamp) {
+
+        SnapshotFile file = SnapshotFile.read(snapshot, MAGIC, VERSION, stamp);
+
+        try {
+            return (file != null)? load(file) : null;
+
+        } catch (Exception e) {
+
+            Log.w(TAG, "Snapshot unreadable: " + snapshot + " : " + e);
+            return null;
+        }
+    }
+
+
+    /**
+     * @return true if the snapshot was written
+     */
+    static boolean write(File snapshot, String stamp, timeline_track track) {
+
+        try {
+            return SnapshotFile.write(snapshot, MAGIC, VERSION, stamp, payload(track));
+
+        } catch (Exception e) {
+
+            Log.w(TAG, "Snapshot not written: " + snapshot + " : " + e);
+            return false;
+        }
+    }
+
+
+    static byte[] encode(timeline_track track, String stamp) throws IOException, JSONException {
+        return SnapshotFile.encode(MAGIC, VERSION, stamp, payload(track));
+    }
+
+
+    static timeline_track decode(byte[] data, String stamp) throws IOException, JSONException {
+
+        SnapshotFile file = SnapshotFile.decode(data, MAGIC, VERSION, stamp);
+
+        return (file != null)? load(file) : null;
+    }
+
+
+    private static byte[] payload(timeline_track track) throws IOException, JSONException {
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream(4 * 1024);
+        DataOutputStream      out    = new DataOutputStream(result);
+
+        out.writeInt(track.layers.size());
+
+        for(Layer layer : track.layers) {
+
+            out.writeUTF(layer.name);
+            out.writeInt(layer.frames.size());
+
+            for(Frame frame : layer.frames) {
+
+                out.writeBoolean(frame.audio);
+                writeString(out, frame.name);
+                out.writeInt(frame.index);
+                out.writeInt(frame.duration);
+                writeValue(out, frame.command);
+            }
+        }
+        out.flush();
+
+        return result.toByteArray();
+    }
+
+
+    private static timeline_track load(SnapshotFile file) throws IOException, JSONException {
+
+        DataInputStream in = new DataInputStream(file.payload());
+
+        timeline_track track   = new timeline_track();
+        int            nLayers = in.readInt();
+
+        for(int i1 = 0 ; i1 < nLayers ; i1++) {
+
+            Layer layer   = new Layer(in.readUTF());
+            int   nFrames = in.readInt();
+
+            for(int i2 = 0 ; i2 < nFrames ; i2++) {
+
+                boolean audio    = in.readBoolean();
+                String  name     = readString(in);
+                int     index    = in.readInt();
+                int     duration = in.readInt();
+                Object  command  = readValue(in);
+
+                if(command != null && !(command instanceof JSONObject)) {
+                    throw new IOException("Malformed snapshot");
+                }
+                layer.frames.add(new Frame(audio, name, index, duration, (JSONObject) command));
+            }
+            track.layers.add(layer);
+        }
+        return track;
+    }
+
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+
+        out.writeBoolean(value != null);
+
+        if(value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+
+    private static String readString(DataInputStream in) throws IOException {
+
+        return in.readBoolean()? in.readUTF() : null;
+    }
+
+
+    /**
+     * JSON values are written as a tagged tree so they are rebuilt without parsing JSON text
+     */
+    private static void writeValue(DataOutputStream out, Object value) throws IOException, JSONException {
+
+        if(value == null) {
+            out.writeByte(ABSENT);
+        }
+        else if(value == JSONObject.NULL) {
+            out.writeByte(NULL);
+        }
+        else if(value instanceof Boolean) {
+            out.writeByte((Boolean) value? TRUE : FALSE);
+        }
+        else if(value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        }
+        else if(value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        }
+        else if(value instanceof Number) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        }
+        else if(value instanceof JSONArray) {
+
+            JSONArray array = (JSONArray) value;
+
+            out.writeByte(ARRAY);
+            out.writeInt(array.length());
+
+            for(int i1 = 0 ; i1 < array.length() ; i1++) {
+                writeValue(out, array.get(i1));
+            }
+        }
+        else if(value instanceof JSONObject) {
+
+            JSONObject     object = (JSONObject) value;
+            Iterator<?>    keys   = object.keys();
+
+            out.writeByte(OBJECT);
+            out.writeInt(object.length());
+
+            while(keys.hasNext()) {
+
+                String key = (String) keys.next();
+
+                out.writeUTF(key);
+                writeValue(out, object.get(key));
+            }
+        }
+        else {
+            out.writeByte(STRING);
+            out.writeUTF(value.toString());
+        }
+    }
+
+
+    private static Object readValue(DataInputStream in) throws IOException, JSONException {
+
+        int tag = in.readUnsignedByte();
+
+        switch(tag) {
+            case ABSENT: return null;
+            case NULL:   return JSONObject.NULL;
+            case FALSE:  return Boolean.FALSE;
+            case TRUE:   return Boolean.TRUE;
+            case INT:    return in.readInt();
+            case LONG:   return in.readLong();
+            case DOUBLE: return in.readDouble();
+            case STRING: return in.readUTF();
+
+            case ARRAY: {
+
+                JSONArray array = new JSONArray();
+                int       size  = in.readInt();
+
+                for(int i1 = 0 ; i1 < size ; i1++) {
+                    array.put(readValue(in));
+                }
+                return array;
+            }
+
+            case OBJECT: {
+
+                JSONObject object = new JSONObject();
+                int        size   = in.readInt();
+
+                for(int i1 = 0 ; i1 < size ; i1++) {
+
+                    String key = in.readUTF();
+
+                    object.put(key, readValue(in));
+                }
+                return object;
+            }
+        }
+        throw new IOException("Malformed snapshot - tag " + tag);
+    }
+
+
+    //***************************************************
+    //*** Resource Loader Parser
+
+
+    /**
+     * Compile the XFL xml of a track
+     *
+     * @param in
+     * @return the track
+     * @throws IOException
+     * @throws XmlPullParserException
+     */
+    static timeline_track compile(InputStream in) throws IOException, XmlPullParserException {
+
+        timeline_track track = new timeline_track();
+
+        XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
+        factory.setNamespaceAware(false);
+
+        XmlPullParser xpparser = factory.newPullParser();
+
+        xpparser.setInput(in, null);
+
+        int eventType = xpparser.getEventType();
+
+        while (eventType != XmlPullParser.END_DOCUMENT) {
+            if(eventType == XmlPullParser.START_TAG) {
+
+                String name = xpparser.getName();
+
+                // Starts by looking for the entry tag
+                switch(name) {
+                    case "DOMSymbolItem":
+                    case "timeline":
+                    case "DOMTimeline":
+                    case "layers":
+                        // Decompose Flash Object declaration
+                        // just tunnel into these elements
+                        // outer tags - they are superfluous for our use
+                        break;
+
+                    case "DOMLayer":
+                        track.layers.add(compileLayer(xpparser));
+                        break;
+
+                    default:
+                        // Skip unrecognized tags
+                        skip(xpparser);
+                        break;
+                }
+            }
+            eventType = xpparser.next();
+        }
+
+        return track;
+    }
+
+
+    private static Layer compileLayer(XmlPullParser xpparser) throws IOException, XmlPullParserException {
+
+        xpparser.require(XmlPullParser.START_TAG, null, "DOMLayer");
+
+        Layer layer = new Layer(xpparser.getAttributeValue(null, "name"));
+
+        while (xpparser.next() != XmlPullParser.END_TAG) {
+
+            if (xpparser.getEventType() != XmlPullParser.START_TAG) {
+                continue;
+            }
+            String name = xpparser.getName();
+
+            // Starts by looking for the entry tag
+            switch(name) {
+                case "frames":
+                    // just tunnel into the frames element
+                    break;
+
+                // Note that it is implicit that there will NEVER be a xml spec that
+                // has a mixed track and a script track -
+                case "DOMFrame":
+                    switch(layer.name) {
+                        case TCONST.SCRIPT:
+                            layer.frames.add(compileScriptFrame(xpparser));
+                            break;
+
+                        case TCONST.MIXED:
+                            // fall through - mixed is a special type of audio track
+
+                        case TCONST.AUDIO:
+                            // Audio tracks can have sound assets or they can use a script
+                            if(xpparser.getAttributeValue(null, "soundName") == null)
+                                layer.frames.add(compileScriptFrame(xpparser));
+                            else
+                                layer.frames.add(compileAudioFrame(xpparser));
+                            break;
+
+                        default:
+                            skip(xpparser);
+                            break;
+                    }
+                    break;
+
+                default:
+                    // Skip unrecognized tags
+                    skip(xpparser);
+                    break;
+            }
+        }
+
+        return layer;
+    }
+
+
+    private static Frame compileScriptFrame(XmlPullParser xpparser) throws IOException, XmlPullParserException {
+
+        xpparser.require(XmlPullParser.START_TAG, null, "DOMFrame");
+
+        String     name     = xpparser.getAttributeValue(null, "name");
+        int        index    = getSafeInteger(xpparser.getAttributeValue(null, "index"));
+        int        duration = getSafeInteger(xpparser.getAttributeValue(null, "duration"));
+        JSONObject script   = null;
+        int        mDepth   = 0;
+
+        while((xpparser.next() != XmlPullParser.END_TAG) || (mDepth > 0)) {
+
+            if (xpparser.getEventType() == XmlPullParser.END_TAG) {
+                mDepth--;
+                continue;
+            }
+            if (xpparser.getEventType() != XmlPullParser.START_TAG) {
+                continue;
+            }
+
+            // Starts by looking for the entry tag
+            switch(xpparser.getName()) {
+                case "Actionscript":
+                    // just tunnel into the Actionscript element
+                    mDepth++;
+                    break;
+
+                case "script":
+                    script = compileScript(xpparser);
+                    break;
+
+                default:
+                    // Skip unrecognized tags
+                    skip(xpparser);
+                    break;
+            }
+        }
+
+        return new Frame(false, name, index, duration, script);
+    }
+
+
+    private static JSONObject compileScript(XmlPullParser xpp) throws IOException, XmlPullParserException {
+
+        JSONObject script = null;
+
+        xpp.require(XmlPullParser.START_TAG, null, "script");
+
+        while (xpp.nextToken() != XmlPullParser.END_TAG) {
+            if (xpp.getEventType() != XmlPullParser.CDSECT) {
+                continue;
+            }
+
+            try {
+                script = new JSONObject(xpp.getText());
+            } catch (JSONException e) {
+                e.printStackTrace();
+            }
+        }
+        return script;
+    }
+
+
+    /**
+     * This decodes a Flash audio frame specification from an associated Flash Library object
+     * xml spec.
+     *
+     * The frame name may be used to hold a comma delimited list of features
+     */
+    private static Frame compileAudioFrame(XmlPullParser xpp) throws IOException, XmlPullParserException {
+
+        xpp.require(XmlPullParser.START_TAG, null, "DOMFrame");
+
+        String     tindex   = xpp.getAttributeValue(null, "index");
+        String     name     = xpp.getAttributeValue(null, "name");
+        int        index    = 0;
+        int        duration = 0;
+        JSONObject command  = null;
+
+        try {
+            index    = getSafeInteger(tindex);
+            duration = getSafeInteger(xpp.getAttributeValue(null, "duration"));
+
+            // NOTE: THIS IS FLASH SPECIFIC
+            // we strip off the Flash  audio/en/
+            String soundSource = xpp.getAttributeValue(null, "soundName").substring(9);
+
+            // Note we pass the relative start location of this audio track - for seek purposes
+            command = new JSONObject();
+
+            command.put("action", "AUDIO");
+            command.put("command", "PAUSE");
+            command.put("soundsource", soundSource);
+            command.put("index", String.valueOf(tindex));
+            command.put("features", (name != null)? name : "");
+        }
+        catch(Exception e) {
+            Log.d(TAG, "Audio frame format error: " + e);
+        }
+
+        // We don't need the internal elements of this so skip to the end tag
+        skip(xpp);
+
+        return new Frame(true, name, index, duration, command);
+    }
+
+
+    // Convert null to 0 as safe default.
+
+    private static int getSafeInteger(String intAsString) {
+
+        return (intAsString != null)? Integer.parseInt(intAsString) : 0;
+    }
+
+
+    /**
+     * Skip TAGs that we don't know about
+     *
+     * @param parser
+     * @throws XmlPullParserException
+     * @throws IOException
+     */
+    private static void skip(XmlPullParser parser) throws XmlPullParserException, IOException {
+        if (parser.getEventType() != XmlPullParser.START_TAG) {
+            throw new IllegalStateException();
+        }
+        int depth = 1;
+        while (depth != 0) {
+            switch (parser.next()) {
+                case XmlPullParser.END_TAG:
+                    depth--;
+                    break;
+                case XmlPullParser.START_TAG:
+                    depth++;
+                    break;
+            }
+        }
+    }
+}
@@ -23,10 +23,9 @@ import android.util.Log;
 
 import org.json.JSONObject;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import cmu.xprize.robotutor.RoboTutor;
@@ -57,6 +56,17 @@ public class type_action extends scene_node {
     public int             cycle;	    	// recycle distance for looping
     public String[]        _prob;   	    // Array of probabliities for given PID
 
+    // Resolved on first use - see parseParms and targetMethod
+    //
+    private String         _parsedParms;    // the parms the arrays below were built from
+    private Class[]        _pType;
+    private Object[]       _pConst;         // constant arguments - converted once
+    private String[]       _pTemplate;      // templatized arguments - null for constants
+    private Constructor[]  _pConstructor;
+    private Class          _targetClass;
+    private String         _targetName;
+    private Method         _targetMethod;
+
 
     // To simplify json syntax we translate a pseudo "Class" type in json spec to true Java type.
     //
@@ -257,53 +267,26 @@ public class type_action extends scene_node {
                     break;
 
                 default:
-                    // The parameters come in - Name:Class|Name:Class...
-                    // So in the split array the odd elements are parameter values and the
-                    // even elements are the associated base-Class(type).
-
-                    Class[] pType = null;
                     Object[] iparms = null;
 
-                    // TODO: Fixup support for , delimited parm lists
-                    // TODO: This will require FSM or REGEX processing to allow : and | in strings.
+                    // The decoded parms are only needed for logging
                     //
-                    if (parms != null) {
-
-                        // Support templatized parameters
-                        //
-                        decodedParms = getScope().parseTemplate(parms);
+                    decodedParms = null;
 
-                        // Break up the parms specification - "parms":"value:type|value:type..."
-                        //
-                        List<String> parmList = Arrays.asList(parms.split("[:\\|]"));
+                    if(parms != _parsedParms) {
+                        parseParms();
+                    }
 
-                        // Create the arrays
-                        pType = new Class[parmList.size() / 2];
-                        iparms = new Object[parmList.size() / 2];
+                    if(_pType != null) {
 
-                        for (int i1 = 1, i2 = 0; i1 < parmList.size(); i1 += 2, i2++) {
+                        iparms = new Object[_pType.length];
 
-                            // Support templatized parameters
-                            // decode the template - this must go here so variables may have embedded colons
-                            // which are used in the tutor descriptors in the session Manager button
-                            // messages
-                            //
-                            parmList.set(i1-1, getScope().parseTemplate(parmList.get(i1-1)));
+                        for (int i1 = 0; i1 < _pType.length; i1++) {
 
-                            // Force lowercase on classname (type) and translate to Class object
+                            // Only templatized parameters need to be decoded and converted here -
+                            // constant parameters were converted when the parms were parsed.
                             //
-                            parmList.set(i1, parmList.get(i1).toLowerCase());
-                            pType[i2] = classMap.get(parmList.get(i1));
-
-                            // Generate the actual parameter object to pass to the method
-                            //
-                            try {
-                                iparms[i2] = pType[i2].getConstructor(new Class[]{String.class}).newInstance(parmList.get(i1 - 1));
-
-                            } catch (Exception e) {
-                                // TODO: Update this exception -  it is actually an invalid parm type error
-                                CErrorManager.logEvent(TAG, "Script internal ERROR: " + id + " method: <" + method + "> Not Found: ", e, false);
-                            }
+                            iparms[i1] = (_pTemplate[i1] == null)? _pConst[i1] : newParm(i1, getScope().parseTemplate(_pTemplate[i1]));
                         }
                     }
 
@@ -311,51 +294,33 @@ public class type_action extends scene_node {
                         // Find the target object by its id
                         // get the method on the target and apply it with the parameter array created above.
                         //
-                        if(childMap.containsKey(id)) {
-                            //Log.d(TAG, childMap.get(id).toString());
-                            // childMap.get(id).getClass();
+                        boolean isView = childMap.containsKey(id);
 
-                            Method _method = childMap.get(id).getClass().getMethod(method, pType);
+                        // If it is not a display object then check for scope objects i.e. nodes
+                        //
+                        Object  target = isView? childMap.get(id) : getScope().mapSymbol(id);
 
-                            _method.invoke(childMap.get(id), iparms);
+                        targetMethod(target).invoke(target, iparms);
 
-                            if(!method.equals(TCONST.LOGSTATE)) {
+                        if(!method.equals(TCONST.LOGSTATE) && RoboTutor.logManager.isEnabled(_logType, Log.VERBOSE)) {
 
-                                if (parms != null) {
-                                    // Note the logging parser expects comma delimiters
-                                    //
-                                    decodedParms = decodedParms.replaceAll("\\|", ",");
-                                    RoboTutor.logManager.postEvent_V(_logType, "target:node.action,view:" + id + ",method:" + method + "," + decodedParms);
-                                }
-                                else {
-                                    RoboTutor.logManager.postEvent_V(_logType, "target:node.action,view:" + id + ",method:" + method );
-                                }
+                            String targetType = isView? "view" : "scopevar";
 
+                            if (parms != null) {
+                                // Note the logging parser expects comma delimiters
+                                //
+                                decodedParms = getScope().parseTemplate(parms).replaceAll("\\|", ",");
+                                RoboTutor.logManager.postEvent_V(_logType, "target:node.action,%s:%s,method:%s,%s", targetType, id, method, decodedParms);
                             }
-                        }
-
-                        // If it is not a display object then check for scope objects i.e. nodes
-                        //
-                        else {
-                            Method _method = getScope().mapSymbol(id).getClass().getMethod(method, pType);
-
-                            _method.invoke(getScope().mapSymbol(id), iparms);
-
-                            if(!method.equals(TCONST.LOGSTATE)) {
-                                if (parms != null) {
-                                    // Note the logging parser expects comma delimiters
-                                    //
-                                    decodedParms = decodedParms.replaceAll("\\|", ",");
-                                    RoboTutor.logManager.postEvent_V(_logType, "target:node.action,scopevar:" + id + ",method:" + method + "," + decodedParms);
-                                }
-                                else {
-                                    RoboTutor.logManager.postEvent_V(_logType, "target:node.action,scopevar:" + id + ",method:" + method);
-                                }
+                            else {
+                                RoboTutor.logManager.postEvent_V(_logType, "target:node.action,%s:%s,method:%s", targetType, id, method);
                             }
-
                         }
                     }
                     catch (Exception e) {
+                        if(parms != null && decodedParms == null) {
+                            decodedParms = getScope().parseTemplate(parms);
+                        }
                         CErrorManager.logEvent(_logType, "target:node.action,error:Script internal ERROR,name:" + id + ",method:" + method + ",parms:" + decodedParms + ",exception:", e, true);
                     }
                     break;
@@ -367,6 +332,102 @@ public class type_action extends scene_node {
 
 
 
+    /**
+     * Parse the parms specification - "parms":"value:type|value:type..." - into the parameter
+     * types and the constant arguments.  Templatized values are kept to be decoded when the
+     * action is applied.
+     */
+    private void parseParms() {
+
+        _parsedParms  = parms;
+        _targetClass  = null;
+        _targetMethod = null;
+
+        _pType        = null;
+        _pConst       = null;
+        _pTemplate    = null;
+        _pConstructor = null;
+
+        if (parms == null)
+            return;
+
+        // The parameters come in - Name:Class|Name:Class...
+        // So in the split array the odd elements are parameter values and the
+        // even elements are the associated base-Class(type).
+        //
+        // TODO: Fixup support for , delimited parm lists
+        // TODO: This will require FSM or REGEX processing to allow : and | in strings.
+        //
+        String[] parmList = parms.split("[:\\|]");
+
+        _pType        = new Class[parmList.length / 2];
+        _pConst       = new Object[_pType.length];
+        _pTemplate    = new String[_pType.length];
+        _pConstructor = new Constructor[_pType.length];
+
+        for (int i1 = 1, i2 = 0; i1 < parmList.length; i1 += 2, i2++) {
+
+            // Force lowercase on classname (type) and translate to Class object
+            //
+            _pType[i2] = classMap.get(parmList[i1].toLowerCase());
+
+            try {
+                _pConstructor[i2] = _pType[i2].getConstructor(String.class);
+
+            } catch (Exception e) {
+                // TODO: Update this exception -  it is actually an invalid parm type error
+                CErrorManager.logEvent(TAG, "Script internal ERROR: " + id + " method: <" + method + "> Not Found: ", e, false);
+            }
+
+            // decode templates when applied - this must go here so variables may have embedded colons
+            // which are used in the tutor descriptors in the session Manager button messages
+            //
+            if (parmList[i1 - 1].contains("{{")) {
+                _pTemplate[i2] = parmList[i1 - 1];
+            }
+            else {
+                _pConst[i2] = newParm(i2, parmList[i1 - 1]);
+            }
+        }
+    }
+
+
+    /**
+     * Generate the actual parameter object to pass to the method
+     */
+    private Object newParm(int index, String value) {
+
+        Object result = null;
+
+        if (_pConstructor[index] != null) {
+            try {
+                result = _pConstructor[index].newInstance(value);
+
+            } catch (Exception e) {
+                CErrorManager.logEvent(TAG, "Script internal ERROR: " + id + " method: <" + method + "> Invalid parameter: " + value, e, false);
+            }
+        }
+        return result;
+    }
+
+
+    /**
+     * @param target
+     * @return the method to apply - resolved again only if the class of the target changes
+     */
+    private Method targetMethod(Object target) throws NoSuchMethodException {
+
+        if (target.getClass() != _targetClass || method != _targetName) {
+
+            _targetMethod = target.getClass().getMethod(method, _pType);
+            _targetClass  = target.getClass();
+            _targetName   = method;
+        }
+        return _targetMethod;
+    }
+
+
+
     // *** Serialization
 
 
@@ -134,7 +134,7 @@ public class type_audio extends type_action implements IMediaListener {
             if (mWasPlaying) {
                 mWasPlaying = false;
 
-                RoboTutor.logManager.postEvent_D(_logType, "target:node.audio,action:globalplay,name:"+mRawName);
+                RoboTutor.logManager.postEvent_D(_logType, "target:node.audio,action:globalplay,name:%s", mRawName);
                 mPlayer.play();
             }
         }
@@ -147,7 +147,7 @@ public class type_audio extends type_action implements IMediaListener {
             if (mPlayer.isPlaying()) {
                 mWasPlaying = true;
 
-                RoboTutor.logManager.postEvent_D(_logType, "target:node.audio,action:globalstop,name:"+mRawName);
+                RoboTutor.logManager.postEvent_D(_logType, "target:node.audio,action:globalstop,name:%s", mRawName);
                 mPlayer.releasePlayer();
             }
         }
@@ -192,11 +192,11 @@ public class type_audio extends type_action implements IMediaListener {
             // Flows automatically emit a NEXT_NODE event to scenegraph.
             //
             if (mode.equals(TCONST.AUDIOFLOW)) {
-                RoboTutor.logManager.postEvent_V(_logType, "target:node.audio,event:oncompletion,type:flow,emit:eventNext,name:"+mRawName);
+                RoboTutor.logManager.postEvent_V(_logType, "target:node.audio,event:oncompletion,type:flow,emit:eventNext,name:%s", mRawName);
                 _scope.tutor().eventNext();
             }
             else {
-                RoboTutor.logManager.postEvent_V(_logType, "target:node.audio,event:oncompletion,type:stream,name:"+mRawName);
+                RoboTutor.logManager.postEvent_V(_logType, "target:node.audio,event:oncompletion,type:stream,name:%s", mRawName);
             }
         }
         // If this is an AUDIOEVENT type then the mPlayer was released already but we need
@@ -229,8 +229,8 @@ public class type_audio extends type_action implements IMediaListener {
 
         mPathResolved = getScope().parseTemplate(mSourcePath);
 
-        RoboTutor.logManager.postEvent_D(_logType, "target:node.audio,action:preload,name:" + mPathResolved);
-        RoboTutor.logManager.postEvent_D(TCONST.DEBUG_AUDIO_FILE, "target:node.audio,action:preload,name:" + mPathResolved);
+        RoboTutor.logManager.postEvent_D(_logType, "target:node.audio,action:preload,name:%s", mPathResolved);
+        RoboTutor.logManager.postEvent_D(TCONST.DEBUG_AUDIO_FILE, "target:node.audio,action:preload,name:%s", mPathResolved);
 
         int endofPath = mPathResolved.lastIndexOf("/") + 1;
 
@@ -343,7 +343,7 @@ public class type_audio extends type_action implements IMediaListener {
             mPlayer = null;
         }
 
-        RoboTutor.logManager.postEvent_D(_logType, "target:node.audio,action:cancelnode,name:" + mRawName);
+        RoboTutor.logManager.postEvent_D(_logType, "target:node.audio,action:cancelnode,name:%s", mRawName);
 
         return TCONST.NONE;
     }
@@ -366,7 +366,7 @@ public class type_audio extends type_action implements IMediaListener {
     }
     public void play() {
         if(mPlayer != null) {
-            RoboTutor.logManager.postEvent_I(_logType, "target:node.audio,action:play,name:" + mRawName);
+            RoboTutor.logManager.postEvent_I(_logType, "target:node.audio,action:play,name:%s", mRawName);
             mPlayer.play();
 
             // AUDIOEVENT mode tracks are fire and forget - i.e. we disconnect from the player
@@ -376,7 +376,7 @@ public class type_audio extends type_action implements IMediaListener {
             // instance of the sound while the other is still playing.
             //
             if(mode == TCONST.AUDIOEVENT) {
-                RoboTutor.logManager.postEvent_V(_logType, "target:node.audio,type:event,action:complete,name:" + mRawName);
+                RoboTutor.logManager.postEvent_V(_logType, "target:node.audio,type:event,action:complete,name:%s", mRawName);
 
                 mPlayer = null;
             }
@@ -385,7 +385,7 @@ public class type_audio extends type_action implements IMediaListener {
 
     public void play(long duration){
         if(mPlayer != null) {
-            RoboTutor.logManager.postEvent_I(_logType, "target:node.audio,action:play,name:" + mRawName);
+            RoboTutor.logManager.postEvent_I(_logType, "target:node.audio,action:play,name:%s", mRawName);
             mPlayer.play(duration);
 
             // AUDIOEVENT mode tracks are fire and forget - i.e. we disconnect from the player
@@ -395,7 +395,7 @@ public class type_audio extends type_action implements IMediaListener {
             // instance of the sound while the other is still playing.
             //
             if(mode == TCONST.AUDIOEVENT) {
-                RoboTutor.logManager.postEvent_V(_logType, "target:node.audio,type:event,action:complete,name:" + mRawName);
+                RoboTutor.logManager.postEvent_V(_logType, "target:node.audio,type:event,action:complete,name:%s", mRawName);
 
                 mPlayer = null;
             }
@@ -20,26 +20,24 @@ package cmu.xprize.robotutor.tutorengine.graph;
 
 
 import android.content.Intent;
+import android.content.pm.PackageInfo;
 import android.os.AsyncTask;
 import android.support.v4.content.LocalBroadcastManager;
 import android.util.Log;
 
-import org.json.JSONException;
 import org.json.JSONObject;
-import org.xmlpull.v1.XmlPullParser;
 import org.xmlpull.v1.XmlPullParserException;
-import org.xmlpull.v1.XmlPullParserFactory;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import cmu.xprize.robotutor.RoboTutor;
+import cmu.xprize.robotutor.tutorengine.CEngineScheduler;
 import cmu.xprize.robotutor.tutorengine.CMediaController;
 import cmu.xprize.robotutor.tutorengine.CMediaManager;
 import cmu.xprize.robotutor.tutorengine.CTutorEngine;
@@ -61,10 +59,13 @@ public class type_timelineFL extends type_action implements IMediaListener {
     private boolean                   _needsMap      = false;
     private HashMap<String, Integer>  _frameMap      = new HashMap<>();
 
-    protected Timer                   _timer         = null;
     protected boolean                 _playing       = false;
     private boolean                   _deferredPlay  = false;
-    protected TimerTask               _frameTask     = null;
+    protected CEngineScheduler.Task   _frameTask     = null;
+    private int                       _frameRun      = 0;           // identifies the current frame timer
+    private long                      _frameOrigin   = 0;           // ms - scheduler time of frame 0
+    private long                      _wakeFrame     = 0;           // frame the frame timer is set for
+    private timeline_index            _index;
     protected CBaseFrame              _currAudio     = null;
     protected CScriptFrame            _currScript    = null;
 
@@ -76,6 +77,8 @@ public class type_timelineFL extends type_action implements IMediaListener {
 
     protected int                     _fps       = TCONST.FPS;
 
+    static private final long         FRAME_MS   = 1000 / 24;
+
     private LocalBroadcastManager     bManager;
     private CMediaManager             mMediaManager;
 
@@ -183,8 +186,17 @@ public class type_timelineFL extends type_action implements IMediaListener {
     /**
      * frame timer used for Absolute timed sequences
      *
+     * The timer only runs on frames where something happens - the next event frame or the last
+     * frame.  The frames in between are counted off by the time it sleeps.
      */
-    private void onNextAbsFrame() {
+    private void onNextAbsFrame(int frameRun) {
+
+        // Ignore a timer that was killed while it was due
+        //
+        if(frameRun != _frameRun)
+            return;
+
+        _currFrame = _wakeFrame;
 
         // Once we hit the next event frame we fire those events.
         // This always initializes to 0:0 so we automatically seek to 0
@@ -204,6 +216,11 @@ public class type_timelineFL extends type_action implements IMediaListener {
         else {
             // do post increment so we catch the zero frame
             _currFrame++;
+
+            // The frame's script may have restarted or stopped the timeline
+            //
+            if(frameRun == _frameRun)
+                scheduleFrame(frameRun);
         }
     }
 
@@ -271,15 +288,33 @@ public class type_timelineFL extends type_action implements IMediaListener {
     private void spawnTimer() {
 
         Log.i(TAG, "Spawn timeline Timer");
-        _timer = new Timer(trackname);
 
-        _frameTask = new TimerTask() {
+        // Frames keep the 24 fps schedule from the frame we start on
+        //
+        _frameOrigin = now() - _currFrame * FRAME_MS;
+
+        scheduleFrame(++_frameRun);
+    }
+
+
+    /**
+     * Sleep until the next frame that has something to do
+     */
+    private void scheduleFrame(final int frameRun) {
+
+        _wakeFrame = timeline_index.wakeFrame(_currFrame, _nextFrame, _lastFrame);
+
+        _frameTask = CEngineScheduler.getInstance().schedule(new Runnable() {
             @Override
             public void run() {
-                onNextAbsFrame();
+                onNextAbsFrame(frameRun);
             }
-        };
-        _timer.scheduleAtFixedRate(_frameTask, 0, 1000 / 24);
+        }, _frameOrigin + _wakeFrame * FRAME_MS - now());
+    }
+
+
+    private static long now() {
+        return System.nanoTime() / 1000000;
     }
 
 
@@ -322,14 +357,18 @@ public class type_timelineFL extends type_action implements IMediaListener {
         Log.i(TAG, "Kill timeline Timer");
 
         try {
-            if (_frameTask != null)
+            if (_frameTask != null) {
                 _frameTask.cancel();
-
-            if(_timer != null) {
-                _timer.cancel();
-                _timer = null;
                 _frameTask = null;
+
+                // Count off the frames the timer has slept through - so play resumes from
+                // where it was stopped
+                //
+                if(_currFrame < _wakeFrame) {
+                    _currFrame = Math.min(_wakeFrame, Math.max(_currFrame, (now() - _frameOrigin) / FRAME_MS + 1));
+                }
             }
+            _frameRun++;
         }
         catch(Exception e) {
             Log.e(TAG, "killTimer: " + e);
@@ -412,58 +451,32 @@ public class type_timelineFL extends type_action implements IMediaListener {
         // next event records the closest "start event" frame Greater than the seek point
         // <start event> : audio events have a start and end while scripts etc are dicrete
         // to a single frame - Start is significant as a timer is set to initiate the next event.
+        //
+        // The layers are indexed when the track is loaded - see timeline_index
 
-        int nextEvent = TCONST.MAXTRACKLENGTH;
-
-        CTrackLayer layer = mLayerMap.get(TCONST.SCRIPT);
-
-        for(CBaseFrame script : (ArrayList<CBaseFrame>)(layer.mframes)) {
-            if(script.mIndex >= seekPnt) {
-                if(recordCurr)
-                    _currScript = (CScriptFrame)script;
-                nextEvent   = (script.mIndex < nextEvent)? script.mIndex : nextEvent;
-                break;
-            }
-        }
-
-
-        layer = mLayerMap.get(TCONST.AUDIO);
-
-        for(CBaseFrame script : (ArrayList<CBaseFrame>)(layer.mframes)) {
+        int nextEvent = _index.scan(seekPnt);
 
-            // Keep track of where the last frame in the animation.
-            if(_lastFrame < script.mLast)
-                    _lastFrame = script.mLast;
+        // Keep track of where the last frame in the animation.
+        if(_lastFrame < _index.last)
+            _lastFrame = _index.last;
 
-            // Note that clips are ordered so we always hit the earliest audio clip first
-            // and audio clips cannot overlap
+        if(recordCurr) {
 
-            if ((script.mIndex <= seekPnt) && (script.mLast >= seekPnt)) {
+            if(_index.script != timeline_index.NONE)
+                _currScript = (CScriptFrame) mLayerMap.get(TCONST.SCRIPT).mframes.get(_index.script);
 
-                // If we are seeking to a point within an audio clip then set it up as the
-                // current clip
-                if(recordCurr) {
-                    _currAudio = (CAudioFrame) script;
+            // If we are seeking to a point within an audio clip then set it up as the
+            // current clip
+            if(_index.audio != timeline_index.NONE) {
+                _currAudio = (CBaseFrame) mLayerMap.get(TCONST.AUDIO).mframes.get(_index.audio);
 
-                    // If we are sitting on the audio start frame then reset hasPlayed
-                    // so it will start if the timeline is reused
-                    // TODO: Need more sophisticated way to manage audio durations.
-                    if(_currAudio.mIndex == seekPnt) _currAudio.hasPlayed = false;
-                }
-
-                // Check if this is the next closest start event to the seek point
-                if((script.mIndex >= seekPnt) && (script.mIndex < nextEvent)) {
-                    nextEvent = script.mIndex;
-                    break;
-                }
-            }
-            else if(script.mIndex > seekPnt) {
-                nextEvent = (script.mIndex < nextEvent) ? script.mIndex : nextEvent;
-                break;
+                // If we are sitting on the audio start frame then reset hasPlayed
+                // so it will start if the timeline is reused
+                // TODO: Need more sophisticated way to manage audio durations.
+                if(_currAudio.mIndex == seekPnt) _currAudio.hasPlayed = false;
             }
         }
 
-
         return nextEvent;
     }
 
@@ -527,59 +540,30 @@ public class type_timelineFL extends type_action implements IMediaListener {
         protected List mframes    = new ArrayList<CBaseFrame>();
         protected int       mCurrFrame = 0;
 
-        protected int       mDepth = 0;
-
-        public CTrackLayer(XmlPullParser xpparser) throws IOException, XmlPullParserException {
+        public CTrackLayer(timeline_track.Layer layer) {
 
-            xpparser.require(XmlPullParser.START_TAG, null, "DOMLayer");
+            mLayerName = layer.name;
 
-            mLayerName = xpparser.getAttributeValue(null, "name");
+            for(timeline_track.Frame frame : layer.frames) {
 
-            while (xpparser.next() != XmlPullParser.END_TAG) {
-
-                if (xpparser.getEventType() == XmlPullParser.END_TAG) {
-                    mDepth--;
-                    continue;
-                }
-                if (xpparser.getEventType() != XmlPullParser.START_TAG) {
-                    continue;
-                }
-                String name = xpparser.getName();
-
-                // Starts by looking for the entry tag
-                switch(name) {
-                    case "frames":
-                        // just tunnel into the frames element
-                        mDepth++;
+                // Note that it is implicit that there will NEVER be a xml spec that
+                // has a mixed track and a script track -
+                switch(mLayerName) {
+                    case TCONST.SCRIPT:
+                        _trackType = TCONST.ABSOLUTE_TYPE;
+                        mframes.add(new CScriptFrame(frame));
                         break;
 
-                    // Note that it is implicit that there will NEVER be a xml spec that
-                    // has a mixed track and a script track -
-                    case "DOMFrame":
-                        switch(mLayerName) {
-                            case TCONST.SCRIPT:
-                                _trackType = TCONST.ABSOLUTE_TYPE;
-                                mframes.add(new CScriptFrame(xpparser));
-                                break;
-
-                            case TCONST.MIXED:
-                                _trackType = TCONST.SEQUENTIAL_TYPE;
-                                // fall through - mixed is a special type of audio track
-
-                            case TCONST.AUDIO:
-                                // Audio tracks can have sound assets or they can use a script
-                                if(xpparser.getAttributeValue(null, "soundName") == null)
-                                    mframes.add(new CScriptFrame(xpparser));
-                                else
-                                    mframes.add(new CAudioFrame(xpparser));
-                                break;
-
-                        }
-                        break;
+                    case TCONST.MIXED:
+                        _trackType = TCONST.SEQUENTIAL_TYPE;
+                        // fall through - mixed is a special type of audio track
 
-                    default:
-                        // Skip unrecognized tags
-                        skip(xpparser);
+                    case TCONST.AUDIO:
+                        // Audio tracks can have sound assets or they can use a script
+                        if(frame.audio)
+                            mframes.add(new CAudioFrame(frame));
+                        else
+                            mframes.add(new CScriptFrame(frame));
                         break;
                 }
             }
@@ -622,17 +606,12 @@ public class type_timelineFL extends type_action implements IMediaListener {
     class CScriptFrame extends CBaseFrame {
 
         private CFrameScript mScript;
-        private ArrayList    mframes = new ArrayList();
-
-        private int          mDepth = 0;
 
-        public CScriptFrame(XmlPullParser xpparser) throws IOException, XmlPullParserException {
+        public CScriptFrame(timeline_track.Frame frame) {
 
-            xpparser.require(XmlPullParser.START_TAG, null, "DOMFrame");
-
-            mName     = xpparser.getAttributeValue(null, "name");
-            mIndex    = getSafeInteger(xpparser.getAttributeValue(null, "index"));
-            mDuration = getSafeInteger(xpparser.getAttributeValue(null, "duration"));
+            mName     = frame.name;
+            mIndex    = frame.index;
+            mDuration = frame.duration;
 
             // If any of the frames have a name then we need to generate a frame map
             // to allow vectoring to named frames from scripts.
@@ -640,36 +619,8 @@ public class type_timelineFL extends type_action implements IMediaListener {
             if(mName != null)
                 _needsMap = true;
 
-            while((xpparser.next() != XmlPullParser.END_TAG) || (mDepth > 0)) {
-                Log.i(TAG, "Event: " + xpparser.getName() + "  Type: " + xpparser.getEventType());
-
-                if (xpparser.getEventType() == XmlPullParser.END_TAG) {
-                    mDepth--;
-                    continue;
-                }
-                if (xpparser.getEventType() != XmlPullParser.START_TAG) {
-                    continue;
-                }
-
-                String name = xpparser.getName();
-
-                // Starts by looking for the entry tag
-                switch(name) {
-                    case "Actionscript":
-                        // just tunnel into the Actionscript element
-                        mDepth++;
-                        break;
-
-                    case "script":
-                        mScript = new CFrameScript(xpparser);
-                        break;
-
-                    default:
-                        // Skip unrecognized tags
-                        skip(xpparser);
-                        break;
-                }
-            }
+            if(frame.command != null)
+                mScript = new CFrameScript(frame.command);
         }
 
         protected void applyScript() {
@@ -683,23 +634,12 @@ public class type_timelineFL extends type_action implements IMediaListener {
     class CFrameScript {
         private scene_module mScript;
 
-        public CFrameScript(XmlPullParser xpp) throws IOException, XmlPullParserException {
+        public CFrameScript(JSONObject script) {
 
-            xpp.require(XmlPullParser.START_TAG, null, "script");
-
-            while (xpp.nextToken() != XmlPullParser.END_TAG) {
-                if (xpp.getEventType() != XmlPullParser.CDSECT) {
-                    continue;
-                }
-                mScript = new scene_module();
+            mScript = new scene_module();
 
-                try {
-                    // TODO : add scoping
-                    mScript.loadJSON(new JSONObject(xpp.getText()), (IScope2)mScope);
-                } catch (JSONException e) {
-                    e.printStackTrace();
-                }
-            }
+            // TODO : add scoping
+            mScript.loadJSON(script, (IScope2)mScope);
         }
 
         public void applyScript() {
@@ -740,35 +680,23 @@ public class type_timelineFL extends type_action implements IMediaListener {
      */
     class CAudioFrame extends CBaseFrame {
 
-        private int          mDepth = 0;
-        private String       mSoundSource;
         private type_audio   mPlayer;
 
-        public CAudioFrame(XmlPullParser xpp) throws IOException, XmlPullParserException {
-
-            xpp.require(XmlPullParser.START_TAG, null, "DOMFrame");
+        public CAudioFrame(timeline_track.Frame frame) {
 
             // Initialize flag - used so we don't play a clip that is already playing
             //
             hasPlayed  = false;
             isComplete = false;
 
-            try {
-                String tindex = xpp.getAttributeValue(null, "index");
-
-                mName        = xpp.getAttributeValue(null, "name");
-                mIndex       = getSafeInteger(tindex);
-                mDuration    = getSafeInteger(xpp.getAttributeValue(null, "duration"));
-                mLast        = mIndex + mDuration;
-                mSoundSource = xpp.getAttributeValue(null, "soundName");
+            mName     = frame.name;
+            mIndex    = frame.index;
+            mDuration = frame.duration;
+            mLast     = mIndex + mDuration;
 
-                // NOTE: THIS IS FLASH SPECIFIC
-                // we strip off the Flash  audio/en/
-                mSoundSource = mSoundSource.substring(9);
-
-                // Note we pass the relative start location of this audio track - for seek purposes
-                String jsonCode = "{\"action\":\"AUDIO\", \"command\":\"PAUSE\", \"soundsource\":\"" + mSoundSource +
-                        "\",\"index\":\"" + tindex + "\", \"features\":\"" + ((mName != null)? mName:"") + "\"}";
+            // The command is null if the frame was malformed - see timeline_track
+            //
+            if(frame.command != null) {
 
                 // If any of the frames have a name then we need to generate a frame map
                 // to allow vectoring to named frames from other scripts.
@@ -777,19 +705,8 @@ public class type_timelineFL extends type_action implements IMediaListener {
                     _needsMap = true;
 
                 mPlayer = new type_audio();
-
-                try {
-                    mPlayer.loadJSON(new JSONObject(jsonCode), (IScope2)mScope);
-                } catch (JSONException e) {
-                    e.printStackTrace();
-                }
-            }
-            catch(Exception e) {
-                Log.d(TAG, "Audio frame format error: " + e);
+                mPlayer.loadJSON(frame.command, (IScope2)mScope);
             }
-
-            // We don't need the internal elements of this so skip to the end tag
-            skip(xpp);
         }
 
         @Override
@@ -819,23 +736,6 @@ public class type_timelineFL extends type_action implements IMediaListener {
 
 
 
-    //************ Serialization
-
-
-    // Convert null to 0 as safe default.
-
-    private int getSafeInteger(String intAsString) {
-        Integer value;
-
-        if(intAsString != null)
-            value = Integer.parseInt(intAsString);
-        else
-            value = 0;
-
-        return value;
-    }
-
-
     //***************************************************
     //*** Resource Loader Parser
 
@@ -890,139 +790,144 @@ public class type_timelineFL extends type_action implements IMediaListener {
     }
 
 
+    /**
+     * Load the track through its compiled snapshot if the source has not changed since it was
+     * compiled.  Otherwise compile the XFL xml and write a new snapshot.
+     *
+     * @param factoryPATH
+     */
     public void loadTrack(String factoryPATH)  {
 
-        InputStream in     = null;
-        int         mDepth = 0;
-
-        try {
-            XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
-            factory.setNamespaceAware(false);
-
-            XmlPullParser xpparser = factory.newPullParser();
+        File           snapshot = new File(RoboTutor.APP_PRIVATE_FILES + TCONST.SNAPSHOT_FOLDER + factoryPATH.replace('/', '_') + TCONST.TRACK_SNAPSHOT);
+        String         stamp    = sourceStamp(factoryPATH);
+        timeline_track track    = null;
 
-            try {
-                if (RoboTutor.CacheSource.equals(TCONST.ASSETS)) {
+        if(stamp != null) {
+            track = timeline_track.read(snapshot, stamp);
+        }
 
-                    in = _scope.tutor().openAsset(factoryPATH);
+        if(track == null) {
 
-                } else {
-                    String filePath = RoboTutor.APP_PRIVATE_FILES + "/" + factoryPATH;
+            track = compileTrack(factoryPATH);
 
-                    in = new FileInputStream(filePath);
-                }
+            if(stamp != null && track != null) {
+                timeline_track.write(snapshot, stamp, track);
             }
-            catch(Exception e) {
+        }
+        else {
+            Log.d(TAG, "Loaded from snapshot: " + snapshot);
+        }
 
-                CErrorManager.logEvent(TAG, "ERROR: Flash resource: ", e, false);
-            }
+        if(track != null) {
+            for(timeline_track.Layer layer : track.layers) {
 
-            xpparser.setInput(in, null);
+                CTrackLayer nlayer = new CTrackLayer(layer);
+                mLayerMap.put(nlayer.getName(), nlayer);
+            }
+        }
 
-            int eventType = xpparser.getEventType();
+        _index = indexTrack();
 
-            while (eventType != XmlPullParser.END_DOCUMENT) {
-                if(eventType == XmlPullParser.START_DOCUMENT) {
-                    Log.i(TAG, "XPP_INFO: Start document:" + xpparser.getName());
+        Log.d(TAG, "Timeline index: " + trackname + " - " + _index);
+    }
 
-                } else if(eventType == XmlPullParser.START_TAG) {
-                    Log.i(TAG, "XPP_INFO: Start TAG: " + xpparser.getName());
 
-                    String name = xpparser.getName();
+    private timeline_track compileTrack(String factoryPATH) {
 
-                    // Starts by looking for the entry tag
-                    switch(name) {
-                        case "DOMSymbolItem":
-                        case "timeline":
-                        case "DOMTimeline":
-                        case "layers":
-                            // Decompose Flash Object declaration
-                            // just tunnel into these elements
-                            // outer tags - they are superfluous for our use
-                            mDepth++;
-                            break;
+        InputStream in = null;
 
-                        case "DOMLayer":
-                            CTrackLayer nlayer = new CTrackLayer(xpparser);
-                            mLayerMap.put(nlayer.getName(), nlayer);
-                            break;
+        try {
+            if (RoboTutor.CacheSource.equals(TCONST.ASSETS)) {
 
-                        default:
-                            // Skip unrecognized tags
-                            skip(xpparser);
-                            break;
-                    }
+                in = _scope.tutor().openAsset(factoryPATH);
 
-                } else if(eventType == XmlPullParser.END_TAG) {
-                    Log.i(TAG, "XPP_INFO: End TAG: " + xpparser.getName());
-                    mDepth--;
+            } else {
+                String filePath = RoboTutor.APP_PRIVATE_FILES + "/" + factoryPATH;
 
-                } else if(eventType == XmlPullParser.TEXT) {
-                    Log.i(TAG, "XPP_INFO: Element Text: " + xpparser.getText());
-                }
-                eventType = xpparser.next();
+                in = new FileInputStream(filePath);
             }
 
+            return timeline_track.compile(in);
+
         } catch (XmlPullParserException e) {
 
             CErrorManager.logEvent(TAG, "ERROR: XML Spec Invalid: " , e, false);
 
         } catch (IOException e) {
 
-            CErrorManager.logEvent(TAG, "ERROR: XML Spec Invalid: ", e, false);
+            CErrorManager.logEvent(TAG, "ERROR: Flash resource: ", e, false);
+
+        } finally {
+            if(in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    Log.d(TAG, "ERROR: " + e);
+                }
+            }
         }
+        return null;
     }
 
 
     /**
-     * Process arbitrary field strings
+     * Asset tracks can only change when the app is updated - extern tracks are stamped with the
+     * size and time of the file.
      *
-     * @param parser
-     * @param field
-     * @return
-     * @throws IOException
-     * @throws XmlPullParserException
+     * @param factoryPATH
+     * @return the stamp of the source track - null if there is none
      */
-    private String readField(XmlPullParser parser, String field) throws IOException, XmlPullParserException {
+    private String sourceStamp(String factoryPATH) {
 
-        String strData = null;
+        try {
+            if (RoboTutor.CacheSource.equals(TCONST.ASSETS)) {
 
-        parser.require(XmlPullParser.START_TAG, null, field);
+                PackageInfo info = CTutorEngine.Activity.getPackageManager().getPackageInfo(CTutorEngine.Activity.getPackageName(), 0);
 
-        if (parser.next() == XmlPullParser.TEXT) {
-            strData = parser.getText();
-            parser.nextTag();
-        }
-        parser.require(XmlPullParser.END_TAG, null, field);
+                return "apk:" + info.versionCode + ":" + info.lastUpdateTime;
+
+            } else {
+                File source = new File(RoboTutor.APP_PRIVATE_FILES + "/" + factoryPATH);
 
-        return strData;
+                return source.exists()? "file:" + source.length() + ":" + source.lastModified() : null;
+            }
+        }
+        catch(Exception e) {
+            Log.d(TAG, "No source stamp: " + factoryPATH + " : " + e);
+            return null;
+        }
     }
 
 
     /**
-     * Skip TAGs that we don't know about
-     *
-     * @param parser
-     * @throws XmlPullParserException
-     * @throws IOException
+     * Index the script and audio keyframes for seek - a missing layer has no events
      */
-    private void skip(XmlPullParser parser) throws XmlPullParserException, IOException {
-        if (parser.getEventType() != XmlPullParser.START_TAG) {
-            throw new IllegalStateException();
+    private timeline_index indexTrack() {
+
+        CTrackLayer scripts = mLayerMap.get(TCONST.SCRIPT);
+        CTrackLayer audio   = mLayerMap.get(TCONST.AUDIO);
+
+        int   nScripts     = (scripts != null)? scripts.mframes.size() : 0;
+        int   nAudio       = (audio != null)? audio.mframes.size() : 0;
+
+        int[] scriptFrames = new int[nScripts];
+        int[] audioFrames  = new int[nAudio];
+        int[] audioLast    = new int[nAudio];
+
+        for(int i1 = 0 ; i1 < nScripts ; i1++) {
+            scriptFrames[i1] = ((CBaseFrame) scripts.mframes.get(i1)).mIndex;
         }
-        int depth = 1;
-        while (depth != 0) {
-            switch (parser.next()) {
-                case XmlPullParser.END_TAG:
-                    depth--;
-                    break;
-                case XmlPullParser.START_TAG:
-                    depth++;
-                    break;
-            }
+
+        for(int i1 = 0 ; i1 < nAudio ; i1++) {
+
+            CBaseFrame clip = (CBaseFrame) audio.mframes.get(i1);
+
+            audioFrames[i1] = clip.mIndex;
+            audioLast[i1]   = clip.mLast;
         }
-    }
 
+        return new timeline_index(scriptFrames, audioFrames, audioLast);
+    }
 
 
     // *** Serialization
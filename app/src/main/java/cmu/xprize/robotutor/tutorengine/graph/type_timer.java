@@ -5,10 +5,8 @@ import android.util.Log;
 
 import org.json.JSONObject;
 
-import java.util.Timer;
-import java.util.TimerTask;
-
 import cmu.xprize.robotutor.RoboTutor;
+import cmu.xprize.robotutor.tutorengine.CEngineScheduler;
 import cmu.xprize.robotutor.tutorengine.CMediaController;
 import cmu.xprize.robotutor.tutorengine.CMediaManager;
 import cmu.xprize.robotutor.tutorengine.IMediaListener;
@@ -33,10 +31,9 @@ import cmu.xprize.util.TCONST;
  */
 public class type_timer extends type_action implements IMediaListener {
 
-    protected Timer     _timer     = null;
-    protected String    _timerCmd  = TCONST.NONE;
-    protected boolean   _playing   = false;
-    protected TimerTask _frameTask = null;
+    protected String                 _timerCmd  = TCONST.NONE;
+    protected boolean                _playing   = false;
+    protected CEngineScheduler.Task  _frameTask = null;
     private   boolean   _reference = true;
 
     private CMediaManager mMediaManager;
@@ -60,11 +57,11 @@ public class type_timer extends type_action implements IMediaListener {
     //*******************************************************
     //**  Global Media Control Start
 
-    // TODO: Note that there is a constraint on timer restart - we canoot actually
-    // pause a timer so we don't pick up at the same point in the count when we resume
-    // we are starting it from scratch each time a global pause / play occurs.
+    // A global pause holds the scheduled task so the count picks up where it left off on
+    // resume - a global stop kills the timer and play starts the count from scratch.
     //
     private boolean mWasPlaying = false;
+    private boolean mWasPaused  = false;
 
     @Override
     public String sourceName() {
@@ -79,13 +76,23 @@ public class type_timer extends type_action implements IMediaListener {
     @Override
     public void globalPause() {
 
-        globalStop();
+        if(_playing && _frameTask != null) {
+            mWasPaused = true;
+
+            _frameTask.pause();
+        }
     }
 
     @Override
     public void globalPlay() {
 
-        if(mWasPlaying) {
+        if(mWasPaused) {
+            mWasPaused = false;
+
+            if(_playing && _frameTask != null)
+                _frameTask.resume();
+        }
+        else if(mWasPlaying) {
             mWasPlaying = false;
 
             startTimer();
@@ -177,7 +184,7 @@ public class type_timer extends type_action implements IMediaListener {
                     }
                     else {
 
-                        RoboTutor.logManager.postEvent_D(_logType, "node.timer.applynode:id:" + id + ",error:call on uninitialized timer reference");
+                        RoboTutor.logManager.postEvent_D(_logType, "node.timer.applynode:id:%s,error:call on uninitialized timer reference", id);
                     }
                 }
 
@@ -212,7 +219,6 @@ public class type_timer extends type_action implements IMediaListener {
 
 
     private void createTimer() {
-        _timer     = new Timer(id);
         _reference = false;
         mMediaManager.createTimer(id, this);
     }
@@ -220,7 +226,7 @@ public class type_timer extends type_action implements IMediaListener {
 
     private void startTimer() {
 
-        _frameTask = new TimerTask() {
+        Runnable frameTask = new Runnable() {
             @Override
             public void run() {
                 IScriptable2 obj = null;
@@ -247,9 +253,9 @@ public class type_timer extends type_action implements IMediaListener {
         _playing = true;
 
         if (repeat)
-            _timer.scheduleAtFixedRate(_frameTask, startdelay, period);
+            _frameTask = CEngineScheduler.getInstance().scheduleAtFixedRate(frameTask, startdelay, period);
         else
-            _timer.schedule(_frameTask, period);
+            _frameTask = CEngineScheduler.getInstance().schedule(frameTask, period);
     }
 
 
@@ -260,8 +266,6 @@ public class type_timer extends type_action implements IMediaListener {
             if (_frameTask != null)
                 _frameTask.cancel();
 
-            _timer.cancel();
-            _timer = null;
             _frameTask = null;
 
             _playing = false;
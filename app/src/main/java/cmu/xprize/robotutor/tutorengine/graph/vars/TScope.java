@@ -21,6 +21,7 @@ package cmu.xprize.robotutor.tutorengine.graph.vars;
 import android.util.Log;
 
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import cmu.xprize.robotutor.tutorengine.CSceneGraph;
 import cmu.xprize.robotutor.tutorengine.CTutor;
@@ -29,8 +30,6 @@ import cmu.xprize.comp_logging.CErrorManager;
 import cmu.xprize.util.IScriptable;
 import cmu.xprize.util.TCONST;
 
-import static cmu.xprize.util.TCONST.GRAPH_MSG;
-
 
 public class TScope implements IScope2 {
 
@@ -45,6 +44,22 @@ public class TScope implements IScope2 {
     private TScope                        parent = null;
     private String                        name;
 
+    // Symbols resolved from this scope - including names that don't resolve (null).
+    // Entries depend on the parent scopes so a mutation clears the cache of the scope and all
+    // of its children.
+    //
+    // Symbols are mapped from both the UI thread and the engine scheduler so the maps of the
+    // whole scope tree are guarded by one lock - a mutation must not race a child scope caching
+    // what it resolved from the old value.
+    //
+    private HashMap<String, IScriptable2> resolved = new HashMap<>();
+
+    private final AtomicInteger           lookups = new AtomicInteger();
+    private final AtomicInteger           hits    = new AtomicInteger();
+    private final AtomicInteger           misses  = new AtomicInteger();
+
+    static private final Object           treeLock = new Object();
+
     static private final String TAG = "TScope";
 
 
@@ -75,7 +90,11 @@ public class TScope implements IScope2 {
      */
     public TScope getChildScope(String name) {
 
-        TScope child = scopes.get(name);
+        TScope child;
+
+        synchronized(treeLock) {
+            child = scopes.get(name);
+        }
 
         if(child != null) {
             return child;
@@ -116,7 +135,10 @@ public class TScope implements IScope2 {
 
 
     public void addChild(String key, TScope scope) {
-        scopes.put(key, scope);
+
+        synchronized(treeLock) {
+            scopes.put(key, scope);
+        }
     }
 
     
@@ -133,19 +155,58 @@ public class TScope implements IScope2 {
 
     public void put(String key, IScriptable2 obj) {
 
-        if(map.containsKey(key)) {
+        boolean duplicate;
+
+        synchronized(treeLock) {
+            duplicate = map.containsKey(key);
+            map.put(key,obj);
+
+            invalidate();
+        }
+
+        if(duplicate) {
             CErrorManager.logEvent(TAG, "Duplicate Key : " + key, false);
         }
-        map.put(key,obj);
     }
 
 
     public void addUpdateVar(String key, IScriptable2 obj) {
 
-        if(obj == null)
-            map.remove(key);
-        else
-            map.put(key,obj);
+        synchronized(treeLock) {
+            if(obj == null)
+                map.remove(key);
+            else
+                map.put(key,obj);
+
+            invalidate();
+        }
+    }
+
+
+    /**
+     * Clear the resolved symbols of this scope and its children - called holding treeLock
+     */
+    private void invalidate() {
+
+        resolved.clear();
+
+        for(TScope child : scopes.values()) {
+            child.invalidate();
+        }
+    }
+
+
+    /**
+     * @return resolution cache counters as an object:value list
+     */
+    public String cacheStats() {
+
+        int entries;
+
+        synchronized(treeLock) {
+            entries = resolved.size();
+        }
+        return "scope:" + name + ",lookups:" + lookups.get() + ",hits:" + hits.get() + ",misses:" + misses.get() + ",entries:" + entries;
     }
 
 
@@ -158,238 +219,91 @@ public class TScope implements IScope2 {
      */
     public String parseTemplate(String source) {
 
-        int    _i1    = 0;
-
-        int            state     = TCONST.PARSESTATE;
-        StringBuilder  Symbol    = new StringBuilder();
-        StringBuilder  result    = new StringBuilder();
-        String         parseStr  = source + TCONST.EOT;
-
-        boolean        isArray   = false;
-        IScriptable2   arrayObj  = null;
-        IScriptable2   resultObj = null;
-
-        try {
-            do {
-                char tChar = parseStr.charAt(_i1);
-
-                switch (state) {
-                    case TCONST.PARSESTATE:
-                        switch (tChar) {
-                            case TCONST.EOT:
-                                state = TCONST.ENDSUBEXPR;
-                                break;
-
-                            case ' ':
-                            case '\t':
-                            case '\n':
-                            case '\r':
-                            case '\f':
-                                _i1++;
-                                result.append(tChar);
-                                break;
-
-                            case '{':
-                                _i1++;
-                                if (parseStr.charAt(_i1) == '{') {
-                                    _i1++;
-                                    state = TCONST.PARSEIDENT;
-                                } else {
-                                    // It is an isolated { add it to the output and continue
-                                    result.append(tChar);
-                                }
-                                break;
-
-                            default:
-                                _i1++;
-                                result.append(tChar);
-                                break;
-                        }
-                        break;
-
-                    case TCONST.PARSEIDENT:
-
-                        if ((tChar >= 'A' && tChar <= 'Z') ||
-                            (tChar >= 'a' && tChar <= 'z') ||
-                            (tChar >= '0' && tChar <= '9') ||
-                            (tChar == '.') || (tChar == '_')) {
-
-                            Symbol.append(tChar);
-                            _i1++;
-                        }
-
-                        // If the symbol references an array object we remember the symbol name and
-                        // continue parsing the input as a new symbol which may be either
-                        // another variable or a number representing the array index
-                        //
-                        else if (tChar == '[') {
-
-                            isArray  = true;
-                            arrayObj = mapSymbol(Symbol.toString());
-                            Symbol   = new StringBuilder();
-
-                            _i1++;
-                        }
-
-                        // If we find a closing bracket we process the array dereference request
-                        //
-                        else if (tChar == ']') {
-                            if(!isArray) {
-                                CErrorManager.logEvent(TAG, "No open bracket [ found for array reference: " + Symbol + "> in expression" + source, null, false);
-                            }
-
-                            _i1++;
-                            state = TCONST.PARSEVAR;
-                        }
-                        else {
-                            state = TCONST.PARSEVAR;
-                        }
-
-                        break;
-
-                    // Parse tbe ...}} off the end of a variable
-                    //
-                    case TCONST.PARSEVAR:
-
-                        switch (tChar) {
-                            case ' ':
-                            case '\t':
-                            case '\n':
-                            case '\r':
-                            case '\f':
-                                _i1++;
-                                continue;
-
-                            case '}':
-                                if (parseStr.charAt(_i1 + 1) == '}') {
-                                    _i1++;
-
-                                    // If not an array the Symbol is expected to be a scope variable which
-                                    // we dereference and append its string value to the output.
-                                    //
-                                    if(!isArray) {
-                                        resultObj = mapSymbol(Symbol.toString());
-
-                                        if (resultObj == null) {
-                                            CErrorManager.logEvent(TAG, "Parser Symbol not found: <" + Symbol + "> in expression " + source, null, false);
-                                        }
-
-                                        result.append(resultObj.toString());
-                                    }
-
-                                    // If it is an array the arrayObj is a type_array object that resolves
-                                    // a java object and an indexed datasource within that object. Symbol is
-                                    // either a number or a scope variable representing a numeric index
-                                    //
-                                    else {
-                                        int index;
-
-                                        try {
-                                            index = Integer.parseInt(Symbol.toString());
-                                        }
-                                        catch(Exception e) {
-                                            resultObj = mapSymbol(Symbol.toString());
-
-                                            index = resultObj.getIntValue();
-                                        }
-
-                                        result.append(arrayObj.resolve(index));
-                                    }
-
-                                    // switch back to parsing string
-                                    _i1++;
-                                    state = TCONST.PARSESTATE;
-                                    Log.v(GRAPH_MSG, "tscope.parseTemplate: Symbol Found: " + Symbol);
-                                }
-                                break;
-
-                            case TCONST.EOT:
-
-                            default:
-                                // TODO: Manage Syntax Errors
-                                CErrorManager.logEvent(GRAPH_MSG, "Missing '}}' in expression: " + source, null, false);
-
-                        }
-                        break;
-
-                    default:
-                        break;
-                }
-
-            } while (_i1 < parseStr.length() && state != TCONST.ENDSUBEXPR);
-        }
-        catch(Exception e) {
-            // TODO: Manage Syntax Errors
-            CErrorManager.logEvent(GRAPH_MSG, "tscope.parseTemplate: Invalid Expression: " + source, e, false);
-        }
+        TTemplate template = TTemplate.compile(source);
 
-        return result.toString();
+        return (template != null)? template.expand(this) : source;
     }
 
 
     // Look up the inheritance chain to find the object
     //
     public IScriptable2 mapSymbol(String name) throws  Exception {
-        IScriptable2 tarObject = null;
-        TScope currScope = this;
 
-        if (!name.equals("")) {
-            try {
-                // Walk up the scope chain to try and find the named object
-                do {
-                    tarObject = currScope.map.get(name);
+        if(name.equals(""))
+            return null;
+
+        lookups.incrementAndGet();
+
+        IScriptable2 tarObject;
 
-                    if (tarObject == null)
-                        currScope = currScope.getParentScope();
+        synchronized(treeLock) {
 
-                } while (tarObject == null);
+            tarObject = resolved.get(name);
 
-                while (tarObject.getType() == TCONST.TREFERENCE) do {
-                    tarObject = currScope.map.get(tarObject.getValue());
+            if(tarObject != null || resolved.containsKey(name)) {
+                hits.incrementAndGet();
+                return tarObject;
+            }
 
-                    if (tarObject == null)
-                        currScope = currScope.getParentScope();
+            tarObject = resolveSymbol(name);
+            resolved.put(name, tarObject);
+        }
 
-                } while (tarObject == null);
+        misses.incrementAndGet();
 
-            } catch (Exception e) {
+        // Misses are cached so this is only logged once until the scope changes
+        //
+        if(tarObject == null) {
+            Log.e(TAG, "Scope Symbol not found : " + name);
+        }
 
-                //TODO : Manage symbol not found
-                // NOTE: this is not reliably being flushed to LogCat
-                //CErrorManager.logEvent(TAG, "Symbol not found : " + name + " Exception: " , e, false);
-                //System.out.printf( "TScope: Symbol not found : %s Exception:\n" , name);
+        return tarObject;
+    }
 
-                // Don't exit
-                Log.e(TAG, "Scope Symbol not found : " + name + " Exception: " + e);
-            }
+
+    /**
+     * Walk up the scope chain to find the named object - references are resolved within the
+     * scope they are found in, not its parents.  Called holding treeLock.
+     *
+     * @param name
+     * @return the object - null if it or a reference it depends on is not defined
+     */
+    private IScriptable2 resolveSymbol(String name) {
+
+        IScriptable2 tarObject = null;
+        TScope       currScope = this;
+
+        while(currScope != null && (tarObject = currScope.map.get(name)) == null)
+            currScope = currScope.parent;
+
+        // A chain longer than the scope has entries must be a cycle
+        //
+        for(int hops = 0 ; tarObject != null && TCONST.TREFERENCE.equals(tarObject.getType()) ; hops++) {
+
+            tarObject = (hops < currScope.map.size())? currScope.map.get(tarObject.getValue()) : null;
         }
 
         return tarObject;
     }
 
+
     // Look up the inheritance chain to find the object
     //
     public boolean containsSymbol(String name) throws  Exception {
-        IScriptable2 tarObject = null;
-        TScope       currScope = this;
 
         if(!name.equals("")) {
-            try {
-                // Walk up the scope chain to try and find the named object
-                do {
-                    tarObject = currScope.map.get(name);
 
-                    if(tarObject == null)
-                        currScope = currScope.getParentScope();
+            // Walk up the scope chain to try and find the named object
+            synchronized(treeLock) {
+                for(TScope currScope = this ; currScope != null ; currScope = currScope.parent) {
 
-                } while (tarObject == null);
-
-            } catch (Exception e) {
-                Log.i(TAG, "Symbol not contained : " + name);
+                    if(currScope.map.get(name) != null)
+                        return true;
+                }
             }
         }
 
-        return tarObject != null? true:false;
+        return false;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,256 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.robotutor.tutorengine.graph.vars;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import cmu.xprize.comp_logging.CErrorManager;
+
+import static cmu.xprize.util.TCONST.GRAPH_MSG;
+
+
+/**
+ * A template string compiled to its literal and {{symbol}} segments - see TScope.parseTemplate
+ *
+ *   {{symbol}}           the string value of the symbol
+ *   {{array[n]}}         element n of a type_array
+ *   {{array[symbol]}}    element of a type_array indexed by the int value of symbol
+ *
+ * Templates are compiled once and shared by every scope.  Symbols are resolved through the
+ * scope when the template is expanded.
+ */
+final class TTemplate {
+
+    // Templates are compiled from static JSON - the limit only guards against strings built at
+    // runtime being used as templates
+    //
+    private static final int                        MAX_TEMPLATES = 2048;
+    private static final String                     TAG           = "TTemplate";
+    private static final HashMap<String, TTemplate> templates     = new HashMap<>();
+
+    private final String   source;
+    private final Object[] segments;         // String literals and Symbol references
+    private volatile int   sizeHint;         // length of the last expansion
+
+
+    private static final class Symbol {
+
+        final String  name;
+        final String  array;            // null unless this is an array element
+        final int     index;            // literal array index - -1 if index is given by name
+
+        Symbol(String name, String array, int index) {
+            this.name  = name;
+            this.array = array;
+            this.index = index;
+        }
+    }
+
+
+    private TTemplate(String source, Object[] segments) {
+
+        this.source   = source;
+        this.segments = segments;
+        this.sizeHint = source.length();
+    }
+
+
+    /**
+     * @param source
+     * @return the compiled template - null if source contains no {{symbol}} references
+     */
+    static TTemplate compile(String source) {
+
+        if(source.indexOf("{{") == -1)
+            return null;
+
+        synchronized(templates) {
+
+            TTemplate template = templates.get(source);
+
+            if(template == null) {
+
+                template = new TTemplate(source, parse(source));
+
+                if(templates.size() >= MAX_TEMPLATES)
+                    templates.clear();
+
+                templates.put(source, template);
+            }
+            return template;
+        }
+    }
+
+
+    /**
+     * @param scope
+     * @return the template with each symbol replaced by its value
+     */
+    String expand(TScope scope) {
+
+        StringBuilder result = new StringBuilder(sizeHint);
+
+        try {
+            for(Object segment : segments) {
+
+                if(segment instanceof String) {
+                    result.append((String) segment);
+                    continue;
+                }
+
+                Symbol symbol = (Symbol) segment;
+
+                if(symbol.array == null) {
+
+                    IScriptable2 resultObj = scope.mapSymbol(symbol.name);
+
+                    if (resultObj == null) {
+                        CErrorManager.logEvent(TAG, "Parser Symbol not found: <" + symbol.name + "> in expression " + source, null, false);
+                        break;
+                    }
+
+                    result.append(resultObj.toString());
+                }
+
+                // The array is a type_array object that resolves a java object and an indexed
+                // datasource within that object.
+                //
+                else {
+                    IScriptable2 arrayObj = scope.mapSymbol(symbol.array);
+                    int          index    = symbol.index;
+
+                    if(index < 0) {
+                        index = scope.mapSymbol(symbol.name).getIntValue();
+                    }
+
+                    result.append(arrayObj.resolve(index));
+                }
+            }
+        }
+        catch(Exception e) {
+            CErrorManager.logEvent(GRAPH_MSG, "tscope.parseTemplate: Invalid Expression: " + source, e, false);
+        }
+
+        sizeHint = result.length();
+
+        return result.toString();
+    }
+
+
+    /**
+     * Split the source into literal and symbol segments - a malformed reference is logged and
+     * kept as literal text.
+     */
+    private static Object[] parse(String source) {
+
+        ArrayList<Object> segments = new ArrayList<>();
+        int               literal  = 0;
+        int               pos;
+
+        while((pos = source.indexOf("{{", literal)) != -1) {
+
+            int    start  = pos;
+            String name;
+            String array  = null;
+            int    index  = -1;
+
+            pos  = identifier(source, pos + 2);
+            name = source.substring(start + 2, pos);
+
+            if(pos < source.length() && source.charAt(pos) == '[') {
+
+                int open = pos + 1;
+
+                array = name;
+                pos   = identifier(source, open);
+                name  = source.substring(open, pos);
+
+                if(pos < source.length() && source.charAt(pos) == ']') {
+                    pos++;
+                }
+                else {
+                    pos = -1;
+                }
+
+                if(pos != -1) {
+                    try {
+                        index = Integer.parseInt(name);
+                    }
+                    catch(NumberFormatException e) {
+                        index = -1;
+                    }
+                }
+            }
+            else if(pos < source.length() && source.charAt(pos) == ']') {
+
+                CErrorManager.logEvent(TAG, "No open bracket [ found for array reference: " + name + "> in expression" + source, null, false);
+                pos++;
+            }
+
+            // Whitespace is permitted before the closing }}
+            //
+            while(pos != -1 && pos < source.length() && Character.isWhitespace(source.charAt(pos)))
+                pos++;
+
+            if(pos == -1 || !source.startsWith("}}", pos)) {
+
+                CErrorManager.logEvent(GRAPH_MSG, "Missing '}}' in expression: " + source, null, false);
+                break;
+            }
+
+            if(start > literal) {
+                segments.add(source.substring(literal, start));
+            }
+            segments.add(new Symbol(name, array, index));
+
+            literal = pos + 2;
+        }
+
+        if(literal < source.length()) {
+            segments.add(source.substring(literal));
+        }
+
+        return segments.toArray();
+    }
+
+
+    /**
+     * @return the end of the symbol name starting at pos
+     */
+    private static int identifier(String source, int pos) {
+
+        while(pos < source.length()) {
+
+            char tChar = source.charAt(pos);
+
+            if ((tChar >= 'A' && tChar <= 'Z') ||
+                (tChar >= 'a' && tChar <= 'z') ||
+                (tChar >= '0' && tChar <= '9') ||
+                (tChar == '.') || (tChar == '_')) {
+
+                pos++;
+            }
+            else {
+                break;
+            }
+        }
+        return pos;
+    }
+}
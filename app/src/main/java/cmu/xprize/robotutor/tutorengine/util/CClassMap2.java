@@ -21,6 +21,7 @@ package cmu.xprize.robotutor.tutorengine.util;
 import java.util.HashMap;
 
 import cmu.xprize.robotutor.tutorengine.graph.defvar_tutor;
+import cmu.xprize.robotutor.tutorengine.graph.deflog_sampler;
 import cmu.xprize.robotutor.tutorengine.graph.scene_queuedgraph;
 import cmu.xprize.robotutor.tutorengine.graph.type_queuedaction;
 import cmu.xprize.robotutor.tutorengine.graph.type_timelineFL;
@@ -73,6 +74,7 @@ public class CClassMap2 {
 
         classMap.put("TUTORDATA_MAP", defdata_tutor.class);
         classMap.put("TUTORVAR_MAP", defvar_tutor.class);
+        classMap.put("LOG_SAMPLER", deflog_sampler.class);
         classMap.put("SCENEDATA_MAP", defdata_scenes.class);
 
         classMap.put("STRING_ARRAY", String[].class);
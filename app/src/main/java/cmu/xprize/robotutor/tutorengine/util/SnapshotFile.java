@@ -0,0 +1,165 @@
+package cmu.xprize.robotutor.tutorengine.util;
+
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.CRC32;
+
+/**
+ * RoboTutor
+ * <p>
+ * File framing shared by the compiled snapshots - see TransitionMatrixSnapshot and
+ * timeline_track.
+ *
+ * A snapshot is a header - magic, format version, a key identifying the source it was compiled
+ * from, and a CRC32 of the payload - followed by the payload.  A snapshot with another format
+ * or key is stale and a snapshot whose payload fails the checksum is damaged - either way it
+ * is a miss and the caller compiles the source again.
+ *
+ * Snapshots are read in a single read and written via a temp file that is renamed into place,
+ * so a partially written snapshot is never read back.
+ */
+
+public final class SnapshotFile {
+
+    private static final String TAG = "SnapshotFile";
+
+    public final byte[] data;           // the whole snapshot
+    public final int    offset;         // start of the payload in data
+
+
+    private SnapshotFile(byte[] data, int offset) {
+
+        this.data   = data;
+        this.offset = offset;
+    }
+
+
+    /**
+     * @return the payload as a stream positioned at its start
+     */
+    public ByteArrayInputStream payload() {
+        return new ByteArrayInputStream(data, offset, data.length - offset);
+    }
+
+
+    /**
+     * @param snapshot
+     * @param magic
+     * @param version
+     * @param key      identifies the source - e.g. its content hash
+     * @return the snapshot - null if it is missing, stale or damaged
+     */
+    public static SnapshotFile read(File snapshot, int magic, int version, String key) {
+
+        if(!snapshot.exists()) {
+            return null;
+        }
+
+        try {
+            byte[]          data = new byte[(int) snapshot.length()];
+            DataInputStream in   = new DataInputStream(new FileInputStream(snapshot));
+
+            try {
+                in.readFully(data);
+            } finally {
+                in.close();
+            }
+
+            return decode(data, magic, version, key);
+
+        } catch (Exception e) {
+
+            Log.w(TAG, "Snapshot unreadable: " + snapshot + " : " + e);
+            return null;
+        }
+    }
+
+
+    /**
+     * @return true if the snapshot was written
+     */
+    public static boolean write(File snapshot, int magic, int version, String key, byte[] payload) {
+
+        File temp = new File(snapshot.getPath() + ".tmp");
+
+        try {
+            byte[] data = encode(magic, version, key, payload);
+
+            snapshot.getParentFile().mkdirs();
+
+            FileOutputStream out = new FileOutputStream(temp);
+
+            try {
+                out.write(data);
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+
+            if(!temp.renameTo(snapshot)) {
+                throw new IOException("rename failed");
+            }
+            return true;
+
+        } catch (Exception e) {
+
+            Log.w(TAG, "Snapshot not written: " + snapshot + " : " + e);
+            temp.delete();
+            return false;
+        }
+    }
+
+
+    public static byte[] encode(int magic, int version, String key, byte[] payload) throws IOException {
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream(payload.length + 256);
+        DataOutputStream      header = new DataOutputStream(result);
+
+        header.writeInt(magic);
+        header.writeInt(version);
+        header.writeUTF(key);
+        header.writeInt((int) crc.getValue());
+        header.flush();
+
+        result.write(payload);
+
+        return result.toByteArray();
+    }
+
+
+    /**
+     * @return the snapshot - null if it is stale
+     * @throws IOException if it is damaged
+     */
+    public static SnapshotFile decode(byte[] data, int magic, int version, String key) throws IOException {
+
+        ByteArrayInputStream bytes = new ByteArrayInputStream(data);
+        DataInputStream      in    = new DataInputStream(bytes);
+
+        if(in.readInt() != magic || in.readInt() != version || !key.equals(in.readUTF())) {
+            return null;
+        }
+
+        int   checksum = in.readInt();
+        int   start    = data.length - bytes.available();
+        CRC32 crc      = new CRC32();
+
+        crc.update(data, start, data.length - start);
+
+        if((int) crc.getValue() != checksum) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+        return new SnapshotFile(data, start);
+    }
+}
@@ -2,9 +2,10 @@ package cmu.xprize.robotutor.tutorengine.util;
 
 import android.util.Log;
 
-import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -13,9 +14,10 @@ import cmu.xprize.comp_logging.CErrorManager;
 import cmu.xprize.robotutor.tutorengine.CTutorEngine;
 import cmu.xprize.util.CAt_Data;
 import cmu.xprize.util.CPlacementTest_Tutor;
-import cmu.xprize.util.ILoadableObject;
 import cmu.xprize.util.IScope;
+import cmu.xprize.util.IStreamLoadable;
 import cmu.xprize.util.JSON_Helper;
+import cmu.xprize.util.JSON_Reader;
 
 import static cmu.xprize.comp_session.AS_CONST.BEHAVIOR_KEYS.SELECT_MATH;
 import static cmu.xprize.comp_session.AS_CONST.BEHAVIOR_KEYS.SELECT_STORIES;
@@ -28,7 +30,7 @@ import static cmu.xprize.util.TCONST.PLACEMENT_TAG;
  * Created by kevindeland on 9/20/18.
  */
 
-public class TransitionMatrixModel implements ILoadableObject {
+public class TransitionMatrixModel implements IStreamLoadable {
 
     private static final String TAG = "TransitionMatrixModel";
     // json loadable
@@ -45,17 +47,78 @@ public class TransitionMatrixModel implements ILoadableObject {
     public CPlacementTest_Tutor[] writePlacement;
     public CPlacementTest_Tutor[]   mathPlacement;
 
+    private boolean loaded = false;
+
+
+    /**
+     * Load the matrix from its binary snapshot when the snapshot matches the content of the
+     * source spec.  Otherwise load and validate the spec and write a new snapshot.
+     *
+     * @param datasource the JSON spec
+     * @param snapshot   the snapshot file for the spec
+     * @param scope
+     * @return
+     */
+    public static TransitionMatrixModel load(String datasource, File snapshot, IScope scope) {
+
+        String                hash   = JSON_Helper.hashData(datasource);
+        TransitionMatrixModel matrix = null;
+
+        if(hash != null) {
+            matrix = TransitionMatrixSnapshot.read(snapshot, hash);
+        }
+
+        if(matrix == null) {
+
+            matrix = new TransitionMatrixModel(datasource, scope);
+            matrix.validateAll();
+
+            if(hash != null && matrix.loaded) {
+                TransitionMatrixSnapshot.write(snapshot, hash, matrix);
+            }
+        }
+        else {
+            Log.d(TAG, "Loaded from snapshot: " + snapshot);
+        }
+
+        return matrix;
+    }
+
+
+    /**
+     * Used by TransitionMatrixSnapshot
+     */
+    TransitionMatrixModel() {
+    }
+
+
     public TransitionMatrixModel(String datasource, IScope scope) {
 
-        String jsonData = JSON_Helper.cacheData(datasource);
+        // The matrix is the largest spec we load - stream it rather than caching the text and
+        // building a full JSONObject tree
+        //
+        JSON_Reader reader = null;
 
         try {
-            loadJSON(new JSONObject(jsonData), scope);
-        } catch (JSONException e) {
+            reader = JSON_Helper.openStream(datasource);
+
+            loadJSON(reader, scope);
+
+            loaded = true;
+
+        } catch (IOException e) {
             e.printStackTrace();
             CErrorManager.logEvent(TAG, "Bad data source  " + datasource, true);
-        }
 
+        } finally {
+            if(reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
     }
 
     public String getRootSkillByContentArea(String contentArea) {
@@ -70,6 +133,18 @@ public class TransitionMatrixModel implements ILoadableObject {
     public void loadJSON(JSONObject jsonObj, IScope scope) {
         JSON_Helper.parseSelf(jsonObj, this, CClassMap2.classMap, scope);
 
+        mapContentAreas();
+    }
+
+    @Override
+    public void loadJSON(JSON_Reader reader, IScope scope) throws IOException {
+        JSON_Helper.parseStream(reader, this, CClassMap2.classMap, scope);
+
+        mapContentAreas();
+    }
+
+    void mapContentAreas() {
+
         contentAreaTransitionMaps = new HashMap<>();
         contentAreaTransitionMaps.put(SELECT_WRITING, writeTransitions);
         contentAreaTransitionMaps.put(SELECT_STORIES, storyTransitions);
@@ -0,0 +1,596 @@
+package cmu.xprize.robotutor.tutorengine.util;
+
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import cmu.xprize.util.CAt_Data;
+import cmu.xprize.util.CPlacementTest_Tutor;
+
+/**
+ * RoboTutor
+ * <p>
+ * Compiled binary form of a loaded TransitionMatrixModel.
+ *
+ * The snapshot is keyed by the content hash of the source spec and by the field layout of the
+ * entry classes - so a changed spec or an added field simply misses and the matrix is rebuilt
+ * from JSON.  Strings are written once to a table and referenced by index, so the entries share
+ * their String instances on load.
+ *
+ * The file is framed by SnapshotFile - its CRC32 is checked before anything is indexed, which
+ * matters here as entries are decoded long after load, so damage must be caught up front.
+ *
+ * Loading a snapshot only indexes the transition entries - each CAt_Data is decoded from the
+ * snapshot data the first time its tutor_id is looked up.
+ *
+ * Only int and String entry fields can be written - if an entry class gains a field of another
+ * type snapshots are disabled and the matrix is always loaded from JSON.
+ */
+
+public class TransitionMatrixSnapshot {
+
+    private static final String TAG = "TransitionMatrixSnapshot";
+
+    private static final int MAGIC   = 0x52544d58;          // "RTMX"
+    private static final int VERSION = 4;
+
+
+    /**
+     * The entry layouts - resolved on first use so an unsupported field disables snapshots
+     * rather than failing class initialization
+     */
+    private static final class Layout {
+
+        static final Field[]  ENTRY_FIELDS     = layout(CAt_Data.class);
+        static final Field[]  PLACEMENT_FIELDS = layout(CPlacementTest_Tutor.class);
+        static final boolean  SUPPORTED        = ENTRY_FIELDS != null && PLACEMENT_FIELDS != null;
+        static final String   SCHEMA           = SUPPORTED? schema(ENTRY_FIELDS) + "|" + schema(PLACEMENT_FIELDS) : null;
+    }
+
+
+    /**
+     * @param snapshot
+     * @param hash     content hash of the source spec
+     * @return the matrix - null if there is no usable snapshot for the given hash
+     */
+    public static TransitionMatrixModel read(File snapshot, String hash) {
+
+        if(!Layout.SUPPORTED) {
+            return null;
+        }
+
+        SnapshotFile file = SnapshotFile.read(snapshot, MAGIC, VERSION, key(hash));
+
+        try {
+            return (file != null)? load(file) : null;
+
+        } catch (Exception e) {
+
+            Log.w(TAG, "Snapshot unreadable: " + snapshot + " : " + e);
+            return null;
+        }
+    }
+
+
+    /**
+     * @return true if the snapshot was written
+     */
+    public static boolean write(File snapshot, String hash, TransitionMatrixModel matrix) {
+
+        if(!Layout.SUPPORTED) {
+            return false;
+        }
+
+        try {
+            return SnapshotFile.write(snapshot, MAGIC, VERSION, key(hash), payload(matrix));
+
+        } catch (Exception e) {
+
+            Log.w(TAG, "Snapshot not written: " + snapshot + " : " + e);
+            return false;
+        }
+    }
+
+
+    /**
+     * The snapshot is keyed by the spec and the entry layout
+     */
+    private static String key(String hash) {
+        return hash + "|" + Layout.SCHEMA;
+    }
+
+
+    static byte[] encode(TransitionMatrixModel matrix, String hash) throws IOException, IllegalAccessException {
+        return SnapshotFile.encode(MAGIC, VERSION, key(hash), payload(matrix));
+    }
+
+
+    static TransitionMatrixModel decode(byte[] data, String hash) throws IOException {
+
+        SnapshotFile file = SnapshotFile.decode(data, MAGIC, VERSION, key(hash));
+
+        return (file != null)? load(file) : null;
+    }
+
+
+    private static byte[] payload(TransitionMatrixModel matrix) throws IOException, IllegalAccessException {
+
+        StringTable strings = new StringTable();
+
+        // Body first so the string table is complete when it is written
+        //
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
+        DataOutputStream      out  = new DataOutputStream(body);
+
+        writeIndex(out, strings.add(matrix.rootSkillWrite));
+        writeIndex(out, strings.add(matrix.rootSkillStories));
+        writeIndex(out, strings.add(matrix.rootSkillMath));
+
+        writeMap(out, strings, matrix.writeTransitions);
+        writeMap(out, strings, matrix.storyTransitions);
+        writeMap(out, strings, matrix.mathTransitions);
+
+        writeArray(out, strings, matrix.writePlacement);
+        writeArray(out, strings, matrix.mathPlacement);
+        out.flush();
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(body.size() + strings.size() * 16);
+        DataOutputStream      table   = new DataOutputStream(payload);
+
+        writeIndex(table, strings.size());
+        for(String value : strings.values) {
+            table.writeUTF(value);
+        }
+        table.flush();
+
+        body.writeTo(payload);
+
+        return payload.toByteArray();
+    }
+
+
+    private static TransitionMatrixModel load(SnapshotFile file) throws IOException {
+
+        byte[]               data  = file.data;
+        ByteArrayInputStream bytes = file.payload();
+        DataInputStream      in    = new DataInputStream(bytes);
+
+        String[] strings = new String[readIndex(in)];
+
+        for(int i1 = 0 ; i1 < strings.length ; i1++) {
+            strings[i1] = in.readUTF();
+        }
+
+        TransitionMatrixModel matrix = new TransitionMatrixModel();
+
+        matrix.rootSkillWrite   = readString(in, strings);
+        matrix.rootSkillStories = readString(in, strings);
+        matrix.rootSkillMath    = readString(in, strings);
+
+        matrix.writeTransitions = readMap(data, bytes, strings);
+        matrix.storyTransitions = readMap(data, bytes, strings);
+        matrix.mathTransitions  = readMap(data, bytes, strings);
+
+        try {
+            matrix.writePlacement = readArray(in, strings);
+            matrix.mathPlacement  = readArray(in, strings);
+
+        } catch (IllegalAccessException e) {
+            throw new IOException(e.toString());
+        }
+
+        matrix.mapContentAreas();
+
+        return matrix;
+    }
+
+
+    //************ Entries
+
+
+    private static void writeMap(DataOutputStream out, StringTable strings, HashMap map) throws IOException, IllegalAccessException {
+
+        if(map == null) {
+            writeIndex(out, 0);
+            return;
+        }
+        writeIndex(out, map.size() + 1);
+
+        // Each entry is length prefixed so the index can be built without decoding it
+        //
+        ByteArrayOutputStream fields = new ByteArrayOutputStream(128);
+        DataOutputStream      entry  = new DataOutputStream(fields);
+
+        for(Object element : map.entrySet()) {
+
+            fields.reset();
+            writeFields(entry, strings, Layout.ENTRY_FIELDS, (CAt_Data) ((Map.Entry) element).getValue());
+            entry.flush();
+
+            writeIndex(out, strings.add((String) ((Map.Entry) element).getKey()));
+            writeIndex(out, fields.size());
+            fields.writeTo(out);
+        }
+    }
+
+
+    /**
+     * Index the entries of a map - the entries themselves are skipped
+     */
+    private static HashMap readMap(byte[] data, ByteArrayInputStream bytes, String[] strings) throws IOException {
+
+        DataInputStream in   = new DataInputStream(bytes);
+        int             size = readIndex(in) - 1;
+
+        if(size < 0) {
+            return null;
+        }
+
+        LazyEntries map = new LazyEntries(data, strings, size);
+
+        for(int i1 = 0 ; i1 < size ; i1++) {
+
+            String key    = readString(in, strings);
+            int    length = readIndex(in);
+            int    offset = data.length - bytes.available();
+
+            if(length > bytes.available()) {
+                throw new IOException("Malformed snapshot");
+            }
+            bytes.skip(length);
+
+            map.index(key, offset);
+        }
+        return map;
+    }
+
+
+    /**
+     * Transition map whose entries are decoded from the snapshot data on first access.
+     *
+     * Lookups by tutor_id decode a single entry.  Anything that needs the whole map - iteration,
+     * values, equality - decodes all the remaining entries first.
+     */
+    static final class LazyEntries extends HashMap<String, Object> {
+
+        private final byte[]                   data;
+        private final String[]                 strings;
+        private final HashMap<String, Integer> offsets;
+
+        LazyEntries(byte[] data, String[] strings, int size) {
+
+            this.data    = data;
+            this.strings = strings;
+            this.offsets = new HashMap<>(size * 4 / 3 + 1);
+        }
+
+        void index(String key, int offset) {
+            offsets.put(key, offset);
+        }
+
+        /**
+         * @return the number of entries not yet decoded
+         */
+        synchronized int pending() {
+            return offsets.size();
+        }
+
+        @Override
+        public synchronized Object get(Object key) {
+
+            Integer offset = offsets.remove(key);
+
+            if(offset != null) {
+                super.put((String) key, decodeEntry(offset));
+            }
+            return super.get(key);
+        }
+
+        @Override
+        public synchronized boolean containsKey(Object key) {
+            return offsets.containsKey(key) || super.containsKey(key);
+        }
+
+        @Override
+        public synchronized int size() {
+            return offsets.size() + super.size();
+        }
+
+        @Override
+        public synchronized boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public synchronized Object put(String key, Object value) {
+
+            Object prior = get(key);
+
+            super.put(key, value);
+            return prior;
+        }
+
+        @Override
+        public synchronized Object remove(Object key) {
+
+            Object prior = get(key);
+
+            super.remove(key);
+            return prior;
+        }
+
+        @Override
+        public synchronized void clear() {
+
+            offsets.clear();
+            super.clear();
+        }
+
+        @Override
+        public Set<Map.Entry<String, Object>> entrySet() {
+
+            decodeAll();
+            return super.entrySet();
+        }
+
+        @Override
+        public Set<String> keySet() {
+
+            decodeAll();
+            return super.keySet();
+        }
+
+        @Override
+        public Collection<Object> values() {
+
+            decodeAll();
+            return super.values();
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+
+            decodeAll();
+            return super.containsValue(value);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+
+            decodeAll();
+            return super.equals(other);
+        }
+
+        @Override
+        public int hashCode() {
+
+            decodeAll();
+            return super.hashCode();
+        }
+
+        private synchronized void decodeAll() {
+
+            for(Map.Entry<String, Integer> entry : offsets.entrySet()) {
+                super.put(entry.getKey(), decodeEntry(entry.getValue()));
+            }
+            offsets.clear();
+        }
+
+        private CAt_Data decodeEntry(int offset) {
+
+            CAt_Data entry = new CAt_Data();
+
+            try {
+                readFields(new DataInputStream(new ByteArrayInputStream(data, offset, data.length - offset)), strings, Layout.ENTRY_FIELDS, entry);
+
+            } catch (Exception e) {
+
+                // The snapshot was read in full and indexed at load - this is unexpected
+                throw new IllegalStateException("Snapshot entry unreadable at " + offset, e);
+            }
+            return entry;
+        }
+    }
+
+
+    private static void writeArray(DataOutputStream out, StringTable strings, CPlacementTest_Tutor[] array) throws IOException, IllegalAccessException {
+
+        if(array == null) {
+            writeIndex(out, 0);
+            return;
+        }
+        writeIndex(out, array.length + 1);
+
+        for(CPlacementTest_Tutor element : array) {
+            writeFields(out, strings, Layout.PLACEMENT_FIELDS, element);
+        }
+    }
+
+
+    private static CPlacementTest_Tutor[] readArray(DataInputStream in, String[] strings) throws IOException, IllegalAccessException {
+
+        int size = readIndex(in) - 1;
+
+        if(size < 0) {
+            return null;
+        }
+
+        CPlacementTest_Tutor[] array = new CPlacementTest_Tutor[size];
+
+        for(int i1 = 0 ; i1 < size ; i1++) {
+            array[i1] = new CPlacementTest_Tutor();
+            readFields(in, strings, Layout.PLACEMENT_FIELDS, array[i1]);
+        }
+        return array;
+    }
+
+
+    private static void writeFields(DataOutputStream out, StringTable strings, Field[] fields, Object entry) throws IOException, IllegalAccessException {
+
+        for(Field field : fields) {
+
+            if(field.getType() == int.class) {
+                writeSigned(out, field.getInt(entry));
+            }
+            else {
+                writeIndex(out, strings.add((String) field.get(entry)));
+            }
+        }
+    }
+
+
+    private static void readFields(DataInputStream in, String[] strings, Field[] fields, Object entry) throws IOException, IllegalAccessException {
+
+        for(Field field : fields) {
+
+            if(field.getType() == int.class) {
+                field.setInt(entry, readSigned(in));
+            }
+            else {
+                field.set(entry, readString(in, strings));
+            }
+        }
+    }
+
+
+    //************ Layout
+
+
+    /**
+     * @return the public instance fields in name order - null if there is a field other than an
+     *         int or String
+     */
+    private static Field[] layout(Class<?> entryClass) {
+
+        ArrayList<Field> fields = new ArrayList<>();
+
+        for(Field field : entryClass.getFields()) {
+
+            if(Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            if(field.getType() != int.class && field.getType() != String.class) {
+                Log.w(TAG, "Snapshots disabled - unsupported field: " + entryClass.getSimpleName() + "." + field.getName());
+                return null;
+            }
+            fields.add(field);
+        }
+
+        Field[] result = fields.toArray(new Field[fields.size()]);
+
+        Arrays.sort(result, new Comparator<Field>() {
+            @Override
+            public int compare(Field a, Field b) {
+                return a.getName().compareTo(b.getName());
+            }
+        });
+        return result;
+    }
+
+
+    private static String schema(Field[] fields) {
+
+        StringBuilder schema = new StringBuilder();
+
+        for(Field field : fields) {
+            schema.append(field.getName()).append(field.getType() == int.class? ":I," : ":S,");
+        }
+        return schema.toString();
+    }
+
+
+    //************ Encoding
+
+
+    /**
+     * Strings are referenced by index + 1 - 0 is null
+     */
+    private static final class StringTable {
+
+        final HashMap<String, Integer> index  = new HashMap<>();
+        final ArrayList<String>        values = new ArrayList<>();
+
+        int add(String value) {
+
+            if(value == null) {
+                return 0;
+            }
+
+            Integer result = index.get(value);
+
+            if(result == null) {
+                values.add(value);
+                result = values.size();
+                index.put(value, result);
+            }
+            return result;
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+
+    private static String readString(DataInputStream in, String[] strings) throws IOException {
+
+        int index = readIndex(in);
+
+        return (index == 0)? null : strings[index - 1];
+    }
+
+
+    private static void writeIndex(DataOutputStream out, int value) throws IOException {
+
+        while((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+
+    private static int readIndex(DataInputStream in) throws IOException {
+
+        int result = 0;
+
+        for(int shift = 0 ; shift < 32 ; shift += 7) {
+
+            int b = in.readUnsignedByte();
+
+            result |= (b & 0x7f) << shift;
+
+            if((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed snapshot");
+    }
+
+
+    private static void writeSigned(DataOutputStream out, int value) throws IOException {
+        writeIndex(out, (value << 1) ^ (value >> 31));
+    }
+
+
+    private static int readSigned(DataInputStream in) throws IOException {
+
+        int value = readIndex(in);
+
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
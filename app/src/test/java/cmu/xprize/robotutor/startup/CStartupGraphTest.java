@@ -0,0 +1,138 @@
+package cmu.xprize.robotutor.startup;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CStartupGraphTest {
+
+    private static CStartupGraph.IStartupStep step(final List<String> log, final String name, final boolean fail) {
+
+        return new CStartupGraph.IStartupStep() {
+            @Override
+            public void run() throws Exception {
+
+                log.add(name);
+
+                if(fail) {
+                    throw new Exception(name + " failed");
+                }
+            }
+        };
+    }
+
+
+    /**
+     * A step that only completes once all the steps sharing the latch have started - it fails
+     * if they don't run at the same time
+     */
+    private static CStartupGraph.IStartupStep together(final List<String> log, final String name, final CountDownLatch started) {
+
+        return new CStartupGraph.IStartupStep() {
+            @Override
+            public void run() throws Exception {
+
+                started.countDown();
+
+                if(!started.await(5, TimeUnit.SECONDS)) {
+                    throw new Exception(name + " ran alone");
+                }
+                log.add(name);
+            }
+        };
+    }
+
+
+    /**
+     * A step that fails if any of the given steps has not completed before it starts
+     */
+    private static CStartupGraph.IStartupStep after(final List<String> log, final String name, final String... prior) {
+
+        return new CStartupGraph.IStartupStep() {
+            @Override
+            public void run() throws Exception {
+
+                for(String step : prior) {
+                    if(!log.contains(step)) {
+                        throw new Exception(name + " started before " + step);
+                    }
+                }
+                log.add(name);
+            }
+        };
+    }
+
+
+    @Test
+    public void runsIndependentStepsTogether() throws Exception {
+
+        List<String>   log     = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch started = new CountDownLatch(3);
+        CStartupGraph  graph   = new CStartupGraph(3);
+
+        graph.addStep("a", together(log, "a", started));
+        graph.addStep("b", together(log, "b", started));
+        graph.addStep("c", together(log, "c", started));
+        graph.addStep("d", after(log, "d", "a", "b"), "a", "b");
+
+        // a, b and c only succeed if all three were running at once
+        //
+        assertTrue(graph.summary(), graph.run());
+
+        assertEquals(4, log.size());
+        assertTrue(log.indexOf("d") > log.indexOf("a"));
+        assertTrue(log.indexOf("d") > log.indexOf("b"));
+        assertTrue(graph.summary().contains("d:ok@"));
+    }
+
+
+    @Test
+    public void runsDependentsInOrderOnOneThread() throws Exception {
+
+        List<String>  log   = Collections.synchronizedList(new ArrayList<String>());
+        CStartupGraph graph = new CStartupGraph(1);
+
+        graph.addStep("a", step(log, "a", false));
+        graph.addStep("b", after(log, "b", "a"), "a");
+        graph.addStep("c", step(log, "c", false));
+        graph.addStep("d", after(log, "d", "b", "c"), "b", "c");
+
+        assertTrue(graph.summary(), graph.run());
+        assertEquals("d", log.get(3));
+    }
+
+
+    @Test
+    public void skipsDependentsOfFailedSteps() throws Exception {
+
+        List<String>  log   = Collections.synchronizedList(new ArrayList<String>());
+        CStartupGraph graph = new CStartupGraph(2);
+
+        graph.addStep("a", step(log, "a", true));
+        graph.addStep("b", step(log, "b", false));
+        graph.addStep("c", step(log, "c", false), "a", "b");
+        graph.addStep("d", step(log, "d", false), "c");
+
+        assertFalse(graph.run());
+
+        assertFalse(log.contains("c"));
+        assertFalse(log.contains("d"));
+        assertTrue(log.contains("b"));
+        assertTrue(graph.summary().contains("d:failed"));
+    }
+
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownDependency() {
+
+        new CStartupGraph(1).addStep("a", null, "b");
+    }
+}
@@ -0,0 +1,179 @@
+package cmu.xprize.robotutor.tutorengine;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CEngineSchedulerTest {
+
+    /**
+     * Time only moves when the test says so
+     */
+    private static final class ManualClock implements CEngineScheduler.Clock {
+
+        long time;
+
+        @Override
+        public long now() {
+            return time;
+        }
+    }
+
+    private final ManualClock      clock     = new ManualClock();
+    private final CEngineScheduler scheduler = new CEngineScheduler(clock);
+
+
+    private static Runnable count(final AtomicInteger counter) {
+
+        return new Runnable() {
+            @Override
+            public void run() {
+                counter.incrementAndGet();
+            }
+        };
+    }
+
+
+    private void advanceTo(long time) {
+
+        clock.time = time;
+        scheduler.runDue();
+    }
+
+
+    @Test
+    public void runsTasksInDueOrder() throws Exception {
+
+        final StringBuffer order = new StringBuffer();
+
+        for(final String name : new String[] {"c:60", "a:20", "b:40"}) {
+
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    order.append(name.charAt(0));
+                }
+            }, Long.parseLong(name.substring(2)));
+        }
+
+        advanceTo(19);
+        assertEquals("", order.toString());
+
+        advanceTo(40);
+        assertEquals("ab", order.toString());
+
+        advanceTo(100);
+        assertEquals("abc", order.toString());
+    }
+
+
+    @Test
+    public void runsTasksOnTheSchedulerThread() throws Exception {
+
+        final StringBuffer   order = new StringBuffer();
+        final CountDownLatch done  = new CountDownLatch(3);
+
+        for(final String name : new String[] {"c:60", "a:20", "b:40"}) {
+
+            CEngineScheduler.getInstance().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    order.append(name.charAt(0));
+                    done.countDown();
+                }
+            }, Long.parseLong(name.substring(2)));
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("abc", order.toString());
+    }
+
+
+    @Test
+    public void cancelledTasksDontRun() throws Exception {
+
+        AtomicInteger         counter = new AtomicInteger();
+        CEngineScheduler.Task task    = scheduler.schedule(count(counter), 50);
+
+        task.cancel();
+        advanceTo(100);
+
+        assertEquals(0, counter.get());
+        assertTrue(task.isCancelled());
+        assertEquals(0, scheduler.pending());
+    }
+
+
+    @Test
+    public void fixedRateTasksDontDrift() throws Exception {
+
+        AtomicInteger         counter = new AtomicInteger();
+        CEngineScheduler.Task task    = scheduler.scheduleAtFixedRate(count(counter), 0, 10);
+
+        // Runs are due at 0, 10, 20 .. however late the scheduler gets to them
+        //
+        advanceTo(15);
+        assertEquals(2, counter.get());
+
+        advanceTo(37);
+        assertEquals(4, counter.get());
+
+        advanceTo(190);
+        assertEquals(20, counter.get());
+
+        task.cancel();
+        advanceTo(500);
+
+        assertEquals(20, counter.get());
+    }
+
+
+    @Test
+    public void pauseKeepsTheTimeLeft() throws Exception {
+
+        AtomicInteger         counter = new AtomicInteger();
+        CEngineScheduler.Task task    = scheduler.schedule(count(counter), 100);
+
+        advanceTo(50);
+        task.pause();
+
+        // paused past the original due time
+        advanceTo(150);
+        assertEquals(0, counter.get());
+
+        task.resume();
+
+        advanceTo(199);
+        assertEquals(0, counter.get());
+
+        advanceTo(200);
+        assertEquals(1, counter.get());
+    }
+
+
+    @Test
+    public void oneShotTasksDontRunAgainOnResume() throws Exception {
+
+        AtomicInteger         counter = new AtomicInteger();
+        CEngineScheduler.Task task    = scheduler.schedule(count(counter), 10);
+
+        advanceTo(10);
+        assertEquals(1, counter.get());
+        assertTrue(task.isDone());
+        assertFalse(task.isCancelled());
+
+        task.pause();
+        task.resume();
+
+        advanceTo(100);
+
+        assertEquals(1, counter.get());
+        assertEquals(0, scheduler.pending());
+    }
+}
@@ -0,0 +1,114 @@
+package cmu.xprize.robotutor.tutorengine;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CFeatureSetTest {
+
+    private static BitSet active(String... features) {
+
+        BitSet active = new BitSet();
+
+        for(String feature : features) {
+            active.set(CFeatureSet.intern(feature));
+        }
+        return active;
+    }
+
+
+    private static boolean test(String featSet, BitSet active) {
+        return CFeatureSet.compile(featSet).test(active);
+    }
+
+
+    @Test
+    public void andBindsTighterThanOr() {
+
+        BitSet active = active("FTR_A", "FTR_C");
+
+        assertTrue(test("FTR_A&FTR_C", active));
+        assertFalse(test("FTR_A&FTR_B", active));
+        assertTrue(test("FTR_B|FTR_C", active));
+        assertFalse(test("FTR_B|FTR_D", active));
+
+        // (B & D) | A - not B & (D | A)
+        assertTrue(test("FTR_B&FTR_D|FTR_A", active));
+        assertFalse(test("FTR_B&FTR_D|FTR_A&FTR_B", active));
+        assertTrue(test("FTR_A|FTR_B&FTR_D", active));
+    }
+
+
+    @Test
+    public void negatesAndGroups() {
+
+        BitSet active = active("FTR_A");
+
+        assertFalse(test("!FTR_A", active));
+        assertTrue(test("!FTR_B", active));
+        assertTrue(test("!FTR_B&FTR_A", active));
+
+        assertFalse(test("FTR_B&(FTR_D|FTR_A)", active));
+        assertTrue(test("(FTR_B|FTR_A)&(FTR_D|FTR_A)", active));
+        assertTrue(test("((FTR_A))", active));
+        assertTrue(test("!(FTR_B&FTR_A)", active));
+        assertFalse(test("!(FTR_B|FTR_A)", active));
+
+        assertTrue(test("true", active));
+        assertFalse(test("false", active));
+        assertTrue(test("!false", active));
+        assertTrue(test("FTR_B|true", active));
+    }
+
+
+    @Test
+    public void emptyExpressionIsTrue() {
+
+        assertTrue(test("", new BitSet()));
+        assertTrue(test("()", new BitSet()));
+        assertTrue(test("FTR_A&()", active("FTR_A")));
+    }
+
+
+    @Test
+    public void dropsTrailingOperators() {
+
+        BitSet active = active("FTR_A");
+
+        assertTrue(test("FTR_A&", active));
+        assertTrue(test("FTR_A|", active));
+        assertTrue(test("FTR_A&&", active));
+        assertTrue(test("FTR_A&|FTR_B", active));
+        assertTrue(test("(FTR_A&)&FTR_A", active));
+        assertFalse(test("FTR_B&", active));
+    }
+
+
+    @Test
+    public void emptyTermIsFalse() {
+
+        BitSet active = active("FTR_A", "FTR_C");
+
+        // as in word_copy/animator_graph.json
+        assertFalse(test("FTR_B||FTR_D", active));
+        assertTrue(test("FTR_B||FTR_C", active));
+        assertFalse(test("FTR_A&&FTR_C", active));
+        assertFalse(test("|FTR_A&FTR_B", active));
+    }
+
+
+    @Test
+    public void compilesOnce() {
+
+        assertSame(CFeatureSet.compile("FTR_A&!FTR_B"), CFeatureSet.compile("FTR_A&!FTR_B"));
+        assertEquals(CFeatureSet.intern("FTR_A"), CFeatureSet.intern("FTR_A"));
+
+        assertTrue(CFeatureSet.isSet(active("FTR_A"), "FTR_A"));
+        assertFalse(CFeatureSet.isSet(active("FTR_A"), "FTR_UNUSED"));
+    }
+}
@@ -0,0 +1,185 @@
+package cmu.xprize.robotutor.tutorengine.graph;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import cmu.xprize.robotutor.tutorengine.CSceneGraph;
+import cmu.xprize.robotutor.tutorengine.CTutor;
+import cmu.xprize.robotutor.tutorengine.ITutorGraph;
+import cmu.xprize.robotutor.tutorengine.graph.vars.IScope2;
+import cmu.xprize.robotutor.tutorengine.graph.vars.IScriptable2;
+import cmu.xprize.robotutor.tutorengine.graph.vars.TBoolean;
+import cmu.xprize.robotutor.tutorengine.graph.vars.TInteger;
+import cmu.xprize.robotutor.tutorengine.graph.vars.TString;
+import cmu.xprize.util.IScriptable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Compiles and evaluates type_cond "If" expressions against a scope of tutor variables.
+ */
+public class cond_expressionTest {
+
+
+    /**
+     * Symbol table only - records the symbols looked up
+     */
+    private static class Scope implements IScope2 {
+
+        final HashMap<String, IScriptable2> symbols = new HashMap<>();
+        final List<String>                  lookups = new ArrayList<>();
+
+        @Override
+        public IScriptable2 mapSymbol(String symbolName) throws Exception {
+
+            lookups.add(symbolName);
+
+            IScriptable2 result = symbols.get(symbolName);
+
+            if(result == null) {
+                throw new Exception("Symbol not found: " + symbolName);
+            }
+            return result;
+        }
+
+        @Override
+        public void put(String key, IScriptable2 obj) {
+            symbols.put(key, obj);
+        }
+
+        @Override
+        public void put(String key, IScriptable obj) {
+            symbols.put(key, (IScriptable2) obj);
+        }
+
+        @Override
+        public String parseTemplate(String source) {
+            return source;
+        }
+
+        @Override
+        public CTutor tutor() {
+            return null;
+        }
+
+        @Override
+        public ITutorGraph tutorGraph() {
+            return null;
+        }
+
+        @Override
+        public CSceneGraph sceneGraph() {
+            return null;
+        }
+
+        @Override
+        public String tutorName() {
+            return "test";
+        }
+    }
+
+
+    private static Scope scope() {
+
+        Scope scope = new Scope();
+
+        scope.put("T", new TBoolean(true));
+        scope.put("F", new TBoolean(false));
+        scope.put("count", new TInteger(5));
+        scope.put("Sword.text", new TString("ng'ombe"));
+
+        return scope;
+    }
+
+
+    private static boolean test(String code, Scope scope) throws Exception {
+        return cond_expression.compile(code).test(scope);
+    }
+
+
+    @Test
+    public void compilesGrammar() throws Exception {
+
+        String[] valid = {"T", "!T", "{{T}}", "{{ Sword.text }} == 'x'", "T && F || !T", "(T || F) && !(F)",
+                          "count >= 10", "count != 'text'", "1.5 < count", "-2 < count", "  T  ", "count<=5&&T"};
+
+        for(String code : valid) {
+            cond_expression.compile(code);
+        }
+
+        String[] invalid = {"", "T &&", "&& T", "(T", "T )", "{{T}", "{T}", "'abc", "T & F", "T | F", "T = F",
+                            "1.2.3", "!T == F", "count == !F", "T F", "()"};
+
+        for(String code : invalid) {
+            try {
+                cond_expression.compile(code);
+                fail("compiled: " + code);
+            }
+            catch(Exception e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(" in " + code));
+            }
+        }
+    }
+
+
+    @Test
+    public void evaluatesLeftToRight() throws Exception {
+
+        Scope scope = scope();
+
+        // no precedence - operators apply in order
+        assertTrue(test("F && F || T", scope));
+        assertFalse(test("T || F && F", scope));
+        assertTrue(test("T || (F && F)", scope));
+
+        assertTrue(test("!F && T", scope));
+        assertTrue(test("!(T && F)", scope));
+        assertFalse(test("!{{T}}", scope));
+
+        assertTrue(test("(count == 5) && (count != 6)", scope));
+        assertFalse(test("count == 6", scope));
+        assertTrue(test("(count == 5) == T", scope));
+
+        // the variable types only define equality
+        try {
+            test("count > 4", scope);
+            fail("ordered comparison evaluated");
+        }
+        catch(Exception e) {
+            assertEquals("Comparison not supported for type: " + new TInteger(5).getType(), e.getMessage());
+        }
+    }
+
+
+    @Test
+    public void shortCircuits() throws Exception {
+
+        Scope scope = scope();
+
+        assertFalse(test("F && missing", scope));
+        assertTrue(test("T || missing", scope));
+        assertTrue(test("F || T || missing", scope));
+        assertFalse(scope.lookups.contains("missing"));
+
+        try {
+            test("T && missing", scope);
+            fail("missing symbol evaluated");
+        }
+        catch(Exception e) {
+            assertEquals("Symbol not found: missing", e.getMessage());
+        }
+
+        // symbols are looked up each evaluation - variables are replaced when updated
+        cond_expression expression = cond_expression.compile("count == 6");
+
+        assertFalse(expression.test(scope));
+        scope.put("count", new TInteger(6));
+        assertTrue(expression.test(scope));
+    }
+}
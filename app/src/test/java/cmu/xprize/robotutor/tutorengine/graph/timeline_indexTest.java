@@ -0,0 +1,415 @@
+package cmu.xprize.robotutor.tutorengine.graph;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import cmu.xprize.util.TCONST;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Plays the shipped trackdata timelines through the keyframe index and the event driven frame
+ * timer and checks the events fire on the same frames, in the same order, as the layer scan and
+ * per frame timer they replaced.
+ */
+public class timeline_indexTest {
+
+    private static final String LIBRARY = "src/main/assets/tutors/trackdata/LIBRARY";
+
+
+    /**
+     * The keyframes of a track's Scripts and Audio layers
+     */
+    private static class Track {
+
+        String        name;
+        List<int[]>   scripts = new ArrayList<>();        // {index}
+        List<int[]>   audio   = new ArrayList<>();        // {index, last}
+
+        timeline_index index() {
+
+            int[] scriptFrames = new int[scripts.size()];
+            int[] audioFrames  = new int[audio.size()];
+            int[] audioLast    = new int[audio.size()];
+
+            for(int i1 = 0 ; i1 < scriptFrames.length ; i1++)
+                scriptFrames[i1] = scripts.get(i1)[0];
+
+            for(int i1 = 0 ; i1 < audioFrames.length ; i1++) {
+                audioFrames[i1] = audio.get(i1)[0];
+                audioLast[i1]   = audio.get(i1)[1];
+            }
+            return new timeline_index(scriptFrames, audioFrames, audioLast);
+        }
+    }
+
+
+    /**
+     * The playback state of type_timelineFL
+     */
+    private static abstract class Player {
+
+        final Track        track;
+        final List<String> events = new ArrayList<>();
+        final boolean[]    hasPlayed;
+
+        long currFrame;
+        long nextFrame;
+        long lastFrame;
+        int  currScript;
+        int  currAudio;
+
+        Player(Track track) {
+            this.track = track;
+            hasPlayed  = new boolean[track.audio.size()];
+        }
+
+        abstract int scanFrames(long seekPnt, boolean recordCurr);
+
+        abstract void play(long frame);
+
+        void seek(long seekPnt) {
+
+            currScript = timeline_index.NONE;
+            currAudio  = timeline_index.NONE;
+
+            nextFrame = scanFrames(seekPnt, true);
+
+            if(seekPnt == nextFrame)
+                nextFrame = scanFrames(seekPnt + 1, false);
+        }
+
+        void applyFrame() {
+
+            seek(currFrame);
+
+            if(currAudio != timeline_index.NONE && !hasPlayed[currAudio]) {
+                hasPlayed[currAudio] = true;
+                events.add(currFrame + ":audio" + currAudio);
+            }
+            if(currScript != timeline_index.NONE) {
+                events.add(currFrame + ":script" + currScript);
+            }
+        }
+    }
+
+
+    /**
+     * The layer scan and 24 fps frame timer as they were
+     */
+    private static class ScanPlayer extends Player {
+
+        ScanPlayer(Track track) {
+            super(track);
+        }
+
+        @Override
+        int scanFrames(long seekPnt, boolean recordCurr) {
+
+            int nextEvent = TCONST.MAXTRACKLENGTH;
+
+            for(int i1 = 0 ; i1 < track.scripts.size() ; i1++) {
+
+                int index = track.scripts.get(i1)[0];
+
+                if(index >= seekPnt) {
+                    if(recordCurr)
+                        currScript = i1;
+                    nextEvent = (index < nextEvent)? index : nextEvent;
+                    break;
+                }
+            }
+
+            for(int i1 = 0 ; i1 < track.audio.size() ; i1++) {
+
+                int index = track.audio.get(i1)[0];
+                int last  = track.audio.get(i1)[1];
+
+                if(lastFrame < last)
+                    lastFrame = last;
+
+                if((index <= seekPnt) && (last >= seekPnt)) {
+
+                    if(recordCurr) {
+                        currAudio = i1;
+
+                        if(index == seekPnt) hasPlayed[i1] = false;
+                    }
+
+                    if((index >= seekPnt) && (index < nextEvent)) {
+                        nextEvent = index;
+                        break;
+                    }
+                }
+                else if(index > seekPnt) {
+                    nextEvent = (index < nextEvent)? index : nextEvent;
+                    break;
+                }
+            }
+            return nextEvent;
+        }
+
+        @Override
+        void play(long frame) {
+
+            currFrame = frame;
+            nextFrame = frame;
+
+            for(int tick = 0 ; tick < TCONST.MAXTRACKLENGTH ; tick++) {
+
+                if(currFrame == nextFrame)
+                    applyFrame();
+
+                if(currFrame >= lastFrame) {
+                    events.add(currFrame + ":end");
+                    return;
+                }
+                currFrame++;
+            }
+        }
+    }
+
+
+    /**
+     * The keyframe index and the timer that sleeps until the next event
+     */
+    private static class IndexPlayer extends Player {
+
+        private final timeline_index index;
+
+        int wakes;
+
+        IndexPlayer(Track track) {
+            super(track);
+            index = track.index();
+        }
+
+        @Override
+        int scanFrames(long seekPnt, boolean recordCurr) {
+
+            int nextEvent = index.scan(seekPnt);
+
+            if(lastFrame < index.last)
+                lastFrame = index.last;
+
+            if(recordCurr) {
+                currScript = index.script;
+                currAudio  = index.audio;
+
+                if(currAudio != timeline_index.NONE && track.audio.get(currAudio)[0] == seekPnt)
+                    hasPlayed[currAudio] = false;
+            }
+            return nextEvent;
+        }
+
+        @Override
+        void play(long frame) {
+
+            currFrame = frame;
+            nextFrame = frame;
+
+            for(wakes = 1 ; wakes < TCONST.MAXTRACKLENGTH ; wakes++) {
+
+                currFrame = timeline_index.wakeFrame(currFrame, nextFrame, lastFrame);
+
+                if(currFrame == nextFrame)
+                    applyFrame();
+
+                if(currFrame >= lastFrame) {
+                    events.add(currFrame + ":end");
+                    return;
+                }
+                currFrame++;
+            }
+        }
+    }
+
+
+    @Test
+    public void playsShippedTimelinesLikeTheLayerScan() throws Exception {
+
+        List<Track> tracks = loadTracks();
+
+        assertTrue("no trackdata timelines found", tracks.size() > 5);
+
+        for(Track track : tracks) {
+
+            int length = 0;
+
+            for(int[] clip : track.audio)
+                length = Math.max(length, clip[1]);
+
+            // Play from each frame - as gotoAndPlay does
+            //
+            for(int frame = 0 ; frame <= length + 2 ; frame++) {
+
+                ScanPlayer  scan  = new ScanPlayer(track);
+                IndexPlayer index = new IndexPlayer(track);
+
+                scan.play(frame);
+                index.play(frame);
+
+                assertEquals(track.name + " from frame " + frame, scan.events, index.events);
+                assertTrue(track.name + " wakes", index.wakes <= scan.events.size() + 2);
+            }
+
+            // Seek to each frame
+            //
+            for(int frame = 0 ; frame <= length + 2 ; frame++) {
+
+                ScanPlayer  scan  = new ScanPlayer(track);
+                IndexPlayer index = new IndexPlayer(track);
+
+                scan.seek(frame);
+                index.seek(frame);
+
+                String at = track.name + " seek " + frame;
+
+                assertEquals(at, scan.nextFrame, index.nextFrame);
+                assertEquals(at, scan.lastFrame, index.lastFrame);
+                assertEquals(at, scan.currScript, index.currScript);
+                assertEquals(at, scan.currAudio, index.currAudio);
+            }
+        }
+    }
+
+
+    @Test
+    public void scanMatchesLayerScanForAdjacentAndGappedClips() {
+
+        Track track = new Track();
+
+        track.name = "synthetic";
+
+        for(int frame : new int[] {0, 10, 30, 31, 90, 200})
+            track.scripts.add(new int[] {frame});
+
+        track.audio.add(new int[] {0, 30});
+        track.audio.add(new int[] {30, 60});
+        track.audio.add(new int[] {75, 75});
+        track.audio.add(new int[] {100, 180});
+
+        for(int frame = 0 ; frame <= 210 ; frame++) {
+
+            ScanPlayer  scan  = new ScanPlayer(track);
+            IndexPlayer index = new IndexPlayer(track);
+
+            for(int seek = frame ; seek <= 210 ; seek += 7) {
+
+                scan.seek(seek);
+                index.seek(seek);
+
+                String at = "from " + frame + " seek " + seek;
+
+                assertEquals(at, scan.nextFrame, index.nextFrame);
+                assertEquals(at, scan.lastFrame, index.lastFrame);
+                assertEquals(at, scan.currScript, index.currScript);
+                assertEquals(at, scan.currAudio, index.currAudio);
+            }
+
+            scan  = new ScanPlayer(track);
+            index = new IndexPlayer(track);
+
+            scan.play(frame);
+            index.play(frame);
+
+            assertEquals("from frame " + frame, scan.events, index.events);
+        }
+    }
+
+
+    //************ Trackdata
+
+
+    private static List<Track> loadTracks() throws Exception {
+
+        File library = new File(LIBRARY);
+
+        if(!library.isDirectory())
+            library = new File("app", LIBRARY);
+
+        List<Track> tracks = new ArrayList<>();
+        File[]      groups = library.listFiles();
+
+        assertTrue("missing " + library.getAbsolutePath(), groups != null);
+
+        for(File group : groups) {
+
+            File[] files = group.listFiles();
+
+            if(files == null)
+                continue;
+
+            for(File file : files) {
+
+                if(!file.getName().endsWith(".xml"))
+                    continue;
+
+                Track track = loadTrack(file);
+
+                // Only tracks with both layers play as absolute timelines
+                //
+                if(track != null)
+                    tracks.add(track);
+            }
+        }
+        return tracks;
+    }
+
+
+    private static Track loadTrack(File file) throws Exception {
+
+        Document doc     = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+        NodeList layers  = doc.getElementsByTagName("DOMLayer");
+        Track    track   = new Track();
+        boolean  scripts = false;
+        boolean  audio   = false;
+
+        track.name = file.getParentFile().getName() + "/" + file.getName();
+
+        for(int i1 = 0 ; i1 < layers.getLength() ; i1++) {
+
+            Element  layer  = (Element) layers.item(i1);
+            NodeList frames = layer.getElementsByTagName("DOMFrame");
+
+            for(int i2 = 0 ; i2 < frames.getLength() ; i2++) {
+
+                Element frame = (Element) frames.item(i2);
+                int     index = integer(frame.getAttribute("index"));
+
+                switch(layer.getAttribute("name")) {
+
+                    case TCONST.SCRIPT:
+                        scripts = true;
+                        track.scripts.add(new int[] {index});
+                        break;
+
+                    case TCONST.AUDIO:
+                        audio = true;
+
+                        // frames without a sound are script frames - which have no duration
+                        //
+                        int last = frame.hasAttribute("soundName")? index + integer(frame.getAttribute("duration")) : 0;
+
+                        track.audio.add(new int[] {index, last});
+                        break;
+                }
+            }
+        }
+        return (scripts && audio)? track : null;
+    }
+
+
+    private static int integer(String value) {
+        return (value == null || value.isEmpty())? 0 : Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,254 @@
+package cmu.xprize.robotutor.tutorengine.graph;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class timeline_trackTest {
+
+    private static final String LIBRARY = "src/main/assets/tutors/trackdata/LIBRARY";
+
+
+    @Test
+    public void roundTripsShippedTracks() throws Exception {
+
+        List<File> sources = sources();
+
+        assertTrue("no trackdata found", sources.size() > 5);
+
+        for(File source : sources) {
+
+            timeline_track track  = track(source);
+            timeline_track loaded = timeline_track.decode(timeline_track.encode(track, "stamp"), "stamp");
+
+            assertNotNull(source.getName(), loaded);
+            assertEquals(source.getName(), track.layers.size(), loaded.layers.size());
+
+            for(int i1 = 0 ; i1 < track.layers.size() ; i1++) {
+
+                timeline_track.Layer layer = track.layers.get(i1);
+                timeline_track.Layer other = loaded.layers.get(i1);
+
+                assertEquals(layer.name, other.name);
+                assertEquals(layer.frames.size(), other.frames.size());
+
+                for(int i2 = 0 ; i2 < layer.frames.size() ; i2++) {
+
+                    timeline_track.Frame frame = layer.frames.get(i2);
+                    timeline_track.Frame copy  = other.frames.get(i2);
+
+                    String at = source.getName() + " " + layer.name + " frame " + i2;
+
+                    assertEquals(at, frame.audio, copy.audio);
+                    assertEquals(at, frame.name, copy.name);
+                    assertEquals(at, frame.index, copy.index);
+                    assertEquals(at, frame.duration, copy.duration);
+                    assertSameJSON(at, frame.command, copy.command);
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void roundTripsJSONValues() throws Exception {
+
+        JSONObject command = new JSONObject();
+        JSONArray  tracks  = new JSONArray();
+
+        tracks.put(JSONObject.NULL);
+        tracks.put(new JSONObject().put("features", "").put("reuse", true));
+        tracks.put(new JSONArray().put(1).put(5000000000L).put(0.25).put(false));
+
+        command.put("type", "MODULE");
+        command.put("COMMENT", "\u00e9t\u00e9 {{Sstimulus.value}}");
+        command.put("tracks", tracks);
+
+        timeline_track track = new timeline_track();
+        timeline_track.Layer layer = new timeline_track.Layer("Scripts");
+
+        layer.frames.add(new timeline_track.Frame(false, "START", 78, 86, command));
+        layer.frames.add(new timeline_track.Frame(false, null, 164, 0, null));
+        track.layers.add(layer);
+
+        timeline_track loaded = timeline_track.decode(timeline_track.encode(track, "stamp"), "stamp");
+
+        assertSameJSON("command", command, loaded.layers.get(0).frames.get(0).command);
+        assertEquals("START", loaded.layers.get(0).frames.get(0).name);
+        assertNull(loaded.layers.get(0).frames.get(1).name);
+        assertNull(loaded.layers.get(0).frames.get(1).command);
+    }
+
+
+    @Test
+    public void missesOnStaleOrDamagedSnapshot() throws Exception {
+
+        File           snapshot = File.createTempFile("track", ".rtrk");
+        timeline_track track    = track(sources().get(0));
+
+        assertTrue(timeline_track.write(snapshot, "apk:1", track));
+
+        assertNotNull(timeline_track.read(snapshot, "apk:1"));
+        assertNull(timeline_track.read(snapshot, "apk:2"));
+
+        // Same length - only the checksum catches it
+        //
+        RandomAccessFile file = new RandomAccessFile(snapshot, "rw");
+
+        file.seek(file.length() - 8);
+        int value = file.read();
+        file.seek(file.length() - 8);
+        file.write(value ^ 0x10);
+
+        assertNull(timeline_track.read(snapshot, "apk:1"));
+
+        file.setLength(file.length() / 2);
+        file.close();
+
+        assertNull(timeline_track.read(snapshot, "apk:1"));
+        assertNull(timeline_track.read(new File(snapshot.getPath() + ".none"), "apk:1"));
+
+        snapshot.delete();
+    }
+
+
+    private static void assertSameJSON(String at, Object expected, Object actual) throws Exception {
+
+        if(expected instanceof JSONObject) {
+
+            JSONObject object = (JSONObject) expected;
+            JSONObject other  = (JSONObject) actual;
+
+            assertEquals(at, object.length(), other.length());
+
+            Iterator keys = object.keys();
+
+            while(keys.hasNext()) {
+
+                String key = (String) keys.next();
+
+                assertSameJSON(at + "." + key, object.get(key), other.get(key));
+            }
+        }
+        else if(expected instanceof JSONArray) {
+
+            JSONArray array = (JSONArray) expected;
+            JSONArray other = (JSONArray) actual;
+
+            assertEquals(at, array.length(), other.length());
+
+            for(int i1 = 0 ; i1 < array.length() ; i1++) {
+                assertSameJSON(at + "[" + i1 + "]", array.get(i1), other.get(i1));
+            }
+        }
+        else {
+            assertEquals(at, expected, actual);
+        }
+    }
+
+
+    //************ Trackdata
+
+
+    private static List<File> sources() {
+
+        File library = new File(LIBRARY);
+
+        if(!library.isDirectory())
+            library = new File("app", LIBRARY);
+
+        List<File> sources = new ArrayList<>();
+        File[]     groups  = library.listFiles();
+
+        assertNotNull("missing " + library.getAbsolutePath(), groups);
+
+        for(File group : groups) {
+
+            File[] files = group.listFiles();
+
+            if(files == null)
+                continue;
+
+            for(File file : files) {
+                if(file.getName().endsWith(".xml"))
+                    sources.add(file);
+            }
+        }
+        return sources;
+    }
+
+
+    /**
+     * The track as timeline_track compiles it - the XFL is read here with the JDK parser
+     */
+    private static timeline_track track(File source) throws Exception {
+
+        Document       doc    = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(source);
+        NodeList       layers = doc.getElementsByTagName("DOMLayer");
+        timeline_track track  = new timeline_track();
+
+        for(int i1 = 0 ; i1 < layers.getLength() ; i1++) {
+
+            Element              element = (Element) layers.item(i1);
+            NodeList             frames  = element.getElementsByTagName("DOMFrame");
+            timeline_track.Layer layer   = new timeline_track.Layer(element.getAttribute("name"));
+
+            for(int i2 = 0 ; i2 < frames.getLength() ; i2++) {
+
+                Element    frame   = (Element) frames.item(i2);
+                String     name    = frame.hasAttribute("name")? frame.getAttribute("name") : null;
+                boolean    audio   = frame.hasAttribute("soundName");
+                JSONObject command = null;
+
+                if(audio) {
+                    command = new JSONObject();
+                    command.put("action", "AUDIO");
+                    command.put("command", "PAUSE");
+                    command.put("soundsource", frame.getAttribute("soundName").substring(9));
+                    command.put("index", frame.getAttribute("index"));
+                    command.put("features", (name != null)? name : "");
+                }
+                else {
+                    NodeList scripts = frame.getElementsByTagName("script");
+
+                    // The desktop org.json is stricter than android's - comments and trailing
+                    // commas are rejected so those scripts are left out here
+                    //
+                    if(scripts.getLength() > 0) {
+                        try {
+                            command = new JSONObject(scripts.item(0).getTextContent());
+                        } catch (JSONException e) {
+                            command = null;
+                        }
+                    }
+                }
+
+                layer.frames.add(new timeline_track.Frame(audio, name, integer(frame.getAttribute("index")), integer(frame.getAttribute("duration")), command));
+            }
+            track.layers.add(layer);
+        }
+        return track;
+    }
+
+
+    private static int integer(String value) {
+        return (value == null || value.isEmpty())? 0 : Integer.parseInt(value);
+    }
+}
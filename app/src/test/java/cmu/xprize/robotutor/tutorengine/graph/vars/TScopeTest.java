@@ -0,0 +1,157 @@
+package cmu.xprize.robotutor.tutorengine.graph.vars;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+
+import cmu.xprize.util.TCONST;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TScopeTest {
+
+    /**
+     * A scope with a plain copy of its symbols - for the original lookup below
+     */
+    private static final class Level {
+
+        final HashMap<String, IScriptable2> map = new HashMap<>();
+        final Level                         parent;
+        final TScope                        scope;
+
+        Level(String name, Level parent) {
+
+            this.parent = parent;
+            this.scope  = new TScope(null, name, (parent != null)? parent.scope : null);
+        }
+
+        void define(String key, IScriptable2 value) {
+
+            map.put(key, value);
+            scope.addUpdateVar(key, value);
+        }
+    }
+
+
+    /**
+     * The original TScope.mapSymbol - kept here as the reference lookup.  A miss ended in a
+     * NullPointerException, which it caught.
+     */
+    private static IScriptable2 legacyMapSymbol(Level level, String name) {
+
+        IScriptable2 tarObject = null;
+        Level        currScope = level;
+
+        try {
+            do {
+                tarObject = currScope.map.get(name);
+
+                if (tarObject == null)
+                    currScope = currScope.parent;
+
+            } while (tarObject == null);
+
+            while (tarObject.getType() == TCONST.TREFERENCE) do {
+                tarObject = currScope.map.get(tarObject.getValue());
+
+                if (tarObject == null)
+                    currScope = currScope.parent;
+
+            } while (tarObject == null);
+
+        } catch (Exception e) {
+        }
+
+        return tarObject;
+    }
+
+
+    private static TReference reference(String target) {
+
+        TReference reference = new TReference(target);
+        reference.type = TCONST.TREFERENCE;
+
+        return reference;
+    }
+
+
+    @Test
+    public void resolvesNamesAddedAfterAMiss() throws Exception {
+
+        TScope parent = new TScope(null, "parent", null);
+        TScope child  = new TScope(null, "child", parent);
+        TString value = new TString("late");
+
+        assertNull(child.mapSymbol("late"));
+        assertNull(child.mapSymbol("late"));
+
+        child.addUpdateVar("late", value);
+        assertSame(value, child.mapSymbol("late"));
+
+        // added above the scope that cached the miss
+        //
+        TString inherited = new TString("inherited");
+
+        assertNull(child.mapSymbol("inherited"));
+        parent.addUpdateVar("inherited", inherited);
+        assertSame(inherited, child.mapSymbol("inherited"));
+    }
+
+
+    @Test
+    public void childSeesParentUpdates() throws Exception {
+
+        TScope  parent = new TScope(null, "parent", null);
+        TScope  child  = new TScope(null, "child", new TScope(null, "middle", parent));
+        TString first  = new TString("first");
+        TString second = new TString("second");
+
+        parent.addUpdateVar("value", first);
+        assertSame(first, child.mapSymbol("value"));
+
+        parent.addUpdateVar("value", second);
+        assertSame(second, child.mapSymbol("value"));
+
+        parent.addUpdateVar("value", null);
+        assertNull(child.mapSymbol("value"));
+    }
+
+
+    @Test
+    public void followsReferencesAsTheOriginalLookupDid() throws Exception {
+
+        Level root   = new Level("root", null);
+        Level middle = new Level("middle", root);
+        Level leaf   = new Level("leaf", middle);
+
+        root.define("plain", new TString("plain"));
+        root.define("shadow", new TString("root shadow"));
+        root.define("onlyRoot", new TString("only root"));
+
+        middle.define("shadow", new TString("middle shadow"));
+        middle.define("alias", reference("shadow"));          // target in its own scope
+        middle.define("chain", reference("alias"));           // reference to a reference
+        middle.define("stray", reference("onlyRoot"));        // target only in a parent
+
+        leaf.define("shadow", new TString("leaf shadow"));
+        leaf.define("local", reference("shadow"));
+
+        String[] names = {"plain", "shadow", "onlyRoot", "alias", "chain", "stray", "local", "missing"};
+
+        for(Level level : new Level[] {root, middle, leaf}) {
+            for(String name : names) {
+
+                // twice - the second comes from the cache
+                //
+                assertSame(name, legacyMapSymbol(level, name), level.scope.mapSymbol(name));
+                assertSame(name, legacyMapSymbol(level, name), level.scope.mapSymbol(name));
+            }
+        }
+
+        // found through the parent and resolved there - not against the leaf's own shadow
+        //
+        assertSame(middle.map.get("shadow"), leaf.scope.mapSymbol("alias"));
+        assertNull(leaf.scope.mapSymbol("stray"));
+    }
+}
@@ -0,0 +1,153 @@
+package cmu.xprize.robotutor.tutorengine.util;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+
+import cmu.xprize.util.CAt_Data;
+import cmu.xprize.util.CPlacementTest_Tutor;
+
+import static cmu.xprize.comp_session.AS_CONST.BEHAVIOR_KEYS.SELECT_WRITING;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TransitionMatrixSnapshotTest {
+
+    private static CAt_Data entry(String id, int row, int col, String next) {
+
+        CAt_Data entry = new CAt_Data();
+
+        entry.tutor_id    = id;
+        entry.tutor_desc  = "akira";
+        entry.tutor_data  = "[file]" + id + ".json";
+        entry.cell_row    = String.valueOf(row);
+        entry.cell_column = String.valueOf(col);
+        entry.row         = row;
+        entry.col         = col;
+        entry.next        = next;
+        entry.same        = id;
+        return entry;
+    }
+
+
+    private static TransitionMatrixModel matrix() {
+
+        TransitionMatrixModel matrix = new TransitionMatrixModel();
+
+        matrix.rootSkillWrite   = "write.1";
+        matrix.rootSkillStories = "story.1";
+        matrix.rootSkillMath    = null;
+
+        matrix.writeTransitions = new HashMap();
+        matrix.storyTransitions = new HashMap();
+
+        for(int i1 = 1 ; i1 <= 50 ; i1++) {
+            matrix.writeTransitions.put("write." + i1, entry("write." + i1, i1, -i1, "write." + (i1 + 1)));
+        }
+        matrix.storyTransitions.put("story.1", entry("story.1", 1, 1, "story.1"));
+
+        CPlacementTest_Tutor placement = new CPlacementTest_Tutor();
+        placement.tutor = "write.1";
+        placement.level = "1";
+        placement.l     = 1;
+        placement.pass  = "write.2";
+
+        matrix.writePlacement = new CPlacementTest_Tutor[] {placement};
+
+        return matrix;
+    }
+
+
+    @Test
+    public void roundTrip() throws Exception {
+
+        File snapshot = File.createTempFile("matrix", ".rtmx");
+
+        assertTrue(TransitionMatrixSnapshot.write(snapshot, "abc", matrix()));
+
+        TransitionMatrixModel loaded = TransitionMatrixSnapshot.read(snapshot, "abc");
+
+        assertNotNull(loaded);
+        assertEquals("write.1", loaded.rootSkillWrite);
+        assertNull(loaded.rootSkillMath);
+        assertNull(loaded.mathTransitions);
+        assertNull(loaded.mathPlacement);
+        assertEquals(50, loaded.writeTransitions.size());
+
+        // entries are only decoded when looked up
+        TransitionMatrixSnapshot.LazyEntries entries = (TransitionMatrixSnapshot.LazyEntries) loaded.writeTransitions;
+
+        assertEquals(50, entries.pending());
+        assertTrue(entries.containsKey("write.50"));
+        assertNull(entries.get("write.51"));
+
+        CAt_Data entry = (CAt_Data) loaded.writeTransitions.get("write.7");
+
+        assertEquals(49, entries.pending());
+        assertSame(entry, loaded.writeTransitions.get("write.7"));
+
+        assertEquals("write.8", entry.next);
+        assertEquals("[file]write.7.json", entry.tutor_data);
+        assertEquals(7, entry.row);
+        assertEquals(-7, entry.col);
+        assertNull(entry.harder);
+
+        // strings are shared through the table
+        assertSame(entry.tutor_desc, ((CAt_Data) loaded.writeTransitions.get("write.9")).tutor_desc);
+
+        assertEquals("write.2", loaded.writePlacement[0].pass);
+        assertEquals(1, loaded.writePlacement[0].l);
+        assertEquals(loaded.writeTransitions, loaded.getTransitionMapByContentArea(SELECT_WRITING));
+
+        // iteration sees every entry
+        int count = 0;
+
+        for(Object value : loaded.writeTransitions.values()) {
+            assertNotNull(((CAt_Data) value).tutor_id);
+            count++;
+        }
+        assertEquals(50, count);
+        assertEquals(0, entries.pending());
+
+        snapshot.delete();
+    }
+
+
+    @Test
+    public void missesOnChangeOrDamage() throws Exception {
+
+        File snapshot = File.createTempFile("matrix", ".rtmx");
+
+        TransitionMatrixSnapshot.write(snapshot, "abc", matrix());
+
+        // the source spec changed
+        assertNull(TransitionMatrixSnapshot.read(snapshot, "abd"));
+
+        // a flipped bit in an entry - entries are not decoded at load
+        RandomAccessFile file = new RandomAccessFile(snapshot, "rw");
+        file.seek(file.length() - 40);
+        int value = file.read();
+        file.seek(file.length() - 40);
+        file.write(value ^ 0x04);
+
+        assertNull(TransitionMatrixSnapshot.read(snapshot, "abc"));
+
+        // truncated
+        file.seek(file.length() - 40);
+        file.write(value);
+        assertNotNull(TransitionMatrixSnapshot.read(snapshot, "abc"));
+
+        file.setLength(file.length() / 2);
+        file.close();
+
+        assertNull(TransitionMatrixSnapshot.read(snapshot, "abc"));
+
+        snapshot.delete();
+        assertNull(TransitionMatrixSnapshot.read(snapshot, "abc"));
+    }
+}
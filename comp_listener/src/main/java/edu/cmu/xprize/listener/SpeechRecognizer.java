@@ -54,6 +54,8 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 
+import cmu.xprize.comp_logging.CLogManager;
+import cmu.xprize.comp_logging.TLOG_CONST;
 import cmu.xprize.util.TCONST;
 import edu.cmu.pocketsphinx.Config;
 import edu.cmu.pocketsphinx.Decoder;
@@ -669,7 +671,7 @@ public class SpeechRecognizer {
             prevHypothesis = hypothesis;
             hypChanged     = true;
 
-            Log.i("ASR", "First Hypothesis: " + hypString);
+            CLogManager.getInstance().postEvent_D(TLOG_CONST.ASR_HYPOTHESIS_TAG, "First Hypothesis: %s", hypString);
 
         } else {
 
@@ -684,7 +686,7 @@ public class SpeechRecognizer {
                 hypChanged     = true;
                 prevHypothesis = hypothesis;
 
-                Log.i("ASR", "Updated Hypothesis: " + hypString);
+                CLogManager.getInstance().postEvent_D(TLOG_CONST.ASR_HYPOTHESIS_TAG, "Updated Hypothesis: %s", hypString);
             }
         }
 
@@ -697,8 +699,6 @@ public class SpeechRecognizer {
             eventManager.updateStartTime(TCONST.TIMEDWORD_EVENT,
                     TCONST.TIMEDSILENCE_EVENT | TCONST.TIMEDSOUND_EVENT);
 
-            Log.i("ASR", "Processing Hypothesis");
-
             // If there is a new Hypothesis then process it
             postResult(hypothesis, TCONST.PARTIAL_HYPOTHESIS);
         }
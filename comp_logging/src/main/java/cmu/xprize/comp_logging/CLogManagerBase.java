@@ -28,25 +28,28 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
 
 public class CLogManagerBase implements ILogManager {
 
-    private static final int OBJ_PART       = 0;
-    private static final int VAL_PART       = 1;
-
     //private static final String LOG_VERSION = "1.0.0";    // initial release
-    private static final String LOG_VERSION = "1.0.1";      // Updated LTKPlus to use LTKPLUS tag
+    static final String LOG_VERSION = "1.0.1";              // Updated LTKPlus to use LTKPLUS tag
 
     private static String currenttutor      = "<undefined>";
-    private String TERMINATING_PACKET       = "{\"end\":\"end\"}]}";
+    static final String TERMINATING_PACKET  = "{\"end\":\"end\"}]}";
     private byte[] TERMINATE_BYTES          = TERMINATING_PACKET.getBytes();
 
     private LogThread      logThread;                   // background thread handling log data
@@ -55,9 +58,18 @@ public class CLogManagerBase implements ILogManager {
     private boolean        isLogging = false;
 
     private Handler logHandler;
-    private HashMap queueMap    = new HashMap();
     private boolean mDisabled   = false;
 
+    // Bounded packet queue - any thread produces, the log thread consumes.  A drain request is
+    // only posted to the log thread when one is not already pending.
+    //
+    private CLogRingQueue              packetQueue    = new CLogRingQueue(TLOG_CONST.QUEUE_CAPACITY);
+    private int                        queuePolicy    = TLOG_CONST.QUEUE_BLOCK;
+    private int                        queueDropLevel = Log.INFO;
+    private final AtomicBoolean        drainPending   = new AtomicBoolean(false);
+    private final AtomicLongArray      droppedCounts  = new AtomicLongArray(Log.ASSERT + 1);
+    private final CLogRingQueue.Entry  drainEntry     = new CLogRingQueue.Entry();
+
     private File                       logFile;
     private FileOutputStream           logStream;
     private java.nio.channels.FileLock logLock;
@@ -66,7 +78,53 @@ public class CLogManagerBase implements ILogManager {
     private RandomAccessFile           seekableLogWriter;
     private boolean                    seekable = true;
 
-    private boolean                    logWriterValid = false;
+    private volatile boolean           logWriterValid = false;
+    private String                     deferredPath;          // log opened with its first packet
+
+    // fsync cadence - the log is synced at most every syncInterval ms (0 syncs every write, < 0
+    // only when a segment is closed).  A delayed sync covers the last write of a burst.
+    //
+    private long                       syncInterval = TLOG_CONST.SYNC_INTERVAL;
+    private long                       lastSync     = 0;
+    private boolean                    syncPending  = false;
+
+    // Log segmentation - the log is rolled to a new file once it exceeds the size or duration
+    // limit (<= 0 disables a limit).  Completed segments may be compressed in the background.
+    //
+    private long                       segmentMaxBytes    = 0;
+    private long                       segmentMaxDuration = 0;
+    private boolean                    compressSegments   = false;
+    private int                        segmentIndex       = 0;
+    private long                       segmentBytes       = 0;
+    private long                       segmentStart       = 0;
+    private CLogSegmentCompressor      segmentCompressor;
+
+    // Scratch encoder for unbatched writes - only used on the log thread
+    //
+    private CLogPacketEncoder          packetEncoder  = new CLogPacketEncoder();
+
+    // Group-commit writer - packets are collected on the log thread and written to the log in
+    // a single write (including the terminator) when either the size or the time trigger fires.
+    //
+    private boolean                    batching          = false;
+    private int                        batchMaxBytes     = TLOG_CONST.BATCH_MAX_BYTES;
+    private long                       batchMaxDelay     = TLOG_CONST.BATCH_MAX_DELAY;
+    private CLogPacketEncoder          batchBuffer       = new CLogPacketEncoder(TLOG_CONST.BATCH_MAX_BYTES);
+    private int                        batchPackets      = 0;
+    private boolean                    batchFlushPending = false;
+    private boolean                    recordsPending    = false;
+
+    private long                       lastFlushLatency  = 0;
+    private int                        lastBatchSize     = 0;
+    private long                       maxFlushLatency   = 0;
+    private long                       flushCount        = 0;
+
+    // Pipeline metrics - enqueue times of the packets in the pending batch are kept so their
+    // enqueue-to-disk latency can be recorded when the batch is written.
+    //
+    private CLogMetrics                metrics           = new CLogMetrics();
+    private long                       metricsInterval   = TLOG_CONST.METRICS_INTERVAL;
+    private long[]                     batchTimes        = new long[64];
 
     // Datashop specific
 
@@ -78,12 +136,190 @@ public class CLogManagerBase implements ILogManager {
     private boolean                    logDSWriterValid = false;
 
 
+    // Level gating - levels are the android.util.Log priorities.  Tags without their own level
+    // use the default.
+    //
+    private static final int EMITTED    = 0;
+    private static final int SUPPRESSED = 1;
+
+    private volatile int                                 defaultLevel = Log.INFO;
+    private ConcurrentHashMap<String, Integer>          tagLevels    = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<String, AtomicLongArray>  tagCounts    = new ConcurrentHashMap<>();
+
+    // Per tag sampling / coalescing of high frequency events - see CLogSampler
+    //
+    private ConcurrentHashMap<String, CLogSampler>      samplers     = new ConcurrentHashMap<>();
+
+
     protected String TAG = "CLogManagerBase";
 
 
     protected CLogManagerBase() {
     }
 
+    /**
+     * Enable or disable the group-commit writer.  When enabled packets are buffered and written
+     * in one operation once maxBytes have accumulated or maxDelay ms have passed since the first
+     * buffered packet - whichever comes first.
+     *
+     * Should be called before startLogging.
+     *
+     * @param enable
+     * @param maxBytes
+     * @param maxDelay
+     */
+    @Override
+    public void setBatchMode(boolean enable, int maxBytes, long maxDelay) {
+
+        batching      = enable;
+        batchMaxBytes = maxBytes;
+        batchMaxDelay = maxDelay;
+    }
+
+    /**
+     * @return the time in ms taken by the most recent batch flush
+     */
+    public long getLastFlushLatency() {
+        return lastFlushLatency;
+    }
+
+    /**
+     * @return the worst batch flush time in ms seen since logging started
+     */
+    public long getMaxFlushLatency() {
+        return maxFlushLatency;
+    }
+
+    /**
+     * @return the number of packets written by the most recent batch flush
+     */
+    public int getLastBatchSize() {
+        return lastBatchSize;
+    }
+
+    /**
+     * @return the number of batch flushes since logging started
+     */
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+
+    /**
+     * Configure the packet queue - should be called before startLogging
+     *
+     * @param capacity
+     * @param policy    TLOG_CONST.QUEUE_BLOCK / QUEUE_DROP_OLDEST / QUEUE_DROP_BY_LEVEL
+     * @param dropLevel for QUEUE_DROP_BY_LEVEL - packets below this level are dropped first.
+     *                  INFO and above, and records, are never dropped by level.
+     */
+    @Override
+    public void setQueuePolicy(int capacity, int policy, int dropLevel) {
+
+        if(capacity != packetQueue.capacity()) {
+            packetQueue = new CLogRingQueue(capacity);
+        }
+        queuePolicy    = policy;
+        queueDropLevel = Math.min(dropLevel, Log.INFO);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return packetQueue.size();
+    }
+
+    @Override
+    public long getDroppedCount(int level) {
+        return (level >= 0 && level < droppedCounts.length())? droppedCounts.get(level) : 0;
+    }
+
+
+    /**
+     * Configure log segmentation - should be called before startLogging
+     *
+     * @param maxBytes    roll the log when it reaches this size - <= 0 for no limit
+     * @param maxDuration roll the log after this many ms - <= 0 for no limit
+     * @param compress    gzip completed segments on a background thread
+     */
+    @Override
+    public void setSegmentPolicy(long maxBytes, long maxDuration, boolean compress) {
+
+        segmentMaxBytes    = maxBytes;
+        segmentMaxDuration = maxDuration;
+        compressSegments   = compress;
+    }
+
+
+    /**
+     * Set the fsync cadence - should be called before startLogging
+     *
+     * @param interval ms between syncs - 0 syncs every write, < 0 only syncs on close
+     */
+    @Override
+    public void setSyncInterval(long interval) {
+        syncInterval = interval;
+    }
+
+
+    /**
+     * Emit a LOG_METRICS summary packet every interval ms - should be called before
+     * startLogging.  <= 0 disables the summary packet, the metrics remain readable.
+     *
+     * @param interval
+     */
+    @Override
+    public void setMetricsInterval(long interval) {
+        metricsInterval = interval;
+    }
+
+    @Override
+    public CLogMetrics.Snapshot getMetrics() {
+        return metrics.snapshot(packetQueue.size(), getDroppedTotal(), false);
+    }
+
+    private long getDroppedTotal() {
+
+        long total = 0;
+
+        for(int i1 = 0 ; i1 < droppedCounts.length() ; i1++) {
+            total += droppedCounts.get(i1);
+        }
+        return total;
+    }
+
+
+    private final Runnable metricsTask = new Runnable() {
+        @Override
+        public void run() {
+            postMetrics();
+
+            if(logHandler != null && metricsInterval > 0) {
+                logHandler.postDelayed(this, metricsInterval);
+            }
+        }
+    };
+
+
+    /**
+     * Post the metrics summary for the interval just ended - runs on the log thread
+     */
+    private void postMetrics() {
+
+        CLogMetrics.Snapshot snapshot = metrics.snapshot(packetQueue.size(), getDroppedTotal(), true);
+
+        String packet;
+
+        packet = "{" +
+                "\"type\":\"LOG_METRICS\"," +
+                "\"tutor\":\"" + currenttutor + "\"," +
+                "\"class\":\"INFO\"," +
+                "\"tag\":\"" + TAG + "\"," +
+                "\"time\":\"" + snapshot.time + "\",";
+
+        postUnencoded(packet, snapshot.toString(), null, Log.INFO);
+    }
+
+
     public void startLogging(String logPath, String logFilename) {
 
         log_Path = logPath;
@@ -96,11 +332,25 @@ public class CLogManagerBase implements ILogManager {
         isLogging = true;
         mDisabled = false;
 
+        batchBuffer.reset();
+        batchPackets      = 0;
+        batchFlushPending = false;
+        recordsPending    = false;
+        deferredPath      = null;
+        maxFlushLatency   = 0;
+        flushCount        = 0;
+
+        metrics.reset();
+
         logThread = new LogThread(TAG);
         logThread.start();
 
         try {
             logHandler = new Handler(logThread.getLooper());
+
+            if(metricsInterval > 0) {
+                logHandler.postDelayed(metricsTask, metricsInterval);
+            }
         }
         catch(Exception e) {
             Log.e(TAG, "Handler Create Failed:" + e);
@@ -120,6 +370,10 @@ public class CLogManagerBase implements ILogManager {
         if(isLogging) {
             Log.i(TAG, "Shutdown begun");
 
+            // Coalesced values waiting on the log thread would be lost when it quits
+            //
+            flushSamplers();
+
             isLogging = false;
             mDisabled = true;
 
@@ -135,6 +389,11 @@ public class CLogManagerBase implements ILogManager {
             } catch (InterruptedException e) {
             }
 
+            // Anything queued after the final drain request is picked up here - the log
+            // thread has exited.
+            //
+            drainQueue();
+
             releaseLog();
         }
     }
@@ -162,21 +421,17 @@ public class CLogManagerBase implements ILogManager {
 
                 if (f.isDirectory()) {
                     // do nothing... there should not be any directories
-                } else {
-                    File readyLog = new File(readyPath, f.getName());
-                    InputStream in = new FileInputStream(f);
-                    OutputStream out = new FileOutputStream(readyLog);
-                    byte[] buf = new byte[1024];
-                    int len;
-                    while ((len = in.read(buf)) > 0) {
-                        out.write(buf, 0, len);
-                    }
-
-                    in.close();
-                    out.close();
-
+                }
+                else if (f.getName().endsWith(TLOG_CONST.TMP)) {
+                    // An interrupted segment compression - the source segment is still present
                     f.delete();
                 }
+                else {
+                    if (f.getName().endsWith(TLOG_CONST.JSONLOG) && CLogRecovery.recover(f) == CLogRecovery.RECOVERED) {
+                        Log.w("LOG_DEBUG", "Recovered damaged log " + f.getName());
+                    }
+                    moveFile(f, new File(readyPath, f.getName()));
+                }
             }
         } catch (IOException e) {
             CErrorManager.logEvent(TAG, "Moving file Error:", e, false);
@@ -185,10 +440,48 @@ public class CLogManagerBase implements ILogManager {
     }
 
 
+    /**
+     * Move a file - a rename when both folders are on the same volume, otherwise a channel
+     * transfer followed by a delete.
+     *
+     * @param src
+     * @param dst
+     * @throws IOException
+     */
+    private static void moveFile(File src, File dst) throws IOException {
+
+        if(src.renameTo(dst)) {
+            return;
+        }
+
+        FileChannel in  = new FileInputStream(src).getChannel();
+        FileChannel out = new FileOutputStream(dst).getChannel();
+
+        try {
+            long size     = in.size();
+            long position = 0;
+
+            while(position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+        finally {
+            in.close();
+            out.close();
+        }
+
+        src.delete();
+    }
+
+
     public static void setTutor(String tutorid) {
         currenttutor = tutorid;
     }
 
+    public static String getTutor() {
+        return currenttutor;
+    }
+
 
     /**
      *  This is a background thread on which to process all log data requests
@@ -207,92 +500,158 @@ public class CLogManagerBase implements ILogManager {
 
 
     /**
-     * This is the central processsing point of the data log - this runs on an independent thread
-     * from the UI.
+     * Drain request - posted to the log thread when packets are waiting
      */
-    public class Queue implements Runnable {
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            drainQueue();
+        }
+    };
 
-        protected String dataPacket;
-        protected String unEncodedPacket;
-        protected String statePacket;
 
-        public Queue(String packet) {
+    private void drainQueue() {
 
-            dataPacket      = packet;
-            unEncodedPacket = null;
-        }
+        // Clear the flag first so a packet queued while draining posts a new request
+        //
+        drainPending.set(false);
+
+        while(packetQueue.poll(drainEntry)) {
+
+            long start = System.nanoTime();
+
+            if(drainEntry.record != null) {
+                processRecord(drainEntry.record, drainEntry.time);
+            }
+            else {
+                processPacket(drainEntry.packet, drainEntry.target, drainEntry.state, drainEntry.time);
+            }
 
-        public Queue(String _packet, String _target, String _state) {
-            dataPacket      = _packet;
-            unEncodedPacket = _target;
-            statePacket     = _state;
+            metrics.recordProcess(System.nanoTime() - start);
+
+            drainEntry.packet = null;
+            drainEntry.target = null;
+            drainEntry.state  = null;
+            drainEntry.record = null;
         }
+    }
 
-        // we can accept data with various object/value encodings (i.e. different delimiters)
-        //
-        private String parseData(String dataPacket, String delimiter) {
 
-            String encodedPacket = "{";
+    /**
+     * This is the central processsing point of the data log - this runs on an independent thread
+     * from the UI.
+     */
+    private void processPacket(String dataPacket, String unEncodedPacket, String statePacket, long queueTime) {
 
-            String[] objvalPairs = dataPacket.split(",");
+        try {
+            // Don't do this JSON encoding on the UI Thread -
+            // if unEncodedPacket is not null then the packet is incomplete and unEncodedPacket
+            // contains a String containing a comma delimited set of obj:value pairs
+            //
+            // For statePackets
+            // e.g. "myobj1|itsvalue,myobj2|itsvalue"
+            //
+            // For unEncodedPacket
+            // e.g. "myobj1:itsvalue,myobj2:itsvalue"
+            //
+            // These need to be encoded into a JSON data subobject.
+            //
+            // The packet is streamed straight into the encoder buffer - we can accept data
+            // with various object/value encodings (i.e. different delimiters)
+            //
+            CLogPacketEncoder encoder = beginPacket();
 
-            for(int pair = 0 ; pair < objvalPairs.length ; pair++) {
+            encoder.appendRaw(dataPacket);
 
-                String[] objval = objvalPairs[pair].split(delimiter);
+            if(statePacket != null) {
 
-                if(objval.length > 1) {
-                    encodedPacket = encodedPacket + "\"" + objval[OBJ_PART] + "\":\"" + objval[VAL_PART] + "\"";
-                }
-                else {
-                    encodedPacket = encodedPacket + "\"" + objval[OBJ_PART] + "\":\"" + "<empty>" + "\"";
-                }
+                encoder.appendRaw("\"data\":").encodeData(statePacket, '#').appendRaw("},\n");
+            }
+            else if(unEncodedPacket != null) {
 
-                if(pair < objvalPairs.length -1) {
-                    encodedPacket = encodedPacket + ",";
-                }
+                encoder.appendRaw("\"data\":").encodeData(unEncodedPacket, ':').appendRaw("},\n");
             }
-            encodedPacket = encodedPacket + "}";
 
-            return encodedPacket;
-        }
+            commitPacket(encoder, queueTime);
 
-        @Override
-        public void run() {
+        } catch (Exception e) {
+            CErrorManager.logEvent(TAG, "Write Error:", e, false);
+        }
+    }
 
-            try {
-                queueMap.remove(this);
 
-                // Don't do this JSON encoding on the UI Thread -
-                // if unEncodedPacket is not null then the packet is incomplete and unEncodedPacket
-                // contains a String containing a comma delimited set of obj:value pairs
-                //
-                // For statePackets
-                // e.g. "myobj1|itsvalue,myobj2|itsvalue"
-                //
-                // For unEncodedPacket
-                // e.g. "myobj1:itsvalue,myobj2:itsvalue"
-                //
-                // These need to be encoded into a JSON data subobject.
-                //
-                if(statePacket != null) {
+    /**
+     * Write a record posted with postRecord.  Outside batch mode the record is flushed
+     * immediately - otherwise with the next batch.  Runs on the log thread.
+     *
+     * @param record
+     * @param queueTime System.nanoTime() when the record was queued
+     */
+    private void processRecord(Object record, long queueTime) {
 
-                    String encodedJSONPacket = parseData(statePacket, "#");
+        try {
+            int bytes = writeRecord(record);
 
-                    dataPacket = dataPacket + "\"data\":" + encodedJSONPacket + "},\n";
-                }
-                else if(unEncodedPacket != null) {
+            metrics.recordWrite(1, bytes);
+            metrics.recordLatency(System.nanoTime() - queueTime);
 
-                    String encodedJSONPacket = parseData(unEncodedPacket, ":");
+            if(!batching) {
+                long start = System.nanoTime();
 
-                    dataPacket = dataPacket + "\"data\":" + encodedJSONPacket + "},\n";
-                }
+                flushRecords();
+                syncLog(false);
 
-                writePacketToLog(dataPacket);
+                metrics.recordFlush(System.nanoTime() - start);
+            }
+            else {
+                recordsPending = true;
 
-            } catch (Exception e) {
-                CErrorManager.logEvent(TAG, "Write Error:", e, false);
+                if(!batchFlushPending && logHandler != null) {
+                    batchFlushPending = true;
+                    logHandler.postDelayed(batchFlushTask, batchMaxDelay);
+                }
             }
         }
+        catch(Exception e) {
+            Log.e(TAG, "Record Write Error: " + e);
+        }
+    }
+
+
+    /**
+     * Subclasses that keep their own record file - e.g. binary performance records - write a
+     * record posted with postRecord here.  Runs on the log thread.
+     *
+     * @param record
+     * @return the number of bytes written
+     * @throws IOException
+     */
+    protected int writeRecord(Object record) throws IOException {
+        return 0;
+    }
+
+    /**
+     * Push buffered records to the file - with the batch or after each record outside batch mode
+     *
+     * @throws IOException
+     */
+    protected void flushRecords() throws IOException {
+    }
+
+    /**
+     * Sync the record file to disk - at the log's sync cadence
+     *
+     * @throws IOException
+     */
+    protected void syncRecords() throws IOException {
+    }
+
+    /**
+     * @return true to create the JSON log with its first packet rather than when logging starts
+     *         - so no empty log is left when everything is written as records
+     */
+    protected boolean openLogOnFirstPacket() {
+        return false;
     }
 
 
@@ -335,26 +694,13 @@ public class CLogManagerBase implements ILogManager {
             //
             outPath += newPath;
 
-            logFile = new File(outPath);
-
-            try {
-                logStream = new FileOutputStream(logFile);
-                logLock   = logStream.getChannel().lock();
-
-                if(seekable) {
-                    seekableLogWriter = new RandomAccessFile(outPath, "rwd");
-                }
-                else {
-                    logWriter = new FileWriter(outPath, TLOG_CONST.APPEND);
-                }
-
-                logWriterValid = true;
+            segmentIndex = 0;
 
-                // Begin the root JSON element
-                postPacket("{\"RT_log_version\":\"" + LOG_VERSION + "\",\"RT_log_data\":[");
-
-            } catch (Exception e) {
-                Log.e(TAG, "lockLog Failed: " + e);
+            if(openLogOnFirstPacket()) {
+                deferredPath = outPath;
+            }
+            else {
+                openLogSegment(outPath);
             }
 
 
@@ -383,83 +729,226 @@ public class CLogManagerBase implements ILogManager {
     }
 
 
-    private void releaseLog() {
-
-        try {
-            if(logWriterValid) {
-
-                if(seekable) {
-                    logWriterValid = false;
-
-                    seekableLogWriter.close();
-                }
-                else {
-                    // Terminate the root JSON element
-                    //
-                    writePacketToLog(TERMINATING_PACKET);
+    /**
+     * Open a log file and begin the root JSON element.  The header is written directly rather
+     * than queued so it can never be dropped or displaced under queue pressure.
+     *
+     * @param outPath
+     */
+    private void openLogSegment(String outPath) {
 
-                    logWriterValid = false;
+        logFile = new File(outPath);
 
-                    logWriter.flush();
-                    logWriter.close();
-                }
+        try {
+            logStream = new FileOutputStream(logFile);
+            logLock   = logStream.getChannel().lock();
 
-                logLock.release();
-                logStream.close();
+            if(seekable) {
+                seekableLogWriter = new RandomAccessFile(outPath, "rw");
+            }
+            else {
+                logWriter = new FileWriter(outPath, TLOG_CONST.APPEND);
             }
-        }
-        catch(Exception e) {
-            Log.e(TAG, "releaseLog Failed: " + e);
-        }
 
-        //**** DATASHOP
+            String header = "{\"RT_log_version\":\"" + LOG_VERSION + "\",\"RT_log_data\":[";
 
-        if(loggingDS) {
-            try {
-                if (logDSWriterValid) {
+            if(seekable) {
+                seekableLogWriter.write((header + TERMINATING_PACKET).getBytes("UTF-8"));
+            }
+            else {
+                logWriter.write(header);
+                logWriter.flush();
+            }
 
-                    logDSWriterValid = false;
+            segmentBytes = header.length();
+            segmentStart = System.currentTimeMillis();
+            lastSync     = 0;
 
-                    logDSWriter.flush();
-                    logDSWriter.close();
+            logWriterValid = true;
 
-                    logDSLock.release();
-                    logDSStream.close();
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "releaseLog Failed: " + e);
-            }
+        } catch (Exception e) {
+            Log.e(TAG, "lockLog Failed: " + e);
         }
     }
 
 
     /**
-     * Note that this is currently XPrize log specific.
-     * TODO: make general Purpose
+     * Terminate the root JSON element and release the current log file
+     *
+     * @throws IOException
      */
-    private void writePacketToLog(String jsonPacket) {
+    private void closeLogSegment() throws IOException {
+
+        if(syncPending && logHandler != null) {
+            logHandler.removeCallbacks(syncTask);
+        }
+        syncPending = false;
+
+        if(seekable) {
+            logWriterValid = false;
+
+            logStream.getFD().sync();
+            seekableLogWriter.close();
+        }
+        else {
+            logWriterValid = false;
+
+            logWriter.write(TERMINATING_PACKET);
+            logWriter.flush();
+            logStream.getFD().sync();
+            logWriter.close();
+        }
+
+        logLock.release();
+        logStream.close();
+    }
+
+
+    /**
+     * Start a new segment once the current one exceeds the size or age limit.  The completed
+     * segment is a closed JSON document and is handed off for compression.
+     */
+    private void checkSegmentRoll() {
+
+        if(segmentMaxBytes <= 0 && segmentMaxDuration <= 0) {
+            return;
+        }
+
+        boolean full    = segmentMaxBytes > 0 && segmentBytes >= segmentMaxBytes;
+        boolean expired = segmentMaxDuration > 0 && System.currentTimeMillis() - segmentStart >= segmentMaxDuration;
+
+        if(!full && !expired) {
+            return;
+        }
+
+        File completed = logFile;
 
-        // Append Glyph Data to file
         try {
-            // Throws if there is a JSON serializatin error
+            closeLogSegment();
+        }
+        catch(Exception e) {
+            Log.e(TAG, "Segment close Failed: " + e);
+        }
+
+        segmentIndex++;
+        openLogSegment(log_Path + log_Filename + String.format(Locale.US, TLOG_CONST.SEGMENT_FORMAT, segmentIndex) + TLOG_CONST.JSONLOG);
+
+        if(compressSegments) {
+            if(segmentCompressor == null) {
+                segmentCompressor = new CLogSegmentCompressor();
+            }
+            segmentCompressor.compress(completed);
+        }
+    }
+
+
+    private void releaseLog() {
+
+        try {
+            // Any delayed flush was discarded when the looper quit - so write out the
+            // remainder of the batch here.  The log thread has exited at this point.
             //
+            flushBatch();
+
             if(logWriterValid) {
+                closeLogSegment();
+            }
+        }
+        catch(Exception e) {
+            Log.e(TAG, "releaseLog Failed: " + e);
+        }
 
-                if(seekable) {
+        // Let pending segment compression complete before the hot logs are transferred
+        //
+        if(segmentCompressor != null) {
+            segmentCompressor.shutdown(TLOG_CONST.COMPRESS_SHUTDOWN_TIMEOUT);
+            segmentCompressor = null;
+        }
 
-                    if(seekableLogWriter.length() > TERMINATE_BYTES.length) {
-                        seekableLogWriter.seek(seekableLogWriter.length() - TERMINATE_BYTES.length);
-                    }
+        //**** DATASHOP
 
-                    seekableLogWriter.writeBytes(jsonPacket);
+        if(loggingDS) {
+            try {
+                if (logDSWriterValid) {
 
-                    seekableLogWriter.writeBytes(TERMINATING_PACKET);
-                }
-                else {
-                    logWriter.write(jsonPacket);
-                    logWriter.flush();
+                    logDSWriterValid = false;
+
+                    logDSWriter.flush();
+                    logDSWriter.close();
+
+                    logDSLock.release();
+                    logDSStream.close();
                 }
+            } catch (Exception e) {
+                Log.e(TAG, "releaseLog Failed: " + e);
+            }
+        }
+    }
+
+
+    /**
+     * Time trigger for the group-commit writer - runs on the log thread
+     */
+    private final Runnable batchFlushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushBatch();
+        }
+    };
+
+
+    /**
+     * In batch mode packets are encoded directly onto the end of the pending batch - otherwise
+     * into the reusable scratch encoder.
+     *
+     * @return the encoder to write the packet into
+     */
+    private CLogPacketEncoder beginPacket() {
+
+        if(batching) {
+            return batchBuffer;
+        }
+
+        packetEncoder.reset();
+        return packetEncoder;
+    }
+
+
+    /**
+     * Complete a packet started with beginPacket. In batch mode flush when the size trigger is
+     * reached otherwise arm the time trigger for the first packet of a new batch.
+     *
+     * @param encoder
+     * @param queueTime System.nanoTime() when the packet was queued
+     */
+    private void commitPacket(CLogPacketEncoder encoder, long queueTime) {
+
+        if(batching) {
+            if(batchPackets == batchTimes.length) {
+                batchTimes = Arrays.copyOf(batchTimes, batchPackets * 2);
+            }
+            batchTimes[batchPackets++] = queueTime;
+
+            if(batchBuffer.size() >= batchMaxBytes) {
+                flushBatch();
             }
+            else if(!batchFlushPending && logHandler != null) {
+                batchFlushPending = true;
+                logHandler.postDelayed(batchFlushTask, batchMaxDelay);
+            }
+            return;
+        }
+
+        // Append Glyph Data to file
+        try {
+            int  bytes = encoder.size();
+            long start = System.nanoTime();
+
+            writeEncoded(encoder);
+
+            metrics.recordFlush(System.nanoTime() - start);
+            metrics.recordWrite(1, bytes);
+            metrics.recordLatency(System.nanoTime() - queueTime);
         }
         catch(Exception e) {
             Log.e(TAG, "Serialization Error: " + e);
@@ -468,17 +957,252 @@ public class CLogManagerBase implements ILogManager {
 
 
     /**
-     * Keep a mapping of pending messages so we can flush the queue if we want to terminate
-     * the tutor before it finishes naturally.
+     * Write the encoded packet(s) - for the seekable log the terminator is appended so that the
+     * packets and the terminator go to disk in a single write.
      *
-     * @param qCommand
+     * @param encoder
+     * @throws IOException
      */
-    private void enQueue(Queue qCommand) {
+    private void writeEncoded(CLogPacketEncoder encoder) throws IOException {
+
+        if(deferredPath != null) {
+            openLogSegment(deferredPath);
+            deferredPath = null;
+        }
+
+        if(logWriterValid) {
+
+            if(seekable) {
+
+                if(seekableLogWriter.length() > TERMINATE_BYTES.length) {
+                    seekableLogWriter.seek(seekableLogWriter.length() - TERMINATE_BYTES.length);
+                }
+
+                encoder.appendRaw(TERMINATING_PACKET);
+                seekableLogWriter.write(encoder.buffer(), 0, encoder.size());
+            }
+            else {
+                logWriter.write(encoder.toString());
+                logWriter.flush();
+            }
+
+            segmentBytes += encoder.size() - (seekable? TERMINATE_BYTES.length : 0);
+
+            syncLog(false);
+
+            checkSegmentRoll();
+        }
+    }
+
+
+    private Runnable syncTask = new Runnable() {
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+
+            syncPending = false;
+            syncLog(true);
+
+            metrics.recordFlush(System.nanoTime() - start);
+        }
+    };
+
+
+    /**
+     * Sync the log to disk if the sync interval has passed - otherwise make sure a delayed sync
+     * is pending so the data reaches the disk within the interval.  Runs on the log thread.
+     *
+     * @param force
+     */
+    private void syncLog(boolean force) {
+
+        if(syncInterval < 0 && !force) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+
+        if(force || now - lastSync >= syncInterval) {
+
+            if(syncPending && logHandler != null) {
+                logHandler.removeCallbacks(syncTask);
+            }
+            syncPending = false;
+
+            try {
+                if(logWriterValid) {
+                    logStream.getFD().sync();
+                }
+                syncRecords();
+                lastSync = now;
+            }
+            catch(IOException e) {
+                Log.e(TAG, "Log sync Failed: " + e);
+            }
+        }
+        else if(!syncPending && logHandler != null) {
+
+            syncPending = true;
+            logHandler.postDelayed(syncTask, syncInterval - (now - lastSync));
+        }
+    }
+
+
+    /**
+     * Write the pending batch followed by the terminator in a single write so that the log on
+     * disk is always a complete JSON document - a crash can lose at most the unflushed batch.
+     */
+    private void flushBatch() {
+
+        if(batchFlushPending && logHandler != null) {
+            logHandler.removeCallbacks(batchFlushTask);
+        }
+        batchFlushPending = false;
+
+        if(!recordsPending && batchPackets == 0) {
+            return;
+        }
+
+        long start = System.nanoTime();
+
+        if(recordsPending) {
+            recordsPending = false;
+
+            try {
+                flushRecords();
+            }
+            catch(IOException e) {
+                Log.e(TAG, "Record Flush Error: " + e);
+            }
+
+            if(batchPackets == 0) {
+                syncLog(false);
+
+                metrics.recordFlush(System.nanoTime() - start);
+                return;
+            }
+        }
+
+        int batchBytes = batchBuffer.size();
+
+        try {
+            writeEncoded(batchBuffer);
+
+            metrics.recordWrite(batchPackets, batchBytes);
+
+            long now = System.nanoTime();
+
+            for(int i1 = 0 ; i1 < batchPackets ; i1++) {
+                metrics.recordLatency(now - batchTimes[i1]);
+            }
+        }
+        catch(Exception e) {
+            Log.e(TAG, "Batch Write Error: " + e);
+        }
+
+        long flushNanos = System.nanoTime() - start;
+
+        metrics.recordFlush(flushNanos);
+
+        lastFlushLatency = flushNanos / 1000000;
+        lastBatchSize    = batchPackets;
+        maxFlushLatency  = Math.max(maxFlushLatency, lastFlushLatency);
+        flushCount++;
+
+        Log.v(TAG, "Batch flush - packets:" + lastBatchSize + " bytes:" + batchBytes + " ms:" + lastFlushLatency);
+
+        batchBuffer.reset();
+        batchPackets = 0;
+    }
+
+
+    /**
+     * Queue a packet for the log thread - packets that cannot be queued under the current
+     * overflow policy are counted as dropped against their level.  Pending packets are flushed
+     * if we terminate the tutor before it finishes naturally.
+     *
+     * @param packet
+     * @param target
+     * @param state
+     * @param level
+     */
+    private void enQueue(String packet, String target, String state, int level) {
+        enQueue(packet, target, state, null, level);
+    }
+
+    private void enQueue(String packet, String target, String state, Object record, int level) {
 
         if (!mDisabled) {
-            queueMap.put(qCommand, qCommand);
 
-            logHandler.post(qCommand);
+            level = Math.max(0, Math.min(level, Log.ASSERT));
+
+            if(!offerPacket(packet, target, state, record, level)) {
+                droppedCounts.incrementAndGet(level);
+                return;
+            }
+
+            requestDrain();
+        }
+    }
+
+
+    private void requestDrain() {
+
+        if(logHandler != null && drainPending.compareAndSet(false, true)) {
+            logHandler.post(drainTask);
+        }
+    }
+
+
+    private boolean offerPacket(String packet, String target, String state, Object record, int level) {
+
+        switch(queuePolicy) {
+
+            case TLOG_CONST.QUEUE_DROP_OLDEST:
+
+                while(!packetQueue.offer(packet, target, state, record, level)) {
+
+                    int droppedLevel = packetQueue.discardOldest();
+
+                    if(droppedLevel >= 0) {
+                        droppedCounts.incrementAndGet(droppedLevel);
+                    }
+                }
+                return true;
+
+            case TLOG_CONST.QUEUE_DROP_BY_LEVEL:
+
+                // Above the high water mark packets below the drop level are dropped - everything
+                // else waits for space as for QUEUE_BLOCK.
+                //
+                if(record == null && level < queueDropLevel && packetQueue.size() >= (packetQueue.capacity() * 3) / 4) {
+                    return false;
+                }
+
+            default:
+
+                if(packetQueue.offer(packet, target, state, record, level)) {
+                    return true;
+                }
+
+                // The log thread cannot wait on itself (e.g. errors raised while writing)
+                //
+                if(Thread.currentThread() == logThread) {
+                    return false;
+                }
+
+                long deadline = System.nanoTime() + TLOG_CONST.QUEUE_BLOCK_TIMEOUT * 1000000L;
+
+                do {
+                    requestDrain();
+                    LockSupport.parkNanos(100000);
+
+                    if(packetQueue.offer(packet, target, state, record, level)) {
+                        return true;
+                    }
+                } while(System.nanoTime() < deadline);
+
+                return false;
         }
     }
 
@@ -490,7 +1214,7 @@ public class CLogManagerBase implements ILogManager {
      */
     public void post(String command) {
 
-        enQueue(new Queue(command));
+        enQueue(command, null, null, Log.INFO);
     }
 
 
@@ -499,9 +1223,84 @@ public class CLogManagerBase implements ILogManager {
      *
      * @param command
      */
-    private void postUnencoded(String command, String target, String state) {
+    private void postUnencoded(String command, String target, String state, int level) {
 
-        enQueue(new Queue(command, target, state));
+        enQueue(command, target, state, level);
+    }
+
+
+    @Override
+    public boolean isEnabled(String Tag, int level) {
+
+        Integer tagLevel = null;
+
+        if(Tag != null && !tagLevels.isEmpty()) {
+            tagLevel = tagLevels.get(Tag);
+        }
+
+        boolean enabled = level >= ((tagLevel != null)? tagLevel : defaultLevel);
+
+        if(!enabled) {
+            countEvent(Tag, SUPPRESSED);
+        }
+        return enabled;
+    }
+
+    @Override
+    public void setLogLevel(String Tag, int level) {
+
+        if(Tag == null) {
+            defaultLevel = level;
+        }
+        else {
+            tagLevels.put(Tag, level);
+        }
+    }
+
+    /**
+     * Rate limit and/or coalesce the events of a tag - suppressed events are reported in a
+     * LOG_SAMPLED summary packet ahead of the next event emitted for the tag.
+     *
+     * @param Tag
+     * @param rate     average events per second - <= 0 for no limit
+     * @param burst    events allowed back to back
+     * @param coalesce last value wins within this many ms - <= 0 for no coalescing
+     */
+    @Override
+    public void setSampling(String Tag, float rate, int burst, long coalesce) {
+
+        if(rate <= 0 && coalesce <= 0) {
+            samplers.remove(Tag);
+        }
+        else {
+            samplers.put(Tag, new CLogSampler(rate, burst, coalesce));
+        }
+    }
+
+    @Override
+    public Map<String, long[]> getEventCounts() {
+
+        HashMap<String, long[]> result = new HashMap<>();
+
+        for(Map.Entry<String, AtomicLongArray> entry : tagCounts.entrySet()) {
+
+            AtomicLongArray counts = entry.getValue();
+            result.put(entry.getKey(), new long[]{counts.get(EMITTED), counts.get(SUPPRESSED)});
+        }
+        return result;
+    }
+
+    private void countEvent(String Tag, int which) {
+
+        String key = (Tag != null)? Tag : "<null>";
+
+        AtomicLongArray counts = tagCounts.get(key);
+
+        if(counts == null) {
+            tagCounts.putIfAbsent(key, new AtomicLongArray(2));
+            counts = tagCounts.get(key);
+        }
+        counts.incrementAndGet(which);
     }
 
 
@@ -512,27 +1311,253 @@ public class CLogManagerBase implements ILogManager {
 
     @Override
     public void postEvent_V(String Tag, String Msg) {
-        Log.v(Tag, postEvent_BASE("VERBOSE", Tag, Msg));
+        if(isEnabled(Tag, Log.VERBOSE))
+            sampleEvent(Log.VERBOSE, Tag, Msg);
     }
     @Override
     public void postEvent_D(String Tag, String Msg) {
-        Log.d(Tag, postEvent_BASE("DEBUG", Tag, Msg));
+        if(isEnabled(Tag, Log.DEBUG))
+            sampleEvent(Log.DEBUG, Tag, Msg);
     }
     @Override
     public void postEvent_I(String Tag, String Msg) {
-        Log.i(Tag, postEvent_BASE("INFO", Tag, Msg));
+        if(isEnabled(Tag, Log.INFO))
+            sampleEvent(Log.INFO, Tag, Msg);
     }
     @Override
     public void postEvent_W(String Tag, String Msg) {
-        Log.w(Tag, postEvent_BASE("WARN", Tag, Msg));
+        if(isEnabled(Tag, Log.WARN))
+            sampleEvent(Log.WARN, Tag, Msg);
     }
     @Override
     public void postEvent_E(String Tag, String Msg) {
-        Log.e(Tag, postEvent_BASE("ERROR", Tag, Msg));
+        if(isEnabled(Tag, Log.ERROR))
+            sampleEvent(Log.ERROR, Tag, Msg);
     }
     @Override
     public void postEvent_A(String Tag, String Msg) {
-        Log.wtf(Tag, postEvent_BASE("ASSERT", Tag, Msg));
+        if(isEnabled(Tag, Log.ASSERT))
+            sampleEvent(Log.ASSERT, Tag, Msg);
+    }
+
+    // Deferred forms - nothing is built unless the level is enabled for the tag
+    //
+    @Override
+    public void postEvent_V(String Tag, String format, Object arg1) {
+        if(isEnabled(Tag, Log.VERBOSE))
+            sampleEvent(Log.VERBOSE, Tag, String.format(Locale.US, format, arg1));
+    }
+    @Override
+    public void postEvent_V(String Tag, String format, Object arg1, Object arg2) {
+        if(isEnabled(Tag, Log.VERBOSE))
+            sampleEvent(Log.VERBOSE, Tag, String.format(Locale.US, format, arg1, arg2));
+    }
+    @Override
+    public void postEvent_V(String Tag, String format, Object arg1, Object arg2, Object arg3) {
+        if(isEnabled(Tag, Log.VERBOSE))
+            sampleEvent(Log.VERBOSE, Tag, String.format(Locale.US, format, arg1, arg2, arg3));
+    }
+    @Override
+    public void postEvent_V(String Tag, String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+        if(isEnabled(Tag, Log.VERBOSE))
+            sampleEvent(Log.VERBOSE, Tag, String.format(Locale.US, format, arg1, arg2, arg3, arg4));
+    }
+
+    @Override
+    public void postEvent_D(String Tag, String format, Object arg1) {
+        if(isEnabled(Tag, Log.DEBUG))
+            sampleEvent(Log.DEBUG, Tag, String.format(Locale.US, format, arg1));
+    }
+    @Override
+    public void postEvent_D(String Tag, String format, Object arg1, Object arg2) {
+        if(isEnabled(Tag, Log.DEBUG))
+            sampleEvent(Log.DEBUG, Tag, String.format(Locale.US, format, arg1, arg2));
+    }
+    @Override
+    public void postEvent_D(String Tag, String format, Object arg1, Object arg2, Object arg3) {
+        if(isEnabled(Tag, Log.DEBUG))
+            sampleEvent(Log.DEBUG, Tag, String.format(Locale.US, format, arg1, arg2, arg3));
+    }
+    @Override
+    public void postEvent_D(String Tag, String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+        if(isEnabled(Tag, Log.DEBUG))
+            sampleEvent(Log.DEBUG, Tag, String.format(Locale.US, format, arg1, arg2, arg3, arg4));
+    }
+
+    @Override
+    public void postEvent_I(String Tag, String format, Object arg1) {
+        if(isEnabled(Tag, Log.INFO))
+            sampleEvent(Log.INFO, Tag, String.format(Locale.US, format, arg1));
+    }
+    @Override
+    public void postEvent_I(String Tag, String format, Object arg1, Object arg2) {
+        if(isEnabled(Tag, Log.INFO))
+            sampleEvent(Log.INFO, Tag, String.format(Locale.US, format, arg1, arg2));
+    }
+    @Override
+    public void postEvent_I(String Tag, String format, Object arg1, Object arg2, Object arg3) {
+        if(isEnabled(Tag, Log.INFO))
+            sampleEvent(Log.INFO, Tag, String.format(Locale.US, format, arg1, arg2, arg3));
+    }
+    @Override
+    public void postEvent_I(String Tag, String format, Object arg1, Object arg2, Object arg3, Object arg4) {
+        if(isEnabled(Tag, Log.INFO))
+            sampleEvent(Log.INFO, Tag, String.format(Locale.US, format, arg1, arg2, arg3, arg4));
+    }
+
+    /**
+     * Post a record for writeRecord - records are gated, sampled and queued like events.  A
+     * subclass uses this for items it writes to its own file rather than as JSON packets.
+     *
+     * @param Tag
+     * @param level
+     * @param record
+     */
+    protected void postRecord(String Tag, int level, Object record) {
+        if(isEnabled(Tag, level))
+            sampleEvent(level, Tag, record);
+    }
+
+    /**
+     * @param Msg the event message - or a record from postRecord
+     */
+    private void sampleEvent(int level, String Tag, Object Msg) {
+
+        CLogSampler sampler = samplers.isEmpty()? null : samplers.get(Tag);
+
+        if(sampler == null) {
+            emitEvent(level, Tag, Msg);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+
+        switch(sampler.offer(level, Msg, now)) {
+
+            case CLogSampler.EMIT:
+                emitSampled(Tag, sampler, level, Msg);
+                break;
+
+            case CLogSampler.SCHEDULE:
+                if(logHandler != null) {
+                    logHandler.postDelayed(new SamplerFlush(Tag, sampler), sampler.flushDelay(now));
+                }
+                else {
+                    flushSampler(Tag, sampler);
+                }
+                break;
+
+            case CLogSampler.SUPPRESS:
+                countEvent(Tag, SUPPRESSED);
+                break;
+        }
+    }
+
+
+    /**
+     * Emits the value pending at the end of a coalescing window
+     */
+    private final class SamplerFlush implements Runnable {
+
+        private final String      Tag;
+        private final CLogSampler sampler;
+
+        SamplerFlush(String Tag, CLogSampler sampler) {
+            this.Tag     = Tag;
+            this.sampler = sampler;
+        }
+
+        @Override
+        public void run() {
+            flushSampler(Tag, sampler);
+        }
+    }
+
+
+    private void flushSampler(String Tag, CLogSampler sampler) {
+
+        CLogSampler.Pending pending = sampler.flush(System.currentTimeMillis());
+
+        if(pending != null) {
+            emitSampled(Tag, sampler, pending.level, pending.msg);
+        }
+        else {
+            postSampleSummary(Tag, sampler.takeSuppressed());
+        }
+    }
+
+
+    /**
+     * Emit pending coalesced values and suppression summaries - when logging stops.
+     */
+    private void flushSamplers() {
+
+        for(Map.Entry<String, CLogSampler> entry : samplers.entrySet()) {
+            flushSampler(entry.getKey(), entry.getValue());
+        }
+    }
+
+
+    private void emitSampled(String Tag, CLogSampler sampler, int level, Object Msg) {
+
+        postSampleSummary(Tag, sampler.takeSuppressed());
+
+        emitEvent(level, Tag, Msg);
+    }
+
+
+    private void postSampleSummary(String Tag, long suppressed) {
+
+        if(suppressed <= 0) {
+            return;
+        }
+
+        String packet;
+
+        packet = "{" +
+                "\"type\":\"LOG_SAMPLED\"," +
+                "\"tutor\":\"" + currenttutor + "\"," +
+                "\"class\":\"INFO\"," +
+                "\"tag\":\"" + Tag + "\"," +
+                "\"time\":\"" + System.currentTimeMillis() + "\"," +
+                "\"suppressed\":\"" + suppressed + "\"" +
+                "},\n";
+
+        enQueue(packet, null, null, Log.INFO);
+    }
+
+
+    private void emitEvent(int level, String Tag, Object event) {
+
+        countEvent(Tag, EMITTED);
+
+        if(!(event instanceof String)) {
+            enQueue(null, null, null, event, level);
+            return;
+        }
+
+        String Msg = (String) event;
+
+        switch(level) {
+            case Log.VERBOSE:
+                Log.v(Tag, postEvent_BASE("VERBOSE", Tag, Msg));
+                break;
+            case Log.DEBUG:
+                Log.d(Tag, postEvent_BASE("DEBUG", Tag, Msg));
+                break;
+            case Log.INFO:
+                Log.i(Tag, postEvent_BASE("INFO", Tag, Msg));
+                break;
+            case Log.WARN:
+                Log.w(Tag, postEvent_BASE("WARN", Tag, Msg));
+                break;
+            case Log.ERROR:
+                Log.e(Tag, postEvent_BASE("ERROR", Tag, Msg));
+                break;
+            default:
+                Log.wtf(Tag, postEvent_BASE("ASSERT", Tag, Msg));
+                break;
+        }
     }
 
     // Note that we leave the Msg JSON encoding to the Log thread where it can be processed off the
@@ -554,13 +1579,22 @@ public class CLogManagerBase implements ILogManager {
         //
         switch(classification) {
             case "TUTORSTATE":
-                postUnencoded(packet, null, Msg);
+                postUnencoded(packet, null, Msg, Log.INFO);
                 break;
             case "VERBOSE":
             case "DEBUG":
                 break;
+            case "WARN":
+                postUnencoded(packet, Msg, null, Log.WARN);
+                break;
+            case "ERROR":
+                postUnencoded(packet, Msg, null, Log.ERROR);
+                break;
+            case "ASSERT":
+                postUnencoded(packet, Msg, null, Log.ASSERT);
+                break;
             default:
-                postUnencoded(packet, Msg, null);
+                postUnencoded(packet, Msg, null, Log.INFO);
                 break;
         }
 
@@ -585,7 +1619,7 @@ public class CLogManagerBase implements ILogManager {
                 "\"datetime\":\"" + formattedDate + "\"," +
                 "\"time\":\"" + System.currentTimeMillis() + "\",";
 
-        postUnencoded(packet, Msg, null);
+        postUnencoded(packet, Msg, null, Log.INFO);
 
         // Emit to logcat as info class message
         //
@@ -606,7 +1640,7 @@ public class CLogManagerBase implements ILogManager {
                 "\"msg\":\"" + Msg + "\"" +
                 "},\n";
 
-        post(packet);
+        enQueue(packet, null, null, Log.ERROR);
     }
 
 
@@ -624,7 +1658,7 @@ public class CLogManagerBase implements ILogManager {
                 "\"exception\":\"" + e.toString() + "\"" +
                 "},\n";
 
-        post(packet);
+        enQueue(packet, null, null, Log.ERROR);
     }
 
     @Override
@@ -0,0 +1,237 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.comp_logging;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Log pipeline metrics.  Recorded on the log thread, readable from any thread.
+ *
+ * Totals (packets and bytes written) accumulate from startLogging.  Rates, latency
+ * percentiles, packet processing and flush times cover the current interval - which runs
+ * from the last periodic summary (or startLogging).
+ *
+ * Processing is the encode and append of a packet on the log thread.  A flush is the time
+ * spent on the disk - the write of a batch (or a packet outside batch mode), the flush of
+ * buffered records and the sync that follows.
+ *
+ * Enqueue-to-disk latency is kept in a log2 histogram of microseconds so percentiles are
+ * reported as the upper bound of their bucket - i.e. within a factor of 2.
+ */
+public class CLogMetrics {
+
+    private static final int BUCKETS = 40;
+
+    private final AtomicLong      packetsWritten  = new AtomicLong();
+    private final AtomicLong      bytesWritten    = new AtomicLong();
+
+    private final AtomicLongArray latency         = new AtomicLongArray(BUCKETS);
+    private final AtomicLong      intervalPackets = new AtomicLong();
+    private final AtomicLong      processNanos    = new AtomicLong();
+    private final AtomicLong      processCount    = new AtomicLong();
+    private final AtomicLong      processMaxNanos = new AtomicLong();
+    private final AtomicLong      flushNanos      = new AtomicLong();
+    private final AtomicLong      flushCount      = new AtomicLong();
+    private final AtomicLong      flushMaxNanos   = new AtomicLong();
+
+    private volatile long         intervalStart   = System.currentTimeMillis();
+
+
+    /**
+     * A point in time view of the metrics
+     */
+    public static class Snapshot {
+
+        public final long   time;
+        public final long   interval;               // ms covered by the interval values
+        public final int    queueDepth;
+        public final long   dropped;
+        public final long   packetsWritten;
+        public final long   bytesWritten;
+        public final double packetsPerSecond;
+        public final long   latencyP50;             // enqueue to disk - us
+        public final long   latencyP99;
+        public final long   processAvg;             // encode and append time per packet - us
+        public final long   processMax;
+        public final long   flushes;
+        public final long   flushAvg;               // write and sync time per flush - us
+        public final long   flushMax;
+
+        Snapshot(long time, long interval, int queueDepth, long dropped, long packetsWritten, long bytesWritten,
+                 double packetsPerSecond, long latencyP50, long latencyP99, long processAvg, long processMax,
+                 long flushes, long flushAvg, long flushMax) {
+
+            this.time             = time;
+            this.interval         = interval;
+            this.queueDepth       = queueDepth;
+            this.dropped          = dropped;
+            this.packetsWritten   = packetsWritten;
+            this.bytesWritten     = bytesWritten;
+            this.packetsPerSecond = packetsPerSecond;
+            this.latencyP50       = latencyP50;
+            this.latencyP99       = latencyP99;
+            this.processAvg       = processAvg;
+            this.processMax       = processMax;
+            this.flushes          = flushes;
+            this.flushAvg         = flushAvg;
+            this.flushMax         = flushMax;
+        }
+
+        /**
+         * @return the object:value list used as the data of the summary packet
+         */
+        @Override
+        public String toString() {
+
+            return String.format(Locale.US, "interval_ms:%d,queue:%d,dropped:%d,packets:%d,bytes:%d,pps:%.1f,latency_p50_us:%d,latency_p99_us:%d,process_avg_us:%d,process_max_us:%d,flushes:%d,flush_avg_us:%d,flush_max_us:%d",
+                    interval, queueDepth, dropped, packetsWritten, bytesWritten, packetsPerSecond, latencyP50, latencyP99, processAvg, processMax, flushes, flushAvg, flushMax);
+        }
+    }
+
+
+    public void reset() {
+
+        packetsWritten.set(0);
+        bytesWritten.set(0);
+
+        resetInterval(System.currentTimeMillis());
+    }
+
+
+    /**
+     * @param nanos time from enqueue until the packet was written
+     */
+    public void recordLatency(long nanos) {
+
+        long micros = Math.max(1, nanos / 1000);
+
+        latency.incrementAndGet(Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros)));
+    }
+
+    /**
+     * @param nanos time taken to encode and commit a packet on the log thread
+     */
+    public void recordProcess(long nanos) {
+
+        processNanos.addAndGet(nanos);
+        processCount.incrementAndGet();
+
+        if(nanos > processMaxNanos.get()) {
+            processMaxNanos.set(nanos);
+        }
+    }
+
+    /**
+     * @param nanos time taken to write, flush and sync to disk
+     */
+    public void recordFlush(long nanos) {
+
+        flushNanos.addAndGet(nanos);
+        flushCount.incrementAndGet();
+
+        if(nanos > flushMaxNanos.get()) {
+            flushMaxNanos.set(nanos);
+        }
+    }
+
+    public void recordWrite(int packets, long bytes) {
+
+        packetsWritten.addAndGet(packets);
+        intervalPackets.addAndGet(packets);
+        bytesWritten.addAndGet(bytes);
+    }
+
+
+    /**
+     * @param queueDepth
+     * @param dropped
+     * @param endInterval start a new interval after taking the snapshot
+     * @return
+     */
+    public Snapshot snapshot(int queueDepth, long dropped, boolean endInterval) {
+
+        long now      = System.currentTimeMillis();
+        long interval = Math.max(1, now - intervalStart);
+        long count    = processCount.get();
+        long flushes  = flushCount.get();
+
+        Snapshot result = new Snapshot(now, interval, queueDepth, dropped, packetsWritten.get(), bytesWritten.get(),
+                intervalPackets.get() * 1000.0 / interval,
+                percentile(0.50), percentile(0.99),
+                (count > 0)? processNanos.get() / count / 1000 : 0,
+                processMaxNanos.get() / 1000,
+                flushes,
+                (flushes > 0)? flushNanos.get() / flushes / 1000 : 0,
+                flushMaxNanos.get() / 1000);
+
+        if(endInterval) {
+            resetInterval(now);
+        }
+        return result;
+    }
+
+
+    private void resetInterval(long now) {
+
+        for(int i1 = 0 ; i1 < BUCKETS ; i1++) {
+            latency.set(i1, 0);
+        }
+        intervalPackets.set(0);
+        processNanos.set(0);
+        processCount.set(0);
+        processMaxNanos.set(0);
+        flushNanos.set(0);
+        flushCount.set(0);
+        flushMaxNanos.set(0);
+
+        intervalStart = now;
+    }
+
+
+    /**
+     * @return the upper bound in us of the bucket holding the given fraction of latencies
+     */
+    private long percentile(double fraction) {
+
+        long total = 0;
+
+        for(int i1 = 0 ; i1 < BUCKETS ; i1++) {
+            total += latency.get(i1);
+        }
+        if(total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * fraction);
+        long seen = 0;
+
+        for(int i1 = 0 ; i1 < BUCKETS ; i1++) {
+
+            seen += latency.get(i1);
+
+            if(seen >= rank) {
+                return 1L << (i1 + 1);
+            }
+        }
+        return 1L << BUCKETS;
+    }
+}
@@ -0,0 +1,309 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.comp_logging;
+
+import java.io.UnsupportedEncodingException;
+
+
+/**
+ * Streaming UTF-8 JSON encoder for log packets.  Packets are written directly into a reusable
+ * byte buffer so the log thread does not build intermediate Strings.  Not thread safe - each
+ * log thread owns its own encoder(s).
+ *
+ * The "data" sub-object encoding matches the legacy parseData output - comma delimited
+ * obj<delim>value pairs where a missing value is encoded as "<empty>" - except that keys and
+ * values are now properly escaped.
+ */
+public class CLogPacketEncoder {
+
+    private static final int    DEFAULT_CAPACITY = 1024;
+    private static final int    MAX_POOLED       = 64 * 1024;     // don't hold on to huge buffers
+    private static final String EMPTY_VALUE      = "<empty>";
+    private static final byte[] HEX              = "0123456789abcdef".getBytes();
+
+    private byte[] buffer;
+    private int    count;
+
+
+    public CLogPacketEncoder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CLogPacketEncoder(int capacity) {
+        buffer = new byte[capacity];
+    }
+
+
+    /**
+     * Empty the encoder - the buffer is retained unless it has grown beyond the pool limit.
+     */
+    public void reset() {
+
+        if(buffer.length > MAX_POOLED) {
+            buffer = new byte[DEFAULT_CAPACITY];
+        }
+        count = 0;
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+
+        try {
+            return new String(buffer, 0, count, "UTF-8");
+        }
+        catch(UnsupportedEncodingException e) {
+            return new String(buffer, 0, count);
+        }
+    }
+
+
+    /**
+     * Append text that is already valid JSON (e.g. a prebuilt packet header)
+     *
+     * @param text
+     * @return this
+     */
+    public CLogPacketEncoder appendRaw(String text) {
+
+        writeChars(text, 0, text.length(), false);
+        return this;
+    }
+
+
+    /**
+     * Append a JSON string literal - quoted and escaped
+     *
+     * @param text
+     * @return this
+     */
+    public CLogPacketEncoder appendString(String text) {
+
+        writeByte('"');
+        writeChars(text, 0, text.length(), true);
+        writeByte('"');
+        return this;
+    }
+
+
+    /**
+     * Encode a comma delimited set of obj<delimiter>value pairs as a JSON object.
+     * e.g. "myobj1:itsvalue,myobj2:itsvalue" -> {"myobj1":"itsvalue","myobj2":"itsvalue"}
+     *
+     * Follows the String.split semantics of the original encoder - trailing empty pairs are
+     * dropped and only the text up to a second delimiter is used as the value.
+     *
+     * @param data
+     * @param delimiter
+     * @return this
+     */
+    public CLogPacketEncoder encodeData(String data, char delimiter) {
+
+        int end = data.length();
+
+        // split(",") drops trailing empty fields - but an empty string yields one empty field
+        //
+        while(end > 0 && data.charAt(end - 1) == ',') {
+            end--;
+        }
+
+        writeByte('{');
+
+        if(end > 0 || data.length() == 0) {
+
+            int  start = 0;
+            boolean first = true;
+
+            while(true) {
+
+                int pairEnd = data.indexOf(',', start);
+
+                if(pairEnd < 0 || pairEnd > end) {
+                    pairEnd = end;
+                }
+
+                if(!first) {
+                    writeByte(',');
+                }
+                first = false;
+
+                encodePair(data, start, pairEnd, delimiter);
+
+                if(pairEnd >= end) {
+                    break;
+                }
+                start = pairEnd + 1;
+            }
+        }
+
+        writeByte('}');
+        return this;
+    }
+
+
+    private void encodePair(String data, int start, int end, char delimiter) {
+
+        int keyEnd = indexOf(data, delimiter, start, end);
+
+        writeByte('"');
+        writeChars(data, start, (keyEnd < 0)? end : keyEnd, true);
+        writeByte('"');
+        writeByte(':');
+        writeByte('"');
+
+        if(keyEnd < 0) {
+            writeChars(EMPTY_VALUE, 0, EMPTY_VALUE.length(), false);
+        }
+        else {
+            int valStart = keyEnd + 1;
+            int valEnd   = indexOf(data, delimiter, valStart, end);
+
+            if(valEnd < 0) {
+                valEnd = end;
+            }
+
+            // As with split - if nothing but delimiters follow the key there is no value
+            //
+            if(valStart == end || (valStart == valEnd && onlyDelimiters(data, valStart, end, delimiter))) {
+                writeChars(EMPTY_VALUE, 0, EMPTY_VALUE.length(), false);
+            }
+            else {
+                writeChars(data, valStart, valEnd, true);
+            }
+        }
+
+        writeByte('"');
+    }
+
+
+    private static int indexOf(String data, char ch, int start, int end) {
+
+        for(int i1 = start ; i1 < end ; i1++) {
+            if(data.charAt(i1) == ch) {
+                return i1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean onlyDelimiters(String data, int start, int end, char delimiter) {
+
+        for(int i1 = start ; i1 < end ; i1++) {
+            if(data.charAt(i1) != delimiter) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private void writeByte(int value) {
+
+        if(count == buffer.length) {
+            grow(count + 1);
+        }
+        buffer[count++] = (byte) value;
+    }
+
+
+    /**
+     * UTF-8 encode a range of chars - optionally applying JSON string escapes
+     */
+    private void writeChars(String text, int start, int end, boolean escape) {
+
+        // worst case is 6 bytes per char (\\u00XX) - ensure capacity once for the common case
+        //
+        int needed = count + (end - start) * (escape? 6 : 3);
+
+        if(needed > buffer.length) {
+            grow(needed);
+        }
+
+        for(int i1 = start ; i1 < end ; i1++) {
+
+            char ch = text.charAt(i1);
+
+            if(ch < 0x80) {
+
+                if(escape && (ch < 0x20 || ch == '"' || ch == '\\')) {
+
+                    buffer[count++] = '\\';
+
+                    switch(ch) {
+                        case '"':  buffer[count++] = '"';  break;
+                        case '\\': buffer[count++] = '\\'; break;
+                        case '\n': buffer[count++] = 'n';  break;
+                        case '\r': buffer[count++] = 'r';  break;
+                        case '\t': buffer[count++] = 't';  break;
+                        case '\b': buffer[count++] = 'b';  break;
+                        case '\f': buffer[count++] = 'f';  break;
+                        default:
+                            buffer[count++] = 'u';
+                            buffer[count++] = '0';
+                            buffer[count++] = '0';
+                            buffer[count++] = HEX[(ch >> 4) & 0xF];
+                            buffer[count++] = HEX[ch & 0xF];
+                            break;
+                    }
+                }
+                else {
+                    buffer[count++] = (byte) ch;
+                }
+            }
+            else if(ch < 0x800) {
+                buffer[count++] = (byte) (0xC0 | (ch >> 6));
+                buffer[count++] = (byte) (0x80 | (ch & 0x3F));
+            }
+            else if(Character.isHighSurrogate(ch) && i1 + 1 < end && Character.isLowSurrogate(text.charAt(i1 + 1))) {
+
+                int codePoint = Character.toCodePoint(ch, text.charAt(++i1));
+
+                buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            }
+            else if(Character.isSurrogate(ch)) {
+                buffer[count++] = '?';          // unpaired surrogate
+            }
+            else {
+                buffer[count++] = (byte) (0xE0 | (ch >> 12));
+                buffer[count++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (ch & 0x3F));
+            }
+        }
+    }
+
+
+    private void grow(int minCapacity) {
+
+        int newCapacity = Math.max(buffer.length * 2, minCapacity);
+
+        byte[] newBuffer = new byte[newCapacity];
+        System.arraycopy(buffer, 0, newBuffer, 0, count);
+        buffer = newBuffer;
+    }
+}
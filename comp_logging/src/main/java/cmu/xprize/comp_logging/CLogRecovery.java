@@ -0,0 +1,209 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.comp_logging;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+
+/**
+ * Repairs JSON logs left behind by a crash or power loss.
+ *
+ * Every packet ends in "},\n" - so the last occurrence of that terminator marks the end of the
+ * last complete packet.  A bare newline is not enough as raw packets (error messages, exception
+ * text etc.) are written unescaped and may contain newlines.  The tail is scanned backwards from
+ * the end of the file (usually a single block is read), anything after the last complete packet
+ * is truncated and the root element is terminated again.
+ *
+ * Empty files are left alone - they are not necessarily RoboTutor logs.
+ */
+public class CLogRecovery {
+
+    private static final String TAG = "CLogRecovery";
+
+    public static final int NOT_A_LOG = -1;
+    public static final int INTACT    = 0;
+    public static final int RECOVERED = 1;
+
+    private static final String HEADER_START = "{\"RT_log_version\":\"";
+    private static final String HEADER_END   = "\"RT_log_data\":[";
+
+    private static final byte[] PACKET_END   = {'}', ',', '\n'};
+
+    private static final int    HEAD_SIZE    = 128;
+    private static final int    BLOCK_SIZE   = 4096;
+
+
+    /**
+     * Repair any damaged JSON logs in a folder
+     *
+     * @param folder
+     * @return the number of logs repaired
+     */
+    public static int recoverLogs(File folder) {
+
+        int recovered = 0;
+
+        File[] files = folder.listFiles();
+
+        if(files == null) {
+            return 0;
+        }
+
+        for(File f : files) {
+            if(f.isFile() && f.getName().endsWith(TLOG_CONST.JSONLOG)) {
+
+                if(recover(f) == RECOVERED) {
+                    Log.w(TAG, "Recovered damaged log: " + f.getName());
+                    recovered++;
+                }
+            }
+        }
+        return recovered;
+    }
+
+
+    /**
+     * @param logFile
+     * @return NOT_A_LOG, INTACT or RECOVERED
+     */
+    public static int recover(File logFile) {
+
+        RandomAccessFile file = null;
+
+        try {
+            file = new RandomAccessFile(logFile, "rw");
+
+            long   length = file.length();
+
+            if(length == 0) {
+                return NOT_A_LOG;
+            }
+
+            byte[] head   = new byte[(int) Math.min(length, HEAD_SIZE)];
+
+            file.readFully(head);
+
+            String headText  = new String(head, "UTF-8");
+            int    headerEnd = headText.indexOf(HEADER_END);
+
+            if(!headText.startsWith(HEADER_START) || headerEnd < 0) {
+
+                // Crashed while writing the header - start the document again
+                //
+                String header = "{\"RT_log_version\":\"" + CLogManagerBase.LOG_VERSION + "\",\"RT_log_data\":[";
+
+                if(header.startsWith(headText)) {
+                    terminate(file, 0, header);
+                    return RECOVERED;
+                }
+                return NOT_A_LOG;
+            }
+
+            long cut = lastPacketEnd(file, headerEnd + HEADER_END.length());
+
+            if(isTerminated(file, cut)) {
+                return INTACT;
+            }
+
+            terminate(file, cut, "");
+            return RECOVERED;
+        }
+        catch(IOException e) {
+            Log.e(TAG, "Recovery Failed: " + logFile.getName() + " : " + e);
+            return NOT_A_LOG;
+        }
+        finally {
+            try {
+                if(file != null) file.close();
+            }
+            catch(IOException e) {
+            }
+        }
+    }
+
+
+    /**
+     * @return the offset just past the last complete packet - or the header end if there is none
+     */
+    private static long lastPacketEnd(RandomAccessFile file, long headerEnd) throws IOException {
+
+        byte[] block = new byte[BLOCK_SIZE];
+        long   end   = file.length();
+        int    last  = PACKET_END.length - 1;
+
+        while(end - headerEnd >= PACKET_END.length) {
+
+            long start = Math.max(headerEnd, end - BLOCK_SIZE);
+            int  size  = (int) (end - start);
+
+            file.seek(start);
+            file.readFully(block, 0, size);
+
+            for(int i1 = size - 1 ; i1 >= last ; i1--) {
+                if(block[i1] == PACKET_END[2] && block[i1 - 1] == PACKET_END[1] && block[i1 - 2] == PACKET_END[0]) {
+                    return start + i1 + 1;
+                }
+            }
+
+            if(start == headerEnd) {
+                break;
+            }
+
+            // Overlap the blocks so a terminator split across the boundary is found
+            //
+            end = start + last;
+        }
+        return headerEnd;
+    }
+
+
+    private static boolean isTerminated(RandomAccessFile file, long cut) throws IOException {
+
+        byte[] expected = CLogManagerBase.TERMINATING_PACKET.getBytes("UTF-8");
+
+        if(file.length() - cut != expected.length) {
+            return false;
+        }
+
+        byte[] tail = new byte[expected.length];
+
+        file.seek(cut);
+        file.readFully(tail);
+
+        for(int i1 = 0 ; i1 < expected.length ; i1++) {
+            if(tail[i1] != expected[i1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static void terminate(RandomAccessFile file, long cut, String prefix) throws IOException {
+
+        file.setLength(cut);
+        file.seek(cut);
+        file.write((prefix + CLogManagerBase.TERMINATING_PACKET).getBytes("UTF-8"));
+        file.getFD().sync();
+    }
+}
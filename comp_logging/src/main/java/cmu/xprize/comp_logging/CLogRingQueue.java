@@ -0,0 +1,221 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.comp_logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Bounded lock-free ring buffer for log packets (after D. Vyukov's bounded MPMC queue).
+ *
+ * Any thread may offer packets.  The log thread is the only real consumer but producers may
+ * also discard the oldest entry to make room - which is why the head is claimed with a CAS.
+ *
+ * Slots are preallocated parallel arrays so queueing a packet does not allocate.  A slot holds
+ * either a packet or an opaque record - e.g. a binary performance item - for the log thread.
+ */
+public class CLogRingQueue {
+
+    private final int              capacity;
+    private final int              mask;
+    private final AtomicLongArray  sequence;
+
+    private final String[]         packets;
+    private final String[]         targets;
+    private final String[]         states;
+    private final Object[]         records;
+    private final int[]            levels;
+    private final long[]           times;
+
+    private final AtomicLong       tail = new AtomicLong(0);
+    private final AtomicLong       head = new AtomicLong(0);
+
+
+    /**
+     * Holder used by the consumer to receive a packet without allocation
+     */
+    public static class Entry {
+        public String packet;
+        public String target;
+        public String state;
+        public Object record;
+        public int    level;
+        public long   time;             // System.nanoTime() when queued
+    }
+
+
+    /**
+     * @param size requested capacity - rounded up to a power of 2
+     */
+    public CLogRingQueue(int size) {
+
+        int cap = 2;
+        while(cap < size) {
+            cap <<= 1;
+        }
+
+        capacity = cap;
+        mask     = cap - 1;
+        sequence = new AtomicLongArray(cap);
+
+        packets = new String[cap];
+        targets = new String[cap];
+        states  = new String[cap];
+        records = new Object[cap];
+        levels  = new int[cap];
+        times   = new long[cap];
+
+        for(int i1 = 0 ; i1 < cap ; i1++) {
+            sequence.set(i1, i1);
+        }
+    }
+
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return approximate number of queued packets
+     */
+    public int size() {
+
+        long size = tail.get() - head.get();
+
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+
+    /**
+     * @return false if the queue is full
+     */
+    public boolean offer(String packet, String target, String state, int level) {
+        return offer(packet, target, state, null, level);
+    }
+
+
+    /**
+     * @return false if the queue is full
+     */
+    public boolean offer(String packet, String target, String state, Object record, int level) {
+
+        while(true) {
+
+            long pos = tail.get();
+            int  idx = (int) (pos & mask);
+            long dif = sequence.get(idx) - pos;
+
+            if(dif == 0) {
+                if(tail.compareAndSet(pos, pos + 1)) {
+
+                    packets[idx] = packet;
+                    targets[idx] = target;
+                    states[idx]  = state;
+                    records[idx] = record;
+                    levels[idx]  = level;
+                    times[idx]   = System.nanoTime();
+
+                    // publish the slot
+                    sequence.set(idx, pos + 1);
+                    return true;
+                }
+            }
+            else if(dif < 0) {
+                return false;
+            }
+        }
+    }
+
+
+    /**
+     * Remove the oldest packet and copy it into the holder.
+     *
+     * @return false if the queue is empty
+     */
+    public boolean poll(Entry out) {
+
+        while(true) {
+
+            long pos = head.get();
+            int  idx = (int) (pos & mask);
+            long dif = sequence.get(idx) - (pos + 1);
+
+            if(dif == 0) {
+                if(head.compareAndSet(pos, pos + 1)) {
+
+                    if(out != null) {
+                        out.packet = packets[idx];
+                        out.target = targets[idx];
+                        out.state  = states[idx];
+                        out.record = records[idx];
+                        out.level  = levels[idx];
+                        out.time   = times[idx];
+                    }
+
+                    packets[idx] = null;
+                    targets[idx] = null;
+                    states[idx]  = null;
+                    records[idx] = null;
+
+                    // release the slot to producers
+                    sequence.set(idx, pos + capacity);
+                    return true;
+                }
+            }
+            else if(dif < 0) {
+                return false;
+            }
+        }
+    }
+
+
+    /**
+     * Discard the oldest packet to make room
+     *
+     * @return the level of the discarded packet or -1 if the queue was empty
+     */
+    public int discardOldest() {
+
+        while(true) {
+
+            long pos = head.get();
+            int  idx = (int) (pos & mask);
+            long dif = sequence.get(idx) - (pos + 1);
+
+            if(dif == 0) {
+                if(head.compareAndSet(pos, pos + 1)) {
+
+                    int level = levels[idx];
+
+                    packets[idx] = null;
+                    targets[idx] = null;
+                    states[idx]  = null;
+                    records[idx] = null;
+
+                    sequence.set(idx, pos + capacity);
+                    return level;
+                }
+            }
+            else if(dif < 0) {
+                return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.comp_logging;
+
+
+/**
+ * Per tag sampling policy for high frequency events.
+ *
+ *   rate / burst - token bucket: on average rate events per second pass, with up to burst
+ *                  events passing back to back.  rate <= 0 disables the limit.
+ *   coalesce     - last value wins: the first event of a window passes immediately, later
+ *                  events within coalesce ms replace each other and only the latest is emitted
+ *                  when the window closes.  coalesce <= 0 disables coalescing.
+ *
+ * Suppressed (and replaced) events are counted so the owner can emit a summary packet.
+ */
+public class CLogSampler {
+
+    public static final int EMIT     = 0;      // emit the event now
+    public static final int SUPPRESS = 1;      // drop the event
+    public static final int DEFER    = 2;      // held as the pending value - flush at the window end
+    public static final int SCHEDULE = 3;      // as DEFER - and the caller must schedule the flush
+
+    private final double rate;
+    private final double burst;
+    private final long   coalesce;
+
+    private double  tokens;
+    private long    lastRefill;
+
+    private long    windowEnd     = Long.MIN_VALUE;
+    private Pending pending;
+    private boolean flushScheduled;
+
+    private long    suppressed    = 0;
+
+
+    /**
+     * An event held for the end of the coalescing window
+     */
+    public static class Pending {
+        public final int    level;
+        public final Object msg;          // the message - or record - of the event
+
+        Pending(int level, Object msg) {
+            this.level = level;
+            this.msg   = msg;
+        }
+    }
+
+
+    public CLogSampler(double rate, int burst, long coalesce) {
+
+        this.rate     = rate;
+        this.burst    = Math.max(1, burst);
+        this.coalesce = coalesce;
+
+        tokens = this.burst;
+    }
+
+
+    /**
+     * @param level
+     * @param msg
+     * @param now   ms
+     * @return EMIT, SUPPRESS, DEFER or SCHEDULE
+     */
+    public synchronized int offer(int level, Object msg, long now) {
+
+        if(coalesce > 0) {
+
+            if(now < windowEnd) {
+
+                if(pending != null) {
+                    suppressed++;
+                }
+                pending = new Pending(level, msg);
+
+                if(!flushScheduled) {
+                    flushScheduled = true;
+                    return SCHEDULE;
+                }
+                return DEFER;
+            }
+            windowEnd = now + coalesce;
+        }
+
+        return takeToken(now)? EMIT : SUPPRESS;
+    }
+
+
+    /**
+     * Close the coalescing window
+     *
+     * @param now ms
+     * @return the latest value offered during the window - null if there was none or the rate
+     *         limit suppressed it
+     */
+    public synchronized Pending flush(long now) {
+
+        Pending result = pending;
+
+        pending        = null;
+        flushScheduled = false;
+
+        if(result != null) {
+
+            if(!takeToken(now)) {
+                return null;
+            }
+
+            // the trailing value opens a new window
+            windowEnd = now + coalesce;
+        }
+        return result;
+    }
+
+
+    /**
+     * @return the delay in ms until the current window closes
+     */
+    public synchronized long flushDelay(long now) {
+        return Math.max(0, windowEnd - now);
+    }
+
+
+    /**
+     * @return the number of events suppressed since the last call
+     */
+    public synchronized long takeSuppressed() {
+
+        long result = suppressed;
+        suppressed  = 0;
+
+        return result;
+    }
+
+
+    private boolean takeToken(long now) {
+
+        if(rate <= 0) {
+            return true;
+        }
+
+        tokens     = Math.min(burst, tokens + (now - lastRefill) * rate / 1000.0);
+        lastRefill = now;
+
+        if(tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+
+        suppressed++;
+        return false;
+    }
+}
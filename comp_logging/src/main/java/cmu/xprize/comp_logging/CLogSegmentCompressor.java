@@ -0,0 +1,145 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.comp_logging;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * Compresses completed log segments on a single low priority thread.
+ *
+ * The segment is gzipped to a temporary file which is renamed once complete and only then is
+ * the original deleted - so an interrupted compression never loses data.  Leftover temporary
+ * files are removed by transferHotLogs.
+ */
+public class CLogSegmentCompressor {
+
+    private static final String TAG = "CLogSegmentCompressor";
+
+    private ExecutorService executor;
+
+
+    public CLogSegmentCompressor() {
+
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable task) {
+
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_LOWEST);
+                        task.run();
+                    }
+                }, TAG);
+            }
+        });
+    }
+
+
+    public void compress(final File segment) {
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                compressSegment(segment);
+            }
+        });
+    }
+
+
+    /**
+     * Finish any pending compressions - waits at most timeout ms
+     *
+     * @param timeout
+     */
+    public void shutdown(long timeout) {
+
+        executor.shutdown();
+
+        try {
+            if(!executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+                Log.w(TAG, "Compression incomplete at shutdown");
+            }
+        }
+        catch (InterruptedException e) {
+        }
+    }
+
+
+    static void compressSegment(File segment) {
+
+        File tmpFile = new File(segment.getPath() + TLOG_CONST.COMPRESSED + TLOG_CONST.TMP);
+        File gzFile  = new File(segment.getPath() + TLOG_CONST.COMPRESSED);
+
+        long start    = System.currentTimeMillis();
+        long srcBytes = segment.length();
+
+        InputStream  in  = null;
+        OutputStream out = null;
+
+        try {
+            in  = new FileInputStream(segment);
+            out = new GZIPOutputStream(new FileOutputStream(tmpFile), 8192);
+
+            byte[] buf = new byte[8192];
+            int    len;
+
+            while((len = in.read(buf)) > 0) {
+                out.write(buf, 0, len);
+            }
+
+            in.close();
+            in = null;
+            out.close();
+            out = null;
+
+            if(tmpFile.renameTo(gzFile)) {
+                segment.delete();
+            }
+
+            Log.v(TAG, "Compressed " + segment.getName() + " " + srcBytes + " -> " + gzFile.length() + " bytes in " + (System.currentTimeMillis() - start) + "ms");
+        }
+        catch (IOException e) {
+            Log.e(TAG, "Compression Failed: " + segment.getName() + " : " + e);
+            tmpFile.delete();
+        }
+        finally {
+            try {
+                if(in != null) in.close();
+                if(out != null) out.close();
+            }
+            catch (IOException e) {
+            }
+        }
+    }
+}
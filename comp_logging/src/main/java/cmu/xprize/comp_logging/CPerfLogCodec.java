@@ -0,0 +1,372 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.comp_logging;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+
+/**
+ * Compact binary record format for PerformanceLogItems.
+ *
+ * File layout:
+ *
+ *   "RTPB" <version>
+ *   { <record> }
+ *
+ *   record := STRING_DEF <varint length> <utf-8 bytes>      - defines the next dictionary id (from 1)
+ *           | PERF_ITEM  <fields>
+ *
+ *   fields := <varint time delta> <id currenttutor> then the PerformanceLogItem fields in
+ *             the toString order - numbers are zigzag varints (the timestamp relative to the
+ *             record time), names are dictionary ids and free text (answers / responses) is
+ *             inline as <varint length + 1> <utf-8 bytes>.  0 encodes null.
+ *
+ * Dictionary definitions always precede their first use, so the file can be read (and a
+ * truncated tail ignored) in one pass.  The reader regenerates the same JSON log the text path
+ * produces so analysis pipelines are unaffected.
+ *
+ * The writer side is not thread safe - CPerfLogManager serializes access.
+ */
+public class CPerfLogCodec {
+
+    public  static final byte[] MAGIC       = {'R', 'T', 'P', 'B'};
+    public  static final int    VERSION     = 1;
+
+    private static final int    STRING_DEF  = 1;
+    private static final int    PERF_ITEM   = 2;
+
+    private static final int    NUMBER      = 0;
+    private static final int    NAME        = 1;       // interned
+    private static final int    TEXT        = 2;       // inline
+
+    // Must match PerformanceLogItem.orderedFieldsToPrint
+    //
+    private static final String[] FIELDS = {"timestamp", "userId", "sessionId", "gameId", "language", "tutorName", "tutorId", "matrixName", "levelName", "taskName",
+            "problemName", "problemNumber", "substepNumber", "substepProblem", "attemptNumber", "expectedAnswer", "userResponse", "correctness", "feedbackType", "totalProblemsCount", "promotionMode", "scaffolding"};
+
+    private static final int[]    TYPES  = {NUMBER, NAME, NAME, NAME, NAME, NAME, NAME, NAME, NAME, NAME,
+            NAME, NUMBER, NUMBER, NUMBER, NUMBER, TEXT, TEXT, NAME, NAME, NUMBER, NAME, NAME};
+
+    private HashMap<String, Integer> dictionary = new HashMap<>();
+    private ByteArrayOutputStream    record     = new ByteArrayOutputStream(256);
+    private long                     lastTime   = 0;
+
+
+    /**
+     * @return the file header - written once at the start of each binary log
+     */
+    public byte[] header() {
+
+        dictionary.clear();
+        lastTime = 0;
+
+        byte[] result = new byte[MAGIC.length + 1];
+        System.arraycopy(MAGIC, 0, result, 0, MAGIC.length);
+        result[MAGIC.length] = VERSION;
+
+        return result;
+    }
+
+
+    /**
+     * Copy the encoded fields of an item - callers keep reusing and changing their items, so an
+     * item queued for later encoding must be captured when it is posted.
+     *
+     * @param item
+     * @return the field values in FIELDS order
+     */
+    public static Object[] values(PerformanceLogItem item) {
+
+        return new Object[] {item.getTimestamp(), item.getUserId(), item.getSessionId(), item.getGameId(), item.getLanguage(),
+                item.getTutorName(), item.getTutorId(), item.getMatrixName(), item.getLevelName(), item.getTaskName(),
+                item.getProblemName(), item.getProblemNumber(), item.getSubstepNumber(), item.getSubstepProblem(), item.getAttemptNumber(),
+                item.getExpectedAnswer(), item.getUserResponse(), item.getCorrectness(), item.getFeedbackType(), item.getTotalProblemsCount(),
+                item.getPromotionMode(), item.getScaffolding()};
+    }
+
+
+    /**
+     * Encode an item - the result includes any new dictionary definitions it needs.
+     *
+     * @param item
+     * @param tutor the current tutor (the "tutor" field of the log packet)
+     * @param time  the packet time
+     * @return
+     */
+    public byte[] encode(PerformanceLogItem item, String tutor, long time) {
+        return encode(values(item), tutor, time);
+    }
+
+
+    /**
+     * @param values the item fields - see values
+     * @param tutor  the current tutor (the "tutor" field of the log packet)
+     * @param time   the packet time
+     * @return
+     */
+    public byte[] encode(Object[] values, String tutor, long time) {
+
+        record.reset();
+
+        // Define any new names first
+        //
+        int tutorId = intern(tutor);
+        int[] ids   = new int[FIELDS.length];
+
+        for(int i1 = 0 ; i1 < FIELDS.length ; i1++) {
+            if(TYPES[i1] == NAME) {
+                ids[i1] = intern((String) values[i1]);
+            }
+        }
+
+        record.write(PERF_ITEM);
+        writeVarLong(record, zigzag(time - lastTime));
+        writeVarLong(record, tutorId);
+
+        for(int i1 = 0 ; i1 < FIELDS.length ; i1++) {
+
+            switch(TYPES[i1]) {
+                case NUMBER:
+                    long number = ((Number) values[i1]).longValue();
+
+                    // timestamps are almost always the packet time
+                    if(i1 == 0) {
+                        number -= time;
+                    }
+                    writeVarLong(record, zigzag(number));
+                    break;
+
+                case NAME:
+                    writeVarLong(record, ids[i1]);
+                    break;
+
+                case TEXT:
+                    writeText(record, (String) values[i1]);
+                    break;
+            }
+        }
+
+        lastTime = time;
+
+        return record.toByteArray();
+    }
+
+
+    private int intern(String name) {
+
+        if(name == null) {
+            return 0;
+        }
+
+        Integer id = dictionary.get(name);
+
+        if(id == null) {
+            id = dictionary.size() + 1;
+            dictionary.put(name, id);
+
+            record.write(STRING_DEF);
+            writeText(record, name);
+        }
+        return id;
+    }
+
+
+    /**
+     * Convert a binary performance log back to the JSON log document the text path produces.
+     *
+     * @param in
+     * @param out
+     * @return the number of records converted
+     * @throws IOException if the stream is not a binary performance log
+     */
+    public static int toJSON(InputStream in, OutputStream out) throws IOException {
+
+        for(int i1 = 0 ; i1 < MAGIC.length ; i1++) {
+            if(in.read() != MAGIC[i1]) {
+                throw new IOException("Not a binary performance log");
+            }
+        }
+        if(in.read() != VERSION) {
+            throw new IOException("Unsupported binary performance log version");
+        }
+
+        ArrayList<String> names   = new ArrayList<>();
+        CLogPacketEncoder encoder = new CLogPacketEncoder();
+        StringBuilder     text    = new StringBuilder();
+        long              time    = 0;
+        int               count   = 0;
+
+        names.add(null);
+
+        encoder.appendRaw("{\"RT_log_version\":\"" + CLogManagerBase.LOG_VERSION + "\",\"RT_log_data\":[");
+        out.write(encoder.buffer(), 0, encoder.size());
+
+        try {
+            int kind;
+
+            while((kind = in.read()) >= 0) {
+
+                if(kind == STRING_DEF) {
+                    names.add(readText(in));
+                    continue;
+                }
+                if(kind != PERF_ITEM) {
+                    throw new IOException("Corrupt record");
+                }
+
+                time += unzigzag(readVarLong(in));
+                String tutor = names.get((int) readVarLong(in));
+
+                // Rebuild PerformanceLogItem.toString()
+                //
+                text.setLength(0);
+
+                for(int i1 = 0 ; i1 < FIELDS.length ; i1++) {
+
+                    if(i1 > 0) {
+                        text.append(", ");
+                    }
+                    text.append(FIELDS[i1]).append(": ");
+
+                    switch(TYPES[i1]) {
+                        case NUMBER:
+                            long number = unzigzag(readVarLong(in));
+                            text.append((i1 == 0)? number + time : number);
+                            break;
+
+                        case NAME:
+                            text.append(names.get((int) readVarLong(in)));
+                            break;
+
+                        case TEXT:
+                            text.append(readText(in));
+                            break;
+                    }
+                }
+
+                // Same packet CPerfLogManager.postEvent_I would have logged
+                //
+                encoder.reset();
+                encoder.appendRaw("{" +
+                        "\"type\":\"LOG_DATA\"," +
+                        "\"tutor\":\"" + tutor + "\"," +
+                        "\"class\":\"INFO\"," +
+                        "\"tag\":\"" + TLOG_CONST.PERFORMANCE_TAG + "\"," +
+                        "\"time\":\"" + time + "\",");
+                encoder.appendRaw("\"data\":").encodeData(text.toString(), ':').appendRaw("},\n");
+
+                out.write(encoder.buffer(), 0, encoder.size());
+                count++;
+            }
+        }
+        catch(EOFException e) {
+            // truncated final record - e.g. power loss while writing
+        }
+
+        encoder.reset();
+        encoder.appendRaw(CLogManagerBase.TERMINATING_PACKET);
+        out.write(encoder.buffer(), 0, encoder.size());
+
+        return count;
+    }
+
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+
+        while((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+
+        long result = 0;
+
+        for(int shift = 0 ; shift < 64 ; shift += 7) {
+
+            int b = in.read();
+            if(b < 0) {
+                throw new EOFException();
+            }
+
+            result |= (long) (b & 0x7F) << shift;
+
+            if((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static void writeText(ByteArrayOutputStream out, String value) {
+
+        if(value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+
+        try {
+            byte[] bytes = value.getBytes("UTF-8");
+
+            writeVarLong(out, bytes.length + 1);
+            out.write(bytes, 0, bytes.length);
+        }
+        catch(UnsupportedEncodingException e) {
+            writeVarLong(out, 0);
+        }
+    }
+
+    private static String readText(InputStream in) throws IOException {
+
+        int length = (int) readVarLong(in);
+
+        if(length == 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length - 1];
+        int    read  = 0;
+
+        while(read < bytes.length) {
+            int n = in.read(bytes, read, bytes.length - read);
+            if(n < 0) {
+                throw new EOFException();
+            }
+            read += n;
+        }
+        return new String(bytes, "UTF-8");
+    }
+}
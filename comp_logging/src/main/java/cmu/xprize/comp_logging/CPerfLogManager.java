@@ -20,6 +20,11 @@ package cmu.xprize.comp_logging;
 
 import android.util.Log;
 
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
 public class CPerfLogManager extends CLogManagerBase implements IPerfLogManager {
     private static String TAG = "CLogManager";
 
@@ -36,10 +41,143 @@ public class CPerfLogManager extends CLogManagerBase implements IPerfLogManager
 
     private PerformanceLogItem lastEvent = new PerformanceLogItem();
 
+    // Binary record mode - see CPerfLogCodec
+    //
+    private boolean          binaryMode   = false;
+    private CPerfLogCodec    codec        = new CPerfLogCodec();
+    private FileOutputStream binaryStream;
+    private OutputStream     binaryWriter;
+
+
+    /**
+     * A performance item queued for the log thread - its fields, the tutor and the time are
+     * copied at posting as the caller may change the item before the log thread encodes it
+     */
+    private static final class PerfRecord {
+
+        final Object[] values;
+        final String   tutor;
+        final long     time;
+
+        PerfRecord(PerformanceLogItem event, String tutor, long time) {
+            this.values = CPerfLogCodec.values(event);
+            this.tutor  = tutor;
+            this.time   = time;
+        }
+    }
+
+
+    /**
+     * Write performance items as compact binary records (<name>.rtpb) rather than JSON events.
+     * Must be set before startLogging.  CPerfLogCodec.toJSON converts the file back to JSON.
+     *
+     * @param enable
+     */
+    @Override
+    public void setBinaryMode(boolean enable) {
+        binaryMode = enable;
+    }
+
+
+    @Override
+    public void startLogging(String logPath, String logFilename) {
+
+        super.startLogging(logPath, logFilename);
+
+        if(binaryMode) {
+            try {
+                binaryStream = new FileOutputStream(logPath + logFilename + TLOG_CONST.BINLOG);
+                binaryWriter = new BufferedOutputStream(binaryStream, TLOG_CONST.BATCH_MAX_BYTES);
+                binaryWriter.write(codec.header());
+            }
+            catch(IOException e) {
+                Log.e(TAG, "Binary log open failed: " + e);
+                binaryStream = null;
+                binaryWriter = null;
+            }
+        }
+    }
+
+
+    @Override
+    public void stopLogging() {
+
+        // The log thread has exited once this returns
+        //
+        super.stopLogging();
+
+        if(binaryWriter != null) {
+            try {
+                binaryWriter.flush();
+                binaryStream.getFD().sync();
+                binaryWriter.close();
+            }
+            catch(IOException e) {
+                Log.e(TAG, "Binary log close failed: " + e);
+            }
+            binaryStream = null;
+            binaryWriter = null;
+        }
+    }
+
+
+    /**
+     * In binary mode the JSON log only holds the odd summary packet - so it is not created
+     * unless one is written.
+     */
+    @Override
+    protected boolean openLogOnFirstPacket() {
+        return binaryMode;
+    }
+
+
     @Override
     public void postPerformanceLog(PerformanceLogItem event) {
         lastEvent = event;
-        postEvent_I(TLOG_CONST.PERFORMANCE_TAG, event.toString());
+        postPerformanceItem(event);
+    }
+
+
+    private void postPerformanceItem(PerformanceLogItem event) {
+
+        if(binaryWriter == null) {
+            postEvent_I(TLOG_CONST.PERFORMANCE_TAG, event.toString());
+            return;
+        }
+
+        postRecord(TLOG_CONST.PERFORMANCE_TAG, Log.INFO, new PerfRecord(event, getTutor(), System.currentTimeMillis()));
+    }
+
+
+    @Override
+    protected int writeRecord(Object record) throws IOException {
+
+        if(binaryWriter == null || !(record instanceof PerfRecord)) {
+            return 0;
+        }
+
+        PerfRecord item    = (PerfRecord) record;
+        byte[]     encoded = codec.encode(item.values, item.tutor, item.time);
+
+        binaryWriter.write(encoded);
+
+        return encoded.length;
+    }
+
+    @Override
+    protected void flushRecords() throws IOException {
+
+        if(binaryWriter != null) {
+            binaryWriter.flush();
+        }
+    }
+
+    @Override
+    protected void syncRecords() throws IOException {
+
+        if(binaryStream != null) {
+            binaryStream.getFD().sync();
+        }
     }
 
     // TODO: Super hacky. Need refactoring.
@@ -87,7 +225,7 @@ public class CPerfLogManager extends CLogManagerBase implements IPerfLogManager
             event.setAttemptNumber(lastEvent.getAttemptNumber());
         }
 
-        postEvent_I(TLOG_CONST.PERFORMANCE_TAG, event.toString());
+        postPerformanceItem(event);
     }
 }
 
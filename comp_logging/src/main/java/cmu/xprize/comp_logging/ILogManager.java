@@ -1,5 +1,7 @@
 package cmu.xprize.comp_logging;
 
+import java.util.Map;
+
 public interface ILogManager {
 
     /**
@@ -11,16 +13,129 @@ public interface ILogManager {
      */
     public void transferHotLogs(String hotPath, String readyPath);
 
+    /**
+     * Select the group-commit writer - packets are buffered and written in one operation when
+     * maxBytes have accumulated or maxDelay ms after the first buffered packet.
+     *
+     * @param enable
+     * @param maxBytes
+     * @param maxDelay
+     */
+    public void setBatchMode(boolean enable, int maxBytes, long maxDelay);
+
+    /**
+     * Configure the bounded packet queue and its overflow policy.  The default is QUEUE_BLOCK -
+     * a full queue holds the poster for up to QUEUE_BLOCK_TIMEOUT.  Every dropped packet is
+     * counted in the metrics.
+     *
+     * @param capacity
+     * @param policy    TLOG_CONST.QUEUE_BLOCK / QUEUE_DROP_OLDEST / QUEUE_DROP_BY_LEVEL
+     * @param dropLevel for QUEUE_DROP_BY_LEVEL - packets below this level are dropped first.
+     *                  INFO and above, and records, are never dropped by level.
+     */
+    public void setQueuePolicy(int capacity, int policy, int dropLevel);
+
+    /**
+     * @return the number of packets waiting for the log thread
+     */
+    public int getQueueDepth();
+
+    /**
+     * @param level android.util.Log priority
+     * @return the number of packets of this level dropped due to queue overflow
+     */
+    public long getDroppedCount(int level);
+
+    /**
+     * Roll the log to a new segment file at a size or duration limit (<= 0 disables a limit)
+     * and optionally gzip completed segments on a background thread.
+     *
+     * @param maxBytes
+     * @param maxDuration ms
+     * @param compress
+     */
+    public void setSegmentPolicy(long maxBytes, long maxDuration, boolean compress);
+
+    public void setSyncInterval(long interval);
+
+    /**
+     * Token-bucket rate limit and "last value wins" coalescing for a tag's events.  Suppressed
+     * events are counted in a LOG_SAMPLED summary packet.
+     *
+     * @param Tag
+     * @param rate     events per second - <= 0 for no limit
+     * @param burst
+     * @param coalesce ms - <= 0 for no coalescing
+     */
+    public void setSampling(String Tag, float rate, int burst, long coalesce);
+
+    /**
+     * Emit a LOG_METRICS summary packet every interval ms - <= 0 for none
+     *
+     * @param interval
+     */
+    public void setMetricsInterval(long interval);
+
+    /**
+     * @return queue depth, throughput, bytes written, enqueue-to-disk latency percentiles and
+     *         per packet processing time
+     */
+    public CLogMetrics.Snapshot getMetrics();
+
     public void startLogging(String logPath, String logFileName);
     public void stopLogging();
 
+    /**
+     * Level gate - levels are the android.util.Log priorities (VERBOSE .. ASSERT).  Use this to
+     * guard expensive message construction.  A false result is counted as a suppressed event.
+     *
+     * The gate applies to logcat as well as the log file - VERBOSE and DEBUG events only go to
+     * logcat and are not emitted at all below the level.
+     *
+     * @param Tag
+     * @param level
+     * @return true if events of this level are emitted for this tag
+     */
+    public boolean isEnabled(String Tag, int level);
+
+    /**
+     * Set the minimum level emitted for a tag - a null tag sets the default for all tags that
+     * have no level of their own.
+     *
+     * @param Tag
+     * @param level
+     */
+    public void setLogLevel(String Tag, int level);
+
+    /**
+     * @return a snapshot of per-tag event counts - each entry is {emitted, suppressed}
+     */
+    public Map<String, long[]> getEventCounts();
+
     public void postTutorState(String Tag, String Msg);
 
     public void postEvent_V(String Tag, String Msg);
 
+    // Deferred forms - the message is only formatted (String.format) when the level is enabled
+    // for the tag.  Primitive arguments are still boxed by the caller before the level is
+    // checked - guard hot calls that pass primitives with isEnabled.
+    //
+    public void postEvent_V(String Tag, String format, Object arg1);
+    public void postEvent_V(String Tag, String format, Object arg1, Object arg2);
+    public void postEvent_V(String Tag, String format, Object arg1, Object arg2, Object arg3);
+    public void postEvent_V(String Tag, String format, Object arg1, Object arg2, Object arg3, Object arg4);
+
     public void postEvent_D(String Tag, String Msg);
+    public void postEvent_D(String Tag, String format, Object arg1);
+    public void postEvent_D(String Tag, String format, Object arg1, Object arg2);
+    public void postEvent_D(String Tag, String format, Object arg1, Object arg2, Object arg3);
+    public void postEvent_D(String Tag, String format, Object arg1, Object arg2, Object arg3, Object arg4);
 
     public void postEvent_I(String Tag, String Msg);
+    public void postEvent_I(String Tag, String format, Object arg1);
+    public void postEvent_I(String Tag, String format, Object arg1, Object arg2);
+    public void postEvent_I(String Tag, String format, Object arg1, Object arg2, Object arg3);
+    public void postEvent_I(String Tag, String format, Object arg1, Object arg2, Object arg3, Object arg4);
 
     public void postEvent_W(String Tag, String Msg);
 
@@ -2,6 +2,8 @@ package cmu.xprize.comp_logging;
 
 public interface IPerfLogManager extends ILogManager {
 
+    public void setBinaryMode(boolean enable);
+
     public void postPerformanceLog(PerformanceLogItem event);
 
     public void postPerformanceLogWithoutContext(PerformanceLogItem event);
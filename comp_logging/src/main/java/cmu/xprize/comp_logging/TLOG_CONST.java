@@ -10,6 +10,9 @@ public class TLOG_CONST {
     public static final String GLYPHLOG    = "glyphlog_";
     public static final String DATASHOP    = "-DS";
     public static final String JSONLOG     = ".json";
+    public static final String BINLOG      = ".rtpb";
+    public static final String COMPRESSED  = ".gz";
+    public static final String TMP         = ".tmp";
 
     public static final boolean APPEND     = true;
     public static final boolean REPLACE    = false;
@@ -18,4 +21,33 @@ public class TLOG_CONST {
     public static final String  GUID_UPDATE     = "GUIDUPDATE";
 
     public static final String PERFORMANCE_TAG  = "PERFORMANCE_TAG";
+
+    // High frequency events - sampled, see engine_descriptor logSampling
+    public static final String SCREEN_MOVE_TAG    = "RT_SCREEN_MOVE";
+    public static final String GLYPH_TOUCH_TAG    = "GLYPH_TOUCH";
+    public static final String ASR_HYPOTHESIS_TAG = "ASR_HYPOTHESIS";
+
+    // Group-commit writer triggers
+    public static final int    BATCH_MAX_BYTES  = 8192;
+    public static final long   BATCH_MAX_DELAY  = 1000;     // ms
+
+    // Packet queue overflow policies
+    public static final int    QUEUE_BLOCK          = 0;
+    public static final int    QUEUE_DROP_OLDEST    = 1;
+    public static final int    QUEUE_DROP_BY_LEVEL  = 2;
+
+    public static final int    QUEUE_CAPACITY       = 1024;
+    public static final long   QUEUE_BLOCK_TIMEOUT  = 250;   // ms
+
+    // Log segmentation
+    public static final String SEGMENT_FORMAT            = "_SEG%03d";
+    public static final long   SEGMENT_MAX_BYTES         = 2 * 1024 * 1024;
+    public static final long   SEGMENT_MAX_DURATION      = 60 * 60 * 1000;     // ms
+    public static final long   COMPRESS_SHUTDOWN_TIMEOUT = 5000;               // ms
+
+    // Log fsync cadence
+    public static final long   SYNC_INTERVAL             = 2000;               // ms
+
+    // Pipeline metrics summary packet
+    public static final long   METRICS_INTERVAL          = 5 * 60 * 1000;      // ms
 }
@@ -0,0 +1,57 @@
+package cmu.xprize.comp_logging;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CLogMetricsTest {
+
+    @Test
+    public void latencyPercentiles() throws Exception {
+
+        CLogMetrics metrics = new CLogMetrics();
+
+        // 98 fast packets (~100us) and 2 slow ones (~50ms)
+        for(int i1 = 0 ; i1 < 98 ; i1++) {
+            metrics.recordLatency(100 * 1000);
+        }
+        metrics.recordLatency(50 * 1000 * 1000);
+        metrics.recordLatency(50 * 1000 * 1000);
+
+        metrics.recordWrite(100, 12345);
+        metrics.recordProcess(10 * 1000);
+        metrics.recordProcess(30 * 1000);
+        metrics.recordFlush(1000 * 1000);
+        metrics.recordFlush(3000 * 1000);
+
+        CLogMetrics.Snapshot snapshot = metrics.snapshot(7, 3, true);
+
+        // reported as the upper bound of the log2 bucket
+        assertEquals(128, snapshot.latencyP50);
+        assertEquals(65536, snapshot.latencyP99);
+
+        assertEquals(7, snapshot.queueDepth);
+        assertEquals(3, snapshot.dropped);
+        assertEquals(100, snapshot.packetsWritten);
+        assertEquals(12345, snapshot.bytesWritten);
+        assertEquals(20, snapshot.processAvg);
+        assertEquals(30, snapshot.processMax);
+        assertEquals(2, snapshot.flushes);
+        assertEquals(2000, snapshot.flushAvg);
+        assertEquals(3000, snapshot.flushMax);
+        assertTrue(snapshot.toString().contains(",flushes:2,flush_avg_us:2000,flush_max_us:3000"));
+        assertTrue(snapshot.packetsPerSecond > 0);
+
+        // the interval values restart - totals do not
+        snapshot = metrics.snapshot(0, 0, false);
+
+        assertEquals(0, snapshot.latencyP50);
+        assertEquals(0, snapshot.processMax);
+        assertEquals(0, snapshot.flushes);
+        assertEquals(0, snapshot.flushMax);
+        assertEquals(0, snapshot.packetsPerSecond, 0);
+        assertEquals(100, snapshot.packetsWritten);
+        assertEquals(12345, snapshot.bytesWritten);
+    }
+}
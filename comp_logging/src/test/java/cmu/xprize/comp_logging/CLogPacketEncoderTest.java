@@ -0,0 +1,139 @@
+package cmu.xprize.comp_logging;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the streaming encoder against the original parseData concatenation on representative
+ * tutor state packets.
+ */
+public class CLogPacketEncoderTest {
+
+    private static final String HEADER = "{\"type\":\"LOG_DATA\",\"tutor\":\"math:1..4_ADD\",\"class\":\"TUTORSTATE\"," +
+                                         "\"tag\":\"TUTOR_STATE\",\"time\":\"1523456789012\",";
+
+    // A typical TAsmComponent.logState packet - scope vars plus the active feature set
+    //
+    private static final String STATE_PACKET = "target#math,node#ASM_MATH_ANIMATOR,event#DATA_NEXT," +
+            "$Problem.text#12+34,$Problem.answer#46,$Problem.value#46,$Problem.dataset#0..50_ADD," +
+            "$Problem.index#3,$Problem.count#10,$Alley.text#alley_1,$Alley.count#2,$Digit.position#1," +
+            "$Digit.value#6,$Result.text#RIGHT,$Result.attempt#1,$Scaffold.level#0,$Audio.prompt#" +
+            "assets/audio/sw/cmu/xprize/asm/add_these,$features#FTR_ADD;FTR_NOREPEAT;FTR_PROMPT;FTR_FIRST";
+
+    private static final String EVENT_PACKET = "target:node.action,view:Sasm,method:nextProblem,wait:true,position:1";
+
+
+    /**
+     * The original parseData implementation - kept here as the reference encoding.
+     */
+    private static String legacyParseData(String dataPacket, String delimiter) {
+
+        String encodedPacket = "{";
+
+        String[] objvalPairs = dataPacket.split(",");
+
+        for(int pair = 0 ; pair < objvalPairs.length ; pair++) {
+
+            String[] objval = objvalPairs[pair].split(delimiter);
+
+            if(objval.length > 1) {
+                encodedPacket = encodedPacket + "\"" + objval[0] + "\":\"" + objval[1] + "\"";
+            }
+            else {
+                encodedPacket = encodedPacket + "\"" + objval[0] + "\":\"" + "<empty>" + "\"";
+            }
+
+            if(pair < objvalPairs.length -1) {
+                encodedPacket = encodedPacket + ",";
+            }
+        }
+        encodedPacket = encodedPacket + "}";
+
+        return encodedPacket;
+    }
+
+    private static String legacyPacket(String data, String delimiter) {
+        return HEADER + "\"data\":" + legacyParseData(data, delimiter) + "},\n";
+    }
+
+    private static String encode(CLogPacketEncoder encoder, String data, char delimiter) {
+
+        encoder.reset();
+        encoder.appendRaw(HEADER).appendRaw("\"data\":").encodeData(data, delimiter).appendRaw("},\n");
+
+        return encoder.toString();
+    }
+
+
+    @Test
+    public void matchesLegacyEncoding() throws Exception {
+
+        CLogPacketEncoder encoder = new CLogPacketEncoder();
+
+        String[] samples = {STATE_PACKET, EVENT_PACKET, "", "a", "a:", "a::c", ":b", "a:b,,c:d", "a:b,", "a:b:c,d"};
+
+        for(String sample : samples) {
+            assertEquals(sample, legacyPacket(sample, ":"), encode(encoder, sample, ':'));
+            assertEquals(sample, legacyPacket(sample, "#"), encode(encoder, sample, '#'));
+        }
+    }
+
+    @Test
+    public void escapesStrings() throws Exception {
+
+        CLogPacketEncoder encoder = new CLogPacketEncoder();
+
+        encoder.encodeData("say:\"hi\",path:c:\\x,tab:a\tb", ':');
+
+        assertEquals("{\"say\":\"\\\"hi\\\"\",\"path\":\"c\",\"tab\":\"a\\tb\"}", encoder.toString());
+
+        encoder.reset();
+        encoder.encodeData("word#ng'ombe,word#\u00e9l\u00e8ve,ctl#\u0001", '#');
+
+        assertEquals("{\"word\":\"ng'ombe\",\"word\":\"\u00e9l\u00e8ve\",\"ctl\":\"\\u0001\"}", encoder.toString());
+    }
+
+    @Test
+    public void growsAndReleasesBuffer() throws Exception {
+
+        CLogPacketEncoder encoder = new CLogPacketEncoder(16);
+
+        StringBuilder big = new StringBuilder();
+        for(int i1 = 0 ; i1 < 20000 ; i1++) {
+            big.append("k").append(i1).append(":v,");
+        }
+        encoder.encodeData(big.toString(), ':');
+
+        assertTrue(encoder.buffer().length > 64 * 1024);
+
+        encoder.reset();
+        assertEquals(0, encoder.size());
+        assertTrue(encoder.buffer().length <= 64 * 1024);
+    }
+
+    @Test
+    public void reusedBufferHoldsOnlyTheCurrentPacket() throws Exception {
+
+        CLogPacketEncoder encoder = new CLogPacketEncoder();
+
+        // Long and short packets in turn - a short packet must not carry bytes of a longer one
+        //
+        String[] samples = {STATE_PACKET, EVENT_PACKET, "", STATE_PACKET, "a:b"};
+
+        for(String sample : samples) {
+
+            byte[] expected = legacyPacket(sample, "#").getBytes("UTF-8");
+
+            encoder.reset();
+            encoder.appendRaw(HEADER).appendRaw("\"data\":").encodeData(sample, '#').appendRaw("},\n");
+
+            assertEquals(expected.length, encoder.size());
+            assertArrayEquals(expected, Arrays.copyOf(encoder.buffer(), encoder.size()));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package cmu.xprize.comp_logging;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Damages log files the ways a crash between writes can and checks they are truncated to the
+ * last complete packet and terminated again.
+ */
+public class CLogRecoveryTest {
+
+    private static final String HEADER  = "{\"RT_log_version\":\"1.0.1\",\"RT_log_data\":[";
+    private static final String PACKET  = "{\"type\":\"LOG_DATA\",\"tutor\":\"math\",\"class\":\"INFO\",\"tag\":\"TAG\",\"time\":\"1\",\"data\":{\"a\":\"b\"}},\n";
+    private static final String RAW     = "{\"type\":\"LOG_DATA\",\"tutor\":\"math\",\"class\":\"ERROR\",\"tag\":\"TAG\",\"time\":\"2\",\"msg\":\"first line\n  at second line\n\"},\n";
+    private static final String END     = CLogManagerBase.TERMINATING_PACKET;
+
+
+    private static File write(String content) throws Exception {
+
+        File file = File.createTempFile("log", TLOG_CONST.JSONLOG);
+        file.deleteOnExit();
+
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(content.getBytes("UTF-8"));
+        out.close();
+
+        return file;
+    }
+
+    private static String read(File file) throws Exception {
+
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        byte[] data = new byte[(int) in.length()];
+        in.readFully(data);
+        in.close();
+
+        return new String(data, "UTF-8");
+    }
+
+    private static void check(String damaged, int result, String repaired) throws Exception {
+
+        File file = write(damaged);
+
+        assertEquals(damaged, result, CLogRecovery.recover(file));
+        assertEquals(damaged, repaired, read(file));
+    }
+
+
+    @Test
+    public void repairsDamagedLogs() throws Exception {
+
+        String intact = HEADER + PACKET + PACKET + END;
+
+        check(intact, CLogRecovery.INTACT, intact);
+        check(HEADER + END, CLogRecovery.INTACT, HEADER + END);
+
+        // packet partially written over the terminator
+        check(HEADER + PACKET + PACKET.substring(0, 20), CLogRecovery.RECOVERED, HEADER + PACKET + END);
+        check(HEADER + PACKET + PACKET.substring(0, 5) + END.substring(5), CLogRecovery.RECOVERED, HEADER + PACKET + END);
+
+        // packets written but the terminator lost - or written twice
+        check(HEADER + PACKET + PACKET, CLogRecovery.RECOVERED, HEADER + PACKET + PACKET + END);
+        check(HEADER + PACKET + END + END, CLogRecovery.RECOVERED, HEADER + PACKET + END);
+
+        // unflushed tail of zeros
+        check(HEADER + PACKET + "\u0000\u0000\u0000", CLogRecovery.RECOVERED, HEADER + PACKET + END);
+
+        // no complete packet - or an incomplete header
+        check(HEADER + PACKET.substring(0, 30), CLogRecovery.RECOVERED, HEADER + END);
+        check(HEADER.substring(0, 10), CLogRecovery.RECOVERED, HEADER + END);
+
+        // raw packets are not escaped - a newline within one is not the end of a packet
+        check(HEADER + PACKET + RAW + PACKET.substring(0, 20), CLogRecovery.RECOVERED, HEADER + PACKET + RAW + END);
+        check(HEADER + PACKET + RAW.substring(0, RAW.indexOf("at second")), CLogRecovery.RECOVERED, HEADER + PACKET + END);
+        check(HEADER + RAW.substring(0, RAW.length() - 3), CLogRecovery.RECOVERED, HEADER + END);
+
+        // empty files are not necessarily logs
+        check("", CLogRecovery.NOT_A_LOG, "");
+        check("[1,2,3]", CLogRecovery.NOT_A_LOG, "[1,2,3]");
+    }
+
+    @Test
+    public void readsOnlyTheTail() throws Exception {
+
+        StringBuilder log = new StringBuilder(HEADER);
+
+        for(int i1 = 0 ; i1 < 50000 ; i1++) {
+            log.append(PACKET);
+        }
+
+        // Damage far from either end is never looked at - only the header and the last
+        // blocks are read, so the middle is left as it was
+        //
+        int middle = log.length() / 2;
+        log.replace(middle, middle + 8, "\u0000\u0000\u0000\u0000\u0000\u0000\u0000\u0000");
+
+        String complete = log.toString();
+
+        File file = write(complete + PACKET.substring(0, 40));
+
+        assertEquals(CLogRecovery.RECOVERED, CLogRecovery.recover(file));
+        assertEquals(complete + END, read(file));
+    }
+}
@@ -0,0 +1,86 @@
+package cmu.xprize.comp_logging;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CLogRingQueueTest {
+
+    @Test
+    public void boundedFifo() throws Exception {
+
+        CLogRingQueue queue = new CLogRingQueue(3);
+        CLogRingQueue.Entry entry = new CLogRingQueue.Entry();
+
+        assertEquals(4, queue.capacity());
+
+        for(int i1 = 0 ; i1 < 4 ; i1++) {
+            assertTrue(queue.offer("p" + i1, null, null, i1));
+        }
+        assertFalse(queue.offer("p4", null, null, 4));
+        assertEquals(4, queue.size());
+
+        assertEquals(0, queue.discardOldest());
+
+        assertTrue(queue.offer("p4", null, null, 4));
+
+        for(int i1 = 1 ; i1 <= 4 ; i1++) {
+            assertTrue(queue.poll(entry));
+            assertEquals("p" + i1, entry.packet);
+            assertEquals(i1, entry.level);
+        }
+        assertFalse(queue.poll(entry));
+        assertEquals(-1, queue.discardOldest());
+    }
+
+    @Test
+    public void multipleProducers() throws Exception {
+
+        final int PRODUCERS = 4;
+        final int PACKETS   = 20000;
+
+        final CLogRingQueue queue = new CLogRingQueue(64);
+
+        Thread[] producers = new Thread[PRODUCERS];
+
+        for(int p1 = 0 ; p1 < PRODUCERS ; p1++) {
+            final String prefix = "t" + p1 + ":";
+
+            producers[p1] = new Thread() {
+                @Override
+                public void run() {
+                    for(int i1 = 0 ; i1 < PACKETS ; i1++) {
+                        while(!queue.offer(prefix + i1, null, null, 4)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            };
+            producers[p1].start();
+        }
+
+        HashSet<String>     seen  = new HashSet<>();
+        int[]               next  = new int[PRODUCERS];
+        CLogRingQueue.Entry entry = new CLogRingQueue.Entry();
+
+        while(seen.size() < PRODUCERS * PACKETS) {
+
+            if(queue.poll(entry)) {
+                assertTrue(seen.add(entry.packet));
+
+                // per producer order is preserved
+                int producer = entry.packet.charAt(1) - '0';
+                assertEquals(next[producer]++, Integer.parseInt(entry.packet.substring(3)));
+            }
+        }
+
+        for(Thread producer : producers) {
+            producer.join();
+        }
+        assertEquals(0, queue.size());
+    }
+}
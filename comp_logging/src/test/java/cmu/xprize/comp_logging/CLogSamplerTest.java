@@ -0,0 +1,66 @@
+package cmu.xprize.comp_logging;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CLogSamplerTest {
+
+    @Test
+    public void tokenBucket() throws Exception {
+
+        CLogSampler sampler = new CLogSampler(10, 3, 0);
+
+        long now = 1000;
+
+        // burst passes - then the bucket is empty
+        for(int i1 = 0 ; i1 < 3 ; i1++) {
+            assertEquals(CLogSampler.EMIT, sampler.offer(2, "m" + i1, now));
+        }
+        assertEquals(CLogSampler.SUPPRESS, sampler.offer(2, "m3", now));
+        assertEquals(CLogSampler.SUPPRESS, sampler.offer(2, "m4", now + 50));
+
+        // one token every 100ms
+        assertEquals(CLogSampler.EMIT, sampler.offer(2, "m5", now + 100));
+        assertEquals(CLogSampler.SUPPRESS, sampler.offer(2, "m6", now + 150));
+
+        assertEquals(3, sampler.takeSuppressed());
+        assertEquals(0, sampler.takeSuppressed());
+
+        // 100 events/s offered for 10s - ~10/s pass
+        int emitted = 0;
+        for(int i1 = 0 ; i1 < 1000 ; i1++) {
+            if(sampler.offer(2, "x", now + 1000 + i1 * 10) == CLogSampler.EMIT) {
+                emitted++;
+            }
+        }
+        assertEquals(102, emitted);
+    }
+
+    @Test
+    public void lastValueWins() throws Exception {
+
+        CLogSampler sampler = new CLogSampler(0, 1, 100);
+
+        assertEquals(CLogSampler.EMIT, sampler.offer(2, "a", 1000));
+        assertEquals(CLogSampler.SCHEDULE, sampler.offer(2, "b", 1010));
+        assertEquals(CLogSampler.DEFER, sampler.offer(4, "c", 1020));
+        assertEquals(CLogSampler.DEFER, sampler.offer(3, "d", 1050));
+
+        assertEquals(50, sampler.flushDelay(1050));
+
+        CLogSampler.Pending pending = sampler.flush(1100);
+
+        assertEquals("d", pending.msg);
+        assertEquals(3, pending.level);
+        assertEquals(2, sampler.takeSuppressed());
+
+        // the trailing value opened a new window
+        assertEquals(CLogSampler.SCHEDULE, sampler.offer(2, "e", 1150));
+        assertEquals("e", sampler.flush(1200).msg);
+
+        assertNull(sampler.flush(1300));
+        assertEquals(CLogSampler.EMIT, sampler.offer(2, "f", 1400));
+    }
+}
@@ -0,0 +1,126 @@
+package cmu.xprize.comp_logging;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round trips performance items through the binary format and checks the reader reproduces the
+ * JSON log the text path writes.
+ */
+public class CPerfLogCodecTest {
+
+    private static final long START = 1523456789012L;
+
+
+    private static PerformanceLogItem item(int i1) {
+
+        PerformanceLogItem item = new PerformanceLogItem();
+
+        item.setTimestamp(START + i1 * 1500);
+        item.setUserId("KEVIN_W_JAN_1");
+        item.setSessionId("2018_04_11_12:00:00");
+        item.setGameId("GAME_" + (i1 / 10));
+        item.setLanguage("LANG_SW");
+        item.setTutorId("math:1..4_ADD");
+        item.setTutorName("math");
+        item.setLevelName("L" + (i1 % 3));
+        item.setTaskName("addition");
+        item.setProblemName("1+" + (i1 % 4));
+        item.setProblemNumber(i1 % 10);
+        item.setSubstepNumber(-1);
+        item.setAttemptNumber(1 + (i1 % 2));
+        item.setExpectedAnswer(String.valueOf(1 + (i1 % 4)));
+        item.setUserResponse((i1 % 7 == 0)? null : "r\u00e9ponse " + i1);
+        item.setCorrectness((i1 % 2 == 0)? "CORRECT" : "INCORRECT");
+        item.setTotalProblemsCount(10);
+
+        return item;
+    }
+
+    /**
+     * What CLogManagerBase writes for postEvent_I(PERFORMANCE_TAG, item.toString())
+     */
+    private static String textPacket(PerformanceLogItem item, String tutor, long time) {
+
+        CLogPacketEncoder encoder = new CLogPacketEncoder();
+
+        encoder.appendRaw("{\"type\":\"LOG_DATA\",\"tutor\":\"" + tutor + "\",\"class\":\"INFO\",\"tag\":\"" +
+                TLOG_CONST.PERFORMANCE_TAG + "\",\"time\":\"" + time + "\",");
+        encoder.appendRaw("\"data\":").encodeData(item.toString(), ':').appendRaw("},\n");
+
+        return encoder.toString();
+    }
+
+
+    @Test
+    public void convertsBackToJSON() throws Exception {
+
+        final int COUNT = 200;
+
+        CPerfLogCodec          codec    = new CPerfLogCodec();
+        ByteArrayOutputStream  binary   = new ByteArrayOutputStream();
+        StringBuilder          expected = new StringBuilder();
+
+        expected.append("{\"RT_log_version\":\"" + CLogManagerBase.LOG_VERSION + "\",\"RT_log_data\":[");
+        binary.write(codec.header());
+
+        for(int i1 = 0 ; i1 < COUNT ; i1++) {
+
+            PerformanceLogItem item  = item(i1);
+            String             tutor = (i1 < 100)? "math:1..4_ADD" : null;
+            long               time  = START + i1 * 1500 + (i1 % 5);
+
+            expected.append(textPacket(item, tutor, time));
+            binary.write(codec.encode(item, tutor, time));
+        }
+        expected.append(CLogManagerBase.TERMINATING_PACKET);
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+
+        assertEquals(COUNT, CPerfLogCodec.toJSON(new ByteArrayInputStream(binary.toByteArray()), json));
+        assertEquals(expected.toString(), json.toString("UTF-8"));
+
+        assertTrue(binary.size() * 5 < json.size());
+    }
+
+    @Test
+    public void valuesAreCapturedWhenTaken() throws Exception {
+
+        PerformanceLogItem item   = item(3);
+        Object[]           values = CPerfLogCodec.values(item);
+        byte[]             posted = new CPerfLogCodec().encode(item, "math", START);
+
+        // The caller reuses the item after posting it
+        //
+        item.setProblemName("changed");
+        item.setAttemptNumber(9);
+        item.setUserResponse("changed");
+
+        assertTrue(Arrays.equals(posted, new CPerfLogCodec().encode(values, "math", START)));
+    }
+
+    @Test
+    public void ignoresTruncatedRecord() throws Exception {
+
+        CPerfLogCodec         codec  = new CPerfLogCodec();
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+
+        binary.write(codec.header());
+        binary.write(codec.encode(item(0), "math", START));
+        binary.write(codec.encode(item(1), "math", START + 1500));
+
+        byte[] record = codec.encode(item(2), "math", START + 3000);
+        binary.write(record, 0, record.length / 2);
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+
+        assertEquals(2, CPerfLogCodec.toJSON(new ByteArrayInputStream(binary.toByteArray()), json));
+        assertTrue(json.toString("UTF-8").endsWith("},\n" + CLogManagerBase.TERMINATING_PACKET));
+    }
+}
@@ -40,6 +40,9 @@ import android.view.View;
 import android.view.View.OnTouchListener;
 import android.widget.LinearLayout;
 
+import cmu.xprize.comp_logging.CLogManager;
+import cmu.xprize.comp_logging.ILogManager;
+import cmu.xprize.comp_logging.TLOG_CONST;
 import cmu.xprize.ltkplus.CRecognizerPlus;
 import cmu.xprize.ltkplus.GCONST;
 import cmu.xprize.ltkplus.CGlyph;
@@ -569,7 +572,10 @@ public class CGlyphInputContainer extends View implements IGlyphSource, OnTouchL
         }
         delta = _time - _prevTime;
 
-        Log.v(GRAPH_MSG, "CGlyphInputContainer.onTouch: Touch Time: " + _time + "  :  " + delta);
+        ILogManager logManager = CLogManager.getInstance();
+
+        if(logManager.isEnabled(TLOG_CONST.GLYPH_TOUCH_TAG, Log.VERBOSE))
+            logManager.postEvent_V(TLOG_CONST.GLYPH_TOUCH_TAG, "CGlyphInputContainer.onTouch: Touch Time: %s  :  %s", _time, delta);
 
         return result;
     }
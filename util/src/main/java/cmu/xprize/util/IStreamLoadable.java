@@ -0,0 +1,32 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.util;
+
+import java.io.IOException;
+
+
+/**
+ * A loadable object that can be filled directly from a JSON_Reader - see JSON_Helper.parseStream
+ *
+ * The reader is positioned either at the start of the object or within it after any names the
+ * caller has already consumed (e.g. "type").  The object must be read through to its end.
+ */
+public interface IStreamLoadable extends ILoadableObject {
+    public void loadJSON(JSON_Reader reader, IScope scope) throws IOException;
+}
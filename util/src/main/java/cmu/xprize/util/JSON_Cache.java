@@ -0,0 +1,246 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.util;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Least recently used cache of parsed JSON specs.
+ *
+ * Entries are keyed by spec path and validated against the modification stamp of the spec
+ * file - so an edited spec is parsed again.  The budget is in bytes of heap - see retainedSize
+ * for the estimate of what a parsed tree holds.  A tree is several times the size of its source
+ * as every key, value and map entry is a separate object.
+ *
+ * The cache only saves parsing at tutor launch - RoboTutor trims it when memory runs low.
+ *
+ * Cached specs are shared between every load of the spec and must be treated as read only.
+ */
+public class JSON_Cache {
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long budget;
+    private long size;
+
+    private int  hits;
+    private int  misses;
+
+
+    private static final class Entry {
+
+        final JSONObject spec;
+        final long       stamp;
+        final long       weight;
+
+        Entry(JSONObject spec, long stamp, long weight) {
+            this.spec   = spec;
+            this.stamp  = stamp;
+            this.weight = weight;
+        }
+    }
+
+
+    public JSON_Cache(long budget) {
+        this.budget = budget;
+    }
+
+
+    /**
+     * @param key
+     * @param stamp modification stamp of the spec
+     * @return the cached spec - null if not cached or the spec has changed since it was cached
+     */
+    public synchronized JSONObject get(String key, long stamp) {
+
+        Entry entry = entries.get(key);
+
+        if(entry != null && entry.stamp != stamp) {
+
+            entries.remove(key);
+            size -= entry.weight;
+            entry = null;
+        }
+
+        if(entry == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.spec;
+    }
+
+
+    /**
+     * @param key
+     * @param stamp
+     * @param spec
+     * @param weight retained size of the spec in bytes - specs larger than the budget are not cached
+     */
+    public synchronized void put(String key, long stamp, JSONObject spec, long weight) {
+
+        Entry prior = entries.remove(key);
+
+        if(prior != null) {
+            size -= prior.weight;
+        }
+
+        if(weight <= budget) {
+
+            entries.put(key, new Entry(spec, stamp, weight));
+            size += weight;
+
+            trim();
+        }
+    }
+
+
+    public synchronized void setBudget(long budget) {
+
+        this.budget = budget;
+        trim();
+    }
+
+
+    public synchronized void clear() {
+
+        entries.clear();
+        size = 0;
+    }
+
+
+    /**
+     * Evict the least recently used specs until the cache holds at most target bytes - the
+     * budget is unchanged so the cache refills as specs are loaded again
+     *
+     * @param target
+     */
+    public synchronized void trimTo(long target) {
+
+        long saved = budget;
+
+        budget = target;
+        trim();
+        budget = saved;
+    }
+
+
+    public synchronized long size() {
+        return size;
+    }
+
+
+    @Override
+    public synchronized String toString() {
+        return String.format("entries:%d,bytes:%d,budget:%d,hits:%d,misses:%d", entries.size(), size, budget, hits, misses);
+    }
+
+
+    /**
+     * Estimate the heap held by a parsed spec - object headers, map entries, array slots and
+     * string data on a 32 bit runtime.  Strings are counted at each use although the parser may
+     * share some of them, so this errs on the high side.
+     *
+     * @param value a JSONObject, JSONArray or value
+     * @return the estimated size in bytes
+     */
+    public static long retainedSize(Object value) {
+
+        if(value instanceof JSONObject) {
+
+            JSONObject object = (JSONObject) value;
+            long       result = JSON_OBJECT + MAP_TABLE_SLOT * tableSize(object.length());
+            Iterator   keys   = object.keys();
+
+            while(keys.hasNext()) {
+
+                String key = (String) keys.next();
+
+                result += MAP_ENTRY + retainedSize(key) + retainedSize(object.opt(key));
+            }
+            return result;
+        }
+        else if(value instanceof JSONArray) {
+
+            JSONArray array  = (JSONArray) value;
+            long      result = JSON_ARRAY + ARRAY_SLOT * array.length();
+
+            for(int i1 = 0 ; i1 < array.length() ; i1++) {
+                result += retainedSize(array.opt(i1));
+            }
+            return result;
+        }
+        else if(value instanceof String) {
+            return STRING + 2 * ((String) value).length();
+        }
+        else if(value instanceof Number) {
+            return BOXED;
+        }
+
+        // Booleans and JSONObject.NULL are shared instances
+        return 0;
+    }
+
+
+    // Heap estimates in bytes
+    //
+    private static final int JSON_OBJECT    = 72;       // JSONObject + LinkedHashMap + table header
+    private static final int MAP_ENTRY      = 40;       // LinkedHashMap entry
+    private static final int MAP_TABLE_SLOT = 4;
+    private static final int JSON_ARRAY     = 48;       // JSONArray + ArrayList + array header
+    private static final int ARRAY_SLOT     = 4;
+    private static final int STRING         = 32;       // String + char array header
+    private static final int BOXED          = 16;
+
+
+    /**
+     * @return the hash table size of a map holding count entries at the default load factor
+     */
+    private static int tableSize(int count) {
+
+        int size = 1;
+
+        while(size * 3 < count * 4) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+
+    /**
+     * Evict the least recently used specs until the cache fits its budget
+     */
+    private void trim() {
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+
+        while(size > budget && eldest.hasNext()) {
+
+            size -= eldest.next().getValue().weight;
+            eldest.remove();
+        }
+    }
+}
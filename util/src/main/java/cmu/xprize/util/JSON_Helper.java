@@ -26,7 +26,7 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -34,8 +34,17 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 
 import cmu.xprize.comp_logging.CErrorManager;
 
@@ -53,6 +62,67 @@ public class JSON_Helper {
 
     static private final String TAG = "JSON_HELPER";
 
+    // Field binding types - resolved once per field when the class binding plan is built
+    //
+    static private final int BIND_STRING      = 0;
+    static private final int BIND_BOOLEAN_OBJ = 1;
+    static private final int BIND_FLOAT       = 2;
+    static private final int BIND_BOOLEAN     = 3;
+    static private final int BIND_LONG        = 4;
+    static private final int BIND_INT         = 5;
+    static private final int BIND_MAP         = 6;
+    static private final int BIND_ARRAY       = 7;
+    static private final int BIND_OBJECT      = 8;
+
+    static private final ConcurrentHashMap<Class<?>, HashMap<String, FieldBinding>> bindingPlans = new ConcurrentHashMap<>();
+
+    static private final JSON_Cache specCache = new JSON_Cache(TCONST.SPEC_CACHE_BUDGET);
+
+    static private volatile boolean mediaMounted = false;
+
+
+    /**
+     * A public field and its resolved binding type.  next chains any other fields of the same
+     * name - i.e. a superclass field hidden by a subclass.
+     */
+    static private final class FieldBinding {
+
+        final Field  field;
+        final int    type;
+        FieldBinding next;
+
+        FieldBinding(Field field, int type) {
+            this.field = field;
+            this.type  = type;
+        }
+    }
+
+
+    /**
+     * State for an object being streamed.  Map elements that use a maptype are held until the
+     * object ends so the map they reference may follow them in the spec.
+     */
+    static private final class StreamContext {
+
+        final JSONObject                   specs      = new JSONObject();      // retained maptype targets
+        final HashSet<String>              referenced = new HashSet<String>();
+        final ArrayList<DeferredMapEntry>  deferred   = new ArrayList<DeferredMapEntry>();
+    }
+
+
+    static private final class DeferredMapEntry {
+
+        final HashMap<String, Object> field_Map;
+        final JSONObject              nJsonObj;
+        final String                  key;
+
+        DeferredMapEntry(HashMap<String, Object> field_Map, JSONObject nJsonObj, String key) {
+            this.field_Map = field_Map;
+            this.nJsonObj  = nJsonObj;
+            this.key       = key;
+        }
+    }
+
 
     public JSON_Helper(AssetManager am, String cs, String ef) {
         set_assetManager(am);
@@ -68,6 +138,10 @@ public class JSON_Helper {
         return _assetManager;
     }
 
+    static public JSON_Cache specCache() {
+        return specCache;
+    }
+
 
     static public String cacheData(String fileName) {
         return cacheData(fileName, _cacheSource);
@@ -79,76 +153,357 @@ public class JSON_Helper {
     }
 
 
+    /**
+     * Read a JSON spec with its // comments removed - lines are joined without separators
+     *
+     * @param fileName
+     * @param localcacheSource
+     * @return the spec text - empty if the spec is not available
+     */
     static public String cacheData(String fileName, String localcacheSource) {
 
-        InputStream in = null;
+        String result = "";
 
-        StringBuilder buffer = new StringBuilder();
-        byte[] databuffer    = new byte[1024];
-        int    count;
+        try {
+            result = stripComments(readData(fileName, localcacheSource));
 
-        String state = Environment.getExternalStorageState();
+        } catch (FileNotFoundException e) {
+            Log.d(TAG, "ERROR: " + e);
 
-        try {
+        } catch (IOException e) {
+            Log.d(TAG, "ERROR: " + e);
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Read the whole spec with a single allocation sized from the spec length
+     */
+    static private String readData(String fileName, String localcacheSource) throws IOException {
+
+        switch(localcacheSource) {
+            case TCONST.EXTERN:
+                return readFile(new File(_externFiles + "/" + fileName));
 
-            if ((Environment.MEDIA_MOUNTED.equals(state)) ||
-                    (Environment.MEDIA_MOUNTED_READ_ONLY.equals(state))) {
+            case TCONST.DEFINED:
+                return readFile(new File(fileName));
 
-                // Cache the JSON Spec -
-                // We can load from Android Assets or from an external file based on the
-                // CacheSource setting
+            default:
+                // Asset streams report the remaining length of the asset - compressed assets
+                // cannot be opened as a file descriptor so we don't use openFd here
                 //
-                switch(localcacheSource) {
-                    case TCONST.ASSETS:
+                InputStream in = openData(fileName, localcacheSource);
 
-                        in = _assetManager.open(fileName);
-                        break;
+                try {
+                    byte[] data   = new byte[Math.max(in.available(), 0)];
+                    int    length = 0;
+                    int    count;
 
-                    case TCONST.EXTERN:
-                        String filePath = _externFiles + "/" + fileName;
+                    while(true) {
 
-                        in = new FileInputStream(filePath);
-                        break;
+                        if(length == data.length) {
 
-                    case TCONST.DEFINED:
-                        in = new FileInputStream(fileName);
-                        break;
-                }
+                            int next = in.read();
 
-                BufferedReader br = new BufferedReader(new InputStreamReader(in));
-                String line = null;
+                            if(next == -1) {
+                                break;
+                            }
+                            data = Arrays.copyOf(data, Math.max(data.length * 2, 1024));
+                            data[length++] = (byte) next;
+                        }
 
-                // Filter Comments out of the json source
-                //
-                while ((line = br.readLine()) != null) {
+                        if((count = in.read(data, length, data.length - length)) == -1) {
+                            break;
+                        }
+                        length += count;
+                    }
+                    return new String(data, 0, length, Charset.defaultCharset());
 
-                    line = line.replaceFirst("//.*$","");
-                    buffer.append(line);
+                } finally {
+                    in.close();
                 }
-                in.close();
+        }
+    }
 
-            } else {
-                Log.d(TAG, "ERROR: SceneDescr - Assets Unavailable.");
+
+    static private String readFile(File file) throws IOException {
+
+        checkMedia();
+
+        FileInputStream in = null;
+
+        try {
+            in = new FileInputStream(file);
+
+            FileChannel channel = in.getChannel();
+            long        size    = channel.size();
+
+            if(size > Integer.MAX_VALUE) {
+                throw new IOException("Spec too large: " + file);
             }
 
-        } catch (FileNotFoundException e) {
-            Log.d(TAG, "ERROR: " + e);
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+
+            while(buffer.hasRemaining() && channel.read(buffer) != -1) {
+            }
+
+            return new String(buffer.array(), 0, buffer.position(), Charset.defaultCharset());
 
         } catch (IOException e) {
-            Log.d(TAG, "ERROR: " + e);
+
+            // the media may have gone away - check again on the next read
+            //
+            mediaMounted = false;
+            throw e;
+
+        } finally {
+            if(in != null) {
+                in.close();
+            }
+        }
+    }
+
+
+    /**
+     * External storage is only queried until it is found mounted - a failed read resets the check
+     */
+    static private void checkMedia() throws IOException {
+
+        if(!mediaMounted) {
+
+            String state = Environment.getExternalStorageState();
+
+            if (!Environment.MEDIA_MOUNTED.equals(state) &&
+                    !Environment.MEDIA_MOUNTED_READ_ONLY.equals(state)) {
+
+                throw new IOException("SceneDescr - Assets Unavailable.");
+            }
+            mediaMounted = true;
+        }
+    }
+
+
+    /**
+     * Filter comments out of the json source - the equivalent of removing "//.*$" from each line
+     * and appending the lines
+     */
+    static String stripComments(String text) {
+
+        StringBuilder buffer = new StringBuilder(text.length());
+        int           length = text.length();
+        int           start  = 0;
+
+        while(start < length) {
+
+            int  end     = start;
+            int  comment = -1;
+            char c       = 0;
+
+            for( ; end < length ; end++) {
+
+                c = text.charAt(end);
+
+                if(c == '\n' || c == '\r') {
+                    break;
+                }
+                if(comment < 0 && c == '/' && end + 1 < length && text.charAt(end + 1) == '/') {
+                    comment = end;
+                }
+            }
+
+            buffer.append(text, start, (comment < 0)? end : comment);
+
+            start = end + 1;
+
+            if(c == '\r' && start < length && text.charAt(start) == '\n') {
+                start++;
+            }
         }
 
         return buffer.toString();
     }
 
 
+    static public JSON_Reader openStream(String fileName) throws IOException {
+        return openStream(fileName, _cacheSource);
+    }
+
+
+    /**
+     * Open a JSON spec for streaming - see parseStream.  The spec is read from the same sources
+     * as cacheData.
+     *
+     * @param fileName
+     * @param localcacheSource
+     * @return a reader the caller must close
+     * @throws IOException if the spec is not available
+     */
+    static public JSON_Reader openStream(String fileName, String localcacheSource) throws IOException {
+
+        return new JSON_Reader(new InputStreamReader(openData(fileName, localcacheSource)));
+    }
+
+
+    static public JSONObject cacheJSON(String fileName) throws IOException, JSONException {
+        return cacheJSON(fileName, _cacheSource);
+    }
+
+
+    /**
+     * Parse a JSON spec - or reuse the spec parsed by an earlier call if the spec file has not
+     * changed since.  See JSON_Cache.
+     *
+     * The returned spec may be shared with other loads and must not be modified.
+     *
+     * @param fileName
+     * @param localcacheSource
+     * @return the parsed spec
+     * @throws IOException if the spec is not available or is not a JSON object
+     */
+    static public JSONObject cacheJSON(String fileName, String localcacheSource) throws IOException, JSONException {
+
+        String     key   = localcacheSource + ":" + fileName;
+        long       stamp = stampData(fileName, localcacheSource);
+        JSONObject spec  = specCache.get(key, stamp);
+
+        if(spec == null) {
+
+            JSON_Reader reader = openStream(fileName, localcacheSource);
+
+            try {
+                if(reader.peek() != JSON_Reader.BEGIN_OBJECT) {
+                    throw new IOException("Expected a JSON object: " + fileName);
+                }
+                spec = (JSONObject) reader.nextValue();
+
+                specCache.put(key, stamp, spec, JSON_Cache.retainedSize(spec));
+
+            } finally {
+                reader.close();
+            }
+        }
+        return spec;
+    }
+
+
+    /**
+     * @return a stamp that changes when the spec file changes - assets are fixed for the life
+     *         of the install
+     */
+    static private long stampData(String fileName, String localcacheSource) {
+
+        File file;
+
+        switch(localcacheSource) {
+            case TCONST.EXTERN:
+                file = new File(_externFiles + "/" + fileName);
+                break;
+
+            case TCONST.DEFINED:
+                file = new File(fileName);
+                break;
+
+            default:
+                return 0;
+        }
+
+        return file.lastModified() * 31 + file.length();
+    }
+
+
+    /**
+     * @param fileName
+     * @return hex SHA-1 of the spec content - null if it cannot be read
+     */
+    static public String hashData(String fileName) {
+
+        InputStream in = null;
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[]        buffer = new byte[8192];
+            int           count;
+
+            in = openData(fileName, _cacheSource);
+
+            while((count = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+
+            StringBuilder hash = new StringBuilder();
+
+            for(byte b : digest.digest()) {
+                hash.append(String.format("%02x", b & 0xff));
+            }
+            return hash.toString();
+
+        } catch (IOException | NoSuchAlgorithmException e) {
+            Log.d(TAG, "ERROR: " + e);
+            return null;
+
+        } finally {
+            if(in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    Log.d(TAG, "ERROR: " + e);
+                }
+            }
+        }
+    }
+
+
+    static private InputStream openData(String fileName, String localcacheSource) throws IOException {
+
+        InputStream in = null;
+
+        switch(localcacheSource) {
+            case TCONST.ASSETS:
+
+                in = _assetManager.open(fileName);
+                break;
+
+            case TCONST.EXTERN:
+                String filePath = _externFiles + "/" + fileName;
+
+                checkMedia();
+                in = openFile(filePath);
+                break;
+
+            case TCONST.DEFINED:
+                checkMedia();
+                in = openFile(fileName);
+                break;
+
+            default:
+                throw new FileNotFoundException("Unknown cache source: " + localcacheSource);
+        }
+
+        return in;
+    }
+
+
+    static private InputStream openFile(String filePath) throws FileNotFoundException {
+
+        try {
+            return new FileInputStream(filePath);
+
+        } catch (FileNotFoundException e) {
+            mediaMounted = false;
+            throw e;
+        }
+    }
+
+
     /**
      * This is called from within an object to parse its own structure from a JSON spec
      * jsonObj is the JSON spec
      *
-     * It iterates over the fields in the root object and initializes fields that are found in the
-     * JSON spec - ignoring missing fields.  Child Objects are created on demand and recursively
-     * initialized from the JSON child/sub-objects.
+     * It iterates over the fields in the JSON spec and initializes the matching fields in the root
+     * object - ignoring spec entries with no matching field.  Child Objects are created on demand
+     * and recursively initialized from the JSON child/sub-objects.
      *
      * Obj is the object itself - so it already exists and its type is known at call time. So this
      * is not used to generate the root object from the spec.
@@ -162,318 +517,667 @@ public class JSON_Helper {
      */
     static public void parseSelf(JSONObject jsonObj, Object self, HashMap<String, Class> classMap, IScope scope) {
 
-        // determine the class of the object that wants to be expanded
-        Class tClass = self.getClass();
+        // The binding plan for the class is built once and reused for every instance loaded -
+        // so we only pay for reflection on the fields the JSON spec actually initializes
+        //
+        HashMap<String, FieldBinding> plan = bindingPlan(self.getClass());
 
-        // get a list of all its fields - we only use public fields here as the use case for this
-        // function is constrained to specific object types -
-        Field[] fields = tClass.getFields();
+        Iterator<?> specKeys = jsonObj.keys();
 
-        if(DBG) {
-            System.out.printf("fields:%d\n", fields.length);
+        while(specKeys.hasNext()) {
+
+            // A name may bind more than one field where a subclass hides a superclass field
+            //
+            for(FieldBinding binding = plan.get((String) specKeys.next()) ; binding != null ; binding = binding.next) {
+                bindField(binding, jsonObj, self, classMap, scope);
+            }
         }
+    }
 
-        // Iterate over all the fields in the object class to see which field have initializer
-        // values in the JSON Image
-        for (Field field : fields) {
 
-            Class<?> fieldClass = field.getType();
-            Class<?> fieldTyoe  = field.getClass();
-            String   className  = fieldClass.toString();
-            String   fieldName  = field.getName();
-            Object   field_obj  = null;
+    /**
+     * Get the binding plan for the public fields of the given class - built on first use
+     *
+     * @param tClass
+     * @return map of field name to binding
+     */
+    static private HashMap<String, FieldBinding> bindingPlan(Class<?> tClass) {
 
-            JSONObject nJsonObj = null;
-            JSONObject nJsonMap;
-            JSONObject cObj;
-            JSONArray  nArr;
+        HashMap<String, FieldBinding> plan = bindingPlans.get(tClass);
 
-            try {
-                // we don't care about the value only whether if there is a field there
-                //TODO: fill out JSONExceptions error messages
-                if(jsonObj.has(fieldName)) {
+        if(plan == null) {
 
-                    // Most of our fields are Strings so handle them as efficiently as possible
-                    if(fieldClass.equals(String.class)) {
+            // we only use public fields here as the use case for this function is constrained
+            // to specific object types -
+            Field[] fields = tClass.getFields();
 
-                        try {
-                            field.set(self, jsonObj.getString(fieldName));
+            if(DBG) {
+                System.out.printf("fields:%d\n", fields.length);
+            }
 
-                        } catch (JSONException e) {
-                            CErrorManager.logEvent(TAG, "field conversion:", e, false);
-                        }
-                    }
+            plan = new HashMap<String, FieldBinding>(fields.length * 2);
 
-                    // Most of our fields are Strings so handle them as efficiently as possible
-                    else if(fieldClass.equals(Boolean.class)) {
+            for (Field field : fields) {
 
-                        try {
-                            field.set(self, jsonObj.getBoolean(fieldName));
+                FieldBinding binding = new FieldBinding(field, bindingType(field.getType()));
+                FieldBinding tail    = plan.get(field.getName());
 
-                        } catch (JSONException e) {
-                            CErrorManager.logEvent(TAG, "field conversion:", e, false);
-                        }
+                // keep shadowed fields in declaration order so they bind as they always have
+                //
+                if(tail == null) {
+                    plan.put(field.getName(), binding);
+                }
+                else {
+                    while(tail.next != null) {
+                        tail = tail.next;
                     }
+                    tail.next = binding;
+                }
+            }
 
-                    // Most of our fields are Strings so handle them as efficiently as possible
-                    else if(className.equals("float")) {
+            HashMap<String, FieldBinding> prior = bindingPlans.putIfAbsent(tClass, plan);
 
-                        try {
-                            field.setFloat(self, Float.parseFloat(jsonObj.getString(fieldName)));
+            if(prior != null) {
+                plan = prior;
+            }
+        }
+        return plan;
+    }
 
-                        } catch (JSONException e) {
-                            CErrorManager.logEvent(TAG, "field conversion:", e, false);
-                        }
-                    }
 
-                    // Most of our fields are Strings so handle them as efficiently as possible
-                    else if(className.equals("boolean")) {
+    static private int bindingType(Class<?> fieldClass) {
 
-                        try {
-                            field.set(self, jsonObj.getBoolean(fieldName));
+        String className = fieldClass.toString();
 
-                        } catch (JSONException e) {
-                            CErrorManager.logEvent(TAG, "field conversion:", e, false);
-                        }
-                    }
+        if(fieldClass.equals(String.class))        return BIND_STRING;
+        else if(fieldClass.equals(Boolean.class))  return BIND_BOOLEAN_OBJ;
+        else if(className.equals("float"))         return BIND_FLOAT;
+        else if(className.equals("boolean"))       return BIND_BOOLEAN;
+        else if(className.equals("long"))          return BIND_LONG;
+        else if(className.equals("int"))           return BIND_INT;
+        else if(fieldClass.equals(HashMap.class))  return BIND_MAP;
+        else if(fieldClass.isArray())              return BIND_ARRAY;
+        else                                       return BIND_OBJECT;
+    }
 
-                    // Most of our fields are Strings so handle them as efficiently as possible
-                    //else if(fieldClass.equals(Long.class)) {
-                    else if(className.equals("long")) {
 
-                        try {
-                            field.set(self, jsonObj.getLong(fieldName));
+    /**
+     * Initialize a single field from its entry in the JSON spec
+     */
+    static private void bindField(FieldBinding binding, JSONObject jsonObj, Object self, HashMap<String, Class> classMap, IScope scope) {
 
-                        } catch (JSONException e) {
-                            CErrorManager.logEvent(TAG, "field conversion:", e, false);
-                        }
-                    }
+        Field    field      = binding.field;
+        Class<?> fieldClass = field.getType();
+        String   fieldName  = field.getName();
+        Object   field_obj  = null;
 
-                    // Most of our fields are Strings so handle them as efficiently as possible
-                    //else if(fieldClass.equals(Integer.class)) {
-                    else if(className.equals("int")) {
-                        try {
-                            field.set(self, jsonObj.getInt(fieldName));
+        JSONObject nJsonObj = null;
+        JSONArray  nArr;
 
-                        } catch (JSONException e) {
-                            CErrorManager.logEvent(TAG, "field conversion:", e, false);
-                        }
-                    }
+        try {
+            //TODO: fill out JSONExceptions error messages
 
-                    // Our hash maps are assumed to always be of the form <String, ?>
-                    // where ? is resolved through the "type" field of the Map element
-                    else  if (fieldClass.equals(HashMap.class)) {
 
-                        nJsonObj = jsonObj.getJSONObject(fieldName);
+            // Most of our fields are Strings so handle them as efficiently as possible
+            if(binding.type == BIND_STRING) {
 
-                        HashMap<String, Object> field_Map = new HashMap<String, Object>();
+                try {
+                    field.set(self, jsonObj.getString(fieldName));
 
-                        field.set(self,field_Map);
+                } catch (JSONException e) {
+                    CErrorManager.logEvent(TAG, "field conversion:", e, false);
+                }
+            }
 
-                        Iterator<?> keys = nJsonObj.keys();
+            // Most of our fields are Strings so handle them as efficiently as possible
+            else if(binding.type == BIND_BOOLEAN_OBJ) {
 
-                        // DEBUG
+                try {
+                    field.set(self, jsonObj.getBoolean(fieldName));
+
+                } catch (JSONException e) {
+                    CErrorManager.logEvent(TAG, "field conversion:", e, false);
+                }
+            }
+
+            // Most of our fields are Strings so handle them as efficiently as possible
+            else if(binding.type == BIND_FLOAT) {
+
+                try {
+                    field.setFloat(self, Float.parseFloat(jsonObj.getString(fieldName)));
+
+                } catch (JSONException e) {
+                    CErrorManager.logEvent(TAG, "field conversion:", e, false);
+                }
+            }
+
+            // Most of our fields are Strings so handle them as efficiently as possible
+            else if(binding.type == BIND_BOOLEAN) {
+
+                try {
+                    field.set(self, jsonObj.getBoolean(fieldName));
+
+                } catch (JSONException e) {
+                    CErrorManager.logEvent(TAG, "field conversion:", e, false);
+                }
+            }
+
+            // Most of our fields are Strings so handle them as efficiently as possible
+            else if(binding.type == BIND_LONG) {
+
+                try {
+                    field.set(self, jsonObj.getLong(fieldName));
+
+                } catch (JSONException e) {
+                    CErrorManager.logEvent(TAG, "field conversion:", e, false);
+                }
+            }
+
+            // Most of our fields are Strings so handle them as efficiently as possible
+            else if(binding.type == BIND_INT) {
+                try {
+                    field.set(self, jsonObj.getInt(fieldName));
+
+                } catch (JSONException e) {
+                    CErrorManager.logEvent(TAG, "field conversion:", e, false);
+                }
+            }
+
+            // Our hash maps are assumed to always be of the form <String, ?>
+            // where ? is resolved through the "type" field of the Map element
+            else if(binding.type == BIND_MAP) {
+
+                nJsonObj = jsonObj.getJSONObject(fieldName);
+
+                HashMap<String, Object> field_Map = new HashMap<String, Object>();
+
+                field.set(self,field_Map);
+
+                Iterator<?> keys = nJsonObj.keys();
+
+                // DEBUG
 //                        if(fieldName.equals("stimulus_map")) {
 //                            Log.i(TAG, "THERE");
 //                        }
 
-                        // You can have a global hash RH type where you defince the Right hand type once
-                        // This permits native types - i.e. arrays etc on the RH side.
-                        // Note that type info gets lost in the compile so it is not available for introspection
-                        // Check for global type
-
-                        Class<?> elemClass   = null;
-                        String   classType   = null;
-                        boolean  globalType  = false;
-                        boolean  isPrimitive = false;
-
-                        if(nJsonObj.has("type")) {
-                            try {
-                                classType = nJsonObj.getString("type");
-                                elemClass = classMap.get(classType);
-                                isPrimitive = !elemClass.isPrimitive();
-                                globalType = true;
-                            }
-                            catch (Exception e) {
-                                CErrorManager.logEvent(TAG, "ERROR: no ClassMap defined for: " + classType + "  >> ", e, true);
-                            }
-                        }
+                // You can have a global hash RH type where you defince the Right hand type once
+                // This permits native types - i.e. arrays etc on the RH side.
+                // Note that type info gets lost in the compile so it is not available for introspection
+                // Check for global type
+
+                Class<?> elemClass   = null;
+                String   classType   = null;
+                boolean  globalType  = false;
+                boolean  isPrimitive = false;
+
+                if(nJsonObj.has("type")) {
+                    try {
+                        classType = nJsonObj.getString("type");
+                        elemClass = classMap.get(classType);
+                        isPrimitive = !elemClass.isPrimitive();
+                        globalType = true;
+                    }
+                    catch (Exception e) {
+                        CErrorManager.logEvent(TAG, "ERROR: no ClassMap defined for: " + classType + "  >> ", e, true);
+                    }
+                }
 
-                        while(keys.hasNext() ) {
+                while(keys.hasNext() ) {
 
-                            String key  = (String)keys.next();
-                            Object eObj = null;
+                    String key  = (String)keys.next();
 
-                            // DEBUG
+                    // DEBUG
 //                            if(key.equals("LANG_SW")) {
 //                                Log.i(TAG, "THERE");
 //                            }
 
-                            // Throw away comment fields
-                            if(!key.equals("COMMENT") && !key.equals("type")) {
+                    // Throw away comment fields
+                    if(!key.equals("COMMENT") && !key.equals("type")) {
+
+                        bindMapEntry(jsonObj, nJsonObj, key, elemClass, globalType, isPrimitive, field_Map, self, classMap, scope);
+                    }
+                }
+            }
+
+            else {
+                // Treat arrays uniquely - arrays can be of a single class or a mixture
+                // of subclasses of the array component type.  Mixtures must be identified
+                // by "type" fields within the array element json declaration.
+                //
+                if(binding.type == BIND_ARRAY) {
+
+                    // uhq
+                    // Get the array on the 1st dimension for the field (attribute)
+                    try {
+                        nArr = jsonObj.getJSONArray(fieldName);
+                        Class<?> elemClass = fieldClass.getComponentType();
+                        Object field_Array = Array.newInstance(elemClass, nArr.length());
+                        field.set(self, parseArray(jsonObj, self, classMap, scope, nArr, elemClass, field_Array));
+                    } catch(Exception e){
+                        JSONArray emptyArray = new JSONArray();
+                        Object field_Array = Array.newInstance(String.class, 0);
+                        field.set(self, parseArray(jsonObj, self, classMap, scope, emptyArray, String.class, field_Array));
+                    }
+
+                }
+
+                // otherwise assume it is a discrete object of ILoadable type
+                else {
+                    try {
+                        if(DBG) {
+                            System.out.printf("class type:%s\n", fieldName);
+                        }
+                        field_obj = fieldClass.newInstance();
+
+                        nJsonObj = jsonObj.getJSONObject(fieldName);
+
+                        ((ILoadableObject)field_obj).loadJSON(nJsonObj, scope);
 
-                                if(DBG) {
-                                    Log.d(TAG, "Inflating Object: " + key);
-                                }
+                        field.set(self, field_obj);
 
-                                JSONObject elem = null;
+                    } catch (JSONException e) {
+                    }
+                }
+            }
 
-                                if(isPrimitive) {
-                                    if (elemClass.isArray()) {
+        } catch (Exception e) {
+
+            CErrorManager.logEvent(TAG, "ERROR: parseSelf:", e, true);
+
+        }
+    }
+
+
+    /**
+     * Create and load a single HashMap element - see the HashMap binding in bindField
+     *
+     * @param jsonObj   the JSON spec of the object that owns the map - maptype lookups
+     * @param nJsonObj  the JSON spec of the map
+     */
+    static private void bindMapEntry(JSONObject jsonObj, JSONObject nJsonObj, String key, Class<?> elemClass, boolean globalType, boolean isPrimitive,
+                                     HashMap<String, Object> field_Map, Object self, HashMap<String, Class> classMap, IScope scope) throws Exception {
+
+        JSONObject nJsonMap;
+        JSONArray  nArr;
+        Object     eObj = null;
+
+        if(DBG) {
+            Log.d(TAG, "Inflating Object: " + key);
+        }
+
+        JSONObject elem = null;
+
+        if(isPrimitive) {
+            if (elemClass.isArray()) {
 //
 //                                        Log.d(TAG, "here");
 //
-                                        // TODO: This is an experimental implemenation to allow arrays on the right side of HashMaps.
-                                        // TODO: Validate
-                                        //
-
-                                        // Get the array on the 1st dimension for the field (attribute)
-                                        nArr = nJsonObj.getJSONArray(key);
-
-                                        Class<?> compClass = elemClass.getComponentType();
-
-                                        eObj = Array.newInstance(compClass, nArr.length());
-
-                                        parseArray(nJsonObj, self, classMap, scope, nArr, compClass, eObj);
-
-                                        field_Map.put(key, eObj);
-                                    }
-                                }
-                                else {
-                                    elem = nJsonObj.getJSONObject(key);
-
-                                    // maptype is a convenience construct -
-                                    // If there is a maptype then the node has it's instance data
-                                    // partially or completely defined in a HashMap object that is in
-                                    // a separate JSON construct to allow reuse in multiple nodes
-                                    // or simply to make the JSON easier to read.
-                                    //
-                                    // For each "maptype" there is a named json Map construct
-                                    // (e.g. "maptype":"moduleMap") "moduleMap" is assumed to exist
-                                    // on the parent JSONobject.  For each node with a maptype there
-                                    // is an associated "mapname" which defines the element to use
-                                    // in the object creation.  Note that the mapType is assumed to be
-                                    // either a "graph_node" or subclass thereof.
-                                    //
-                                    if (elem.has("maptype")) {
-
-                                        // Note that if there has a "maptype" then it's actual type
-                                        // is found in the "type" field of the mapped object.
-                                        // i.e. parentjsonobj.maptype.mapname.type
-                                        //
-                                        nJsonMap = jsonObj.getJSONObject(elem.getString("maptype"));
-                                        JSONObject mapElem = nJsonMap.getJSONObject(elem.getString("mapname"));
-
-                                        // mapped types should always determine the per instance type
-                                        //
-                                        elemClass = classMap.get(mapElem.getString("type"));
-
-                                        if(DBG) {
-                                            System.out.printf("class type:%s\n", elemClass.getName());
-                                        }
-                                        eObj = elemClass.newInstance();
-
-                                        // First load the shared instance info in the map
-                                        ((ILoadableObject) eObj).loadJSON(mapElem, scope);
-                                    } else {
-                                        try {
-                                            // If not using a global type then determine the per instance type
-                                            //
-                                            if (!globalType)
-                                                elemClass = classMap.get(elem.getString("type"));
-
-                                            if(DBG) {
-                                                System.out.printf("class type:%s\n", elemClass.getName());
-                                            }
-                                            eObj = elemClass.newInstance();
-
-                                        } catch (Exception e) {
-                                            CErrorManager.logEvent(TAG, "Check Syntax on Element: " + key + " : ", e, false);
-                                        }
-                                    }
-
-                                    // Load the base instance data whether or not it has a mapped
-                                    // link.  There may or may not be any data here. But note that
-                                    // it will override any info in the map instance data.
-
-                                    ((ILoadableObject) eObj).loadJSON(elem, scope);
-
-                                    // Initialize graph mode types - define novar on data that shouldn't have a scope
-                                    // variable name - e.g. embedded audio in CAsk_data
-                                    //
-                                    if (eObj instanceof IScriptable && !elem.has("novar")) {
-
-                                        // Associate the node with its Map name
-                                        // This overrides any names assigned in the subtype spec
-                                        ((IScriptable) eObj).setName(key);
-
-                                        // Add the new object to the scope - if it is a scoped object
-                                        // it may just be a data source etc.
-
-                                        if (scope != null) {
-                                            scope.put(key, (IScriptable) eObj);
-                                            if(DBG) {
-                                                Log.i(TAG, "Adding to scope: " + key);
-                                            }
-                                        }
-                                    }
-
-                                    // Add the entry to the HashMap
-                                    //
-                                    field_Map.put(key, eObj);
-                                }
-                            }
-                        }
-                    }
+                // TODO: This is an experimental implemenation to allow arrays on the right side of HashMaps.
+                // TODO: Validate
+                //
 
-                    else {
-                        // Treat arrays uniquely - arrays can be of a single class or a mixture
-                        // of subclasses of the array component type.  Mixtures must be identified
-                        // by "type" fields within the array element json declaration.
-                        //
-                        if (fieldClass.isArray()) {
-
-                            // uhq
-                            // Get the array on the 1st dimension for the field (attribute)
-                            try {
-                                nArr = jsonObj.getJSONArray(fieldName);
-                                Class<?> elemClass = fieldClass.getComponentType();
-                                Object field_Array = Array.newInstance(elemClass, nArr.length());
-                                field.set(self, parseArray(jsonObj, self, classMap, scope, nArr, elemClass, field_Array));
-                            } catch(Exception e){
-                                JSONArray emptyArray = new JSONArray();
-                                Object field_Array = Array.newInstance(String.class, 0);
-                                field.set(self, parseArray(jsonObj, self, classMap, scope, emptyArray, String.class, field_Array));
-                            }
+                // Get the array on the 1st dimension for the field (attribute)
+                nArr = nJsonObj.getJSONArray(key);
 
-                        }
+                Class<?> compClass = elemClass.getComponentType();
 
-                        // otherwise assume it is a discrete object of ILoadable type
-                        else {
-                            try {
-                                if(DBG) {
-                                    System.out.printf("class type:%s\n", fieldName);
-                                }
-                                field_obj = fieldClass.newInstance();
+                eObj = Array.newInstance(compClass, nArr.length());
 
-                                nJsonObj = jsonObj.getJSONObject(fieldName);
+                parseArray(nJsonObj, self, classMap, scope, nArr, compClass, eObj);
 
-                                ((ILoadableObject)field_obj).loadJSON(nJsonObj, scope);
+                field_Map.put(key, eObj);
+            }
+        }
+        else {
+            elem = nJsonObj.getJSONObject(key);
+
+            // maptype is a convenience construct -
+            // If there is a maptype then the node has it's instance data
+            // partially or completely defined in a HashMap object that is in
+            // a separate JSON construct to allow reuse in multiple nodes
+            // or simply to make the JSON easier to read.
+            //
+            // For each "maptype" there is a named json Map construct
+            // (e.g. "maptype":"moduleMap") "moduleMap" is assumed to exist
+            // on the parent JSONobject.  For each node with a maptype there
+            // is an associated "mapname" which defines the element to use
+            // in the object creation.  Note that the mapType is assumed to be
+            // either a "graph_node" or subclass thereof.
+            //
+            if (elem.has("maptype")) {
+
+                // Note that if there has a "maptype" then it's actual type
+                // is found in the "type" field of the mapped object.
+                // i.e. parentjsonobj.maptype.mapname.type
+                //
+                nJsonMap = jsonObj.getJSONObject(elem.getString("maptype"));
+                JSONObject mapElem = nJsonMap.getJSONObject(elem.getString("mapname"));
 
-                                field.set(self, field_obj);
+                // mapped types should always determine the per instance type
+                //
+                elemClass = classMap.get(mapElem.getString("type"));
 
-                            } catch (JSONException e) {
-                            }
-                        }
+                if(DBG) {
+                    System.out.printf("class type:%s\n", elemClass.getName());
+                }
+                eObj = elemClass.newInstance();
+
+                // First load the shared instance info in the map
+                ((ILoadableObject) eObj).loadJSON(mapElem, scope);
+            } else {
+                try {
+                    // If not using a global type then determine the per instance type
+                    //
+                    if (!globalType)
+                        elemClass = classMap.get(elem.getString("type"));
+
+                    if(DBG) {
+                        System.out.printf("class type:%s\n", elemClass.getName());
                     }
+                    eObj = elemClass.newInstance();
+
+                } catch (Exception e) {
+                    CErrorManager.logEvent(TAG, "Check Syntax on Element: " + key + " : ", e, false);
                 }
+            }
+
+            // Load the base instance data whether or not it has a mapped
+            // link.  There may or may not be any data here. But note that
+            // it will override any info in the map instance data.
+
+            ((ILoadableObject) eObj).loadJSON(elem, scope);
+
+            addMapEntry(field_Map, key, eObj, elem.has("novar"), scope);
+        }
+    }
+
+
+    static private void addMapEntry(HashMap<String, Object> field_Map, String key, Object eObj, boolean novar, IScope scope) {
+
+        // Initialize graph mode types - define novar on data that shouldn't have a scope
+        // variable name - e.g. embedded audio in CAsk_data
+        //
+        if (eObj instanceof IScriptable && !novar) {
+
+            // Associate the node with its Map name
+            // This overrides any names assigned in the subtype spec
+            ((IScriptable) eObj).setName(key);
+
+            // Add the new object to the scope - if it is a scoped object
+            // it may just be a data source etc.
+
+            if (scope != null) {
+                scope.put(key, (IScriptable) eObj);
+                if(DBG) {
+                    Log.i(TAG, "Adding to scope: " + key);
+                }
+            }
+        }
+
+        // Add the entry to the HashMap
+        //
+        field_Map.put(key, eObj);
+    }
+
+
+    /**
+     * The streaming alternative to parseSelf - fills the fields of self directly from a JSON_Reader
+     * so the spec never has to be held as a String or a full JSONObject tree.
+     *
+     * It follows the parseSelf semantics.  HashMaps are streamed an element at a time - elements
+     * are materialized and passed to the element's loadJSON(JSONObject) unless the element names
+     * its "type" first and that type is an IStreamLoadable, in which case it is streamed as well.
+     * Object fields of an IStreamLoadable type are streamed.  Everything else is materialized and
+     * bound by parseSelf.
+     *
+     * Limits relative to parseSelf - a global map "type" must precede the map elements, and a
+     * maptype target must follow the first element that references it, unless it is not itself a
+     * field (maptype targets are otherwise consumed as they are bound).  Streamed elements may not
+     * use a maptype.
+     *
+     * The reader may be positioned at the object or within it.  The object is read through to its
+     * end.
+     *
+     * @param reader
+     * @param self
+     * @param classMap
+     * @param scope
+     * @throws IOException on a read or syntax error
+     */
+    static public void parseStream(JSON_Reader reader, Object self, HashMap<String, Class> classMap, IScope scope) throws IOException {
+
+        HashMap<String, FieldBinding> plan    = bindingPlan(self.getClass());
+        StreamContext                 context = new StreamContext();
+
+        if(reader.peek() == JSON_Reader.BEGIN_OBJECT) {
+            reader.beginObject();
+        }
+
+        try {
+            while(reader.hasNext()) {
+
+                String       name    = reader.nextName();
+                FieldBinding binding = plan.get(name);
+
+                // Note the element markers for the caller - see streamMapElement
+                //
+                if(name.equals("novar")) {
+                    reader.flags |= JSON_Reader.NOVAR;
+                }
+                else if(name.equals("maptype")) {
+                    reader.flags |= JSON_Reader.MAPTYPE;
+                }
+
+                if(context.referenced.contains(name)) {
+
+                    context.specs.put(name, reader.nextValue());
+                    bindValue(binding, context.specs, self, classMap, scope);
+                }
+                else if(binding == null) {
+                    reader.skipValue();
+                }
+                else if(binding.next == null && binding.type == BIND_MAP && reader.peek() == JSON_Reader.BEGIN_OBJECT) {
+                    streamMap(reader, binding.field, self, context, classMap, scope);
+                }
+                else if(binding.next == null && binding.type == BIND_OBJECT && reader.peek() == JSON_Reader.BEGIN_OBJECT &&
+                        IStreamLoadable.class.isAssignableFrom(binding.field.getType())) {
+                    streamObject(reader, binding.field, self, scope);
+                }
+                else {
+                    context.specs.put(name, reader.nextValue());
+                    bindValue(binding, context.specs, self, classMap, scope);
+                    context.specs.remove(name);
+                }
+            }
+            reader.endObject();
+
+        } catch (JSONException e) {
+            throw new IOException(e.toString());
+        }
+
+        // Bind any maptype elements now their targets are known
+        //
+        for(DeferredMapEntry entry : context.deferred) {
+
+            try {
+                bindMapEntry(context.specs, entry.nJsonObj, entry.key, null, false, false, entry.field_Map, self, classMap, scope);
+
+            } catch (Exception e) {
+                CErrorManager.logEvent(TAG, "ERROR: parseStream: maptype element: " + entry.key + " : ", e, true);
+            }
+        }
+    }
+
+
+    static private void bindValue(FieldBinding binding, JSONObject jsonObj, Object self, HashMap<String, Class> classMap, IScope scope) {
+
+        for( ; binding != null ; binding = binding.next) {
+            bindField(binding, jsonObj, self, classMap, scope);
+        }
+    }
+
+
+    static private void streamObject(JSON_Reader reader, Field field, Object self, IScope scope) throws IOException {
+
+        Object field_obj;
+
+        try {
+            field_obj = field.getType().newInstance();
+
+        } catch (Exception e) {
+            CErrorManager.logEvent(TAG, "ERROR: parseStream:", e, true);
+            reader.skipValue();
+            return;
+        }
+
+        int flags = reader.flags;
+
+        ((IStreamLoadable) field_obj).loadJSON(reader, scope);
+
+        reader.flags = flags;
+
+        try {
+            field.set(self, field_obj);
+
+        } catch (IllegalAccessException e) {
+            CErrorManager.logEvent(TAG, "ERROR: parseStream:", e, true);
+        }
+    }
+
+
+    /**
+     * Stream a HashMap field - see the HashMap binding in bindField
+     */
+    static private void streamMap(JSON_Reader reader, Field field, Object self, StreamContext context, HashMap<String, Class> classMap, IScope scope) throws IOException, JSONException {
+
+        HashMap<String, Object> field_Map = new HashMap<String, Object>();
+
+        Class<?> elemClass   = null;
+        boolean  globalType  = false;
+        boolean  isPrimitive = false;
+        boolean  failed      = false;
+
+        try {
+            field.set(self, field_Map);
+
+        } catch (IllegalAccessException e) {
+            CErrorManager.logEvent(TAG, "ERROR: parseStream:", e, true);
+            failed = true;
+        }
+
+        reader.beginObject();
+
+        while(reader.hasNext()) {
+
+            String key = reader.nextName();
+
+            // Throw away comment fields - and the rest of the map after a failure as parseSelf does
+            //
+            if(failed || key.equals("COMMENT")) {
+                reader.skipValue();
+                continue;
+            }
+
+            if(key.equals("type")) {
+
+                String classType = reader.nextString();
+
+                try {
+                    elemClass   = classMap.get(classType);
+                    isPrimitive = !elemClass.isPrimitive();
+                    globalType  = true;
+                }
+                catch (Exception e) {
+                    CErrorManager.logEvent(TAG, "ERROR: no ClassMap defined for: " + classType + "  >> ", e, true);
+                }
+                continue;
+            }
+
+            try {
+                if(!globalType && reader.peek() == JSON_Reader.BEGIN_OBJECT) {
+                    streamMapElement(reader, key, field_Map, self, context, classMap, scope);
+                }
+                else {
+                    JSONObject holder = new JSONObject();
+                    holder.put(key, reader.nextValue());
+
+                    bindMapEntry(context.specs, holder, key, elemClass, globalType, isPrimitive, field_Map, self, classMap, scope);
+                }
+
+            } catch (IOException e) {
+                throw e;
 
             } catch (Exception e) {
+                CErrorManager.logEvent(TAG, "ERROR: parseStream:", e, true);
+                failed = true;
+            }
+        }
+        reader.endObject();
+    }
+
+
+    static private void streamMapElement(JSON_Reader reader, String key, HashMap<String, Object> field_Map, Object self, StreamContext context,
+                                         HashMap<String, Class> classMap, IScope scope) throws Exception {
+
+        JSONObject elem      = new JSONObject();
+        Class<?>   elemClass = null;
+
+        reader.beginObject();
 
-                CErrorManager.logEvent(TAG, "ERROR: parseSelf:", e, true);
+        if(reader.hasNext()) {
 
+            String name  = reader.nextName();
+            Object value = reader.nextValue();
+
+            elem.put(name, value);
+
+            if(name.equals("type")) {
+                elemClass = classMap.get(String.valueOf(value));
             }
         }
+
+        // Stream the rest of the element when the type allows
+        //
+        if(elemClass != null && IStreamLoadable.class.isAssignableFrom(elemClass)) {
+
+            Object eObj = elemClass.newInstance();
+
+            bindValue(bindingPlan(elemClass).get("type"), elem, eObj, classMap, scope);
+
+            int flags = reader.flags;
+            reader.flags = 0;
+
+            ((IStreamLoadable) eObj).loadJSON(reader, scope);
+
+            boolean novar   = (reader.flags & JSON_Reader.NOVAR) != 0;
+            boolean maptype = (reader.flags & JSON_Reader.MAPTYPE) != 0;
+
+            reader.flags = flags;
+
+            if(maptype) {
+                CErrorManager.logEvent(TAG, "ERROR: maptype ignored on streamed element: " + key, false);
+            }
+
+            addMapEntry(field_Map, key, eObj, novar, scope);
+            return;
+        }
+
+        reader.readObjectInto(elem);
+
+        JSONObject holder = new JSONObject();
+        holder.put(key, elem);
+
+        // Hold maptype elements until their target has been read
+        //
+        if(elem.has("maptype") && !context.specs.has(elem.getString("maptype"))) {
+
+            context.referenced.add(elem.getString("maptype"));
+
+            context.deferred.add(new DeferredMapEntry(field_Map, holder, key));
+            return;
+        }
+
+        bindMapEntry(context.specs, holder, key, null, false, false, field_Map, self, classMap, scope);
     }
 
 
@@ -0,0 +1,578 @@
+//*********************************************************************************
+//
+//    Copyright(c) 2016-2017  Kevin Willows All Rights Reserved
+//
+//    Licensed under the Apache License, Version 2.0 (the "License");
+//    you may not use this file except in compliance with the License.
+//    You may obtain a copy of the License at
+//
+//    http://www.apache.org/licenses/LICENSE-2.0
+//
+//    Unless required by applicable law or agreed to in writing, software
+//    distributed under the License is distributed on an "AS IS" BASIS,
+//    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//    See the License for the specific language governing permissions and
+//    limitations under the License.
+//
+//*********************************************************************************
+
+package cmu.xprize.util;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+
+/**
+ * Pull parser for the JSON spec files.
+ *
+ * Accepts the same relaxed syntax as the org.json tokener our specs are written against -
+ * i.e. //, /* and # comments, single quoted or unquoted strings, ':' '=' or '=>' name
+ * separators and ',' or ';' value separators.  Trailing separators are ignored.
+ *
+ * Values read with nextValue are returned as org.json types (String, Boolean, Integer, Long,
+ * Double, JSONObject.NULL) and objects/arrays are materialized as JSONObject/JSONArray - so
+ * a loader can stream the large containers and hand the small elements to the existing
+ * loadJSON(JSONObject) code.
+ */
+public class JSON_Reader implements Closeable {
+
+    public static final int BEGIN_OBJECT = 1;
+    public static final int END_OBJECT   = 2;
+    public static final int BEGIN_ARRAY  = 3;
+    public static final int END_ARRAY    = 4;
+    public static final int NAME         = 5;
+    public static final int VALUE        = 6;
+    public static final int END_DOCUMENT = 7;
+
+    // Element markers noted by JSON_Helper.parseStream for the object being streamed
+    //
+    static final int NOVAR   = 0x1;
+    static final int MAPTYPE = 0x2;
+
+    int flags;
+
+    private static final int IN_OBJECT = 1;
+    private static final int IN_ARRAY  = 2;
+
+    private final Reader  in;
+    private final char[]  buffer = new char[8192];
+    private int           pos;
+    private int           limit;
+    private long          consumed;
+    private int           line   = 1;
+
+    private int[]         stack  = new int[32];
+    private int           depth  = 0;
+    private boolean       needSeparator;
+    private boolean       needValue;
+
+    private final StringBuilder text = new StringBuilder();
+
+
+    public JSON_Reader(Reader in) {
+        this.in = in;
+    }
+
+
+    /**
+     * @return the kind of the next token - NAME is only returned within an object where a
+     *         name is expected
+     */
+    public int peek() throws IOException {
+
+        int c = peekClean();
+
+        switch(c) {
+            case -1:  return END_DOCUMENT;
+            case '{': return BEGIN_OBJECT;
+            case '}': return END_OBJECT;
+            case '[': return BEGIN_ARRAY;
+            case ']': return END_ARRAY;
+        }
+        return (depth > 0 && stack[depth - 1] == IN_OBJECT && !needValue)? NAME : VALUE;
+    }
+
+
+    public boolean hasNext() throws IOException {
+
+        int c = peekClean();
+
+        return c != '}' && c != ']' && c != -1;
+    }
+
+
+    public void beginObject() throws IOException {
+
+        expect('{');
+        push(IN_OBJECT);
+    }
+
+
+    public void endObject() throws IOException {
+
+        expect('}');
+        pop(IN_OBJECT);
+    }
+
+
+    public void beginArray() throws IOException {
+
+        expect('[');
+        push(IN_ARRAY);
+    }
+
+
+    public void endArray() throws IOException {
+
+        expect(']');
+        pop(IN_ARRAY);
+    }
+
+
+    public String nextName() throws IOException {
+
+        if(peek() != NAME) {
+            throw syntaxError("Expected a name");
+        }
+
+        String name = String.valueOf(readScalar());
+
+        int c = nextClean();
+
+        if(c == '=') {
+            if(read() != '>') {
+                unread();
+            }
+        }
+        else if(c != ':') {
+            throw syntaxError("Expected ':' after " + name);
+        }
+
+        needSeparator = false;
+        needValue     = true;
+
+        return name;
+    }
+
+
+    /**
+     * @return the next value - objects and arrays are read in full
+     */
+    public Object nextValue() throws IOException, JSONException {
+
+        switch(peekClean()) {
+            case '{':
+                JSONObject object = new JSONObject();
+
+                beginObject();
+                readObjectInto(object);
+                return object;
+
+            case '[':
+                JSONArray array = new JSONArray();
+
+                beginArray();
+                while(hasNext()) {
+                    array.put(nextValue());
+                }
+                endArray();
+                return array;
+
+            default:
+                Object value = readScalar();
+
+                valueRead();
+                return value;
+        }
+    }
+
+
+    /**
+     * Read the remaining names of the current object into object - including its end
+     */
+    public void readObjectInto(JSONObject object) throws IOException, JSONException {
+
+        while(hasNext()) {
+            String name = nextName();
+
+            object.put(name, nextValue());
+        }
+        endObject();
+    }
+
+
+    public String nextString() throws IOException, JSONException {
+
+        Object value = nextValue();
+
+        return (value instanceof String)? (String) value : String.valueOf(value);
+    }
+
+
+    /**
+     * Skip the next value without materializing it
+     */
+    public void skipValue() throws IOException {
+
+        switch(peekClean()) {
+            case '{':
+                beginObject();
+                while(hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+                endObject();
+                break;
+
+            case '[':
+                beginArray();
+                while(hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                break;
+
+            default:
+                readScalar();
+                valueRead();
+                break;
+        }
+    }
+
+
+    /**
+     * @return the number of chars read so far
+     */
+    public long offset() {
+        return consumed + pos;
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+
+    //************ Tokenizer
+
+
+    private void push(int context) {
+
+        if(depth == stack.length) {
+            int[] grown = new int[depth * 2];
+
+            System.arraycopy(stack, 0, grown, 0, depth);
+            stack = grown;
+        }
+        stack[depth++] = context;
+
+        needSeparator = false;
+        needValue     = false;
+    }
+
+
+    private void pop(int context) throws IOException {
+
+        if(depth == 0 || stack[--depth] != context) {
+            throw syntaxError("Mismatched " + ((context == IN_OBJECT)? "'}'" : "']'"));
+        }
+        valueRead();
+    }
+
+
+    private void valueRead() {
+
+        needSeparator = depth > 0;
+        needValue     = false;
+    }
+
+
+    private void expect(int token) throws IOException {
+
+        if(peekClean() != token) {
+            throw syntaxError("Expected '" + (char) token + "'");
+        }
+        pos++;
+    }
+
+
+    /**
+     * @return the next significant character without consuming it - any pending value
+     *         separator is consumed first
+     */
+    private int peekClean() throws IOException {
+
+        int c = nextClean();
+
+        if(needSeparator && (c == ',' || c == ';')) {
+
+            needSeparator = false;
+            c = nextClean();
+        }
+
+        if(c != -1) {
+            unread();
+        }
+        if(needSeparator && c != '}' && c != ']' && c != -1) {
+            throw syntaxError("Expected ',' or a closing bracket");
+        }
+        return c;
+    }
+
+
+    private int read() throws IOException {
+
+        if(pos == limit) {
+
+            consumed += limit;
+
+            limit = in.read(buffer, 0, buffer.length);
+            pos   = 0;
+
+            if(limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[pos++];
+    }
+
+
+    /**
+     * Only valid directly after a read that returned a character
+     */
+    private void unread() {
+        pos--;
+    }
+
+
+    private int nextClean() throws IOException {
+
+        while(true) {
+            int c = read();
+
+            switch(c) {
+                case '\n':
+                    line++;
+                case ' ':
+                case '\t':
+                case '\r':
+                    continue;
+
+                case '/':
+                    int n = read();
+
+                    if(n == '*') {
+                        skipBlockComment();
+                        continue;
+                    }
+                    else if(n == '/') {
+                        skipToEndOfLine();
+                        continue;
+                    }
+                    if(n != -1) {
+                        unread();
+                    }
+                    return c;
+
+                case '#':
+                    skipToEndOfLine();
+                    continue;
+
+                default:
+                    return c;
+            }
+        }
+    }
+
+
+    private void skipToEndOfLine() throws IOException {
+
+        int c;
+
+        while((c = read()) != -1) {
+            if(c == '\n' || c == '\r') {
+                unread();
+                return;
+            }
+        }
+    }
+
+
+    private void skipBlockComment() throws IOException {
+
+        int prev = 0;
+        int c;
+
+        while((c = read()) != -1) {
+            if(c == '\n') {
+                line++;
+            }
+            if(prev == '*' && c == '/') {
+                return;
+            }
+            prev = c;
+        }
+        throw syntaxError("Unterminated comment");
+    }
+
+
+    private Object readScalar() throws IOException {
+
+        int c = nextClean();
+
+        if(c == '"' || c == '\'') {
+            return readString((char) c);
+        }
+        if(c == -1) {
+            throw syntaxError("Unexpected end of input");
+        }
+        unread();
+
+        return literal(readLiteral());
+    }
+
+
+    private String readString(char quote) throws IOException {
+
+        text.setLength(0);
+
+        while(true) {
+            int c = read();
+
+            if(c == quote) {
+                return text.toString();
+            }
+
+            switch(c) {
+                case -1:
+                    throw syntaxError("Unterminated string");
+
+                case '\\':
+                    c = read();
+
+                    switch(c) {
+                        case 't': text.append('\t'); break;
+                        case 'b': text.append('\b'); break;
+                        case 'n': text.append('\n'); break;
+                        case 'r': text.append('\r'); break;
+                        case 'f': text.append('\f'); break;
+
+                        case 'u':
+                            int code = 0;
+
+                            for(int i1 = 0 ; i1 < 4 ; i1++) {
+                                int digit = Character.digit(read(), 16);
+
+                                if(digit < 0) {
+                                    throw syntaxError("Invalid escape sequence");
+                                }
+                                code = (code << 4) + digit;
+                            }
+                            text.append((char) code);
+                            break;
+
+                        case -1:
+                            throw syntaxError("Unterminated escape sequence");
+
+                        default:
+                            text.append((char) c);
+                    }
+                    break;
+
+                default:
+                    text.append((char) c);
+            }
+        }
+    }
+
+
+    private String readLiteral() throws IOException {
+
+        text.setLength(0);
+
+        while(true) {
+            int c = read();
+
+            switch(c) {
+                case -1:
+                    return text.toString();
+
+                case '{': case '}': case '[': case ']': case '/': case '\\': case ':': case ',':
+                case '=': case ';': case '#': case ' ': case '\t': case '\f': case '\r': case '\n':
+                    unread();
+                    return text.toString();
+
+                default:
+                    text.append((char) c);
+            }
+        }
+    }
+
+
+    /**
+     * Convert an unquoted literal the way the org.json tokener does
+     */
+    private Object literal(String literal) throws IOException {
+
+        if(literal.length() == 0) {
+            throw syntaxError("Expected a literal value");
+        }
+        if("null".equalsIgnoreCase(literal)) {
+            return JSONObject.NULL;
+        }
+        if("true".equalsIgnoreCase(literal)) {
+            return Boolean.TRUE;
+        }
+        if("false".equalsIgnoreCase(literal)) {
+            return Boolean.FALSE;
+        }
+
+        if(literal.indexOf('.') == -1 && literal.indexOf('e') == -1 && literal.indexOf('E') == -1) {
+
+            String number = literal;
+            int    base   = 10;
+
+            if(number.startsWith("0x") || number.startsWith("0X")) {
+                number = number.substring(2);
+                base   = 16;
+            }
+            else if(number.startsWith("0") && number.length() > 1) {
+                number = number.substring(1);
+                base   = 8;
+            }
+
+            try {
+                long value = Long.parseLong(number, base);
+
+                if(value <= Integer.MAX_VALUE && value >= Integer.MIN_VALUE) {
+                    return (int) value;
+                }
+                return value;
+
+            } catch (NumberFormatException e) {
+                // not an integer - fall through
+            }
+        }
+
+        try {
+            return Double.valueOf(literal);
+
+        } catch (NumberFormatException e) {
+            // unquoted string
+        }
+
+        return literal;
+    }
+
+
+    private IOException syntaxError(String message) {
+        return new IOException(message + " at line " + line);
+    }
+}
@@ -644,6 +644,12 @@ public class TCONST {
     public static final String ROBOTUTOR_ASSET_FOLDER   = "/robotutor_assets/";
     public static final String GLYPHS_FOLDER            = "/glyphs/";
 
+    public static final String SNAPSHOT_FOLDER          = "/snapshots/";    // compiled spec caches - app private
+    public static final String MATRIX_SNAPSHOT          = ".rtmx";
+    public static final String TRACK_SNAPSHOT           = ".rtrk";
+
+    public static final int    SPEC_CACHE_BUDGET        = 2 * 1024 * 1024;  // est. heap bytes of descriptors kept parsed between tutor launches
+
 
     // Listener Control message types
     public static final String LISTENER_RESPONSE = "LISTENER_RESPONSE";
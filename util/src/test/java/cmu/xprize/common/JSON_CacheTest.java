@@ -0,0 +1,112 @@
+package cmu.xprize.common;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+
+import cmu.xprize.util.JSON_Cache;
+import cmu.xprize.util.JSON_Helper;
+import cmu.xprize.util.TCONST;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JSON_CacheTest {
+
+    @Test
+    public void evictsLeastRecentlyUsed() throws Exception {
+
+        JSON_Cache cache = new JSON_Cache(100);
+
+        JSONObject a = new JSONObject();
+        JSONObject b = new JSONObject();
+        JSONObject c = new JSONObject();
+
+        cache.put("a", 1, a, 40);
+        cache.put("b", 1, b, 40);
+
+        // touch a so b is the eldest
+        assertSame(a, cache.get("a", 1));
+
+        cache.put("c", 1, c, 40);
+
+        assertNull(cache.get("b", 1));
+        assertSame(a, cache.get("a", 1));
+        assertSame(c, cache.get("c", 1));
+        assertEquals(80, cache.size());
+
+        // a changed spec misses and is dropped
+        assertNull(cache.get("a", 2));
+        assertEquals(40, cache.size());
+
+        // too large to cache at all
+        cache.put("d", 1, new JSONObject(), 200);
+        assertNull(cache.get("d", 1));
+
+        // trimming keeps the budget - the cache refills afterwards
+        cache.put("b", 1, b, 40);
+        cache.trimTo(40);
+        assertEquals(40, cache.size());
+        assertSame(b, cache.get("b", 1));
+
+        cache.put("a", 1, a, 40);
+        assertEquals(80, cache.size());
+
+        cache.setBudget(0);
+        assertEquals(0, cache.size());
+    }
+
+
+    @Test
+    public void estimatesParsedSize() throws Exception {
+
+        String     source = "{\"name\":\"value\",\"list\":[1,2,true,null],\"child\":{\"a\":\"b\"}}";
+        JSONObject spec   = new JSONObject(source);
+
+        long size = JSON_Cache.retainedSize(spec);
+
+        // the tree is several times the size of its source
+        assertTrue(size > source.length() * 2 * 2);
+        assertTrue(size > JSON_Cache.retainedSize(spec.getJSONObject("child")) + JSON_Cache.retainedSize(spec.getJSONArray("list")));
+        assertEquals(0, JSON_Cache.retainedSize(Boolean.TRUE));
+    }
+
+
+    @Test
+    public void reusesParsedSpecUntilChanged() throws Exception {
+
+        File spec = File.createTempFile("descriptor", ".json");
+
+        write(spec, "{ // comment\n \"name\": \"first\", \"url\": \"http://x\" }");
+
+        JSONObject first = JSON_Helper.cacheJSON(spec.getPath(), TCONST.DEFINED);
+
+        assertEquals("first", first.getString("name"));
+        assertEquals("http://x", first.getString("url"));
+        assertSame(first, JSON_Helper.cacheJSON(spec.getPath(), TCONST.DEFINED));
+
+        write(spec, "{ \"name\": \"second, and longer\" }");
+        spec.setLastModified(spec.lastModified() + 2000);
+
+        JSONObject second = JSON_Helper.cacheJSON(spec.getPath(), TCONST.DEFINED);
+
+        assertNotSame(first, second);
+        assertEquals("second, and longer", second.getString("name"));
+
+        spec.delete();
+    }
+
+
+    private static void write(File file, String text) throws Exception {
+
+        FileWriter out = new FileWriter(file);
+
+        out.write(text);
+        out.close();
+    }
+}
@@ -0,0 +1,154 @@
+package cmu.xprize.common;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+import cmu.xprize.util.CAt_Data;
+import cmu.xprize.util.IScope;
+import cmu.xprize.util.IStreamLoadable;
+import cmu.xprize.util.JSON_Helper;
+import cmu.xprize.util.JSON_Reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Binds the Swahili transition matrix the way TransitionMatrixModel does - through parseSelf
+ * and parseStream.  Uses dev_data.open.json (RoboTutor.MATRIX_FILE) - dev_data.json
+ * has a duplicate key the strict desktop org.json rejects.
+ */
+public class JSON_HelperBindingTest {
+
+    private static final String DEV_DATA = "../app/src/main/assets/tutors/activity_selector/assets/data/sw/dev_data.open.json";
+
+    private static final HashMap<String, Class> classMap = new HashMap<>();
+
+    static {
+        classMap.put("TRANSITION", CAt_Data.class);
+    }
+
+
+    public static class DevData implements IStreamLoadable {
+
+        public String   rootSkillWrite;
+        public String   rootSkillStories;
+        public String   rootSkillMath;
+
+        public HashMap  writeTransitions;
+        public HashMap  storyTransitions;
+        public HashMap  mathTransitions;
+
+        @Override
+        public void loadJSON(JSONObject jsonObj, IScope scope) {
+            JSON_Helper.parseSelf(jsonObj, this, classMap, scope);
+        }
+
+        @Override
+        public void loadJSON(JSON_Reader reader, IScope scope) throws IOException {
+            JSON_Helper.parseStream(reader, this, classMap, scope);
+        }
+    }
+
+
+    private static String readDevData() throws IOException {
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(DEV_DATA), "UTF-8"));
+        StringBuilder  sb     = new StringBuilder();
+        String         line;
+
+        while ((line = reader.readLine()) != null) {
+            sb.append(line.replaceFirst("//.*$", ""));
+        }
+        reader.close();
+
+        return sb.toString();
+    }
+
+
+    private static DevData streamDevData() throws IOException {
+
+        JSON_Reader reader = new JSON_Reader(new InputStreamReader(new FileInputStream(DEV_DATA), "UTF-8"));
+        DevData     data   = new DevData();
+
+        try {
+            data.loadJSON(reader, null);
+        }
+        finally {
+            reader.close();
+        }
+        return data;
+    }
+
+
+    private static void assertSameTransitions(HashMap expected, HashMap actual) throws Exception {
+
+        assertEquals(expected.size(), actual.size());
+
+        for(Object entry : expected.entrySet()) {
+
+            Object key   = ((Map.Entry) entry).getKey();
+            Object value = ((Map.Entry) entry).getValue();
+
+            for(Field field : CAt_Data.class.getFields()) {
+                assertEquals(key + "." + field.getName(), field.get(value), field.get(actual.get(key)));
+            }
+        }
+    }
+
+
+    @Test
+    public void bindsDevData() throws Exception {
+
+        JSONObject json = new JSONObject(readDevData());
+
+        DevData data = new DevData();
+        data.loadJSON(json, null);
+
+        assertEquals(json.getJSONObject("writeTransitions").length(), data.writeTransitions.size());
+        assertEquals(json.getJSONObject("mathTransitions").length(), data.mathTransitions.size());
+        assertEquals(json.getString("rootSkillMath"), data.rootSkillMath);
+
+        CAt_Data entry = (CAt_Data) data.storyTransitions.get("story.hear::story_1");
+
+        assertNotNull(entry);
+        assertEquals("[encfolder]story_1", entry.tutor_data);
+        assertEquals(1, entry.row);
+        assertEquals(1, entry.col);
+
+        // Later binds go through the cached binding plans - they must bind the same values
+        //
+        DevData again = new DevData();
+        again.loadJSON(json, null);
+
+        assertEquals(data.rootSkillWrite, again.rootSkillWrite);
+        assertSameTransitions(data.writeTransitions, again.writeTransitions);
+        assertSameTransitions(data.storyTransitions, again.storyTransitions);
+        assertSameTransitions(data.mathTransitions, again.mathTransitions);
+    }
+
+
+    @Test
+    public void streamsDevData() throws Exception {
+
+        DevData expected = new DevData();
+        expected.loadJSON(new JSONObject(readDevData()), null);
+
+        DevData data = streamDevData();
+
+        assertEquals(expected.rootSkillWrite, data.rootSkillWrite);
+        assertEquals(expected.rootSkillStories, data.rootSkillStories);
+        assertEquals(expected.rootSkillMath, data.rootSkillMath);
+
+        assertSameTransitions(expected.writeTransitions, data.writeTransitions);
+        assertSameTransitions(expected.storyTransitions, data.storyTransitions);
+        assertSameTransitions(expected.mathTransitions, data.mathTransitions);
+    }
+}
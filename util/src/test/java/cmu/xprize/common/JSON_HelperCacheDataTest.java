@@ -0,0 +1,94 @@
+package cmu.xprize.common;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+
+import cmu.xprize.util.JSON_Helper;
+import cmu.xprize.util.TCONST;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JSON_HelperCacheDataTest {
+
+    private static final String TUTORS = "../app/src/main/assets/tutors";
+
+
+    /**
+     * The line by line reader cacheData used to be
+     */
+    private static String lineReader(String fileName) throws Exception {
+
+        StringBuilder buffer = new StringBuilder();
+        InputStream   in     = new FileInputStream(fileName);
+
+        BufferedReader br = new BufferedReader(new InputStreamReader(in));
+        String line = null;
+
+        while ((line = br.readLine()) != null) {
+
+            line = line.replaceFirst("//.*$","");
+            buffer.append(line);
+        }
+        in.close();
+
+        return buffer.toString();
+    }
+
+
+    private static void collect(File folder, ArrayList<String> specs) {
+
+        File[] files = folder.listFiles();
+
+        if(files != null) {
+            for(File file : files) {
+                if(file.isDirectory()) {
+                    collect(file, specs);
+                }
+                else if(file.getName().endsWith(".json")) {
+                    specs.add(file.getPath());
+                }
+            }
+        }
+    }
+
+
+    @Test
+    public void matchesLineReader() throws Exception {
+
+        File spec = File.createTempFile("spec", ".json");
+        FileWriter out = new FileWriter(spec);
+
+        out.write("{ // comment\r\n\"a\": \"x//y\",\r\"b\":\n  1 }//\n\n// last");
+        out.close();
+
+        assertEquals(lineReader(spec.getPath()), JSON_Helper.cacheData(spec.getPath(), TCONST.DEFINED));
+        assertEquals("", JSON_Helper.cacheData(spec.getPath() + ".missing", TCONST.DEFINED));
+
+        spec.delete();
+    }
+
+
+    /**
+     * Reads every spec shipped in the tutors assets both ways - the results must match
+     */
+    @Test
+    public void matchesLineReaderOnTutorAssets() throws Exception {
+
+        ArrayList<String> specs = new ArrayList<>();
+
+        collect(new File(TUTORS), specs);
+        assertTrue(specs.size() > 0);
+
+        for(String spec : specs) {
+            assertEquals(spec, lineReader(spec), JSON_Helper.cacheData(spec, TCONST.DEFINED));
+        }
+    }
+}
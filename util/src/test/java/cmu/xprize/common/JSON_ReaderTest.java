@@ -0,0 +1,157 @@
+package cmu.xprize.common;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+
+import cmu.xprize.util.ILoadableObject;
+import cmu.xprize.util.IScope;
+import cmu.xprize.util.IStreamLoadable;
+import cmu.xprize.util.JSON_Helper;
+import cmu.xprize.util.JSON_Reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class JSON_ReaderTest {
+
+    private static final HashMap<String, Class> classMap = new HashMap<>();
+
+    static {
+        classMap.put("NODE", Node.class);
+        classMap.put("GRAPH", Graph.class);
+    }
+
+
+    public static class Node implements ILoadableObject {
+
+        public String type;
+        public String maptype;
+        public String mapname;
+        public String value;
+        public String shared;
+        public int    count;
+
+        @Override
+        public void loadJSON(JSONObject jsonObj, IScope scope) {
+            JSON_Helper.parseSelf(jsonObj, this, classMap, scope);
+        }
+    }
+
+
+    public static class Graph implements IStreamLoadable {
+
+        public String   type;
+        public String   title;
+        public float    version;
+        public boolean  enabled;
+        public String[] tags;
+        public HashMap  nodeMap;
+        public HashMap  moduleMap;
+
+        @Override
+        public void loadJSON(JSONObject jsonObj, IScope scope) {
+            JSON_Helper.parseSelf(jsonObj, this, classMap, scope);
+        }
+
+        @Override
+        public void loadJSON(JSON_Reader reader, IScope scope) throws IOException {
+            JSON_Helper.parseStream(reader, this, classMap, scope);
+        }
+    }
+
+
+    public static class Root implements IStreamLoadable {
+
+        public HashMap graphs;
+
+        @Override
+        public void loadJSON(JSONObject jsonObj, IScope scope) {
+            JSON_Helper.parseSelf(jsonObj, this, classMap, scope);
+        }
+
+        @Override
+        public void loadJSON(JSON_Reader reader, IScope scope) throws IOException {
+            JSON_Helper.parseStream(reader, this, classMap, scope);
+        }
+    }
+
+
+    private static final String SPEC =
+            "{\n" +
+            "  // comments and relaxed syntax as used in the tutor specs\n" +
+            "  \"graphs\": {\n" +
+            "    \"COMMENT\": \"skipped\",\n" +
+            "    \"main\": {\n" +
+            "      \"type\": \"GRAPH\",\n" +
+            "      \"title\": 'single quoted',\n" +
+            "      /* block\n comment */\n" +
+            "      \"version\": \"1.5\", \"enabled\": true, \"unused\": {\"a\": [1, 2, {\"b\": null}]},\n" +
+            "      \"tags\": [\"x\", \"y\\u0041\", ],\n" +
+            "      \"nodeMap\": {\n" +
+            "        \"START\": {\"type\": \"NODE\", \"maptype\": \"moduleMap\", \"mapname\": \"BASE\", \"value\": \"override\"},\n" +
+            "        \"END\":   {\"type\": \"NODE\", \"value\": \"end\", \"count\": 3}\n" +
+            "      },\n" +
+            "      \"moduleMap\": {\n" +
+            "        \"BASE\": {\"type\": \"NODE\", \"value\": \"base\", \"shared\": \"from module\"},\n" +
+            "      }\n" +
+            "    }\n" +
+            "  }\n" +
+            "}\n";
+
+
+    @Test
+    public void readsRelaxedSyntax() throws Exception {
+
+        JSON_Reader reader = new JSON_Reader(new StringReader("{a: 1; 'b' => [true, 0x10, 2.5e1, x], c = null, # note\n d: 'q\\'s' }"));
+
+        JSONObject json = (JSONObject) reader.nextValue();
+
+        assertEquals(1, json.get("a"));
+        assertEquals(16, json.getJSONArray("b").get(1));
+        assertEquals(25.0, json.getJSONArray("b").getDouble(2), 0);
+        assertEquals("x", json.getJSONArray("b").get(3));
+        assertEquals(JSONObject.NULL, json.get("c"));
+        assertEquals("q's", json.get("d"));
+        assertEquals(JSON_Reader.END_DOCUMENT, reader.peek());
+    }
+
+
+    @Test
+    public void streamMatchesParseSelf() throws Exception {
+
+        Root streamed = new Root();
+        streamed.loadJSON(new JSON_Reader(new StringReader(SPEC)), null);
+
+        Graph graph = (Graph) streamed.graphs.get("main");
+
+        assertFalse(streamed.graphs.containsKey("COMMENT"));
+        assertEquals("single quoted", graph.title);
+        assertEquals(1.5f, graph.version, 0);
+        assertEquals(true, graph.enabled);
+        assertEquals(2, graph.tags.length);
+        assertEquals("yA", graph.tags[1]);
+
+        // maptype element bound from its module then overridden by its own spec
+        Node start = (Node) graph.nodeMap.get("START");
+
+        assertEquals("override", start.value);
+        assertEquals("from module", start.shared);
+        assertEquals(3, ((Node) graph.nodeMap.get("END")).count);
+        assertNull(((Node) graph.nodeMap.get("END")).shared);
+
+        // the same spec through the JSONObject path - desktop org.json is strict
+        Root tree = new Root();
+        tree.loadJSON(new JSONObject(SPEC.replaceAll("(?s)/\\*.*?\\*/|//[^\n]*", "").replaceAll(",\\s*([\\]}])", "$1")), null);
+
+        Node treeStart = (Node) ((Graph) tree.graphs.get("main")).nodeMap.get("START");
+
+        assertEquals(treeStart.value, start.value);
+        assertEquals(treeStart.shared, start.shared);
+        assertEquals(((Graph) tree.graphs.get("main")).moduleMap.size(), graph.moduleMap.size());
+    }
+}